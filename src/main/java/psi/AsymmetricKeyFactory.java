@@ -8,13 +8,14 @@ import org.bouncycastle.jce.spec.ECParameterSpec;
 import org.bouncycastle.math.ec.ECPoint;
 import psi.exception.KeyGenerationException;
 import psi.model.PsiAlgorithm;
+import psi.model.PsiAlgorithmParameter;
 
 import javax.crypto.spec.DHParameterSpec;
 import javax.crypto.spec.DHPrivateKeySpec;
 import java.math.BigInteger;
 import java.security.*;
 import java.security.spec.InvalidKeySpecException;
-import java.security.spec.RSAPrivateKeySpec;
+import java.security.spec.RSAPrivateCrtKeySpec;
 import java.security.spec.RSAPublicKeySpec;
 
 /**
@@ -27,13 +28,15 @@ class AsymmetricKeyFactory {
     private AsymmetricKeyFactory() {}
 
     /**
-     * Generates a server key for the input PSI algorithm and keySize.
+     * Generates a server key for the PSI algorithm, keySize and curve of the input PsiAlgorithmParameter.
      *
-     * @param algorithm a PsiAlgorithm enum. Should be either EC, BS, ECDH or ECBS, else throws an exception
-     * @param keySize   size of the key
+     * @param psiAlgorithmParameter parameters of the session. Its algorithm should be either DH, BS, ECDH, ECBS,
+     *                              ECDH25519 or ECBS25519, else throws an exception
      * @return PsiServerKeyDescription containing the generated key
      */
-    static PsiServerKeyDescription generateServerKeyDescription(PsiAlgorithm algorithm, int keySize) {
+    static PsiServerKeyDescription generateServerKeyDescription(PsiAlgorithmParameter psiAlgorithmParameter) {
+        PsiAlgorithm algorithm = psiAlgorithmParameter.getAlgorithm();
+        int keySize = psiAlgorithmParameter.getKeySize();
         if (algorithm.equals(PsiAlgorithm.BS) || algorithm.equals(PsiAlgorithm.DH)) {
             AsymmetricKey asymmetricKey = generateKey(algorithm, keySize);
             if (algorithm.equals(PsiAlgorithm.BS))
@@ -41,7 +44,12 @@ class AsymmetricKeyFactory {
                         .createBsServerKeyDescription(
                                 CustomTypeConverter.convertBigIntegerToString(asymmetricKey.privateExponent),
                                 CustomTypeConverter.convertBigIntegerToString(asymmetricKey.publicExponent),
-                                CustomTypeConverter.convertBigIntegerToString(asymmetricKey.modulus));
+                                CustomTypeConverter.convertBigIntegerToString(asymmetricKey.modulus),
+                                CustomTypeConverter.convertBigIntegerToString(asymmetricKey.primeP),
+                                CustomTypeConverter.convertBigIntegerToString(asymmetricKey.primeQ),
+                                CustomTypeConverter.convertBigIntegerToString(asymmetricKey.primeExponentP),
+                                CustomTypeConverter.convertBigIntegerToString(asymmetricKey.primeExponentQ),
+                                CustomTypeConverter.convertBigIntegerToString(asymmetricKey.crtCoefficient));
             else
                 return PsiServerKeyDescriptionFactory
                         .createDhServerKeyDescription(
@@ -51,7 +59,7 @@ class AsymmetricKeyFactory {
         }
 
         if (algorithm.equals(PsiAlgorithm.ECBS) || algorithm.equals(PsiAlgorithm.ECDH)) {
-            AsymmetricEcKey asymmetricEcKey = generateEcKey(algorithm, keySize);
+            AsymmetricEcKey asymmetricEcKey = generateEcKey(algorithm, EllipticCurve.getNameCurve(psiAlgorithmParameter));
             if(algorithm.equals(PsiAlgorithm.ECBS))
                 return PsiServerKeyDescriptionFactory
                         .createEcBsServerKeyDescription(
@@ -63,6 +71,19 @@ class AsymmetricKeyFactory {
                                 CustomTypeConverter.convertBigIntegerToString(asymmetricEcKey.privateD));
         }
 
+        if (algorithm.equals(PsiAlgorithm.ECBS25519) || algorithm.equals(PsiAlgorithm.ECDH25519)) {
+            BigInteger privateD = Ristretto255.generateScalar();
+            if(algorithm.equals(PsiAlgorithm.ECBS25519))
+                return PsiServerKeyDescriptionFactory
+                        .createEcBsServerKeyDescription(
+                                CustomTypeConverter.convertBigIntegerToString(privateD),
+                                CustomTypeConverter.convertRistretto255PointToString(Ristretto255.getGeneratorMultiplier().multiply(privateD)));
+            else
+                return PsiServerKeyDescriptionFactory
+                        .createEcDhServerKeyDescription(
+                                CustomTypeConverter.convertBigIntegerToString(privateD));
+        }
+
         throw new KeyGenerationException("Algorithm not supported");
     }
 
@@ -119,53 +140,46 @@ class AsymmetricKeyFactory {
         keyGenerator.initialize(keySize);
         KeyPair pair = keyGenerator.genKeyPair();
 
-        BigInteger privateExponent;
-        BigInteger publicExponent = null;
-        BigInteger modulus;
-        BigInteger generator = null;
-
         try {
             switch (algorithm) {
                 case BS:
-                    RSAPrivateKeySpec rsaPrivateKeySpec = keyFactory.getKeySpec(pair.getPrivate(), RSAPrivateKeySpec.class);
+                    RSAPrivateCrtKeySpec rsaPrivateCrtKeySpec = keyFactory.getKeySpec(pair.getPrivate(), RSAPrivateCrtKeySpec.class);
                     RSAPublicKeySpec rsaPublicKeySpec = keyFactory.getKeySpec(pair.getPublic(), RSAPublicKeySpec.class);
-                    modulus = (rsaPrivateKeySpec.getModulus());
-                    privateExponent = (rsaPrivateKeySpec.getPrivateExponent());
-                    publicExponent = (rsaPublicKeySpec.getPublicExponent());
-                    break;
+                    AsymmetricKey rsaKey = new AsymmetricKey(rsaPrivateCrtKeySpec.getPrivateExponent(), rsaPublicKeySpec.getPublicExponent(), rsaPrivateCrtKeySpec.getModulus(), null);
+                    rsaKey.primeP = rsaPrivateCrtKeySpec.getPrimeP();
+                    rsaKey.primeQ = rsaPrivateCrtKeySpec.getPrimeQ();
+                    rsaKey.primeExponentP = rsaPrivateCrtKeySpec.getPrimeExponentP();
+                    rsaKey.primeExponentQ = rsaPrivateCrtKeySpec.getPrimeExponentQ();
+                    rsaKey.crtCoefficient = rsaPrivateCrtKeySpec.getCrtCoefficient();
+                    return rsaKey;
                 case DH:
                     DHPrivateKeySpec dhPrivateKeySpec = keyFactory.getKeySpec(pair.getPrivate(), DHPrivateKeySpec.class);
-                    modulus = dhPrivateKeySpec.getP();
-                    privateExponent = dhPrivateKeySpec.getX();
-                    generator = dhPrivateKeySpec.getG();
-                    break;
+                    return new AsymmetricKey(dhPrivateKeySpec.getX(), null, dhPrivateKeySpec.getP(), dhPrivateKeySpec.getG());
                 default:
                     throw new KeyGenerationException("KeySpec is invalid. Verify whether both the input algorithm and key size are correct and compatible.");
             }
         } catch (InvalidKeySpecException e) {
             throw new KeyGenerationException("KeySpec is invalid. Verify whether both the input algorithm and key size are correct and compatible.");
         }
-
-        return new AsymmetricKey(privateExponent, publicExponent, modulus, generator);
     }
 
 
     /**
-     * Generates an ECDH or ECBS key from scratch with the key size passed as parameter.
+     * Generates an ECDH or ECBS key from scratch on the curve passed as parameter.
      * It is intended to be used by servers and clients running the ECDH or ECBS algorithm.
      *
      * @param algorithm a PsiAlgorithm enum. Should be either ECDH or ECBS, else throws an exception
-     * @param keySize   size of the key
+     * @param curveName name of the curve, as returned by EllipticCurve.getNameCurve
      * @return an AsymmetricEcKey object which contains the fields that describe the key
      */
-    static AsymmetricEcKey generateEcKey(PsiAlgorithm algorithm, int keySize) {
+    static AsymmetricEcKey generateEcKey(PsiAlgorithm algorithm, String curveName) {
         ECParameterSpec ecSpec;
         Security.addProvider(new BouncyCastleProvider());
 
         KeyPairGenerator keyGenerator;
         try {
             keyGenerator = KeyPairGenerator.getInstance("EC", "BC");
-            ecSpec = ECNamedCurveTable.getParameterSpec(EllipticCurve.getNameCurve(keySize));
+            ecSpec = ECNamedCurveTable.getParameterSpec(curveName);
             keyGenerator.initialize(ecSpec, new SecureRandom());
         } catch (InvalidAlgorithmParameterException | NoSuchAlgorithmException | NoSuchProviderException e) {
             throw new KeyGenerationException(algorithm + " key generator not available");
@@ -206,6 +220,13 @@ class AsymmetricKeyFactory {
         BigInteger modulus;
         BigInteger generator;
 
+        // CRT parameters, only set for RSA keys
+        BigInteger primeP;
+        BigInteger primeQ;
+        BigInteger primeExponentP;
+        BigInteger primeExponentQ;
+        BigInteger crtCoefficient;
+
         AsymmetricKey(BigInteger privateExponent, BigInteger publicExponent, BigInteger modulus, BigInteger generator) {
             this.privateExponent = privateExponent;
             this.publicExponent = publicExponent;
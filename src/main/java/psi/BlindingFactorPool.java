@@ -0,0 +1,122 @@
+package psi;
+
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Stores blinding factors computed in background, before the client dataset is available, so that the encryption
+ * phase of the client only has to combine them with the input values.
+ * Each blinding factor is returned at most once. When the pool is empty, a new blinding factor is computed inline,
+ * hence the pool never changes the result of the encryption, only the moment in which the blinding factors are
+ * computed. The pool holds at most MAX_SIZE blinding factors, and the background computation runs on the executor of
+ * the client in tasks of FILL_BATCH_SIZE blinding factors, so that the tasks of the other phases are not delayed until
+ * the whole pool has been filled.
+ *
+ * @param <T> type of the values composing a blinding factor
+ */
+class BlindingFactorPool<T> {
+
+    // Maximum number of blinding factors stored in the pool, further requests are ignored
+    static final int MAX_SIZE = 1 << 16;
+    // Number of blinding factors computed by a task before it submits the following one
+    private static final int FILL_BATCH_SIZE = 1 << 6;
+
+    private final Supplier<BlindingFactor<T>> generator;
+    private final Queue<BlindingFactor<T>> queue;
+    // Number of blinding factors requested but not yet computed
+    private final AtomicInteger pending;
+
+    BlindingFactorPool(Supplier<BlindingFactor<T>> generator) {
+        this.generator = generator;
+        this.queue = new LinkedBlockingQueue<>(MAX_SIZE);
+        this.pending = new AtomicInteger(0);
+    }
+
+    /**
+     * Requests the background computation of count blinding factors, using at most the input number of tasks of the
+     * input executor at once. The blinding factors that would exceed MAX_SIZE are not computed. This method returns
+     * immediately.
+     *
+     * @param count           number of blinding factors to be added to the pool
+     * @param threads         maximum number of tasks running at once
+     * @param executorService executor that runs the tasks
+     */
+    synchronized void precompute(int count, int threads, ExecutorService executorService) {
+        if (count <= 0)
+            throw new IllegalArgumentException("'count' must be greater than 0");
+        if (threads <= 0)
+            throw new IllegalArgumentException("'threads' must be greater than 0");
+
+        int accepted = Math.min(count, MAX_SIZE - this.queue.size() - this.pending.get());
+        if (accepted <= 0)
+            return;
+        this.pending.addAndGet(accepted);
+        for (int i = 0; i < Math.min(accepted, threads); i++)
+            submitFill(executorService);
+    }
+
+    private void submitFill(ExecutorService executorService) {
+        try {
+            executorService.execute(() -> CpuPermits.run(() -> fill(executorService)));
+        } catch (RejectedExecutionException e) {
+            // The blinding factors that cannot be computed in background are computed inline by take
+            this.pending.set(0);
+        }
+    }
+
+    // Computes up to FILL_BATCH_SIZE of the requested blinding factors, then submits a new task if some are missing
+    private void fill(ExecutorService executorService) {
+        for (int i = 0; i < FILL_BATCH_SIZE; i++) {
+            if (this.pending.getAndUpdate(value -> value > 0 ? value - 1 : 0) <= 0)
+                return;
+            this.queue.offer(this.generator.get());
+        }
+        submitFill(executorService);
+    }
+
+    /**
+     * Returns a precomputed blinding factor, removing it from the pool. If the pool is empty, a new blinding factor
+     * is computed by the calling thread.
+     *
+     * @return a blinding factor that was never returned before
+     */
+    BlindingFactor<T> take() {
+        BlindingFactor<T> blindingFactor = this.queue.poll();
+        return blindingFactor != null ? blindingFactor : this.generator.get();
+    }
+
+    /**
+     * @return the number of blinding factors currently available in the pool
+     */
+    int size() {
+        return this.queue.size();
+    }
+
+    /**
+     * Pair composed by a random value, which is kept by the client to reverse the blinding, and its blinded
+     * counterpart, which is combined with the input value during the encryption.
+     *
+     * @param <T> type of the values composing the blinding factor
+     */
+    static class BlindingFactor<T> {
+        private final T randomValue;
+        private final T blindingValue;
+
+        BlindingFactor(T randomValue, T blindingValue) {
+            this.randomValue = randomValue;
+            this.blindingValue = blindingValue;
+        }
+
+        T getRandomValue() {
+            return this.randomValue;
+        }
+
+        T getBlindingValue() {
+            return this.blindingValue;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package psi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import psi.model.PsiAlgorithmParameter;
+import psi.model.PsiServerFilter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter containing the String representations of encrypted values, used to transfer and probe the encrypted
+ * server dataset. The positions of each value are obtained by double hashing from two 64-bit hashes of its String
+ * representation: since the encrypted values (and their fingerprints) are already indistinguishable from random
+ * values, a fast non-cryptographic hash is enough to spread them uniformly over the filter.
+ * Once built, the filter is never modified, thus it can be probed concurrently by multiple threads.
+ */
+class BloomFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(BloomFilter.class);
+
+    private static final double LN2 = Math.log(2);
+
+    private final long numBits;
+    private final int numHashFunctions;
+    private final long[] bitArray;
+
+    private BloomFilter(long numBits, int numHashFunctions, long[] bitArray) {
+        this.numBits = numBits;
+        this.numHashFunctions = numHashFunctions;
+        this.bitArray = bitArray;
+    }
+
+    /**
+     * Builds the filter containing the input values, sized to obtain the input probability of false positives.
+     *
+     * @param values                   String representations of the encrypted values
+     * @param falsePositiveProbability probability that a value not contained in the filter is reported as contained
+     * @param sharedExecutorService    executor that runs the threads
+     * @param threads                  number of threads used to insert the values
+     * @param threadTimeoutSeconds     maximum time waited for the threads
+     * @return the BloomFilter containing all the input values
+     */
+    static BloomFilter build(Set<String> values, double falsePositiveProbability, ExecutorService sharedExecutorService,
+                             int threads, int threadTimeoutSeconds) {
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1))
+            throw new IllegalArgumentException("'falsePositiveProbability' must be between 0 and 1");
+
+        // Optimal size m = -n*ln(p)/ln(2)^2 and number of hash functions k = m/n*ln(2)
+        long numValues = Math.max(1, values.size());
+        long numBits = Math.max(Long.SIZE, (long) Math.ceil(-numValues * Math.log(falsePositiveProbability) / (LN2 * LN2)));
+        int numHashFunctions = Math.max(1, (int) Math.round((double) numBits / numValues * LN2));
+        log.debug("Building a filter of {} bits with {} hash functions for {} values", numBits, numHashFunctions, values.size());
+
+        AtomicLongArray atomicBitArray = new AtomicLongArray(Math.toIntExact((numBits + Long.SIZE - 1) / Long.SIZE));
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(values, threads);
+        ExecutorService executorService = new PhaseExecutor(sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for (String value : partition) {
+                        long hash1 = hash(value);
+                        long hash2 = secondHash(hash1);
+                        for (int i = 0; i < numHashFunctions; i++) {
+                            long position = Math.floorMod(hash1 + i * hash2, numBits);
+                            int index = (int) (position >>> 6);
+                            long mask = 1L << position;
+                            long current = atomicBitArray.get(index);
+                            while ((current & mask) == 0 && !atomicBitArray.compareAndSet(index, current, current | mask))
+                                current = atomicBitArray.get(index);
+                        }
+                    }
+                }
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, threadTimeoutSeconds, log);
+
+        long[] bitArray = new long[atomicBitArray.length()];
+        for (int i = 0; i < bitArray.length; i++)
+            bitArray[i] = atomicBitArray.get(i);
+        return new BloomFilter(numBits, numHashFunctions, bitArray);
+    }
+
+    /**
+     * Loads the filter contained in a PsiServerFilter, without copying its bits.
+     *
+     * @param psiServerFilter filter returned by PsiServer.encryptDatasetFilter
+     * @return the BloomFilter backed by the bits of the PsiServerFilter
+     */
+    static BloomFilter fromPsiServerFilter(PsiServerFilter psiServerFilter) {
+        if (psiServerFilter.getNumBits() == null || psiServerFilter.getNumHashFunctions() == null || psiServerFilter.getBitArray() == null
+                || psiServerFilter.getNumBits() <= 0 || psiServerFilter.getNumHashFunctions() <= 0
+                || psiServerFilter.getBitArray().length != (psiServerFilter.getNumBits() + Long.SIZE - 1) / Long.SIZE)
+            throw new IllegalArgumentException("The fields numBits, numHashFunctions and bitArray of the PsiServerFilter are missing or inconsistent");
+        return new BloomFilter(psiServerFilter.getNumBits(), psiServerFilter.getNumHashFunctions(), psiServerFilter.getBitArray());
+    }
+
+    PsiServerFilter toPsiServerFilter(PsiAlgorithmParameter psiAlgorithmParameter) {
+        return new PsiServerFilter(psiAlgorithmParameter, this.numBits, this.numHashFunctions, this.bitArray);
+    }
+
+    /**
+     * Checks whether the input value might be contained in the filter.
+     *
+     * @param value String representation of the encrypted value
+     * @return false if the value is certainly not contained in the filter, true if it is contained or in case of a
+     * false positive
+     */
+    boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = secondHash(hash1);
+        for (int i = 0; i < this.numHashFunctions; i++) {
+            long position = Math.floorMod(hash1 + i * hash2, this.numBits);
+            if ((this.bitArray[(int) (position >>> 6)] & (1L << position)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    // 64-bit FNV-1a hash of the characters of the value, followed by the finalizer of MurmurHash3. It is not keyed,
+    // since the filter built by the server is probed by the client
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // The second hash is odd, so that consecutive positions never coincide when numBits is a power of two
+    private static long secondHash(long hash) {
+        return mix(hash ^ 0x9e3779b97f4a7c15L) | 1L;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -22,6 +22,11 @@ class CacheObjectEcEncrypted implements CacheObject, Serializable {
         this.encryptedValue = encryptedValue.getEncoded(true);
     }
 
+    // Used by the algorithms based on the ristretto255 group, whose elements are stored through their encoding
+    CacheObjectEcEncrypted(byte[] encodedValue) {
+        this.encryptedValue = encodedValue.clone();
+    }
+
     ECPoint getEncryptedValue(ECCurve curve) {
         return curve.decodePoint(this.encryptedValue);
     }
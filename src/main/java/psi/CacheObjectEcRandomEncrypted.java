@@ -26,6 +26,12 @@ class CacheObjectEcRandomEncrypted implements CacheObject, Serializable {
         this.encryptedValue = encryptedValue.getEncoded(true);
     }
 
+    // Used by the algorithms based on the ristretto255 group, whose elements are stored through their encoding
+    CacheObjectEcRandomEncrypted(byte[] encodedRandomValue, byte[] encodedEncryptedValue) {
+        this.randomValue = encodedRandomValue.clone();
+        this.encryptedValue = encodedEncryptedValue.clone();
+    }
+
     ECPoint getRandomValue(ECCurve curve) {
         return curve.decodePoint(this.randomValue);
     }
@@ -2,6 +2,7 @@ package psi;
 
 import psi.cache.PsiCacheProvider;
 import psi.exception.CustomRuntimeException;
+import psi.model.PsiHashToCurveMode;
 import psi.model.PsiKeyDescription;
 
 import java.math.BigInteger;
@@ -26,7 +27,39 @@ class CacheUtils {
      * @return the keyId corresponding to the input keyDescription
      */
     static Long getKeyId(PsiKeyDescription keyDescription, PsiCacheProvider psiCacheProvider) {
-        String base64KeyDescription = CustomTypeConverter.getInstance().convertObjectToString(keyDescription);
+        return getKeyId(keyDescription, null, psiCacheProvider);
+    }
+
+    /**
+     * Retrieves the keyId corresponding to the keyDescription and the method used to map messages to the curve if
+     * present, otherwise a new keyId is generated and stored. Since the mapping of the messages affects the result of
+     * the encryption, different modes are associated to different keyIds. The default mode (null or
+     * TRY_AND_INCREMENT) is associated to the same keyId returned by getKeyId(keyDescription, psiCacheProvider).
+     * @param keyDescription    object containing the keys used by the encryption function
+     * @param hashToCurveMode   method used to map messages to the curve, can be null
+     * @param psiCacheProvider  cache provider implementation
+     * @return the keyId corresponding to the input keyDescription and hashToCurveMode
+     */
+    static Long getKeyId(PsiKeyDescription keyDescription, PsiHashToCurveMode hashToCurveMode, PsiCacheProvider psiCacheProvider) {
+        if (hashToCurveMode != null && hashToCurveMode != PsiHashToCurveMode.TRY_AND_INCREMENT)
+            return getKeyIdInner(keyDescription, ":" + hashToCurveMode.name(), psiCacheProvider);
+        return getKeyIdInner(keyDescription, "", psiCacheProvider);
+    }
+
+    /**
+     * Retrieves the keyId corresponding to the keyDescription of the ECDH25519 and ECBS25519 algorithms if present,
+     * otherwise a new keyId is generated and stored. These algorithms use the same fields of the keyDescription as
+     * ECDH and ECBS, thus they are associated to a different keyId to avoid mixing the results of the two groups.
+     * @param keyDescription    object containing the keys used by the encryption function
+     * @param psiCacheProvider  cache provider implementation
+     * @return the keyId corresponding to the input keyDescription in the ristretto255 group
+     */
+    static Long getRistretto255KeyId(PsiKeyDescription keyDescription, PsiCacheProvider psiCacheProvider) {
+        return getKeyIdInner(keyDescription, ":ristretto255", psiCacheProvider);
+    }
+
+    private static Long getKeyIdInner(PsiKeyDescription keyDescription, String suffix, PsiCacheProvider psiCacheProvider) {
+        String base64KeyDescription = CustomTypeConverter.getInstance().convertObjectToString(keyDescription) + suffix;
         try {
             // A digest of the keyDescription is used to link a keyId to the provided keyDescription.
             // In this way the sdk can transparently notice when a keyDescription is reused, exploiting the cache content.
@@ -70,7 +103,7 @@ class CacheUtils {
      */
     static <T> Optional<T> getCachedObject(Long keyId, CacheOperationType cacheObjectType, BigInteger input, Class<T> typeParameterClass, PsiCacheProvider psiCacheProvider){
         String key = generateKeyString(keyId, cacheObjectType, input);
-        Optional<String> cachedValueBase64 = psiCacheProvider.get(key);
+        Optional<String> cachedValueBase64 = CpuPermits.blocking(() -> psiCacheProvider.get(key));
         if(!cachedValueBase64.isPresent())
             return Optional.empty();
         T cachedObject = CustomTypeConverter.getInstance().convertStringToObject(cachedValueBase64.get(), typeParameterClass);
@@ -90,6 +123,6 @@ class CacheUtils {
     static void putCachedObject(Long keyId, CacheOperationType cacheObjectType, BigInteger input, CacheObject output, PsiCacheProvider psiCacheProvider){
         String key = generateKeyString(keyId, cacheObjectType, input);
         String value = CustomTypeConverter.getInstance().convertObjectToString(output);
-        psiCacheProvider.put(key, value);
+        CpuPermits.blocking(() -> psiCacheProvider.put(key, value));
     }
 }
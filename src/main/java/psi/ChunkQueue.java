@@ -0,0 +1,114 @@
+package psi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out the elements of a collection to the threads of a phase in small chunks, each taken by a thread as soon as
+ * it has processed the previous one. Differently from the partitions returned by PartitionHelper, the collection is
+ * not copied, and a thread that finds cheap elements (e.g., cache hits) takes more chunks than a thread that finds
+ * expensive ones, thus the threads finish together.
+ * The chunks are small enough that each thread takes about CHUNKS_PER_WORKER of them, but not larger than
+ * MAX_CHUNK_SIZE elements, while the elements of a chunk are processed together, e.g., normalized with a single
+ * inversion.
+ *
+ * @param <T> type of the elements
+ */
+class ChunkQueue<T> {
+
+    private static final int CHUNKS_PER_WORKER = 8;
+    private static final int MAX_CHUNK_SIZE = 1 << 10;
+
+    private final Iterator<T> iterator;
+    private final int chunkSize;
+    private final int workers;
+
+    /**
+     * Creates the queue of the chunks of the input collection, which should not be modified until all the chunks have
+     * been taken.
+     *
+     * @param collection collection whose elements are handed out
+     * @param threads    number of threads of the phase
+     */
+    ChunkQueue(Collection<T> collection, int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("'threads' must be greater than 0");
+        this.iterator = collection.iterator();
+        this.chunkSize = chunkSize(collection.size(), threads);
+        this.workers = workers(collection.size(), this.chunkSize, threads);
+    }
+
+    // Returns the following chunk, or an empty list if all the elements have been handed out or the phase has been
+    // cancelled
+    List<T> nextChunk() {
+        if (PhaseExecutor.isCurrentPhaseCancelled())
+            return Collections.emptyList();
+        List<T> chunk = new ArrayList<>(this.chunkSize);
+        synchronized (this) {
+            while (chunk.size() < this.chunkSize && this.iterator.hasNext())
+                chunk.add(this.iterator.next());
+        }
+        return chunk.isEmpty() ? Collections.emptyList() : chunk;
+    }
+
+    // Number of threads worth starting, which is smaller than the configured one if there are fewer chunks
+    int getWorkers() {
+        return this.workers;
+    }
+
+    private static int chunkSize(long size, int threads) {
+        return (int) Math.max(1, Math.min(MAX_CHUNK_SIZE, size / ((long) threads * CHUNKS_PER_WORKER)));
+    }
+
+    private static int workers(long size, int chunkSize, int threads) {
+        return (int) Math.max(1, Math.min(threads, (size + chunkSize - 1) / chunkSize));
+    }
+
+    /**
+     * Hands out a range of keys, such as the keys assigned to the client dataset, in small contiguous ranges, in the
+     * same way as the elements of a collection.
+     */
+    static class OfRange {
+
+        private final AtomicLong next;
+        private final long to;
+        private final int chunkSize;
+        private final int workers;
+
+        /**
+         * Creates the queue of the chunks of the range [from, to).
+         *
+         * @param from    first value of the range
+         * @param to      value following the last value of the range
+         * @param threads number of threads of the phase
+         */
+        OfRange(long from, long to, int threads) {
+            if (threads <= 0)
+                throw new IllegalArgumentException("'threads' must be greater than 0");
+            long size = Math.max(0, to - from);
+            this.next = new AtomicLong(from);
+            this.to = to;
+            this.chunkSize = chunkSize(size, threads);
+            this.workers = workers(size, this.chunkSize, threads);
+        }
+
+        // Returns the following range, as an array containing its first value and the value following its last value,
+        // or null if the whole range has been handed out or the phase has been cancelled
+        long[] nextRange() {
+            if (PhaseExecutor.isCurrentPhaseCancelled())
+                return null;
+            long start = this.next.getAndAdd(this.chunkSize);
+            if (start >= this.to)
+                return null;
+            return new long[]{start, Math.min(start + this.chunkSize, this.to)};
+        }
+
+        int getWorkers() {
+            return this.workers;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package psi;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Column of values addressed by the keys assigned by the PsiClient to the entries of the client dataset, which are
+ * dense and start from 1. Differently from a Map, the column does not keep any entry object or boxed key: the values
+ * are stored in chunks indexed by key, which are allocated by the WorkingStorage when the first key they contain is
+ * written. The first chunks double in size, from 256 to 65536 keys, so that small datasets only allocate small chunks,
+ * while all the following chunks contain 65536 keys. Chunks are allocated without locks, thus values with different
+ * keys can be written concurrently by multiple threads. A value should only be read once it has been written, as
+ * happens when the threads of a phase are awaited before the following one.
+ *
+ * @param <C> type of the chunks
+ */
+abstract class ChunkedColumn<C> {
+
+    private static final int FIRST_CHUNK_BITS = 8;
+    private static final int MAX_CHUNK_BITS = 16;
+    private static final int GROWING_CHUNKS = MAX_CHUNK_BITS - FIRST_CHUNK_BITS;
+    static final long MAX_KEY = Integer.MAX_VALUE;
+
+    private final AtomicReferenceArray<C> chunks;
+
+    ChunkedColumn() {
+        this.chunks = new AtomicReferenceArray<>(chunkIndex(MAX_KEY) + 1);
+    }
+
+    abstract C createChunk(int chunkSize);
+
+    // Returns the chunk containing the key, creating it if create is true, or null if it has not been created
+    C getChunk(long key, boolean create) {
+        if (key < 1 || key > MAX_KEY)
+            throw new IllegalArgumentException("The keys of the column should be between 1 and " + MAX_KEY);
+        int chunkIndex = chunkIndex(key);
+        C chunk = this.chunks.get(chunkIndex);
+        if (chunk == null && create) {
+            chunk = createChunk(chunkSize(chunkIndex));
+            if (!this.chunks.compareAndSet(chunkIndex, null, chunk))
+                chunk = this.chunks.get(chunkIndex);
+        }
+        return chunk;
+    }
+
+    // The position of the key, counting from the first key of a virtual chunk of 256 keys, identifies the chunk by
+    // its highest bit while it is smaller than 65536
+    static int chunkIndex(long key) {
+        long position = key - 1 + (1L << FIRST_CHUNK_BITS);
+        if (position < (1L << MAX_CHUNK_BITS))
+            return (63 - Long.numberOfLeadingZeros(position)) - FIRST_CHUNK_BITS;
+        return GROWING_CHUNKS + (int) ((position - (1L << MAX_CHUNK_BITS)) >>> MAX_CHUNK_BITS);
+    }
+
+    static int chunkOffset(long key) {
+        long position = key - 1 + (1L << FIRST_CHUNK_BITS);
+        if (position < (1L << MAX_CHUNK_BITS))
+            return (int) (position - Long.highestOneBit(position));
+        return (int) ((position - (1L << MAX_CHUNK_BITS)) & ((1L << MAX_CHUNK_BITS) - 1));
+    }
+
+    static int chunkSize(int chunkIndex) {
+        return 1 << (FIRST_CHUNK_BITS + Math.min(chunkIndex, GROWING_CHUNKS));
+    }
+
+    /**
+     * Column of byte arrays whose length does not exceed a maximum length fixed at construction, such as the
+     * encodings of group elements. Each chunk is a single slab, where each key takes a slot of maxLength + 2 bytes:
+     * the length of the value plus 1, which is 0 for keys without value, followed by the value.
+     */
+    static class OfBytes extends ChunkedColumn<WorkingStorage.ByteSlab> {
+
+        private final WorkingStorage workingStorage;
+        private final int maxLength;
+        private final int slotLength;
+
+        OfBytes(WorkingStorage workingStorage, int maxLength) {
+            if (maxLength <= 0 || maxLength >= 0xFFFF)
+                throw new IllegalArgumentException("'maxLength' must be between 1 and " + (0xFFFF - 1));
+            this.workingStorage = workingStorage;
+            this.maxLength = maxLength;
+            this.slotLength = maxLength + 2;
+        }
+
+        @Override
+        WorkingStorage.ByteSlab createChunk(int chunkSize) {
+            return this.workingStorage.allocateBytes(Math.multiplyExact(chunkSize, this.slotLength));
+        }
+
+        void put(long key, byte[] value) {
+            if (value.length > this.maxLength)
+                throw new IllegalArgumentException("The values of the column cannot be longer than " + this.maxLength + " bytes");
+            WorkingStorage.ByteSlab chunk = getChunk(key, true);
+            int offset = chunkOffset(key) * this.slotLength;
+            chunk.put(offset + 2, value, 0, value.length);
+            chunk.put(offset, (byte) ((value.length + 1) >>> 8));
+            chunk.put(offset + 1, (byte) (value.length + 1));
+        }
+
+        // Returns the value with the input key, or null if the key has no value
+        byte[] get(long key) {
+            WorkingStorage.ByteSlab chunk = getChunk(key, false);
+            if (chunk == null)
+                return null;
+            int offset = chunkOffset(key) * this.slotLength;
+            int length = (((chunk.get(offset) & 0xFF) << 8) | (chunk.get(offset + 1) & 0xFF)) - 1;
+            if (length < 0)
+                return null;
+            byte[] value = new byte[length];
+            chunk.get(offset + 2, value, 0, length);
+            return value;
+        }
+
+        int getMaxLength() {
+            return this.maxLength;
+        }
+    }
+
+    /**
+     * Column of byte arrays of any length, such as the clear values of the client. The values are appended to pages
+     * of 1 MiB, possibly spanning multiple pages, preceded by their length, while each chunk is a slab of longs
+     * containing the position of the value in the pages plus 1, which is 0 for keys without value.
+     * The values are appended under a lock, which is cheap compared to the operations that produce them.
+     */
+    static class OfVariableBytes extends ChunkedColumn<WorkingStorage.LongSlab> {
+
+        private static final int PAGE_BITS = 20;
+        private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+        private final WorkingStorage workingStorage;
+        private final List<WorkingStorage.ByteSlab> pages;
+        private long nextPosition;
+
+        OfVariableBytes(WorkingStorage workingStorage) {
+            this.workingStorage = workingStorage;
+            this.pages = new ArrayList<>();
+        }
+
+        @Override
+        WorkingStorage.LongSlab createChunk(int chunkSize) {
+            return this.workingStorage.allocateLongs(chunkSize);
+        }
+
+        void put(long key, byte[] value) {
+            long position;
+            synchronized (this) {
+                position = this.nextPosition;
+                this.nextPosition += 4 + value.length;
+                while ((long) this.pages.size() << PAGE_BITS < this.nextPosition)
+                    this.pages.add(this.workingStorage.allocateBytes(1 << PAGE_BITS));
+                transfer(position, ByteBuffer.allocate(4).putInt(value.length).array(), true);
+                transfer(position + 4, value, true);
+            }
+            getChunk(key, true).put(chunkOffset(key), position + 1);
+        }
+
+        // Returns the value with the input key, or null if the key has no value
+        byte[] get(long key) {
+            WorkingStorage.LongSlab chunk = getChunk(key, false);
+            long position = chunk == null ? -1 : chunk.get(chunkOffset(key)) - 1;
+            if (position < 0)
+                return null;
+            byte[] length = new byte[4];
+            transfer(position, length, false);
+            byte[] value = new byte[ByteBuffer.wrap(length).getInt()];
+            transfer(position + 4, value, false);
+            return value;
+        }
+
+        // Copies the bytes from (or to) the pages starting from the input position, which may span multiple pages
+        private void transfer(long position, byte[] bytes, boolean write) {
+            int copied = 0;
+            while (copied < bytes.length) {
+                WorkingStorage.ByteSlab page = this.pages.get((int) ((position + copied) >>> PAGE_BITS));
+                int offset = (int) ((position + copied) & PAGE_MASK);
+                int length = Math.min(bytes.length - copied, (1 << PAGE_BITS) - offset);
+                if (write)
+                    page.put(offset, bytes, copied, length);
+                else
+                    page.get(offset, bytes, copied, length);
+                copied += length;
+            }
+        }
+    }
+}
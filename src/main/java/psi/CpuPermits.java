@@ -0,0 +1,56 @@
+package psi;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of virtual threads that run the CPU-bound operations of the PSI computation to the available
+ * processors. Each task of a phase run by a virtual thread holds a permit, which is released only while the task waits
+ * for a blocking operation, such as a call to the PsiCacheProvider: thus the phases can wait for many cache operations
+ * at once, while the encryptions are not run by more threads than the machine can run.
+ * The tasks run by platform threads do not take any permit, since their number is already set by the executor.
+ */
+class CpuPermits {
+
+    private static final Semaphore PERMITS = new Semaphore(Runtime.getRuntime().availableProcessors());
+    private static final ThreadLocal<Boolean> HELD = new ThreadLocal<>();
+
+    private CpuPermits() {}
+
+    // Runs the task of a phase, holding a permit if the current thread is virtual
+    static void run(Runnable task) {
+        if (!VirtualThreads.isVirtual(Thread.currentThread())) {
+            task.run();
+            return;
+        }
+        PERMITS.acquireUninterruptibly();
+        HELD.set(Boolean.TRUE);
+        try {
+            task.run();
+        } finally {
+            HELD.remove();
+            PERMITS.release();
+        }
+    }
+
+    // Runs a blocking operation, releasing the permit held by the current thread until the operation returns
+    static <T> T blocking(Supplier<T> operation) {
+        if (HELD.get() == null)
+            return operation.get();
+        HELD.remove();
+        PERMITS.release();
+        try {
+            return operation.get();
+        } finally {
+            PERMITS.acquireUninterruptibly();
+            HELD.set(Boolean.TRUE);
+        }
+    }
+
+    static void blocking(Runnable operation) {
+        blocking(() -> {
+            operation.run();
+            return null;
+        });
+    }
+}
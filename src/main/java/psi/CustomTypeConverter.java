@@ -12,11 +12,13 @@ import org.bouncycastle.math.ec.ECPoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import psi.exception.CustomRuntimeException;
+import psi.model.PsiAlgorithmParameter;
 
 import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.List;
 
 /**
  * Provides methods that convert complex objects from/to a String representation, which is useful to store and/or
@@ -85,6 +87,76 @@ class CustomTypeConverter {
         return new String(point.getEncoded(true), charset);
     }
 
+    /**
+     * Converts a String value into an element of the ristretto255 group.
+     *
+     * @param string String representation of the element
+     * @return the element obtained decoding the String
+     */
+    static Ristretto255.Point convertStringToRistretto255Point(String string){
+        log.trace("Called convertStringToRistretto255Point() with string = {}", string);
+        return Ristretto255.decode(string.getBytes(charset));
+    }
+
+    /**
+     * Converts an element of the ristretto255 group into a String. Since the encoding is canonical, two elements are
+     * equal if and only if their String representations are equal.
+     *
+     * @param point element to be converted
+     * @return the String representation of the element
+     */
+    static String convertRistretto255PointToString(Ristretto255.Point point){
+        log.trace("Called convertRistretto255PointToString() with point = {}", point);
+        return new String(point.encode(), charset);
+    }
+
+    /**
+     * Converts a byte array, such as an encoding stored in the cache, into a String.
+     *
+     * @param bytes byte array to be converted
+     * @return the String representation of the byte array based on the selected charset
+     */
+    static String convertBytesToString(byte[] bytes){
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Converts a String value into the byte array it represents.
+     *
+     * @param string String representation of the byte array
+     * @return the byte array obtained converting the String based on the selected charset
+     */
+    static byte[] convertStringToBytes(String string){
+        return string.getBytes(charset);
+    }
+
+    /**
+     * Converts the input ECPoints into affine coordinates. Differently from normalizing each point separately, which
+     * requires a field inversion for each of them, the points are normalized together with a single field inversion.
+     * Normalized points are encoded without further inversions by the convertECPointToString method.
+     *
+     * @param curve     curve to which all the points belong
+     * @param points    list of ECPoints to be normalized
+     * @return an array containing, at the same position, the normalized representation of each input point
+     */
+    static ECPoint[] normalizeECPoints(ECCurve curve, List<ECPoint> points){
+        log.trace("Called normalizeECPoints() with {} points", points.size());
+        ECPoint[] normalizedPoints = points.toArray(new ECPoint[0]);
+        curve.normalizeAll(normalizedPoints);
+        return normalizedPoints;
+    }
+
+    /**
+     * Converts the curve selected by a PsiAlgorithmParameter into an ECParameterSpec.
+     *
+     * @param psiAlgorithmParameter parameters of an ECDH or ECBS session
+     * @return the ECParameterSpec of the curve set in the PsiAlgorithmParameter, or of the default curve of its key size
+     */
+    static ECParameterSpec convertPsiAlgorithmParameterToECParameterSpec(PsiAlgorithmParameter psiAlgorithmParameter){
+        log.trace("Called convertPsiAlgorithmParameterToECParameterSpec() with psiAlgorithmParameter = {}", psiAlgorithmParameter);
+        return ECNamedCurveTable.getParameterSpec(EllipticCurve.getNameCurve(psiAlgorithmParameter));
+    }
+
     /**
      * Converts a key size value into an ECParameterSpec.
      *
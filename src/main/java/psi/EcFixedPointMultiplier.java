@@ -0,0 +1,38 @@
+package psi;
+
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.FixedPointUtil;
+
+import java.math.BigInteger;
+
+/**
+ * Multiplies a base point that does not change for the whole session (e.g., the generator G or the public key of the
+ * server) by arbitrary scalars. The comb table of the base point is computed once at construction time and is then
+ * shared by all the threads, so that each multiplication only pays the fixed-base cost.
+ */
+class EcFixedPointMultiplier {
+
+    private static final ECMultiplier COMB_MULTIPLIER = new FixedPointCombMultiplier();
+
+    private final ECPoint base;
+
+    EcFixedPointMultiplier(ECPoint base) {
+        this.base = base.normalize();
+        FixedPointUtil.precompute(this.base);
+    }
+
+    ECPoint getBase() {
+        return this.base;
+    }
+
+    /**
+     * Computes k*base using the precomputed comb table.
+     * @param k scalar in the range [0, n), where n is the order of the curve
+     * @return the ECPoint resulting from the multiplication
+     */
+    ECPoint multiply(BigInteger k) {
+        return COMB_MULTIPLIER.multiply(this.base, k);
+    }
+}
@@ -0,0 +1,128 @@
+package psi;
+
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.WNafPreCompInfo;
+import org.bouncycastle.math.ec.WNafUtil;
+import org.bouncycastle.math.ec.endo.EndoUtil;
+import org.bouncycastle.math.ec.endo.GLVEndomorphism;
+
+import java.math.BigInteger;
+
+/**
+ * Multiplies arbitrary points by a scalar that does not change for the whole session (e.g., the private key).
+ * The width-w NAF recoding of the scalar is computed once at construction time and then shared by all the threads,
+ * so that each multiplication only computes the table of odd multiples of the input point and the left-to-right
+ * double-and-add loop.
+ * On the Koblitz curves (secp224k1 and secp256k1), the scalar is also split once in two halves k1 and k2 of about half
+ * the bit length through the GLV endomorphism, such that scalar*P = k1*P + k2*phi(P). The two halves are then processed
+ * in the same loop, which halves the number of doublings. The table of phi(P) is obtained by mapping the table of P,
+ * without additional point additions.
+ */
+class EcFixedScalarMultiplier {
+
+    private final BigInteger scalar;
+
+    private final int width;
+    // Compact wNAF of the scalar: each element contains a digit in the upper 16 bits and the number of zeroes that
+    // follow it in the lower 16 bits, starting from the least significant digit. Null if the GLV endomorphism is used
+    private final int[] wnaf;
+
+    // Endomorphism of the curve and wNAF of the absolute values of the two halves of the scalar, starting from the
+    // least significant digit. Null if the curve has no GLV endomorphism
+    private final GLVEndomorphism glvEndomorphism;
+    private final byte[] wnafK1;
+    private final byte[] wnafK2;
+    private final boolean negativeK1;
+    private final boolean negativeK2;
+
+    EcFixedScalarMultiplier(ECCurve ecCurve, BigInteger scalar) {
+        if (scalar.signum() < 0)
+            throw new IllegalArgumentException("'scalar' must not be negative");
+        this.scalar = scalar;
+
+        if (ecCurve.getEndomorphism() instanceof GLVEndomorphism && ecCurve.getOrder() != null) {
+            this.glvEndomorphism = (GLVEndomorphism) ecCurve.getEndomorphism();
+            BigInteger[] halves = this.glvEndomorphism.decomposeScalar(scalar.mod(ecCurve.getOrder()));
+            this.negativeK1 = halves[0].signum() < 0;
+            this.negativeK2 = halves[1].signum() < 0;
+            this.width = Math.max(2, WNafUtil.getWindowSize(Math.max(halves[0].bitLength(), halves[1].bitLength())));
+            this.wnafK1 = WNafUtil.generateWindowNaf(this.width, halves[0].abs());
+            this.wnafK2 = WNafUtil.generateWindowNaf(this.width, halves[1].abs());
+            this.wnaf = null;
+        } else {
+            this.glvEndomorphism = null;
+            this.wnafK1 = null;
+            this.wnafK2 = null;
+            this.negativeK1 = false;
+            this.negativeK2 = false;
+            this.width = WNafUtil.getWindowSize(scalar.bitLength());
+            this.wnaf = WNafUtil.generateCompactWindowNaf(this.width, scalar);
+        }
+    }
+
+    BigInteger getScalar() {
+        return this.scalar;
+    }
+
+    /**
+     * Computes scalar*point.
+     * @param point ECPoint to be multiplied
+     * @return the ECPoint resulting from the multiplication
+     */
+    ECPoint multiply(ECPoint point) {
+        if (point.isInfinity())
+            return point;
+        if (this.glvEndomorphism != null)
+            return multiplyGlv(point);
+
+        WNafPreCompInfo preCompInfo = WNafUtil.precompute(point, this.width, true);
+        ECPoint[] preComp = preCompInfo.getPreComp();
+        ECPoint[] preCompNeg = preCompInfo.getPreCompNeg();
+
+        ECPoint result = point.getCurve().getInfinity();
+        int i = this.wnaf.length;
+        while (i > 0) {
+            int wi = this.wnaf[--i];
+            int digit = wi >> 16;
+            int zeroes = wi & 0xFFFF;
+            ECPoint r = (digit < 0 ? preCompNeg : preComp)[Math.abs(digit) >>> 1];
+            result = result.twicePlus(r).timesPow2(zeroes);
+        }
+        return result;
+    }
+
+    // Computes k1*P + k2*phi(P) with an interleaved left-to-right double-and-add loop over the two wNAFs
+    private ECPoint multiplyGlv(ECPoint point) {
+        WNafPreCompInfo preCompInfoP = WNafUtil.precompute(point, this.width, true);
+        ECPoint phiPoint = EndoUtil.mapPoint(this.glvEndomorphism, point);
+        WNafPreCompInfo preCompInfoPhiP = WNafUtil.precomputeWithPointMap(phiPoint, this.glvEndomorphism.getPointMap(), preCompInfoP, true);
+
+        ECPoint infinity = point.getCurve().getInfinity();
+        ECPoint result = infinity;
+        int zeroes = 0;
+        for (int i = Math.max(this.wnafK1.length, this.wnafK2.length) - 1; i >= 0; i--) {
+            int digitK1 = i < this.wnafK1.length ? this.wnafK1[i] : 0;
+            int digitK2 = i < this.wnafK2.length ? this.wnafK2[i] : 0;
+            if ((digitK1 | digitK2) == 0) {
+                zeroes++;
+                continue;
+            }
+
+            ECPoint r = infinity;
+            if (digitK1 != 0)
+                r = r.add(((digitK1 < 0) != this.negativeK1 ? preCompInfoP.getPreCompNeg() : preCompInfoP.getPreComp())[Math.abs(digitK1) >>> 1]);
+            if (digitK2 != 0)
+                r = r.add(((digitK2 < 0) != this.negativeK2 ? preCompInfoPhiP.getPreCompNeg() : preCompInfoPhiP.getPreComp())[Math.abs(digitK2) >>> 1]);
+
+            if (zeroes > 0) {
+                result = result.timesPow2(zeroes);
+                zeroes = 0;
+            }
+            result = result.twicePlus(r);
+        }
+        if (zeroes > 0)
+            result = result.timesPow2(zeroes);
+        return result;
+    }
+}
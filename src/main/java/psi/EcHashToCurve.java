@@ -0,0 +1,201 @@
+package psi;
+
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import psi.exception.CustomRuntimeException;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * Implements the hash_to_curve function defined by RFC 9380 for the suites P256_XMD:SHA-256_SSWU_RO_,
+ * P384_XMD:SHA-384_SSWU_RO_ and P521_XMD:SHA-512_SSWU_RO_. The input message is expanded with expand_message_xmd into
+ * two field elements, each of them is mapped to the curve with the simplified SWU map and the two points are added.
+ * Since the prime of all the supported curves is congruent to 3 mod 4, the square root required by each map is
+ * computed with a single exponentiation, independently of the input message.
+ */
+class EcHashToCurve {
+
+    private static final BigInteger THREE = BigInteger.valueOf(3);
+    private static final BigInteger FOUR = BigInteger.valueOf(4);
+
+    // Domain separation tag used by this sdk, followed by the suite identifier
+    static final String DST_PREFIX = "PSI-SDK-V01-CS01-with-";
+
+    private final ECCurve ecCurve;
+    private final BigInteger p;
+    private final BigInteger a;
+    private final BigInteger b;
+    private final BigInteger z;
+    private final String hashingAlgorithm;
+    // Input block size of the hash function, in bytes
+    private final int hashBlockSize;
+    // Number of bytes used to compute each field element (L in RFC 9380)
+    private final int fieldElementLength;
+    private final byte[] dst;
+
+    // Constants of the map computed once per curve
+    private final BigInteger sqrtExponent; // (p + 1) / 4
+    private final BigInteger minusBOverA; // -B / A
+    private final BigInteger bOverZA; // B / (Z * A)
+    private final BigInteger sqrtMinusZCube; // sqrt(-Z^3)
+
+    /**
+     * Builds the hash to curve function for the input curve, using the domain separation tag of this sdk.
+     *
+     * @param ecCurve   curve on which the messages are mapped
+     * @param curveName name of the curve, as returned by EllipticCurve.getName()
+     */
+    EcHashToCurve(ECCurve ecCurve, String curveName) {
+        this(ecCurve, curveName, null);
+    }
+
+    /**
+     * Builds the hash to curve function for the input curve.
+     *
+     * @param ecCurve   curve on which the messages are mapped
+     * @param curveName name of the curve, as returned by EllipticCurve.getName()
+     * @param dst       domain separation tag. If null, the domain separation tag of this sdk is used
+     */
+    EcHashToCurve(ECCurve ecCurve, String curveName, String dst) {
+        String suiteId;
+        if (Objects.equals(curveName, "prime256v1")) {
+            suiteId = "P256_XMD:SHA-256_SSWU_RO_";
+            this.z = BigInteger.valueOf(-10);
+            this.hashingAlgorithm = "SHA-256";
+            this.hashBlockSize = 64;
+            this.fieldElementLength = 48;
+        } else if (Objects.equals(curveName, "secp384r1")) {
+            suiteId = "P384_XMD:SHA-384_SSWU_RO_";
+            this.z = BigInteger.valueOf(-12);
+            this.hashingAlgorithm = "SHA-384";
+            this.hashBlockSize = 128;
+            this.fieldElementLength = 72;
+        } else if (Objects.equals(curveName, "secp521r1")) {
+            suiteId = "P521_XMD:SHA-512_SSWU_RO_";
+            this.z = BigInteger.valueOf(-4);
+            this.hashingAlgorithm = "SHA-512";
+            this.hashBlockSize = 128;
+            this.fieldElementLength = 98;
+        } else
+            throw new CustomRuntimeException("The curve " + curveName + " is not supported by the SSWU hash to curve mode");
+
+        this.dst = (dst != null ? dst : DST_PREFIX + suiteId).getBytes(StandardCharsets.US_ASCII);
+        if (this.dst.length > 255)
+            throw new CustomRuntimeException("The domain separation tag cannot be longer than 255 bytes");
+
+        this.ecCurve = ecCurve;
+        this.p = ecCurve.getField().getCharacteristic();
+        this.a = ecCurve.getA().toBigInteger();
+        this.b = ecCurve.getB().toBigInteger();
+
+        this.sqrtExponent = this.p.add(BigInteger.ONE).shiftRight(2);
+        this.minusBOverA = this.b.negate().multiply(this.a.modInverse(this.p)).mod(this.p);
+        this.bOverZA = this.b.multiply(this.z.multiply(this.a).modInverse(this.p)).mod(this.p);
+        this.sqrtMinusZCube = this.z.pow(3).negate().mod(this.p).modPow(this.sqrtExponent, this.p);
+        if (!this.p.mod(FOUR).equals(THREE) || !this.sqrtMinusZCube.multiply(this.sqrtMinusZCube).mod(this.p).equals(this.z.pow(3).negate().mod(this.p)))
+            throw new CustomRuntimeException("Unexpected: invalid parameters for the SSWU map");
+    }
+
+    /**
+     * Maps the input message to a point of the curve (hash_to_curve of RFC 9380).
+     *
+     * @param message message of arbitrary length
+     * @return the ECPoint associated to the message
+     */
+    ECPoint hashToCurve(byte[] message) {
+        byte[] uniformBytes = expandMessageXmd(this.hashingAlgorithm, this.hashBlockSize, this.dst, message, 2 * this.fieldElementLength);
+        BigInteger u0 = toFieldElement(uniformBytes, 0);
+        BigInteger u1 = toFieldElement(uniformBytes, this.fieldElementLength);
+        // The cofactor of all the supported curves is 1, thus clear_cofactor is the identity
+        return mapToCurve(u0).add(mapToCurve(u1)).normalize();
+    }
+
+    // OS2IP of the input slice reduced modulo p (hash_to_field)
+    private BigInteger toFieldElement(byte[] uniformBytes, int offset) {
+        byte[] slice = new byte[this.fieldElementLength];
+        System.arraycopy(uniformBytes, offset, slice, 0, this.fieldElementLength);
+        return new BigInteger(1, slice).mod(this.p);
+    }
+
+    // Simplified SWU map (map_to_curve_simple_swu), in which the square root of gx2 is derived from the one of gx1
+    private ECPoint mapToCurve(BigInteger u) {
+        BigInteger u2 = u.multiply(u).mod(this.p);
+        BigInteger zu2 = this.z.multiply(u2).mod(this.p);
+        BigInteger tv1 = zu2.multiply(zu2).add(zu2).mod(this.p);
+
+        BigInteger x1;
+        if (tv1.signum() == 0)
+            x1 = this.bOverZA;
+        else
+            x1 = this.minusBOverA.multiply(BigInteger.ONE.add(tv1.modInverse(this.p))).mod(this.p);
+        BigInteger gx1 = x1.multiply(x1).add(this.a).multiply(x1).add(this.b).mod(this.p);
+
+        // If gx1 is a square, y1^2 = gx1, otherwise y1^2 = -gx1 since -1 is not a square modulo p
+        BigInteger y1 = gx1.modPow(this.sqrtExponent, this.p);
+        BigInteger x;
+        BigInteger y;
+        if (y1.multiply(y1).mod(this.p).equals(gx1)) {
+            x = x1;
+            y = y1;
+        } else {
+            // x2 = Z * u^2 * x1 and gx2 = (Z * u^2)^3 * gx1, thus sqrt(gx2) = sqrt(-Z^3) * u^3 * y1
+            x = zu2.multiply(x1).mod(this.p);
+            y = this.sqrtMinusZCube.multiply(u2).multiply(u).mod(this.p).multiply(y1).mod(this.p);
+        }
+        if (u.testBit(0) != y.testBit(0))
+            y = this.p.subtract(y).mod(this.p);
+
+        return this.ecCurve.createPoint(x, y);
+    }
+
+    /**
+     * Implements expand_message_xmd of RFC 9380.
+     *
+     * @param hashingAlgorithm name of the hash function, as accepted by MessageDigest
+     * @param hashBlockSize    input block size of the hash function, in bytes
+     * @param dst              domain separation tag, not longer than 255 bytes
+     * @param message          message of arbitrary length
+     * @param lengthInBytes    number of uniform bytes to be returned
+     * @return lengthInBytes uniform bytes derived from the message
+     */
+    static byte[] expandMessageXmd(String hashingAlgorithm, int hashBlockSize, byte[] dst, byte[] message, int lengthInBytes) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(hashingAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new CustomRuntimeException("The algorithm " + hashingAlgorithm + " is not supported as hashing function");
+        }
+        int digestLength = messageDigest.getDigestLength();
+        int ell = (lengthInBytes + digestLength - 1) / digestLength;
+
+        // b_0 = H(Z_pad || msg || I2OSP(len_in_bytes, 2) || I2OSP(0, 1) || DST_prime)
+        messageDigest.update(new byte[hashBlockSize]);
+        messageDigest.update(message);
+        messageDigest.update(new byte[]{(byte) (lengthInBytes >>> 8), (byte) lengthInBytes, 0});
+        updateDstPrime(messageDigest, dst);
+        byte[] b0 = messageDigest.digest();
+
+        byte[] result = new byte[lengthInBytes];
+        byte[] bi = new byte[digestLength];
+        for (int i = 1; i <= ell; i++) {
+            // b_i = H(strxor(b_0, b_(i - 1)) || I2OSP(i, 1) || DST_prime), where b_0 is used in place of b_1 xor b_0
+            for (int j = 0; j < digestLength; j++)
+                bi[j] = (byte) (b0[j] ^ (i == 1 ? 0 : bi[j]));
+            messageDigest.update(bi);
+            messageDigest.update((byte) i);
+            updateDstPrime(messageDigest, dst);
+            bi = messageDigest.digest();
+            System.arraycopy(bi, 0, result, (i - 1) * digestLength, Math.min(digestLength, lengthInBytes - (i - 1) * digestLength));
+        }
+        return result;
+    }
+
+    private static void updateDstPrime(MessageDigest messageDigest, byte[] dst) {
+        messageDigest.update(dst);
+        messageDigest.update((byte) dst.length);
+    }
+}
@@ -4,11 +4,15 @@ import org.bouncycastle.jce.spec.ECParameterSpec;
 import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECPoint;
 import psi.exception.CustomRuntimeException;
+import psi.model.PsiAlgorithmParameter;
+import psi.model.PsiHashToCurveMode;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents an Elliptic Curve characterized by the equation y^2 = x^3 + A*x + B (mod P)
@@ -18,6 +22,12 @@ class EllipticCurve {
     private static final BigInteger TWO = BigInteger.valueOf(2);
     private static final BigInteger ONE = BigInteger.valueOf(1);
     private static final BigInteger ZERO = BigInteger.valueOf(0);
+    // Number of values tried when mapping a message to the curve
+    private static final BigInteger MAP_ATTEMPTS = BigInteger.valueOf(200);
+
+    private static final String[] CURVE_NAMES = {"secp160r2", "secp224k1", "prime256v1", "secp256k1", "secp384r1", "secp521r1"};
+
+    private static final Map<BigInteger, CurveContext> CURVE_CONTEXTS = new ConcurrentHashMap<>();
 
     private BigInteger a;
     private BigInteger b;
@@ -29,6 +39,13 @@ class EllipticCurve {
 
     private ECParameterSpec ecParameterSpec;
 
+    private volatile EcFixedPointMultiplier generatorMultiplier;
+
+    // Used to map the messages to the curve when the SSWU mode is selected, null otherwise
+    private EcHashToCurve ecHashToCurve;
+
+    private CurveContext curveContext;
+
     ECCurve getEcCurve() {
         return this.ecCurve;
     }
@@ -48,12 +65,25 @@ class EllipticCurve {
     EllipticCurve(ECParameterSpec params) {
         this.ecParameterSpec = params;
         this.ecCurve = params.getCurve();
-        this.name = getNameCurve(this.ecCurve.getA().getFieldSize());
+        this.p = this.ecCurve.getField().getCharacteristic();
+        this.name = getNameCurveFromP(this.p);
         this.a = this.ecCurve.getA().toBigInteger();
         this.b = this.ecCurve.getB().toBigInteger();
         this.g = params.getG();
-        this.p = new BigInteger(getPFromNameCurve(this.name), 16);
         this.n = params.getN();
+        this.curveContext = CURVE_CONTEXTS.computeIfAbsent(this.p, prime -> new CurveContext(prime, true));
+    }
+
+    /**
+     * Builds the EllipticCurve using the input method to map messages to the curve.
+     *
+     * @param params          parameters of the curve
+     * @param hashToCurveMode method used by mapMessage. If null, PsiHashToCurveMode.TRY_AND_INCREMENT is used
+     */
+    EllipticCurve(ECParameterSpec params, PsiHashToCurveMode hashToCurveMode) {
+        this(params);
+        if (hashToCurveMode == PsiHashToCurveMode.SSWU)
+            this.ecHashToCurve = new EcHashToCurve(this.ecCurve, this.name);
     }
 
     /**
@@ -103,21 +133,70 @@ class EllipticCurve {
         return p.getYCoord().toBigInteger().pow(2).subtract(p.getXCoord().toBigInteger().pow(3).add(this.a.multiply(p.getXCoord().toBigInteger())).add(this.b)).mod(this.p).intValue() == 0;
     }
 
-    EncryptedRandomValue generateEncryptedRandomValue(BigInteger inputValue, ECPoint ecPoint){
+    /**
+     * Returns a fixed-base multiplier for the generator of the curve, whose precomputed table is built at the first
+     * invocation and then reused.
+     *
+     * @return the EcFixedPointMultiplier of the generator G
+     */
+    EcFixedPointMultiplier getGeneratorMultiplier() {
+        EcFixedPointMultiplier multiplier = this.generatorMultiplier;
+        if (multiplier == null) {
+            synchronized (this) {
+                multiplier = this.generatorMultiplier;
+                if (multiplier == null) {
+                    multiplier = new EcFixedPointMultiplier(this.g);
+                    this.generatorMultiplier = multiplier;
+                }
+            }
+        }
+        return multiplier;
+    }
+
+    /**
+     * Returns a multiplier for a scalar that is used to multiply many different points of this curve (e.g., the
+     * private key of the session), whose recoding is computed once and then reused.
+     *
+     * @param scalar non-negative scalar
+     * @return the EcFixedScalarMultiplier of the input scalar
+     */
+    EcFixedScalarMultiplier getFixedScalarMultiplier(BigInteger scalar) {
+        return new EcFixedScalarMultiplier(this.ecCurve, scalar);
+    }
+
+    /**
+     * Generates a blinding factor composed by y*G and y*Q, where y is a random value and Q is the public key of the
+     * server. It does not depend on the value to be encrypted, hence it can be computed in advance.
+     *
+     * @param publicKeyMultiplier fixed-base multiplier of the public key Q of the server
+     * @return the BlindingFactor containing y*G as random value and y*Q as blinding value
+     */
+    BlindingFactorPool.BlindingFactor<ECPoint> generateBlindingFactor(EcFixedPointMultiplier publicKeyMultiplier){
         Random secureRandom = new SecureRandom();
-        ECPoint point2DInputValue = mapMessage(inputValue);
+        EcFixedPointMultiplier generatorMultiplier = getGeneratorMultiplier();
         ECPoint randomPointInv;
         ECPoint randomPoint;
-        ECPoint encryptedValue;
         BigInteger y;
         do {
             y = new BigInteger(this.ecParameterSpec.getN().bitCount(), secureRandom).mod(this.ecParameterSpec.getN());
-            randomPoint = multiply(this.g, y);
-            randomPointInv = multiply(ecPoint, y);
-            encryptedValue = add(randomPointInv, point2DInputValue);
+            randomPoint = generatorMultiplier.multiply(y);
+            randomPointInv = publicKeyMultiplier.multiply(y);
         } while(y.compareTo(BigInteger.ZERO) == 0 || randomPoint.isInfinity()|| randomPointInv.isInfinity());
 
-        return new EncryptedRandomValue(encryptedValue, randomPoint);
+        return new BlindingFactorPool.BlindingFactor<>(randomPoint, randomPointInv);
+    }
+
+    /**
+     * Maps the input value to the curve and blinds it with the input blinding factor, returning y*Q + M and y*G.
+     *
+     * @param inputValue value to be encrypted
+     * @param blindingFactor blinding factor obtained from the generateBlindingFactor method
+     * @return the EncryptedRandomValue containing the encrypted value and the random point
+     */
+    EncryptedRandomValue generateEncryptedRandomValue(BigInteger inputValue, BlindingFactorPool.BlindingFactor<ECPoint> blindingFactor){
+        ECPoint point2DInputValue = mapMessage(inputValue);
+        ECPoint encryptedValue = add(blindingFactor.getBlindingValue(), point2DInputValue);
+        return new EncryptedRandomValue(encryptedValue, blindingFactor.getRandomValue());
     }
 
     @Override
@@ -131,6 +210,19 @@ class EllipticCurve {
                 '}';
     }
 
+    /**
+     * Returns the name of the curve selected by the input PsiAlgorithmParameter, i.e., the name of its curve if set,
+     * or the name of the default curve of its key size.
+     *
+     * @param psiAlgorithmParameter parameters of an ECDH or ECBS session
+     * @return the name of the curve
+     */
+    static String getNameCurve(PsiAlgorithmParameter psiAlgorithmParameter) {
+        if (psiAlgorithmParameter.getCurve() != null)
+            return psiAlgorithmParameter.getCurve().getCurveName();
+        return getNameCurve(psiAlgorithmParameter.getKeySize());
+    }
+
     static String getNameCurve(int keySize) {
         if (keySize == 160)
             return "secp160r2";
@@ -146,6 +238,15 @@ class EllipticCurve {
             throw new CustomRuntimeException("Input key size (" + keySize + ") currently not supported for EC algorithms (ECDH and ECRSA). Supported values are 160, 224, 256, 384, 512 or 521.");
     }
 
+    // Curves with the same field size (e.g., prime256v1 and secp256k1) are distinguished by their prime
+    private static String getNameCurveFromP(BigInteger p) {
+        for (String name : CURVE_NAMES) {
+            if (new BigInteger(getPFromNameCurve(name), 16).equals(p))
+                return name;
+        }
+        throw new CustomRuntimeException("Curve currently not supported.");
+    }
+
     private static String getPFromNameCurve(String name) {
         if (Objects.equals(name, "secp160r2"))
             return "fffffffffffffffffffffffffffffffeffffac73";
@@ -153,6 +254,8 @@ class EllipticCurve {
             return "fffffffffffffffffffffffffffffffffffffffffffffffeffffe56d";
         else if (Objects.equals(name, "prime256v1"))
             return "ffffffff00000001000000000000000000000000ffffffffffffffffffffffff";
+        else if (Objects.equals(name, "secp256k1"))
+            return "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f";
         else if (Objects.equals(name, "secp384r1"))
             return "fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffeffffffff0000000000000000ffffffff";
         else if (Objects.equals(name, "secp521r1"))
@@ -204,31 +307,118 @@ class EllipticCurve {
     }
 
     /**
-     * Maps the input value to an ECPoint of the current elliptic curve.
+     * Maps the input value to an ECPoint of the current elliptic curve, using the method selected when building
+     * this object.
      *
      * @param m BigInteger input value
      * @return ECPoint mapping of the input value
      */
     ECPoint mapMessage(BigInteger m) {
+        if (this.ecHashToCurve != null)
+            return this.ecHashToCurve.hashToCurve(m.toByteArray());
+        return tryAndIncrement(m, this.curveContext);
+    }
+
+    /**
+     * Maps the input value to an ECPoint using the generic Euler criterion and Tonelli-Shanks square root for every
+     * curve. It returns the same points as the default mapMessage, and it is only used to verify the curve-specific
+     * optimizations.
+     *
+     * @param m BigInteger input value
+     * @return ECPoint mapping of the input value
+     */
+    ECPoint mapMessageGeneric(BigInteger m) {
+        return tryAndIncrement(m, new CurveContext(this.p, false));
+    }
+
+    // Searches the first x, starting from 200*m, such that x^3 + A*x + B is a square modulo p
+    private ECPoint tryAndIncrement(BigInteger m, CurveContext context) {
         if (this.p.compareTo(m) < 0) throw new CustomRuntimeException("Unexpected: Hashing missing");
-        BigInteger k = BigInteger.valueOf(200);
-        BigInteger km1 = k.subtract(BigInteger.ONE);
-        BigInteger start = m.multiply(k);
-        BigInteger y;
-        for (BigInteger I = BigInteger.ZERO; I.compareTo(km1) < 0; I = I.add(BigInteger.ONE)) {
-            BigInteger x = start.mod(this.p).add(I).mod(this.p);
-            y = x.modPow(THREE, this.p).add(this.a.multiply(x).mod(this.p)).mod(this.p).add(this.b).mod(this.p);
-            if (y.modPow(this.p.subtract(BigInteger.ONE).multiply(TWO.modInverse(this.p)).mod(this.p), this.p).compareTo(BigInteger.ONE) == 0) {
-                BigInteger r = sqrtP(y, this.p);
+        BigInteger start = m.multiply(MAP_ATTEMPTS).mod(this.p);
+        for (int i = 0; i < MAP_ATTEMPTS.intValue() - 1; i++) {
+            BigInteger x = start.add(BigInteger.valueOf(i)).mod(this.p);
+            BigInteger y = x.multiply(x).add(this.a).multiply(x).add(this.b).mod(this.p);
+            BigInteger r = context.sqrt(y);
+            if (r != null) {
                 ECPoint res = this.ecCurve.createPoint(x, r);
                 if (!belongs(res)) throw new CustomRuntimeException("Found mapping outside the curve");
                 return res;
             }
-
         }
         throw new CustomRuntimeException("Failed to map message");
     }
 
+    /**
+     * Contains the values that only depend on the prime of the curve and that are required to compute square roots
+     * modulo p. It is computed once per curve and shared by all the EllipticCurve instances. For primes congruent to 3
+     * mod 4 (P-256, secp256k1, P-384, P-521) and to 5 mod 8 (secp224k1), the quadratic residuosity test and the square
+     * root are obtained from a single exponentiation. Other primes use the Euler criterion followed by the generic
+     * Tonelli-Shanks algorithm. All the paths return the same square root returned by sqrtP.
+     */
+    private static class CurveContext {
+        private static final BigInteger FOUR = BigInteger.valueOf(4);
+        private static final BigInteger FIVE = BigInteger.valueOf(5);
+        private static final BigInteger EIGHT = BigInteger.valueOf(8);
+
+        private final BigInteger p;
+        private final BigInteger pMinusOne;
+        // Exponent of the Euler criterion, (p-1)/2
+        private final BigInteger eulerExponent;
+        // (p+1)/4 if p = 3 mod 4, (p-5)/8 if p = 5 mod 8, null otherwise
+        private final BigInteger sqrtExponent;
+        // nonResidue^((p-1)/4) if p = 5 mod 8, null otherwise
+        private final BigInteger nonResiduePower;
+        private final boolean pThreeModFour;
+
+        CurveContext(BigInteger p, boolean optimized) {
+            this.p = p;
+            this.pMinusOne = p.subtract(ONE);
+            this.eulerExponent = this.pMinusOne.multiply(TWO.modInverse(p)).mod(p);
+            this.pThreeModFour = optimized && p.mod(FOUR).equals(THREE);
+            if (this.pThreeModFour) {
+                this.sqrtExponent = p.add(ONE).divide(FOUR);
+                this.nonResiduePower = null;
+            } else if (optimized && p.mod(EIGHT).equals(FIVE)) {
+                this.sqrtExponent = p.subtract(FIVE).divide(EIGHT);
+                this.nonResiduePower = Objects.requireNonNull(findNonResidue(p)).modPow(p.subtract(ONE).divide(FOUR), p);
+            } else {
+                this.sqrtExponent = null;
+                this.nonResiduePower = null;
+            }
+        }
+
+        /**
+         * Computes the square root of y modulo p.
+         *
+         * @param y value in the range [0, p)
+         * @return the square root of y, or null if y is zero or not a quadratic residue
+         */
+        BigInteger sqrt(BigInteger y) {
+            if (this.sqrtExponent == null) {
+                if (y.modPow(this.eulerExponent, this.p).compareTo(ONE) != 0)
+                    return null;
+                return sqrtP(y, this.p);
+            }
+            if (y.signum() == 0)
+                return null;
+
+            if (this.pThreeModFour) {
+                // r = y^((p+1)/4) is the square root of y if and only if y is a quadratic residue
+                BigInteger r = y.modPow(this.sqrtExponent, this.p);
+                return r.multiply(r).mod(this.p).equals(y) ? r : null;
+            }
+
+            // t = y^((p-5)/8), thus c = t^2*y = y^((p-1)/4) and c^2 is the Euler criterion
+            BigInteger t = y.modPow(this.sqrtExponent, this.p);
+            BigInteger c = t.multiply(t).mod(this.p).multiply(y).mod(this.p);
+            if (c.equals(ONE))
+                return t.multiply(y).mod(this.p);
+            if (c.equals(this.pMinusOne))
+                return t.modInverse(this.p).multiply(this.nonResiduePower).mod(this.p);
+            return null;
+        }
+    }
+
     static class EncryptedRandomValue{
         private ECPoint encrypted;
         private ECPoint random;
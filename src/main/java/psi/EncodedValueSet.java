@@ -0,0 +1,281 @@
+package psi;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of String representations of encrypted values (or of their fingerprints), used by the clients to store the
+ * server dataset compared during the intersection. Differently from a Set of BigIntegers or ECPoints, the set does not
+ * keep an object for each value: the characters of the values are appended to large byte pages, while primitive arrays
+ * keep, for each value, a 64-bit hash and the position of the value in the pages.
+ * The values can be compared in two ways:
+ * <ul>
+ *     <li>by probing the open-addressing table built by buildIndex, where each slot contains the upper 32 bits of the
+ *     hash of a value and its index;</li>
+ *     <li>by merging the array returned by getSortKeys, which contains the same keys sorted, with the sorted keys of
+ *     the other values, as done by SortMergeJoin.</li>
+ * </ul>
+ * In both cases the characters of a value are only compared when the hashes are equal, hence the result is exact even
+ * in case of hash collisions. The hash is keyed by a random key chosen for each set (see SipHash), so that the values
+ * sent by the server cannot be chosen to collide; the values of the other party merged with the set are hashed with
+ * the hash method of the set.
+ * Since the String representations returned by CustomTypeConverter only contain characters in the range 0-255, each
+ * character is stored in a single byte.
+ * The pages, the arrays and the table are allocated by the WorkingStorage passed at construction.
+ * Values can be added by multiple threads, while the set should only be probed once all the values have been added.
+ */
+class EncodedValueSet {
+
+    private static final int PAGE_SIZE = 1 << 20;
+    private static final int MAX_VALUE_LENGTH = 0xFFFF;
+    private static final int INITIAL_ENTRIES = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final long HASH_MASK = 0xFFFFFFFF00000000L;
+    private static final long INDEX_MASK = 0x00000000FFFFFFFFL;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    // Random key of the hash of this set
+    private final long hashKey0;
+    private final long hashKey1;
+
+    // Hash of each value and its location, which contains the index of the page in the bits 63-40, the offset in the
+    // page in the bits 39-16 and the length of the value in the bits 15-0
+    private WorkingStorage.LongSlab hashes;
+    private WorkingStorage.LongSlab locations;
+    private int size;
+
+    private final WorkingStorage workingStorage;
+    private final List<WorkingStorage.ByteSlab> pages;
+    private WorkingStorage.ByteSlab currentPage;
+    private int currentPageOffset;
+
+    // Open-addressing table built by buildIndex, whose slots contain the sort key of a value plus 1, or 0 if empty
+    private WorkingStorage.LongSlab table;
+    private int indexedSize;
+
+    EncodedValueSet() {
+        this(WorkingStorage.HEAP);
+    }
+
+    EncodedValueSet(WorkingStorage workingStorage) {
+        this.workingStorage = workingStorage;
+        this.hashKey0 = SECURE_RANDOM.nextLong();
+        this.hashKey1 = SECURE_RANDOM.nextLong();
+        this.hashes = workingStorage.allocateLongs(INITIAL_ENTRIES);
+        this.locations = workingStorage.allocateLongs(INITIAL_ENTRIES);
+        this.pages = new ArrayList<>();
+        this.table = workingStorage.allocateLongs(2 * INITIAL_ENTRIES);
+    }
+
+    /**
+     * Adds a value to the set. Duplicated values are discarded by buildIndex, thus they do not change the result of
+     * the comparisons.
+     *
+     * @param value String representation of the encrypted value, as returned by CustomTypeConverter
+     * @return the index of the value
+     */
+    synchronized int add(String value) {
+        if (value.length() > MAX_VALUE_LENGTH)
+            throw new IllegalArgumentException("The values stored in the set cannot be longer than " + MAX_VALUE_LENGTH + " characters");
+        if (this.size == this.hashes.length()) {
+            if (this.size == MAX_CAPACITY / 2)
+                throw new IllegalStateException("The set cannot contain more than " + MAX_CAPACITY / 2 + " values");
+            this.hashes = grow(this.hashes, this.size);
+            this.locations = grow(this.locations, this.size);
+        }
+        this.hashes.put(this.size, hash(value));
+        this.locations.put(this.size, storeValue(value));
+        return this.size++;
+    }
+
+    /**
+     * Inserts the values added since the previous call into the table probed by the contains method. It should be
+     * called after the last value has been added and before the set is probed.
+     */
+    synchronized void buildIndex() {
+        // The table is kept at most half full, so that the probe sequences stay short
+        if (2L * this.size > this.table.length()) {
+            int capacity = this.table.length();
+            while (2L * this.size > capacity)
+                capacity *= 2;
+            this.table = this.workingStorage.allocateLongs(capacity);
+            this.indexedSize = 0;
+        }
+        int mask = this.table.length() - 1;
+        for (int index = this.indexedSize; index < this.size; index++) {
+            long hash = this.hashes.get(index);
+            int slot = (int) hash & mask;
+            boolean duplicated = false;
+            long slotValue;
+            while ((slotValue = this.table.get(slot)) != 0 && !duplicated) {
+                duplicated = (slotValue & HASH_MASK) == (hash & HASH_MASK) && valuesEqual(index(slotValue - 1), index);
+                slot = (slot + 1) & mask;
+            }
+            if (!duplicated)
+                this.table.put(slot, sortKey(hash, index) + 1);
+        }
+        this.indexedSize = this.size;
+    }
+
+    /**
+     * Checks whether a value is contained in the set. It requires the buildIndex method to be called after the last
+     * value has been added.
+     *
+     * @param value String representation of the encrypted value, as returned by CustomTypeConverter
+     * @return true if the value is contained in the set
+     */
+    boolean contains(String value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index of a value contained in the set. If the value has been added multiple times, the index of
+     * its first occurrence is returned. It requires the buildIndex method to be called after the last value has been
+     * added.
+     *
+     * @param value String representation of the encrypted value, as returned by CustomTypeConverter
+     * @return the index of the value, or -1 if it is not contained in the set
+     */
+    int indexOf(String value) {
+        long hash = hash(value);
+        int mask = this.table.length() - 1;
+        int slot = (int) hash & mask;
+        long slotValue;
+        while ((slotValue = this.table.get(slot)) != 0) {
+            if ((slotValue & HASH_MASK) == (hash & HASH_MASK) && valueEquals(index(slotValue - 1), value))
+                return index(slotValue - 1);
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the sort keys of all the values added to the set, sorted in ascending order. The sort key of a value
+     * contains the upper 32 bits of its hash in the upper 32 bits and its index in the lower 32 bits.
+     *
+     * @return a new array containing the sorted keys
+     */
+    synchronized long[] getSortKeys() {
+        long[] sortKeys = new long[this.size];
+        for (int index = 0; index < this.size; index++)
+            sortKeys[index] = sortKey(this.hashes.get(index), index);
+        Arrays.parallelSort(sortKeys);
+        return sortKeys;
+    }
+
+    /**
+     * Returns the sort key of the value with the input index, which contains the upper 32 bits of its hash in the
+     * upper 32 bits and the index in the lower 32 bits.
+     *
+     * @param index index of the value, between 0 and size() - 1
+     * @return the sort key of the value
+     */
+    long getSortKey(int index) {
+        return sortKey(this.hashes.get(index), index);
+    }
+
+    /**
+     * Checks whether the value with the input index equals the input value.
+     *
+     * @param index index of the value, as contained in its sort key
+     * @param value String representation of the encrypted value
+     * @return true if the values are equal
+     */
+    boolean valueEquals(int index, String value) {
+        long location = this.locations.get(index);
+        int length = (int) (location & MAX_VALUE_LENGTH);
+        if (length != value.length())
+            return false;
+        WorkingStorage.ByteSlab page = this.pages.get((int) (location >>> 40));
+        int offset = (int) (location >>> 16) & 0xFFFFFF;
+        for (int i = 0; i < length; i++) {
+            if ((page.get(offset + i) & 0xFF) != value.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value with the input index.
+     *
+     * @param index index of the value, between 0 and size() - 1
+     * @return String representation of the encrypted value
+     */
+    String getValue(int index) {
+        long location = this.locations.get(index);
+        int length = (int) (location & MAX_VALUE_LENGTH);
+        WorkingStorage.ByteSlab page = this.pages.get((int) (location >>> 40));
+        int offset = (int) (location >>> 16) & 0xFFFFFF;
+        char[] value = new char[length];
+        for (int i = 0; i < length; i++)
+            value[i] = (char) (page.get(offset + i) & 0xFF);
+        return new String(value);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    static long sortKey(long hash, int index) {
+        return (hash & HASH_MASK) | index;
+    }
+
+    static long hashPrefix(long sortKey) {
+        return sortKey & HASH_MASK;
+    }
+
+    static int index(long sortKey) {
+        return (int) (sortKey & INDEX_MASK);
+    }
+
+    /**
+     * Returns the hash of a value under the key of this set, which is used for the values stored in the set and for
+     * the values of the other party merged with them.
+     *
+     * @param value String representation of the encrypted value
+     * @return the 64-bit hash of the value
+     */
+    long hash(String value) {
+        return SipHash.hash(this.hashKey0, this.hashKey1, value);
+    }
+
+    private boolean valuesEqual(int index1, int index2) {
+        long location1 = this.locations.get(index1);
+        long location2 = this.locations.get(index2);
+        int length = (int) (location1 & MAX_VALUE_LENGTH);
+        if (length != (int) (location2 & MAX_VALUE_LENGTH))
+            return false;
+        WorkingStorage.ByteSlab page1 = this.pages.get((int) (location1 >>> 40));
+        WorkingStorage.ByteSlab page2 = this.pages.get((int) (location2 >>> 40));
+        int offset1 = (int) (location1 >>> 16) & 0xFFFFFF;
+        int offset2 = (int) (location2 >>> 16) & 0xFFFFFF;
+        for (int i = 0; i < length; i++) {
+            if (page1.get(offset1 + i) != page2.get(offset2 + i))
+                return false;
+        }
+        return true;
+    }
+
+    // Returns a slab of twice the length containing the first size longs of the input one
+    private WorkingStorage.LongSlab grow(WorkingStorage.LongSlab slab, int size) {
+        WorkingStorage.LongSlab grownSlab = this.workingStorage.allocateLongs(2 * slab.length());
+        slab.copyTo(grownSlab, size);
+        return grownSlab;
+    }
+
+    // Appends the characters of the value to the current page, opening a new page if it does not fit
+    private long storeValue(String value) {
+        if (this.currentPage == null || this.currentPageOffset + value.length() > PAGE_SIZE) {
+            this.currentPage = this.workingStorage.allocateBytes(PAGE_SIZE);
+            this.currentPageOffset = 0;
+            this.pages.add(this.currentPage);
+        }
+        for (int i = 0; i < value.length(); i++)
+            this.currentPage.put(this.currentPageOffset + i, (byte) value.charAt(i));
+        long location = ((long) (this.pages.size() - 1) << 40) | ((long) this.currentPageOffset << 16) | value.length();
+        this.currentPageOffset += value.length();
+        return location;
+    }
+}
@@ -0,0 +1,313 @@
+package psi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import psi.exception.PsiClientException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Computes the same intersection as SortMergeJoin within a bounded amount of heap. The sort keys of the client values,
+ * which contain the upper 32 bits of the hash of each value and its key, and those of the server values are sorted in
+ * runs that fit in the memory budget, which are written to temporary files. The runs of each side are then merged with
+ * a k-way merge, and the two sorted sequences are merged together. If the read buffers of all the runs of a side do
+ * not fit in half of the budget, groups of runs are first merged into longer runs, in as many passes as needed, so
+ * that the number of files opened at once is bounded. Only the client values whose hash equals the hash
+ * of a server value are read again and compared, hence the result is exact.
+ * The run files are created in the scratch directory of the WorkingStorage, or in the default temporary directory if
+ * the storage is on the heap, and are deleted before returning.
+ */
+class ExternalSortMergeJoin {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalSortMergeJoin.class);
+
+    // Minimum number of sort keys of a run, so that a small budget does not produce a large number of runs
+    private static final int MIN_RUN_LENGTH = 1 << 12;
+    private static final int MIN_READ_BUFFER_SIZE = 1 << 12;
+    private static final int MAX_READ_BUFFER_SIZE = 1 << 16;
+    // Maximum number of runs of a side merged at once, which bounds the files opened at once regardless of the budget
+    private static final int MAX_FAN_IN = 1 << 8;
+
+    private ExternalSortMergeJoin() {}
+
+    /**
+     * Computes the keys of the client entries whose value is contained in the server set.
+     *
+     * @param clientColumn         column containing the String representations of the client values
+     * @param maxKey               last key assigned to the entries of the client dataset
+     * @param fingerprintBits      number of bits of the fingerprints contained in the server set, or null if it
+     *                             contains the full values
+     * @param serverSet            set containing the server values
+     * @param workingStorage       storage of the client, whose scratch directory contains the run files
+     * @param memoryBudgetBytes    maximum number of bytes used by the sort keys held in memory
+     * @param sharedExecutorService executor that runs the threads
+     * @param threads              number of threads used to encode and sort the values
+     * @param threadTimeoutSeconds maximum time waited for the threads
+     * @return the keys of the client entries contained in the intersection
+     */
+    static Set<Long> intersect(ChunkedColumn.OfBytes clientColumn, long maxKey, Integer fingerprintBits,
+                               EncodedValueSet serverSet, WorkingStorage workingStorage, long memoryBudgetBytes,
+                               ExecutorService sharedExecutorService, int threads, int threadTimeoutSeconds) {
+        log.debug("Called intersect() with {} client keys, {} server values and a budget of {} bytes", maxKey, serverSet.size(), memoryBudgetBytes);
+
+        // Each thread holds a single run in memory while the runs are written
+        int runLength = (int) Math.max(MIN_RUN_LENGTH, Math.min(Integer.MAX_VALUE - 8, memoryBudgetBytes / 8 / threads));
+        List<File> clientRuns = Collections.synchronizedList(new ArrayList<>());
+        List<File> serverRuns = Collections.synchronizedList(new ArrayList<>());
+        try {
+            writeClientRuns(clientColumn, maxKey, fingerprintBits, serverSet, workingStorage, runLength, clientRuns, sharedExecutorService, threads, threadTimeoutSeconds);
+            writeServerRuns(serverSet, workingStorage, runLength, serverRuns, sharedExecutorService, threads, threadTimeoutSeconds);
+
+            // The runs of the two sides are read at once, thus the read buffers of each side share half of the budget
+            long sideBudgetBytes = Math.max(1, memoryBudgetBytes / 2);
+            int clientReadBufferSize = reduceRuns(clientRuns, sideBudgetBytes, workingStorage);
+            int serverReadBufferSize = reduceRuns(serverRuns, sideBudgetBytes, workingStorage);
+            try (RunMerger clientMerger = new RunMerger(clientRuns, clientReadBufferSize);
+                 RunMerger serverMerger = new RunMerger(serverRuns, serverReadBufferSize)) {
+                return merge(clientMerger, serverMerger, clientColumn, fingerprintBits, serverSet);
+            }
+        } catch (IOException e) {
+            log.error("Error while merging the sorted runs: ", e);
+            throw new PsiClientException("Unable to merge the sorted runs of the intersection: " + e.getMessage());
+        } finally {
+            for (File run : clientRuns)
+                delete(run);
+            for (File run : serverRuns)
+                delete(run);
+        }
+    }
+
+    // Writes the sort keys of the client values, whose index is their key and whose hash is the one of the server set,
+    // in sorted runs
+    private static void writeClientRuns(ChunkedColumn.OfBytes clientColumn, long maxKey, Integer fingerprintBits,
+                                        EncodedValueSet serverSet, WorkingStorage workingStorage, int runLength,
+                                        List<File> runs, ExecutorService sharedExecutorService, int threads,
+                                        int threadTimeoutSeconds) {
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        List<long[]> partitionList = PartitionHelper.partitionRange(1, maxKey + 1, threads);
+        ExecutorService executorService = new PhaseExecutor(sharedExecutorService);
+        for (long[] partition : partitionList) {
+            executorService.submit(() -> {
+                FingerprintFactory fingerprintFactory = fingerprintBits != null ? new FingerprintFactory(fingerprintBits) : null;
+                long[] run = new long[(int) Math.min(runLength, partition[1] - partition[0])];
+                int size = 0;
+                try {
+                    for (long key = partition[0]; key < partition[1]; key++) {
+                        byte[] clientValue = clientColumn.get(key);
+                        if (clientValue == null)
+                            continue;
+                        String value = FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBytesToString(clientValue));
+                        run[size++] = EncodedValueSet.sortKey(serverSet.hash(value), (int) key);
+                        if (size == run.length) {
+                            runs.add(writeRun(run, size, workingStorage));
+                            size = 0;
+                        }
+                    }
+                    if (size > 0)
+                        runs.add(writeRun(run, size, workingStorage));
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, threadTimeoutSeconds, log);
+        throwFailure(failure);
+    }
+
+    // Writes the sort keys of the server values, whose index is their index in the set, in sorted runs
+    private static void writeServerRuns(EncodedValueSet serverSet, WorkingStorage workingStorage, int runLength,
+                                        List<File> runs, ExecutorService sharedExecutorService, int threads,
+                                        int threadTimeoutSeconds) {
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        List<long[]> partitionList = PartitionHelper.partitionRange(0, serverSet.size(), threads);
+        ExecutorService executorService = new PhaseExecutor(sharedExecutorService);
+        for (long[] partition : partitionList) {
+            executorService.submit(() -> {
+                long[] run = new long[(int) Math.min(runLength, partition[1] - partition[0])];
+                int size = 0;
+                try {
+                    for (int index = (int) partition[0]; index < partition[1]; index++) {
+                        run[size++] = serverSet.getSortKey(index);
+                        if (size == run.length) {
+                            runs.add(writeRun(run, size, workingStorage));
+                            size = 0;
+                        }
+                    }
+                    if (size > 0)
+                        runs.add(writeRun(run, size, workingStorage));
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, threadTimeoutSeconds, log);
+        throwFailure(failure);
+    }
+
+    // Sorts the first size keys of the run and writes them to a new temporary file
+    private static File writeRun(long[] run, int size, WorkingStorage workingStorage) throws IOException {
+        Arrays.sort(run, 0, size);
+        File file = File.createTempFile("psi-", ".run", workingStorage.getScratchDirectory());
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (int i = 0; i < size; i++)
+                outputStream.writeLong(run[i]);
+        } catch (IOException e) {
+            delete(file);
+            throw e;
+        }
+        return file;
+    }
+
+    // Merges groups of runs into longer runs until the read buffers of all the runs fit in the budget, and returns the
+    // size of their read buffers. The merged runs are replaced in the list by the new run, and deleted
+    private static int reduceRuns(List<File> runs, long budgetBytes, WorkingStorage workingStorage) throws IOException {
+        int readBufferSize = readBufferSize(runs.size(), budgetBytes);
+        int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, budgetBytes / readBufferSize));
+        while (runs.size() > fanIn) {
+            List<File> group = new ArrayList<>(runs.subList(0, fanIn));
+            try (RunMerger merger = new RunMerger(group, readBufferSize)) {
+                runs.add(writeRun(merger, workingStorage));
+            }
+            runs.subList(0, fanIn).clear();
+            for (File run : group)
+                delete(run);
+        }
+        return readBufferSize(runs.size(), budgetBytes);
+    }
+
+    private static int readBufferSize(int runs, long budgetBytes) {
+        return (int) Math.max(MIN_READ_BUFFER_SIZE, Math.min(MAX_READ_BUFFER_SIZE, budgetBytes / Math.max(1, runs)));
+    }
+
+    // Writes the keys returned by the merger, which are already sorted, to a new temporary file
+    private static File writeRun(RunMerger merger, WorkingStorage workingStorage) throws IOException {
+        File file = File.createTempFile("psi-", ".run", workingStorage.getScratchDirectory());
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            while (merger.hasNext())
+                outputStream.writeLong(merger.next());
+        } catch (IOException e) {
+            delete(file);
+            throw e;
+        }
+        return file;
+    }
+
+    // Merges the sorted client keys with the sorted server keys, comparing the values with the same hash
+    private static Set<Long> merge(RunMerger clientMerger, RunMerger serverMerger, ChunkedColumn.OfBytes clientColumn,
+                                   Integer fingerprintBits, EncodedValueSet serverSet) throws IOException {
+        FingerprintFactory fingerprintFactory = fingerprintBits != null ? new FingerprintFactory(fingerprintBits) : null;
+        Set<Long> result = new HashSet<>();
+        List<Integer> serverIndexes = new ArrayList<>();
+        while (clientMerger.hasNext() && serverMerger.hasNext()) {
+            long clientHash = EncodedValueSet.hashPrefix(clientMerger.peek());
+            long serverHash = EncodedValueSet.hashPrefix(serverMerger.peek());
+            if (clientHash < serverHash)
+                clientMerger.next();
+            else if (clientHash > serverHash)
+                serverMerger.next();
+            else {
+                // All the client values with this hash are compared with all the server values with the same hash
+                serverIndexes.clear();
+                while (serverMerger.hasNext() && EncodedValueSet.hashPrefix(serverMerger.peek()) == clientHash)
+                    serverIndexes.add(EncodedValueSet.index(serverMerger.next()));
+                while (clientMerger.hasNext() && EncodedValueSet.hashPrefix(clientMerger.peek()) == clientHash) {
+                    long key = EncodedValueSet.index(clientMerger.next());
+                    String value = FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBytesToString(clientColumn.get(key)));
+                    for (int serverIndex : serverIndexes) {
+                        if (serverSet.valueEquals(serverIndex, value)) {
+                            result.add(key);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void throwFailure(AtomicReference<IOException> failure) {
+        if (failure.get() != null) {
+            log.error("Error while writing the sorted runs: ", failure.get());
+            throw new PsiClientException("Unable to write the sorted runs of the intersection: " + failure.get().getMessage());
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete())
+            file.deleteOnExit();
+    }
+
+    /**
+     * Merges multiple sorted run files into a single sorted sequence, keeping in memory only the read buffer and the
+     * current key of each run.
+     */
+    private static class RunMerger implements Closeable {
+
+        private final List<DataInputStream> inputStreams;
+        // Each element contains the current key of a run and the index of the run
+        private final PriorityQueue<long[]> heads;
+
+        private RunMerger(List<File> runs, int readBufferSize) throws IOException {
+            this.inputStreams = new ArrayList<>(runs.size());
+            this.heads = new PriorityQueue<>(Math.max(1, runs.size()), (head1, head2) -> Long.compare(head1[0], head2[0]));
+            try {
+                for (File run : runs) {
+                    this.inputStreams.add(new DataInputStream(new BufferedInputStream(new FileInputStream(run), readBufferSize)));
+                    advance(new long[]{0, this.inputStreams.size() - 1L});
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        boolean hasNext() {
+            return !this.heads.isEmpty();
+        }
+
+        long peek() {
+            return this.heads.element()[0];
+        }
+
+        long next() throws IOException {
+            long[] head = this.heads.remove();
+            long key = head[0];
+            advance(head);
+            return key;
+        }
+
+        // Reads the following key of the run of the input head, which is discarded if the run is over
+        private void advance(long[] head) throws IOException {
+            try {
+                head[0] = this.inputStreams.get((int) head[1]).readLong();
+                this.heads.add(head);
+            } catch (EOFException e) {
+                // The run has no more keys
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (DataInputStream inputStream : this.inputStreams)
+                inputStream.close();
+        }
+    }
+}
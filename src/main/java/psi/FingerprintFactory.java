@@ -0,0 +1,59 @@
+package psi;
+
+import psi.exception.CustomRuntimeException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Computes the fingerprints that replace the encrypted values compared during the intersection, when the
+ * fingerprintBits field of the PsiAlgorithmParameter is set. The fingerprint of a value is given by the first
+ * fingerprintBits bits of the SHA-256 digest of its String representation, hence all the fingerprints of a session have
+ * the same length, whatever the algorithm and the key size.
+ * Since MessageDigest objects are not thread-safe, each thread should use its own instance.
+ */
+class FingerprintFactory {
+
+    private static final String HASHING_ALGORITHM = "SHA-256";
+
+    private final MessageDigest digestHash;
+
+    // Length of the fingerprints in bytes, which equals the length of their String representation
+    private final int fingerprintLength;
+
+    FingerprintFactory(int fingerprintBits) {
+        this.fingerprintLength = fingerprintBits / 8;
+        try {
+            this.digestHash = MessageDigest.getInstance(HASHING_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new CustomRuntimeException("The algorithm " + HASHING_ALGORITHM + " is not supported as hashing function");
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the String representation of an encrypted value.
+     *
+     * @param value String representation of the encrypted value, as returned by CustomTypeConverter
+     * @return the String representation of the fingerprint, whose length is fingerprintBits / 8
+     */
+    String computeFingerprint(String value) {
+        byte[] digest = this.digestHash.digest(CustomTypeConverter.convertStringToBytes(value));
+        return CustomTypeConverter.convertBytesToString(Arrays.copyOf(digest, this.fingerprintLength));
+    }
+
+    /**
+     * Computes the value returned to the other party or compared during the intersection.
+     *
+     * @param fingerprintFactory factory of the current thread, or null if the full values are used
+     * @param value              String representation of the encrypted value
+     * @return the fingerprint of the value if fingerprintFactory is not null, the value itself otherwise
+     */
+    static String fingerprintOrValue(FingerprintFactory fingerprintFactory, String value) {
+        return fingerprintFactory != null ? fingerprintFactory.computeFingerprint(value) : value;
+    }
+
+    int getFingerprintLength() {
+        return this.fingerprintLength;
+    }
+}
@@ -0,0 +1,89 @@
+package psi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Intersection computed while the server dataset is being loaded, as done by PsiClient.loadAndProbeServerDataset.
+ * Differently from the other engines, the client values are indexed once, in an EncodedValueSet whose indexes are
+ * mapped to the keys of the client entries, and each processed server value is probed against them as soon as it is
+ * available, thus the server values are never stored.
+ * The clear value of each matching client entry is delivered only once, even if multiple server chunks contain its
+ * value, and the deliveries are serialized, so that the consumer does not need to be thread safe.
+ */
+class IncrementalIntersection {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalIntersection.class);
+
+    private final EncodedValueSet clientSet;
+    // Key of the client entry of each value of the clientSet, addressed by the index of the value
+    private final WorkingStorage.LongSlab keys;
+    private final ChunkedColumn.OfVariableBytes clientClearDataset;
+    private final Set<Long> matchedKeys;
+
+    /**
+     * Indexes the values of the client column.
+     *
+     * @param clientColumn         column containing the String representations of the client values
+     * @param maxKey               last key assigned to the entries of the client dataset
+     * @param fingerprintBits      number of bits of the fingerprints compared in place of the values, or null if the
+     *                             full values are compared
+     * @param clientClearDataset   column containing the clear values of the client entries
+     * @param workingStorage       storage of the client, which allocates the index
+     * @param sharedExecutorService executor that runs the threads
+     * @param threads              number of threads used to index the values
+     * @param threadTimeoutSeconds maximum time waited for the threads
+     */
+    IncrementalIntersection(ChunkedColumn.OfBytes clientColumn, long maxKey, Integer fingerprintBits,
+                            ChunkedColumn.OfVariableBytes clientClearDataset, WorkingStorage workingStorage,
+                            ExecutorService sharedExecutorService, int threads, int threadTimeoutSeconds) {
+        log.debug("Called IncrementalIntersection() with {} client keys", maxKey);
+        this.clientSet = new EncodedValueSet(workingStorage);
+        this.keys = workingStorage.allocateLongs((int) Math.max(1, maxKey));
+        this.clientClearDataset = clientClearDataset;
+        this.matchedKeys = ConcurrentHashMap.newKeySet();
+
+        List<long[]> partitionList = PartitionHelper.partitionRange(1, maxKey + 1, threads);
+        ExecutorService executorService = new PhaseExecutor(sharedExecutorService);
+        for (long[] partition : partitionList) {
+            executorService.submit(() -> {
+                FingerprintFactory fingerprintFactory = fingerprintBits != null ? new FingerprintFactory(fingerprintBits) : null;
+                for (long key = partition[0]; key < partition[1]; key++) {
+                    byte[] clientValue = clientColumn.get(key);
+                    if (clientValue == null)
+                        continue;
+                    String value = FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBytesToString(clientValue));
+                    this.keys.put(this.clientSet.add(value), key);
+                }
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, threadTimeoutSeconds, log);
+        this.clientSet.buildIndex();
+    }
+
+    /**
+     * Probes a processed server value against the client values, and passes the clear value of the matching client
+     * entry to the consumer if it has not been delivered yet.
+     *
+     * @param value    String representation of the server value, as compared with the client values
+     * @param consumer consumer of the clear values contained in the intersection
+     */
+    void probe(String value, Consumer<String> consumer) {
+        int index = this.clientSet.indexOf(value);
+        if (index < 0)
+            return;
+        long key = this.keys.get(index);
+        if (this.matchedKeys.add(key)) {
+            String clearValue = CustomTypeConverter.convertBytesToString(this.clientClearDataset.get(key));
+            synchronized (this) {
+                consumer.accept(clearValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package psi;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Offers utilities to compute the modular inverses of multiple values at once.
+ */
+class ModularInversionHelper {
+
+    private ModularInversionHelper() {}
+
+    /**
+     * Computes the modular inverses of all the input values using Montgomery's simultaneous inversion trick, which
+     * replaces n inversions with a single inversion and about 3(n-1) modular multiplications. If the product of the
+     * values is not invertible, each value is inverted separately, so that the behaviour is the same as calling
+     * modInverse on each of them.
+     *
+     * @param values list of values to be inverted
+     * @param modulus the modulus
+     * @return a list containing, at the same position, the inverse of each input value
+     * @throws ArithmeticException if any of the values is not invertible
+     */
+    static List<BigInteger> batchModInverse(List<BigInteger> values, BigInteger modulus) {
+        int size = values.size();
+        if (size == 0)
+            return Collections.emptyList();
+
+        // prefixProducts[i] = values[0] * ... * values[i] mod modulus
+        BigInteger[] prefixProducts = new BigInteger[size];
+        BigInteger accumulator = values.get(0).mod(modulus);
+        prefixProducts[0] = accumulator;
+        for (int i = 1; i < size; i++) {
+            accumulator = accumulator.multiply(values.get(i)).mod(modulus);
+            prefixProducts[i] = accumulator;
+        }
+
+        BigInteger inverse;
+        try {
+            inverse = accumulator.modInverse(modulus);
+        } catch (ArithmeticException e) {
+            List<BigInteger> inverses = new ArrayList<>(size);
+            for (BigInteger value : values)
+                inverses.add(value.modInverse(modulus));
+            return inverses;
+        }
+
+        // Walks the list backwards: inverse holds (values[0] * ... * values[i])^-1 at the beginning of each iteration
+        BigInteger[] inverses = new BigInteger[size];
+        for (int i = size - 1; i > 0; i--) {
+            inverses[i] = inverse.multiply(prefixProducts[i - 1]).mod(modulus);
+            inverse = inverse.multiply(values.get(i)).mod(modulus);
+        }
+        inverses[0] = inverse;
+
+        List<BigInteger> result = new ArrayList<>(size);
+        Collections.addAll(result, inverses);
+        return result;
+    }
+}
@@ -2,9 +2,17 @@ package psi;
 
 import org.slf4j.Logger;
 import psi.exception.CustomRuntimeException;
+import psi.model.PsiThreadConfiguration;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Offers utilities for multi-threading management.
@@ -14,15 +22,144 @@ class MultithreadingHelper {
     private MultithreadingHelper() {
     }
 
+    // The shared executor is only created when it is first used
+    private static class SharedExecutorHolder {
+        private static final ExecutorService SHARED_EXECUTOR_SERVICE = Executors.newFixedThreadPool(
+                Math.max(GlobalVariables.DEFAULT_THREADS, Runtime.getRuntime().availableProcessors()), runnable -> {
+                    Thread thread = new Thread(runnable, "psi-shared-executor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Threads that run the methods called through the asynchronous variants, which only wait for the phases run by
+    // the shared executor. Their number is bounded, the further calls waiting in the queue, and they terminate when
+    // they have been idle for a while
+    private static class AsyncExecutorHolder {
+        private static final ExecutorService ASYNC_EXECUTOR_SERVICE = createAsyncExecutorService();
+
+        private static ExecutorService createAsyncExecutorService() {
+            int threads = Math.max(GlobalVariables.DEFAULT_THREADS, Runtime.getRuntime().availableProcessors());
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "psi-async");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            return threadPoolExecutor;
+        }
+    }
+
+    /**
+     * Returns the executor used by the PsiServer and PsiClient objects whose PsiThreadConfiguration does not set one.
+     * Its threads, as many as the available processors and at least DEFAULT_THREADS, are shared by all the objects,
+     * so that concurrent phases do not use more threads than the machine can run.
+     *
+     * @return the shared executor
+     */
+    static ExecutorService getSharedExecutorService() {
+        return SharedExecutorHolder.SHARED_EXECUTOR_SERVICE;
+    }
+
+    /**
+     * Returns the executor that runs the threads of the PsiServer or PsiClient configured with the configuration: the
+     * one set in the configuration, if any, otherwise the executor of virtual threads if virtualThreads is set, or the
+     * shared executor.
+     *
+     * @param configuration the configuration of the threads
+     * @return the executor of the configuration
+     */
+    static ExecutorService getExecutorService(PsiThreadConfiguration configuration) {
+        if (configuration.getExecutorService() != null)
+            return configuration.getExecutorService();
+        if (Boolean.TRUE.equals(configuration.getVirtualThreads()))
+            return VirtualThreads.getExecutorService();
+        return getSharedExecutorService();
+    }
+
+    /**
+     * Returns the executor that runs the methods called through the asynchronous variants of the PsiServer or PsiClient
+     * configured with the configuration: the asyncExecutorService set in the configuration, if any, otherwise the
+     * executor of virtual threads if virtualThreads is set, or a bounded executor shared by all the objects.
+     *
+     * @param configuration the configuration of the threads
+     * @return the asynchronous executor of the configuration
+     */
+    static ExecutorService getAsyncExecutorService(PsiThreadConfiguration configuration) {
+        if (configuration.getAsyncExecutorService() != null)
+            return configuration.getAsyncExecutorService();
+        if (Boolean.TRUE.equals(configuration.getVirtualThreads()))
+            return VirtualThreads.getExecutorService();
+        return getAsyncExecutorService();
+    }
+
+    // Returns the asynchronous executor used by the objects whose PsiThreadConfiguration does not set one
+    static ExecutorService getAsyncExecutorService() {
+        return AsyncExecutorHolder.ASYNC_EXECUTOR_SERVICE;
+    }
+
+    /**
+     * Waits for the threads of a phase. If they do not terminate within maxSecondsLifetime seconds, if the calling
+     * thread is interrupted (e.g., since the CompletableFuture returned by an asynchronous method has been cancelled),
+     * or if one of the threads has failed, the phase is cancelled and a CustomRuntimeException is thrown, thus the
+     * caller never gets partial results.
+     *
+     * @param executorService    executor of the phase
+     * @param maxSecondsLifetime maximum time waited for the threads
+     * @param log                logger of the caller
+     */
     static void awaitTermination(ExecutorService executorService, int maxSecondsLifetime, Logger log){
         try {
             executorService.shutdown();
-            executorService.awaitTermination(maxSecondsLifetime, TimeUnit.SECONDS);
+            if (!executorService.awaitTermination(maxSecondsLifetime, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+                throw new CustomRuntimeException("The threads have not terminated within " + maxSecondsLifetime + " seconds");
+            }
         } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
             log.error("Error while collecting the results of threads: ", e);
             throw new CustomRuntimeException(e.getMessage());
         } finally {
             executorService.shutdown();
         }
+        Throwable failure = executorService instanceof PhaseExecutor ? ((PhaseExecutor) executorService).getFailure() : null;
+        if (failure != null) {
+            log.error("Error while running a thread: ", failure);
+            throw new CustomRuntimeException("Error while running a thread: " + failure.getMessage());
+        }
+    }
+
+    /**
+     * Runs a method of a PsiServer or PsiClient in a thread of the asynchronous executor, whose threads only wait for
+     * the phases of the method, and returns a CompletableFuture completed with its result or failure. If the
+     * CompletableFuture is cancelled, the thread running the method is interrupted, thus the running phase is
+     * cancelled and the method throws. If the executor rejects the method, the CompletableFuture is completed with
+     * the rejection.
+     *
+     * @param supplier             the method to run
+     * @param asyncExecutorService the asynchronous executor, which should not be the executor running the phases
+     * @return a CompletableFuture completed when the method returns
+     */
+    static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, ExecutorService asyncExecutorService) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                completableFuture.complete(supplier.get());
+            } catch (RuntimeException | Error e) {
+                completableFuture.completeExceptionally(e);
+            }
+        }, null);
+        completableFuture.whenComplete((result, e) -> {
+            if (completableFuture.isCancelled())
+                task.cancel(true);
+        });
+        try {
+            asyncExecutorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            completableFuture.completeExceptionally(e);
+        }
+        return completableFuture;
     }
 }
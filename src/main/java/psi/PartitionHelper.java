@@ -3,62 +3,54 @@ package psi;
 import java.util.*;
 
 /**
- * Offers utilities to split Maps or Sets in the requested number of partitions.
- * It is called by the sdk to run encryption operations in parallel on multiple threads.
+ * Offers utilities to split ranges of keys in the requested number of partitions, and to read streamed inputs in
+ * chunks. It is called by the sdk to run operations whose cost is uniform in parallel on multiple threads, while the
+ * encryption operations take their elements from a ChunkQueue.
  */
 class PartitionHelper {
 
     private PartitionHelper() {}
 
-    static <T, K> List<Map<T,K>> partitionMap(Map<T,K> map, int numPartitions){
-        if (map == null) {
-            throw new NullPointerException("The map must not be null");
-        }
-
+    /**
+     * Splits the range [from, to) in numPartitions contiguous ranges of similar size, some of which might be empty.
+     * It is used to split the keys of the client dataset, which are dense.
+     *
+     * @param from          first value of the range
+     * @param to            value following the last value of the range
+     * @param numPartitions number of partitions
+     * @return a list of ranges, each represented by an array containing its first value and the value following its
+     * last value
+     */
+    static List<long[]> partitionRange(long from, long to, int numPartitions){
         if(numPartitions <= 0)
             throw new IllegalArgumentException("'numPartitions' must be greater than 0");
 
-        List<T> list = new ArrayList<>(map.keySet());
-        List<Map<T,K>> partitions = new ArrayList<>(numPartitions);
-        int size = list.size();
-
-        int partitionSize = (int) Math.ceil((double)size/numPartitions);
+        List<long[]> partitions = new ArrayList<>(numPartitions);
+        long size = Math.max(0, to - from);
+        long partitionSize = (size + numPartitions - 1) / numPartitions;
         for(int i = 0; i < numPartitions; i++){
-            int from = Math.min(i * partitionSize, size);
-            int to = Math.min((i + 1) * partitionSize, size);
-            Map<T,K> tmpMap = new HashMap<>();
-            for(T elem : list.subList(from, to))
-                tmpMap.put(elem, map.get(elem));
-            partitions.add(tmpMap);
+            long start = from + Math.min(i * partitionSize, size);
+            long end = from + Math.min((i + 1) * partitionSize, size);
+            partitions.add(new long[]{start, end});
         }
         return partitions;
     }
 
-    static <T> List<Set<T>> partitionSet(Set<T> set, int numPartitions){
-        if (set == null) {
-            throw new NullPointerException("The set must not be null");
-        }
-
-        List<Set<T>> partitions = new ArrayList<>(numPartitions);
-        for(int i = 0; i<numPartitions; i++)
-            partitions.add(i, new HashSet<>());
-
-        int size = set.size();
-        int partitionSize = (int) Math.ceil((double)size/numPartitions);
-        if(numPartitions <= 0)
-            throw new IllegalArgumentException("'numPartitions' must be greater than 0");
-
-        Iterator<T> iterator = set.iterator();
-        int partitionToWrite = 0;
-        int cont = 0;
-        while(iterator.hasNext()){
-            partitions.get(partitionToWrite).add(iterator.next());
-            cont++;
-            if(cont >= partitionSize){
-                partitionToWrite++;
-                cont = 0;
-            }
-        }
-        return partitions;
+    /**
+     * Reads the following chunk of elements from the iterator, which contains at most chunkSize elements and is empty
+     * only if the iterator has no more elements. Duplicated elements are only counted once.
+     *
+     * @param iterator  iterator whose elements are read
+     * @param chunkSize maximum number of elements of the chunk
+     * @return a new set containing the elements of the chunk
+     */
+    static <T> Set<T> nextChunk(Iterator<T> iterator, int chunkSize){
+        if(chunkSize <= 0)
+            throw new IllegalArgumentException("'chunkSize' must be greater than 0");
+
+        Set<T> chunk = new HashSet<>();
+        while(chunk.size() < chunkSize && iterator.hasNext())
+            chunk.add(iterator.next());
+        return chunk;
     }
 }
@@ -0,0 +1,132 @@
+package psi;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor of the tasks of a single phase of the PSI computation, which runs them on a long-lived executor shared by
+ * all the phases. Differently from a pool created for the phase, it does not own any thread: shutdown only rejects new
+ * tasks, and awaitTermination waits for the tasks submitted to this object, so that it can be used with
+ * MultithreadingHelper.awaitTermination as any other ExecutorService without shutting down the shared executor.
+ * Since the phase waits for its tasks, the methods of the PsiClient and PsiServer should not be called by the threads
+ * of the shared executor.
+ * The first failure of a task submitted as a Runnable is recorded, so that MultithreadingHelper.awaitTermination
+ * reports it instead of returning partial results, and cancels the phase: the tasks not started yet are skipped, and
+ * the running ones stop taking chunks from their ChunkQueue. The phase is also cancelled by shutdownNow.
+ */
+class PhaseExecutor extends AbstractExecutorService {
+
+    // Phase of the task run by the current thread, if any
+    private static final ThreadLocal<PhaseExecutor> CURRENT_PHASE = new ThreadLocal<>();
+
+    private final ExecutorService sharedExecutorService;
+    private int pendingTasks;
+    private boolean shutdown;
+    private volatile boolean cancelled;
+    private Throwable failure;
+
+    PhaseExecutor(ExecutorService sharedExecutorService) {
+        this.sharedExecutorService = sharedExecutorService;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        synchronized (this) {
+            if (this.shutdown)
+                throw new RejectedExecutionException("The phase executor has been shut down");
+            this.pendingTasks++;
+        }
+        try {
+            this.sharedExecutorService.execute(() -> {
+                CURRENT_PHASE.set(this);
+                try {
+                    if (!this.cancelled)
+                        CpuPermits.run(command);
+                } catch (RuntimeException | Error e) {
+                    taskFailed(e);
+                } finally {
+                    CURRENT_PHASE.remove();
+                    taskCompleted();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            taskCompleted();
+            throw e;
+        }
+    }
+
+    // The Runnables passed to submit are wrapped in a FutureTask, which would otherwise keep their failure to itself
+    @Override
+    protected <T> FutureTask<T> newTaskFor(Runnable runnable, T value) {
+        return new FutureTask<T>(runnable, value) {
+            @Override
+            protected void setException(Throwable t) {
+                taskFailed(t);
+                super.setException(t);
+            }
+        };
+    }
+
+    private synchronized void taskFailed(Throwable t) {
+        if (this.failure == null)
+            this.failure = t;
+        this.cancelled = true;
+    }
+
+    // Returns the first failure of the tasks submitted as Runnables, or null if none of them failed
+    synchronized Throwable getFailure() {
+        return this.failure;
+    }
+
+    // Returns whether the phase of the task run by the current thread has been cancelled
+    static boolean isCurrentPhaseCancelled() {
+        PhaseExecutor phaseExecutor = CURRENT_PHASE.get();
+        return phaseExecutor != null && phaseExecutor.cancelled;
+    }
+
+    private synchronized void taskCompleted() {
+        this.pendingTasks--;
+        if (this.pendingTasks == 0)
+            notifyAll();
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        this.shutdown = true;
+    }
+
+    // The tasks already passed to the shared executor cannot be removed from it, thus they are cancelled instead
+    @Override
+    public List<Runnable> shutdownNow() {
+        this.cancelled = true;
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return this.shutdown && this.pendingTasks == 0;
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return false;
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,277 @@
+package psi;
+
+import psi.flow.PsiFlow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Processor returned by the PsiServer and PsiClient to run one of their methods on the elements received from a
+ * Publisher, as soon as they are received. The elements are requested to the upstream Publisher in batches of
+ * batchSize elements, and each batch is passed to the batchFunction, which computes it asynchronously on the executor
+ * of the PsiServer or PsiClient, while the following batch is being received. The results are passed to the single
+ * downstream Subscriber according to its demand, and no further batch is computed while the results of the previous
+ * ones have not been consumed, thus at most a few batches are kept in memory.
+ * If the batchFunction fails, the upstream subscription is cancelled and the failure is passed to the Subscriber; if
+ * the Subscriber cancels its subscription, the upstream subscription and the running batch are cancelled.
+ *
+ * @param <T> type of the elements received
+ * @param <R> type of the elements produced
+ */
+class PsiBatchProcessor<T, R> implements PsiFlow.Processor<T, R> {
+
+    private final int batchSize;
+    private final Function<List<T>, CompletableFuture<? extends Collection<R>>> batchFunction;
+
+    private PsiFlow.Subscription upstream;
+    private PsiFlow.Subscriber<? super R> downstream;
+    // Elements received for the following batch
+    private List<T> batch;
+    // Elements requested to the upstream and not received yet
+    private long requested;
+    // Whether a batch is being computed, and its future once it has been started
+    private boolean computing;
+    private CompletableFuture<? extends Collection<R>> running;
+    // Results not passed to the downstream yet
+    private final Queue<R> results = new ArrayDeque<>();
+    // Elements requested by the downstream and not passed yet
+    private long demand;
+    private boolean upstreamCompleted;
+    private Throwable failure;
+    // Whether the terminal signal has been passed to the downstream, or its subscription has been cancelled
+    private boolean done;
+    // Whether a thread is running drain
+    private boolean draining;
+
+    PsiBatchProcessor(int batchSize, Function<List<T>, CompletableFuture<? extends Collection<R>>> batchFunction) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("'batchSize' must be greater than 0");
+        this.batchSize = batchSize;
+        this.batchFunction = batchFunction;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public void onSubscribe(PsiFlow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        synchronized (this) {
+            if (this.upstream == null && !this.done) {
+                this.upstream = subscription;
+                subscription = null;
+            }
+        }
+        // A processor can only be subscribed to a single Publisher
+        if (subscription != null)
+            subscription.cancel();
+        drain();
+    }
+
+    @Override
+    public void onNext(T item) {
+        Objects.requireNonNull(item);
+        synchronized (this) {
+            if (this.done || this.upstreamCompleted)
+                return;
+            this.batch.add(item);
+            this.requested--;
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        synchronized (this) {
+            this.upstreamCompleted = true;
+            if (this.failure == null)
+                this.failure = throwable;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            this.upstreamCompleted = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void subscribe(PsiFlow.Subscriber<? super R> subscriber) {
+        Objects.requireNonNull(subscriber);
+        boolean accepted;
+        synchronized (this) {
+            accepted = this.downstream == null;
+            if (accepted)
+                this.downstream = subscriber;
+        }
+        if (!accepted) {
+            subscriber.onSubscribe(new PsiFlow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The processor only supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new PsiFlow.Subscription() {
+            @Override
+            public void request(long n) {
+                synchronized (PsiBatchProcessor.this) {
+                    if (n <= 0 && PsiBatchProcessor.this.failure == null)
+                        PsiBatchProcessor.this.failure = new IllegalArgumentException("'n' must be greater than 0");
+                    else if (n > 0)
+                        PsiBatchProcessor.this.demand = n > Long.MAX_VALUE - PsiBatchProcessor.this.demand ?
+                                Long.MAX_VALUE : PsiBatchProcessor.this.demand + n;
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelSubscription();
+            }
+        });
+        drain();
+    }
+
+    private void cancelSubscription() {
+        PsiFlow.Subscription subscription;
+        CompletableFuture<? extends Collection<R>> runningBatch;
+        synchronized (this) {
+            if (this.done)
+                return;
+            this.done = true;
+            subscription = this.upstreamCompleted ? null : this.upstream;
+            runningBatch = this.running;
+            this.batch.clear();
+            this.results.clear();
+        }
+        if (subscription != null)
+            subscription.cancel();
+        if (runningBatch != null)
+            runningBatch.cancel(true);
+    }
+
+    private void batchCompleted(Collection<R> batchResults, Throwable throwable) {
+        synchronized (this) {
+            this.computing = false;
+            this.running = null;
+            if (throwable != null) {
+                if (this.failure == null)
+                    this.failure = throwable instanceof CompletionException && throwable.getCause() != null ?
+                            throwable.getCause() : throwable;
+            } else if (!this.done) {
+                this.results.addAll(batchResults);
+            }
+        }
+        drain();
+    }
+
+    // Performs the actions allowed by the current state, until none is left. Only one thread runs it at any time, so
+    // that the signals to the downstream are serial, while the signals are sent without holding the lock. A thread
+    // that finds it running returns immediately, since the running thread reads the state again before returning
+    private void drain() {
+        synchronized (this) {
+            if (this.draining)
+                return;
+            this.draining = true;
+        }
+        while (true) {
+            R next = null;
+            Throwable error = null;
+            boolean complete = false;
+            List<T> batchToRun = null;
+            long toRequest = 0;
+            CompletableFuture<? extends Collection<R>> runningBatch = null;
+            PsiFlow.Subscription subscription;
+            PsiFlow.Subscriber<? super R> subscriber;
+            synchronized (this) {
+                subscription = this.upstream;
+                subscriber = this.downstream;
+                if (this.done || subscriber == null) {
+                    this.draining = false;
+                    return;
+                }
+                if (this.failure != null) {
+                    error = this.failure;
+                    this.done = true;
+                    if (this.upstreamCompleted)
+                        subscription = null;
+                    runningBatch = this.running;
+                } else if (this.demand > 0 && !this.results.isEmpty()) {
+                    next = this.results.poll();
+                    this.demand--;
+                } else if (this.upstreamCompleted && this.batch.isEmpty() && !this.computing && this.results.isEmpty()) {
+                    complete = true;
+                    this.done = true;
+                } else {
+                    // A new batch is only computed when the results of the previous one are about to be consumed
+                    if (!this.computing && this.results.size() < this.batchSize
+                            && (this.batch.size() >= this.batchSize || (this.upstreamCompleted && !this.batch.isEmpty()))) {
+                        batchToRun = this.batch;
+                        this.batch = new ArrayList<>(this.batchSize);
+                        this.computing = true;
+                    }
+                    // The following batch is received while the current one is computed
+                    if (subscription != null && !this.upstreamCompleted && this.requested == 0
+                            && this.batch.size() < this.batchSize) {
+                        toRequest = this.batchSize - this.batch.size();
+                        this.requested = toRequest;
+                    }
+                    if (batchToRun == null && toRequest == 0) {
+                        this.draining = false;
+                        return;
+                    }
+                }
+            }
+            if (error != null) {
+                if (subscription != null)
+                    subscription.cancel();
+                if (runningBatch != null)
+                    runningBatch.cancel(true);
+                subscriber.onError(error);
+            } else if (next != null) {
+                subscriber.onNext(next);
+            } else if (complete) {
+                subscriber.onComplete();
+            } else {
+                if (batchToRun != null)
+                    runBatch(batchToRun);
+                if (toRequest > 0)
+                    subscription.request(toRequest);
+            }
+        }
+    }
+
+    private void runBatch(List<T> batchToRun) {
+        CompletableFuture<? extends Collection<R>> future;
+        try {
+            future = this.batchFunction.apply(batchToRun);
+        } catch (RuntimeException e) {
+            batchCompleted(null, e);
+            return;
+        }
+        boolean cancelled;
+        synchronized (this) {
+            cancelled = this.done;
+            if (!cancelled)
+                this.running = future;
+        }
+        if (cancelled)
+            future.cancel(true);
+        future.whenComplete(this::batchCompleted);
+    }
+}
@@ -1,14 +1,39 @@
 package psi;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import psi.cache.PsiCacheProvider;
 import psi.client.PsiClient;
+import psi.client.PsiShardWorker;
+import psi.exception.PsiClientException;
+import psi.flow.PsiFlow;
+import psi.model.PsiAlgorithm;
+import psi.model.PsiIntersectionEngine;
 import psi.model.PsiPhaseStatistics;
+import psi.model.PsiServerFilter;
+import psi.model.PsiShard;
 import psi.model.PsiThreadConfiguration;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static psi.GlobalVariables.DEFAULT_THREADS;
 import static psi.GlobalVariables.DEFAULT_THREAD_TIMEOUT_SECONDS;
@@ -17,6 +42,9 @@ import static psi.GlobalVariables.DEFAULT_THREAD_TIMEOUT_SECONDS;
  * Abstract representation of a PsiClient containing methods and variables shared by all the PsiClient implementations
  */
 abstract class PsiClientAbstract implements PsiClient {
+
+    private static final Logger log = LoggerFactory.getLogger(PsiClientAbstract.class);
+
     // Atomic counter used to uniquely identify client elements
     AtomicLong keyAtomicCounter;
 
@@ -29,9 +57,32 @@ abstract class PsiClientAbstract implements PsiClient {
 
     protected int threads = DEFAULT_THREADS;
     protected int threadTimeoutSeconds = DEFAULT_THREAD_TIMEOUT_SECONDS;
+    // Executor that runs the threads of all the methods, which is never shut down
+    protected ExecutorService sharedExecutorService = MultithreadingHelper.getSharedExecutorService();
+    // Executor that runs the methods called through the asynchronous variants, which is never shut down
+    protected ExecutorService asyncExecutorService = MultithreadingHelper.getAsyncExecutorService();
+    protected PsiIntersectionEngine intersectionEngine = PsiIntersectionEngine.HASH_PROBE;
+    // Memory available to the sorted values of the SORT_MERGE engine. If null, they are all sorted in memory
+    protected Long memoryBudgetBytes;
+
+    // Storage of the working sets, whose scratch directory also contains the temporary files
+    WorkingStorage workingStorage;
 
     protected Queue<PsiPhaseStatistics> statisticList;
 
+    // Number of bits of the fingerprints compared in place of the server values. If null, the full values are compared
+    protected Integer fingerprintBits;
+
+    // Filter loaded by loadServerFilter, null if no filter has been loaded
+    protected BloomFilter serverFilter;
+
+    // Intersection built by the first call to loadAndProbeServerDataset, null until then
+    private IncrementalIntersection incrementalIntersection;
+
+    // Number of shards of the intersection and their worker. If shards is null, the intersection is not sharded
+    protected Integer shards;
+    protected PsiShardWorker psiShardWorker;
+
     public Integer getThreads() {
         return this.threads;
     }
@@ -50,17 +101,330 @@ abstract class PsiClientAbstract implements PsiClient {
         return psiPhaseStatisticsList;
     }
 
+    // Algorithms that do not use blinding factors (DH, ECDH and ECDH25519) have nothing to precompute
+    public void precomputeBlindingFactors(int count) {
+        if (count <= 0)
+            throw new IllegalArgumentException("'count' must be greater than 0");
+    }
+
+    // Each chunk is encrypted by loadAndEncryptClientDataset, which adds its own statistics
+    public void loadAndEncryptClientDataset(Iterator<String> clearClientIterator, int chunkSize, Consumer<Map<Long, String>> encryptedChunkConsumer) {
+        Set<String> chunk;
+        while (!(chunk = PartitionHelper.nextChunk(clearClientIterator, chunkSize)).isEmpty())
+            encryptedChunkConsumer.accept(loadAndEncryptClientDataset(chunk));
+    }
+
+    public void loadAndEncryptClientDataset(Stream<String> clearClientStream, int chunkSize, Consumer<Map<Long, String>> encryptedChunkConsumer) {
+        loadAndEncryptClientDataset(clearClientStream.iterator(), chunkSize, encryptedChunkConsumer);
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, String>> loadAndEncryptClientDatasetAsync(Set<String> clearClientDataset) {
+        return MultithreadingHelper.supplyAsync(() -> loadAndEncryptClientDataset(clearClientDataset), this.asyncExecutorService);
+    }
+
+    @Override
+    public PsiFlow.Processor<String, Map.Entry<Long, String>> loadAndEncryptClientDatasetProcessor(int batchSize) {
+        return new PsiBatchProcessor<>(batchSize, batch ->
+                loadAndEncryptClientDatasetAsync(new HashSet<>(batch)).thenApply(Map::entrySet));
+    }
+
+    @Override
+    public PsiFlow.Processor<String, String> loadAndProbeServerDatasetProcessor(int batchSize) {
+        return new PsiBatchProcessor<>(batchSize, batch -> MultithreadingHelper.supplyAsync(() -> {
+            List<String> psiResult = new ArrayList<>();
+            loadAndProbeServerDataset(new HashSet<>(batch), psiResult::add);
+            return psiResult;
+        }, this.asyncExecutorService));
+    }
+
+    @Override
+    public CompletableFuture<Void> loadAndProcessServerDatasetAsync(Set<String> serverEncryptedDataset) {
+        return MultithreadingHelper.supplyAsync(() -> {
+            loadAndProcessServerDataset(serverEncryptedDataset);
+            return null;
+        }, this.asyncExecutorService);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> computePsiAsync() {
+        return MultithreadingHelper.supplyAsync(this::computePsi, this.asyncExecutorService);
+    }
+
+    // Returns the object used by a single thread to compute the fingerprints, or null if the full values are compared
+    FingerprintFactory createFingerprintFactory() {
+        return this.fingerprintBits != null ? new FingerprintFactory(this.fingerprintBits) : null;
+    }
+
+    // Verifies the fingerprints returned by PsiServer.encryptDataset in place of the encrypted values, which happens
+    // for the BS, ECBS and ECBS25519 algorithms
+    void validateServerFingerprints(Set<String> serverFingerprints) {
+        int fingerprintLength = this.fingerprintBits / 8;
+        for (String fingerprint : serverFingerprints) {
+            if (fingerprint.length() != fingerprintLength)
+                throw new PsiClientException("The server dataset should contain fingerprints of " + this.fingerprintBits + " bits");
+        }
+    }
+
+    // Returns the queue of the chunks of the keys assigned so far to the entries of the client dataset
+    ChunkQueue.OfRange keyQueue() {
+        return new ChunkQueue.OfRange(1, this.keyAtomicCounter.get() + 1, this.threads);
+    }
+
+    // Stores a value received for an entry of the client dataset, after verifying that its key has been assigned by
+    // loadAndEncryptClientDataset and that the value fits in the column
+    void putClientValue(ChunkedColumn.OfBytes column, Long key, byte[] value) {
+        if (key == null || key < 1 || key > this.keyAtomicCounter.get())
+            throw new PsiClientException("The key " + key + " does not identify an entry of the client dataset");
+        if (value.length > column.getMaxLength())
+            throw new PsiClientException("The value of the entry " + key + " is longer than the values of this session");
+        column.put(key, value);
+    }
+
+    // Computes the intersection between the values of the client column, which contains the String representations of
+    // the values compared with the server ones, and the server values. Returns the corresponding clear values
+    Set<String> computePsi(ChunkedColumn.OfBytes clientColumn, EncodedValueSet serverSet, ChunkedColumn.OfVariableBytes clientClearDataset) {
+        Set<String> psi = ConcurrentHashMap.newKeySet();
+        if (this.shards != null) {
+            for (Long key : computeShardedPsi(clientColumn, serverSet))
+                psi.add(CustomTypeConverter.convertBytesToString(clientClearDataset.get(key)));
+            return psi;
+        }
+        // SortMergeJoin is not used if a server filter has been loaded, since the filter can only be probed
+        if (this.intersectionEngine == PsiIntersectionEngine.SORT_MERGE && this.serverFilter == null) {
+            Set<Long> keys = this.memoryBudgetBytes == null ?
+                    SortMergeJoin.intersect(clientColumn, this.keyAtomicCounter.get(), this.fingerprintBits, serverSet,
+                            this.sharedExecutorService, this.threads, this.threadTimeoutSeconds) :
+                    ExternalSortMergeJoin.intersect(clientColumn, this.keyAtomicCounter.get(), this.fingerprintBits, serverSet,
+                            this.workingStorage, this.memoryBudgetBytes, this.sharedExecutorService, this.threads, this.threadTimeoutSeconds);
+            for (Long key : keys)
+                psi.add(CustomTypeConverter.convertBytesToString(clientClearDataset.get(key)));
+            return psi;
+        }
+
+        serverSet.buildIndex();
+        ChunkQueue.OfRange keyQueue = keyQueue();
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < keyQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                FingerprintFactory fingerprintFactory = createFingerprintFactory();
+                long[] partition;
+                while ((partition = keyQueue.nextRange()) != null) {
+                    for (long key = partition[0]; key < partition[1]; key++) {
+                        byte[] clientValue = clientColumn.get(key);
+                        if (clientValue == null)
+                            continue;
+                        String value = FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBytesToString(clientValue));
+                        if (serverSet.contains(value) || (this.serverFilter != null && this.serverFilter.mightContain(value)))
+                            psi.add(CustomTypeConverter.convertBytesToString(clientClearDataset.get(key)));
+                    }
+                }
+            });
+        }
+
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+
+        return psi;
+    }
+
+    // Returns the intersection probed by loadAndProbeServerDataset, which is built from the column returned by the
+    // supplier when the method is called for the first time
+    synchronized IncrementalIntersection getIncrementalIntersection(Supplier<ChunkedColumn.OfBytes> clientColumnSupplier, ChunkedColumn.OfVariableBytes clientClearDataset) {
+        if (this.incrementalIntersection == null)
+            this.incrementalIntersection = new IncrementalIntersection(clientColumnSupplier.get(), this.keyAtomicCounter.get(),
+                    this.fingerprintBits, clientClearDataset, this.workingStorage, this.sharedExecutorService, this.threads, this.threadTimeoutSeconds);
+        return this.incrementalIntersection;
+    }
+
+    // Partitions the client and server values into the shards and returns the keys of the client values returned by
+    // the worker for any shard, plus those contained in the server filter. The shard of each value is computed first,
+    // then the shards are built and passed to the worker one at a time, while at most threads shards are held at once
+    private Set<Long> computeShardedPsi(ChunkedColumn.OfBytes clientColumn, EncodedValueSet serverSet) {
+        if (this.keyAtomicCounter.get() > Integer.MAX_VALUE - 8)
+            throw new PsiClientException("The sharded intersection supports at most " + (Integer.MAX_VALUE - 8) + " client entries");
+        Set<Long> keys = ConcurrentHashMap.newKeySet();
+        // Shard of the value of each client key, or -1 if the key has no value or its value is contained in the filter
+        int[] clientShardIndexes = new int[(int) this.keyAtomicCounter.get()];
+        int[] serverShardIndexes = new int[serverSet.size()];
+
+        ChunkQueue.OfRange keyQueue = keyQueue();
+        ChunkQueue.OfRange indexQueue = new ChunkQueue.OfRange(0, serverSet.size(), this.threads);
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < keyQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                FingerprintFactory fingerprintFactory = createFingerprintFactory();
+                long[] partition;
+                while ((partition = keyQueue.nextRange()) != null) {
+                    for (long key = partition[0]; key < partition[1]; key++) {
+                        String value = clientValue(clientColumn, fingerprintFactory, key);
+                        if (value == null) {
+                            clientShardIndexes[(int) key - 1] = -1;
+                        } else if (this.serverFilter != null && this.serverFilter.mightContain(value)) {
+                            clientShardIndexes[(int) key - 1] = -1;
+                            keys.add(key);
+                        } else {
+                            clientShardIndexes[(int) key - 1] = shardIndex(serverSet.hash(value), this.shards);
+                        }
+                    }
+                }
+            });
+        }
+        for (int worker = 0; worker < indexQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                long[] partition;
+                while ((partition = indexQueue.nextRange()) != null) {
+                    for (int index = (int) partition[0]; index < partition[1]; index++)
+                        serverShardIndexes[index] = shardIndex(serverSet.hash(serverSet.getValue(index)), this.shards);
+                }
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+
+        // Differently from the other phases, the results of the worker are collected through futures, so that the
+        // failures of a remote worker are reported to the caller
+        Queue<Future<Set<Long>>> futures = new ArrayDeque<>(this.threads);
+        executorService = new PhaseExecutor(this.sharedExecutorService);
+        try {
+            for (int i = 0; i < this.shards; i++) {
+                if (futures.size() >= this.threads)
+                    keys.addAll(getShardResult(futures.poll()));
+                PsiShard psiShard = buildShard(i, clientColumn, clientShardIndexes, serverSet, serverShardIndexes);
+                // The CPU permit is only released while a custom worker waits for the shard to be computed elsewhere
+                if (this.psiShardWorker == PsiShardWorker.LOCAL)
+                    futures.add(executorService.submit(() -> PsiShardWorker.LOCAL.intersect(psiShard)));
+                else
+                    futures.add(executorService.submit(() -> CpuPermits.blocking(() -> this.psiShardWorker.intersect(psiShard))));
+            }
+            while (!futures.isEmpty())
+                keys.addAll(getShardResult(futures.poll()));
+        } finally {
+            for (Future<Set<Long>> future : futures)
+                future.cancel(true);
+            executorService.shutdownNow();
+        }
+        return keys;
+    }
+
+    // Returns the value compared by the client for the input key, or null if the key has no value
+    private static String clientValue(ChunkedColumn.OfBytes clientColumn, FingerprintFactory fingerprintFactory, long key) {
+        byte[] clientValue = clientColumn.get(key);
+        if (clientValue == null)
+            return null;
+        return FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBytesToString(clientValue));
+    }
+
+    // Builds the shard with the input index from the client and server values assigned to it
+    private PsiShard buildShard(int shardIndex, ChunkedColumn.OfBytes clientColumn, int[] clientShardIndexes,
+                                EncodedValueSet serverSet, int[] serverShardIndexes) {
+        Map<Long, String> clientValues = new ConcurrentHashMap<>();
+        Set<String> serverValues = ConcurrentHashMap.newKeySet();
+        ChunkQueue.OfRange keyQueue = keyQueue();
+        ChunkQueue.OfRange indexQueue = new ChunkQueue.OfRange(0, serverShardIndexes.length, this.threads);
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < keyQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                FingerprintFactory fingerprintFactory = createFingerprintFactory();
+                long[] partition;
+                while ((partition = keyQueue.nextRange()) != null) {
+                    for (long key = partition[0]; key < partition[1]; key++) {
+                        if (clientShardIndexes[(int) key - 1] == shardIndex)
+                            clientValues.put(key, clientValue(clientColumn, fingerprintFactory, key));
+                    }
+                }
+            });
+        }
+        for (int worker = 0; worker < indexQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                long[] partition;
+                while ((partition = indexQueue.nextRange()) != null) {
+                    for (int index = (int) partition[0]; index < partition[1]; index++) {
+                        if (serverShardIndexes[index] == shardIndex)
+                            serverValues.add(serverSet.getValue(index));
+                    }
+                }
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+        return new PsiShard(shardIndex, this.shards, clientValues, serverValues);
+    }
+
+    // Waits for the intersection of a shard computed by the worker
+    private Set<Long> getShardResult(Future<Set<Long>> future) {
+        try {
+            return future.get(this.threadTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new PsiClientException("The intersection of a shard has not been computed within " + this.threadTimeoutSeconds + " seconds");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Error while computing the intersection of a shard: ", e);
+            throw new PsiClientException("Unable to compute the intersection of a shard: " + e.getMessage());
+        } catch (ExecutionException e) {
+            log.error("Error while computing the intersection of a shard: ", e);
+            throw new PsiClientException("Unable to compute the intersection of a shard: " + e.getMessage());
+        }
+    }
+
+    // Maps the upper 32 bits of the hash of a value under the key of the server set, which are uniformly distributed,
+    // to the shards
+    static int shardIndex(long hash, int shards) {
+        return (int) (((hash >>> 32) * shards) >>> 32);
+    }
+
+    public void close() {
+        this.workingStorage.close();
+    }
+
+    public void setShardConfiguration(Integer shards, PsiShardWorker psiShardWorker) {
+        if (shards != null && shards <= 0)
+            throw new PsiClientException("The number of shards should be greater than 0");
+        if (shards != null && psiShardWorker == null)
+            throw new PsiClientException("The psiShardWorker cannot be null if the intersection is sharded");
+        this.shards = shards;
+        this.psiShardWorker = psiShardWorker;
+    }
+
+    // Algorithms whose server dataset is encrypted again by the client (DH, ECDH and ECDH25519) do not support filters
+    public void loadServerFilter(PsiServerFilter psiServerFilter) {
+        throw new PsiClientException("The loadServerFilter method is only supported by the BS, ECBS and ECBS25519 algorithms");
+    }
+
+    // Loads the input filter after verifying that it was built by a session of the input algorithm
+    void loadServerFilter(PsiServerFilter psiServerFilter, PsiAlgorithm psiAlgorithm) {
+        if (psiServerFilter == null || psiServerFilter.getPsiAlgorithmParameter() == null)
+            throw new PsiClientException("The input psiServerFilter and its psiAlgorithmParameter cannot be null");
+        if (psiServerFilter.getPsiAlgorithmParameter().getAlgorithm() != psiAlgorithm
+                || !Objects.equals(psiServerFilter.getPsiAlgorithmParameter().getFingerprintBits(), this.fingerprintBits))
+            throw new PsiClientException("The algorithm and fingerprintBits of the psiServerFilter do not match those of the client");
+        try {
+            this.serverFilter = BloomFilter.fromPsiServerFilter(psiServerFilter);
+        } catch (IllegalArgumentException e) {
+            throw new PsiClientException(e.getMessage());
+        }
+    }
+
     public void setConfiguration(PsiThreadConfiguration configuration) {
         this.threads = configuration.getThreads() != null ?
                 configuration.getThreads() : DEFAULT_THREADS;
         this.threadTimeoutSeconds = configuration.getThreadTimeoutSeconds() != null ?
                 configuration.getThreadTimeoutSeconds() : DEFAULT_THREAD_TIMEOUT_SECONDS;
+        if (Boolean.TRUE.equals(configuration.getVirtualThreads()) && !VirtualThreads.isSupported())
+            throw new PsiClientException("Virtual threads require Java 21 or later");
+        this.sharedExecutorService = MultithreadingHelper.getExecutorService(configuration);
+        this.asyncExecutorService = MultithreadingHelper.getAsyncExecutorService(configuration);
+        this.intersectionEngine = configuration.getIntersectionEngine() != null ?
+                configuration.getIntersectionEngine() : PsiIntersectionEngine.HASH_PROBE;
+        if (configuration.getMemoryBudgetBytes() != null && configuration.getMemoryBudgetBytes() <= 0)
+            throw new PsiClientException("The memoryBudgetBytes of the configuration should be greater than 0");
+        this.memoryBudgetBytes = configuration.getMemoryBudgetBytes();
     }
 
     @Override
     public String toString() {
         return "PsiAbstractClient{" +
                 ", threads=" + this.threads +
+                ", intersectionEngine=" + this.intersectionEngine +
+                ", memoryBudgetBytes=" + this.memoryBudgetBytes +
+                ", shards=" + this.shards +
                 ", cacheEnabled=" + this.cacheEnabled +
                 ", keyId=" + this.keyId +
                 ", psiCacheProvider=" + this.psiCacheProvider +
@@ -4,11 +4,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import psi.cache.PsiCacheProvider;
 import psi.exception.PsiClientException;
+import psi.model.PsiAlgorithm;
 import psi.model.PsiClientSession;
 import psi.model.PsiPhaseStatistics;
+import psi.model.PsiServerFilter;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -16,41 +19,51 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 class PsiClientBs extends PsiClientAbstract {
 
     private static final Logger log = LoggerFactory.getLogger(PsiClientBs.class);
 
     private static final int RANDOM_BITS = 2048;
+    // Maximum length of the reversed values, which are the BigInteger representations of digests of at most 512 bits
+    private static final int REVERSED_VALUE_LENGTH = 65;
     private final SecureRandom secureRandom;
 
-    // Collections used to store working element sets
-    private final Map<Long, BigInteger> clientClearDatasetMap;
-    private final Map<Long, BigInteger> clientRandomDatasetMap;
-    private final Map<Long, BigInteger> clientDoubleEncryptedDatasetMap;
-    private final Map<Long, BigInteger> clientReversedDatasetMap;
-    private final Set<BigInteger> serverEncryptedDataset;
+    // Columns used to store working element sets, addressed by the keys of the client entries. The columns of bytes
+    // contain the BigInteger representations of the values
+    private final ChunkedColumn.OfVariableBytes clientClearDataset;
+    private final ChunkedColumn.OfBytes clientRandomDataset;
+    private final ChunkedColumn.OfBytes clientDoubleEncryptedDataset;
+    private final ChunkedColumn.OfBytes clientReversedDataset;
+    // String representations of the server values, or their fingerprints if the session uses fingerprints
+    private final EncodedValueSet serverEncryptedDataset;
 
     // Variables used to perform encryption operations
     private final BigInteger modulus;
     private final BigInteger serverPublicExponent;
+    private final BlindingFactorPool<BigInteger> blindingFactorPool;
 
-    PsiClientBs(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider) {
+    PsiClientBs(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider, WorkingStorage workingStorage) {
 
-        this.serverEncryptedDataset = ConcurrentHashMap.newKeySet();
-        this.clientClearDatasetMap = new ConcurrentHashMap<>();
-        this.clientRandomDatasetMap = new ConcurrentHashMap<>();
-        this.clientDoubleEncryptedDatasetMap = new ConcurrentHashMap<>();
-        this.clientReversedDatasetMap = new ConcurrentHashMap<>();
+        this.workingStorage = workingStorage;
+        this.serverEncryptedDataset = new EncodedValueSet(workingStorage);
         this.secureRandom = new SecureRandom();
         this.statisticList = new ConcurrentLinkedQueue<>();
         this.keyAtomicCounter = new AtomicLong(0);
+        this.fingerprintBits = psiClientSession.getPsiAlgorithmParameter().getFingerprintBits();
 
         this.modulus = CustomTypeConverter.convertStringToBigInteger(psiClientSession.getModulus());
         this.serverPublicExponent = CustomTypeConverter.convertStringToBigInteger(psiClientSession.getServerPublicExponent());
+        this.blindingFactorPool = new BlindingFactorPool<>(this::generateBlindingFactor);
+
+        // The values modulo the modulus are represented by at most bitLength / 8 + 1 bytes, including the sign bit
+        int modulusLength = this.modulus.bitLength() / 8 + 1;
+        this.clientClearDataset = new ChunkedColumn.OfVariableBytes(workingStorage);
+        this.clientRandomDataset = new ChunkedColumn.OfBytes(workingStorage, modulusLength);
+        this.clientDoubleEncryptedDataset = new ChunkedColumn.OfBytes(workingStorage, modulusLength);
+        this.clientReversedDataset = new ChunkedColumn.OfBytes(workingStorage, REVERSED_VALUE_LENGTH);
 
         // If an external key description is provided, it should match with the values contained into psiClientSession
         if (psiClientKeyDescription != null) {
@@ -75,42 +88,45 @@ class PsiClientBs extends PsiClientAbstract {
         log.debug("Called loadAndEncryptClientDataset");
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.ENCRYPTION);
 
-        List<Set<String>> clientDatasetPartitions = PartitionHelper.partitionSet(clearClientDataset, this.threads);
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(clearClientDataset, this.threads);
         Map<Long, String> clientEncryptedDatasetMapConvertedToString = new ConcurrentHashMap<>();
 
-        ExecutorService executorService = Executors.newFixedThreadPool(clientDatasetPartitions.size());
-        for(Set<String> partition : clientDatasetPartitions) {
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
                 HashFactory hashFactory = new HashFactory(this.modulus);
-
-                for(String value : partition){
-                    Long key = this.keyAtomicCounter.incrementAndGet();
-                    BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(value);
-                    BigInteger encryptedValue = null;
-                    BigInteger randomValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if(Boolean.TRUE.equals(this.cacheEnabled)) {
-                        Optional<CacheObjectRandomEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, CacheObjectRandomEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()) {
-                            encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
-                            randomValue = encryptedCacheObjectOptional.get().getRandomValue();
-                            statistics.incrementCacheHit();
-                        }
-                    }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        randomValue = new BigInteger(RANDOM_BITS, this.secureRandom).mod(this.modulus);
-                        encryptedValue = randomValue.modPow(this.serverPublicExponent, this.modulus).multiply(hashFactory.hashFullDomain(bigIntegerValue)).mod(this.modulus);
-                        statistics.incrementCacheMiss();
-                        // If the cache support is enabled, the result is stored in the cache
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for(String value : partition){
+                        Long key = this.keyAtomicCounter.incrementAndGet();
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(value);
+                        BigInteger encryptedValue = null;
+                        BigInteger randomValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
                         if(Boolean.TRUE.equals(this.cacheEnabled)) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, new CacheObjectRandomEncrypted(randomValue, encryptedValue),this.psiCacheProvider);
+                            Optional<CacheObjectRandomEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, CacheObjectRandomEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()) {
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
+                                randomValue = encryptedCacheObjectOptional.get().getRandomValue();
+                                statistics.incrementCacheHit();
+                            }
                         }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            BlindingFactorPool.BlindingFactor<BigInteger> blindingFactor = this.blindingFactorPool.take();
+                            randomValue = blindingFactor.getRandomValue();
+                            encryptedValue = blindingFactor.getBlindingValue().multiply(hashFactory.hashFullDomain(bigIntegerValue)).mod(this.modulus);
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if(Boolean.TRUE.equals(this.cacheEnabled)) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, new CacheObjectRandomEncrypted(randomValue, encryptedValue),this.psiCacheProvider);
+                            }
+                        }
+                        this.clientClearDataset.put(key, bigIntegerValue.toByteArray());
+                        this.clientRandomDataset.put(key, randomValue.toByteArray());
+                        clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertBigIntegerToString(encryptedValue));
                     }
-                    this.clientClearDatasetMap.put(key, bigIntegerValue);
-                    this.clientRandomDatasetMap.put(key, randomValue);
-                    clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertBigIntegerToString(encryptedValue));
-                 }
+                }
             });
         }
 
@@ -120,54 +136,113 @@ class PsiClientBs extends PsiClientAbstract {
         return clientEncryptedDatasetMapConvertedToString;
     }
 
+    @Override
+    public void precomputeBlindingFactors(int count) {
+        log.debug("Called precomputeBlindingFactors");
+        this.blindingFactorPool.precompute(count, this.threads, this.sharedExecutorService);
+    }
+
+    // Generates a random value r and the corresponding blinding value r^e mod N
+    private BlindingFactorPool.BlindingFactor<BigInteger> generateBlindingFactor() {
+        BigInteger randomValue = new BigInteger(RANDOM_BITS, this.secureRandom).mod(this.modulus);
+        return new BlindingFactorPool.BlindingFactor<>(randomValue, randomValue.modPow(this.serverPublicExponent, this.modulus));
+    }
+
     @Override
     public void loadDoubleEncryptedClientDataset(Map<Long, String> doubleEncryptedClientDatasetMap){
         log.debug("Called loadDoubleEncryptedClientDataset");
         for(Map.Entry<Long, String> entry : doubleEncryptedClientDatasetMap.entrySet()) {
-            this.clientDoubleEncryptedDatasetMap.put(entry.getKey(), CustomTypeConverter.convertStringToBigInteger(entry.getValue()));
+            putClientValue(this.clientDoubleEncryptedDataset, entry.getKey(), CustomTypeConverter.convertStringToBytes(entry.getValue()));
         }
     }
 
     @Override
     public void loadAndProcessServerDataset(Set<String> serverEncryptedDataset) {
         log.debug("Called loadServerDataset");
-        this.serverEncryptedDataset.addAll(
-                serverEncryptedDataset.stream().map(CustomTypeConverter::convertStringToBigInteger).collect(Collectors.toSet()));
+        processServerDataset(serverEncryptedDataset, this.serverEncryptedDataset::add);
+    }
+
+    @Override
+    public void loadAndProbeServerDataset(Set<String> serverEncryptedDataset, Consumer<String> psiResultConsumer) {
+        log.debug("Called loadAndProbeServerDataset");
+        IncrementalIntersection incrementalIntersection = getIncrementalIntersection(() -> {
+            computeReversedMap();
+            return this.clientReversedDataset;
+        }, this.clientClearDataset);
+        processServerDataset(serverEncryptedDataset, value -> incrementalIntersection.probe(value, psiResultConsumer));
     }
 
-    // Loads the clientReversedDatasetMap which contains a decryption of the clientDoubleEncryptedDatasetMap entries
+    // Processes the server values and passes the resulting values, which are compared with the client ones, to the consumer
+    private void processServerDataset(Set<String> serverEncryptedDataset, Consumer<String> serverValueConsumer) {
+        // If the session uses fingerprints, the server returns them in place of the encrypted values
+        if (this.fingerprintBits != null) {
+            validateServerFingerprints(serverEncryptedDataset);
+            serverEncryptedDataset.forEach(serverValueConsumer);
+            return;
+        }
+        // The values are converted to their canonical representation, which is the one computed for the reversed values
+        for (String value : serverEncryptedDataset)
+            serverValueConsumer.accept(CustomTypeConverter.convertBigIntegerToString(CustomTypeConverter.convertStringToBigInteger(value)));
+    }
+
+    @Override
+    public void loadServerFilter(PsiServerFilter psiServerFilter) {
+        log.debug("Called loadServerFilter");
+        loadServerFilter(psiServerFilter, PsiAlgorithm.BS);
+    }
+
+    // Loads the clientReversedDataset which contains a decryption of the clientDoubleEncryptedDataset entries
     private void computeReversedMap(){
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.REVERSE_MAP);
 
         log.debug("Called computeReversedMap");
-        List<Map<Long, BigInteger>> doubleEncryptedMapPartition = PartitionHelper.partitionMap(this.clientDoubleEncryptedDatasetMap, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(doubleEncryptedMapPartition.size());
-        for(Map<Long, BigInteger> partition : doubleEncryptedMapPartition){
+        ChunkQueue.OfRange keyQueue = keyQueue();
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < keyQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
                 HashFactory hashFactory = new HashFactory(this.modulus);
-                BigInteger cacheKeyValue = null; // Used as key value during caching operations
-                for(Map.Entry<Long, BigInteger> entry : partition.entrySet()) {
-                    BigInteger randomValue = this.clientRandomDatasetMap.get(entry.getKey());
-                    BigInteger reversedValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if (Boolean.TRUE.equals(this.cacheEnabled)) {
-                        cacheKeyValue = concatBigIntegers(entry.getValue(), randomValue);
-                        Optional<CacheObjectEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, cacheKeyValue, CacheObjectEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()) {
-                            reversedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
-                            statistics.incrementCacheHit();
+                long[] partition;
+                while ((partition = keyQueue.nextRange()) != null) {
+                    // Entries whose reversed value is not cached, which are unblinded together at the end of the partition
+                    List<Long> pendingKeys = new ArrayList<>();
+                    List<BigInteger> pendingValues = new ArrayList<>();
+                    List<BigInteger> pendingRandomValues = new ArrayList<>();
+                    List<BigInteger> pendingCacheKeyValues = new ArrayList<>();
+                    for(long key = partition[0]; key < partition[1]; key++) {
+                        byte[] doubleEncryptedValue = this.clientDoubleEncryptedDataset.get(key);
+                        if (doubleEncryptedValue == null)
+                            continue;
+                        BigInteger value = new BigInteger(doubleEncryptedValue);
+                        BigInteger randomValue = new BigInteger(this.clientRandomDataset.get(key));
+                        BigInteger cacheKeyValue = null; // Used as key value during caching operations
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (Boolean.TRUE.equals(this.cacheEnabled)) {
+                            cacheKeyValue = concatBigIntegers(value, randomValue);
+                            Optional<CacheObjectEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, cacheKeyValue, CacheObjectEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()) {
+                                this.clientReversedDataset.put(key, encryptedCacheObjectOptional.get().getEncryptedValue().toByteArray());
+                                statistics.incrementCacheHit();
+                                continue;
+                            }
                         }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        pendingKeys.add(key);
+                        pendingValues.add(value);
+                        pendingRandomValues.add(randomValue);
+                        pendingCacheKeyValues.add(cacheKeyValue);
                     }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (reversedValue == null) {
-                        reversedValue = hashFactory.hash(entry.getValue().multiply(randomValue.modInverse(this.modulus)).mod(this.modulus));
+
+                    // The inverses of the random values of the partition are computed with a single modular inversion
+                    List<BigInteger> inverseRandomValues = ModularInversionHelper.batchModInverse(pendingRandomValues, this.modulus);
+                    for(int i = 0; i < pendingKeys.size(); i++) {
+                        BigInteger reversedValue = hashFactory.hash(pendingValues.get(i).multiply(inverseRandomValues.get(i)).mod(this.modulus));
                         statistics.incrementCacheMiss();
                         // If the cache support is enabled, the result is stored in the cache
                         if (Boolean.TRUE.equals(this.cacheEnabled)) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, cacheKeyValue, new CacheObjectEncrypted(reversedValue), this.psiCacheProvider);
+                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, pendingCacheKeyValues.get(i), new CacheObjectEncrypted(reversedValue), this.psiCacheProvider);
                         }
+                        this.clientReversedDataset.put(pendingKeys.get(i), reversedValue.toByteArray());
                     }
-                    this.clientReversedDatasetMap.put(entry.getKey(), reversedValue);
                 }
             });
         }
@@ -182,21 +257,7 @@ class PsiClientBs extends PsiClientAbstract {
         log.debug("Called loadServerDataset");
 
         computeReversedMap();
-        Set<String> psi = ConcurrentHashMap.newKeySet();
-        List<Map<Long, BigInteger>> reversedMapPartition = PartitionHelper.partitionMap(this.clientReversedDatasetMap, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(reversedMapPartition.size());
-        for(Map<Long, BigInteger> partition : reversedMapPartition){
-            executorService.submit(() -> {
-                for(Map.Entry<Long, BigInteger> entry : partition.entrySet()){
-                    if(this.serverEncryptedDataset.contains(entry.getValue()))
-                        psi.add(CustomTypeConverter.convertBigIntegerToString(this.clientClearDatasetMap.get(entry.getKey())));
-                }
-            });
-        }
-
-        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
-
-        return psi;
+        return computePsi(this.clientReversedDataset, this.serverEncryptedDataset, this.clientClearDataset);
     }
 
     private static BigInteger concatBigIntegers(BigInteger bigInteger1, BigInteger bigInteger2){
@@ -15,32 +15,38 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 class PsiClientDh extends PsiClientAbstract {
 
     private static final Logger log = LoggerFactory.getLogger(PsiClientDh.class);
 
-    // Collections used to store working element sets
-    private final Map<Long, BigInteger> clientClearDatasetMap;
-    private final Map<Long, BigInteger> clientDoubleEncryptedDatasetMap;
-    private final Set<BigInteger> serverDoubleEncryptedDataset;
+    // Columns used to store working element sets, addressed by the keys of the client entries. The double encrypted
+    // values are stored with their canonical BigInteger representation, which is compared with the server values
+    private final ChunkedColumn.OfVariableBytes clientClearDataset;
+    private final ChunkedColumn.OfBytes clientDoubleEncryptedDataset;
+    // String representations of the double encrypted server values, or their fingerprints if the session uses
+    // fingerprints
+    private final EncodedValueSet serverDoubleEncryptedDataset;
 
     // Variables used to perform encryption operations
     private final BigInteger modulus;
     private final BigInteger clientPrivateExponent;
 
-    PsiClientDh(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider) {
+    PsiClientDh(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider, WorkingStorage workingStorage) {
 
-        this.serverDoubleEncryptedDataset = ConcurrentHashMap.newKeySet();
-        this.clientClearDatasetMap = new ConcurrentHashMap<>();
-        this.clientDoubleEncryptedDatasetMap = new ConcurrentHashMap<>();
+        this.workingStorage = workingStorage;
+        this.serverDoubleEncryptedDataset = new EncodedValueSet(workingStorage);
 
         this.statisticList = new ConcurrentLinkedQueue<>();
         this.keyAtomicCounter = new AtomicLong(0);
+        this.fingerprintBits = psiClientSession.getPsiAlgorithmParameter().getFingerprintBits();
 
         this.modulus = CustomTypeConverter.convertStringToBigInteger(psiClientSession.getModulus());
+        this.clientClearDataset = new ChunkedColumn.OfVariableBytes(workingStorage);
+        // The values modulo the modulus are represented by at most bitLength / 8 + 1 bytes, including the sign bit
+        this.clientDoubleEncryptedDataset = new ChunkedColumn.OfBytes(workingStorage, this.modulus.bitLength() / 8 + 1);
         // keys are set from the psiClientSession
         if (psiClientKeyDescription == null) {
             AsymmetricKeyFactory.AsymmetricKey asymmetricKey = AsymmetricKeyFactory.generateDhKeyFromModulusAndGenerator(
@@ -71,14 +77,15 @@ class PsiClientDh extends PsiClientAbstract {
         log.debug("Called loadAndEncryptClientDataset");
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.ENCRYPTION);
 
-        List<Set<String>> clientDatasetPartitions = PartitionHelper.partitionSet(clearClientDataset, this.threads);
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(clearClientDataset, this.threads);
         Map<Long, String> clientEncryptedDatasetMapConvertedToString = new ConcurrentHashMap<>();
 
-        ExecutorService executorService = Executors.newFixedThreadPool(clientDatasetPartitions.size());
-        for (Set<String> partition : clientDatasetPartitions) {
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-                    HashFactory hashFactory = new HashFactory(this.modulus);
-
+                HashFactory hashFactory = new HashFactory(this.modulus);
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
                     for (String stringValue : partition) {
                         BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
                         BigInteger encryptedValue = null;
@@ -101,9 +108,10 @@ class PsiClientDh extends PsiClientAbstract {
                             }
                         }
                         Long key = this.keyAtomicCounter.incrementAndGet();
-                        this.clientClearDatasetMap.put(key, bigIntegerValue);
+                        this.clientClearDataset.put(key, bigIntegerValue.toByteArray());
                         clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertBigIntegerToString(encryptedValue));
                     }
+                }
             });
         }
 
@@ -117,42 +125,57 @@ class PsiClientDh extends PsiClientAbstract {
     public void loadDoubleEncryptedClientDataset(Map<Long, String> doubleEncryptedClientDatasetMap) {
         log.debug("Called loadDoubleEncryptedClientDataset");
         for (Map.Entry<Long, String> entry : doubleEncryptedClientDatasetMap.entrySet()) {
-            this.clientDoubleEncryptedDatasetMap.put(entry.getKey(), CustomTypeConverter.convertStringToBigInteger(entry.getValue()));
+            putClientValue(this.clientDoubleEncryptedDataset, entry.getKey(), CustomTypeConverter.convertStringToBigInteger(entry.getValue()).toByteArray());
         }
     }
 
     @Override
     public void loadAndProcessServerDataset(Set<String> serverEncryptedDataset) {
         log.debug("Called loadServerDataset");
+        processServerDataset(serverEncryptedDataset, this.serverDoubleEncryptedDataset::add);
+    }
+
+    @Override
+    public void loadAndProbeServerDataset(Set<String> serverEncryptedDataset, Consumer<String> psiResultConsumer) {
+        log.debug("Called loadAndProbeServerDataset");
+        IncrementalIntersection incrementalIntersection = getIncrementalIntersection(() -> this.clientDoubleEncryptedDataset, this.clientClearDataset);
+        processServerDataset(serverEncryptedDataset, value -> incrementalIntersection.probe(value, psiResultConsumer));
+    }
+
+    // Processes the server values and passes the resulting values, which are compared with the client ones, to the consumer
+    private void processServerDataset(Set<String> serverEncryptedDataset, Consumer<String> serverValueConsumer) {
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.DOUBLE_ENCRYPTION);
 
-        List<Set<String>> partitionList = PartitionHelper.partitionSet(serverEncryptedDataset, this.threads);
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(serverEncryptedDataset, this.threads);
 
-        ExecutorService executorService = Executors.newFixedThreadPool(partitionList.size());
-        for (Set<String> partition : partitionList) {
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-                for (String serverEncryptedEntry : partition) {
-                    BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(serverEncryptedEntry);
-                    BigInteger encryptedValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if (Boolean.TRUE.equals(this.cacheEnabled)) {
-                        Optional<CacheObjectEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()) {
-                            encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
-                            statistics.incrementCacheHit();
-                        }
-                    }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        encryptedValue = bigIntegerValue.modPow(this.clientPrivateExponent, this.modulus);
-                        statistics.incrementCacheMiss();
-                        // If the cache support is enabled, the result is stored in the cache
+                FingerprintFactory fingerprintFactory = createFingerprintFactory();
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for (String serverEncryptedEntry : partition) {
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(serverEncryptedEntry);
+                        BigInteger encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
                         if (Boolean.TRUE.equals(this.cacheEnabled)) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, new CacheObjectEncrypted(encryptedValue), this.psiCacheProvider);
+                            Optional<CacheObjectEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()) {
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
+                                statistics.incrementCacheHit();
+                            }
                         }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            encryptedValue = bigIntegerValue.modPow(this.clientPrivateExponent, this.modulus);
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if (Boolean.TRUE.equals(this.cacheEnabled)) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, new CacheObjectEncrypted(encryptedValue), this.psiCacheProvider);
+                            }
+                        }
+                        serverValueConsumer.accept(FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBigIntegerToString(encryptedValue)));
                     }
-                    this.serverDoubleEncryptedDataset.add(encryptedValue);
-
                 }
             });
         }
@@ -162,7 +185,7 @@ class PsiClientDh extends PsiClientAbstract {
         this.statisticList.add(statistics.close());
     }
 
-    // Loads the clientReversedDatasetMap which contains a decryption of the clientDoubleEncryptedDatasetMap entries
+    // Loads the clientReversedDataset which contains a decryption of the clientDoubleEncryptedDataset entries
     private void computeReversedMap() {
         log.debug("Called computeReversedMap");
     }
@@ -173,19 +196,7 @@ class PsiClientDh extends PsiClientAbstract {
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.PSI);
 
         computeReversedMap();
-        Set<String> psi = ConcurrentHashMap.newKeySet();
-        List<Map<Long, BigInteger>> reversedMapPartition = PartitionHelper.partitionMap(this.clientDoubleEncryptedDatasetMap, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(reversedMapPartition.size());
-        for (Map<Long, BigInteger> partition : reversedMapPartition) {
-            executorService.submit(() -> {
-                for (Map.Entry<Long, BigInteger> entry : partition.entrySet()) {
-                    if (this.serverDoubleEncryptedDataset.contains(entry.getValue()))
-                        psi.add(CustomTypeConverter.convertBigIntegerToString(this.clientClearDatasetMap.get(entry.getKey())));
-                }
-            });
-        }
-
-        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+        Set<String> psi = computePsi(this.clientDoubleEncryptedDataset, this.serverDoubleEncryptedDataset, this.clientClearDataset);
 
         this.statisticList.add(statistics.close());
         return psi;
@@ -7,10 +7,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import psi.cache.PsiCacheProvider;
 import psi.exception.PsiClientException;
+import psi.model.PsiAlgorithm;
 import psi.model.PsiClientSession;
 import psi.model.PsiPhaseStatistics;
+import psi.model.PsiServerFilter;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,40 +21,49 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 class PsiClientEcBs extends PsiClientAbstract {
 
     private static final Logger log = LoggerFactory.getLogger(PsiClientEcBs.class);
 
-    // Collections used to store working element sets
-    private final Map<Long, BigInteger> clientClearDatasetMap;
-    private final Map<Long, ECPoint> clientRandomDatasetMap;
-    private final Map<Long, ECPoint> clientDoubleEncryptedDatasetMap;
-    private final Map<Long, ECPoint> clientReversedDatasetMap;
-    private final Set<ECPoint> serverEncryptedDataset;
+    // Columns used to store working element sets, addressed by the keys of the client entries. The random and double
+    // encrypted values are stored with their uncompressed encoding, which is decoded without computing square roots,
+    // while the reversed values are stored with the compressed encoding compared with the server values
+    private final ChunkedColumn.OfVariableBytes clientClearDataset;
+    private final ChunkedColumn.OfBytes clientRandomDataset;
+    private final ChunkedColumn.OfBytes clientDoubleEncryptedDataset;
+    private final ChunkedColumn.OfBytes clientReversedDataset;
+    // String representations of the server values, or their fingerprints if the session uses fingerprints
+    private final EncodedValueSet serverEncryptedDataset;
 
     // Variables used to perform encryption operations
     private final ECPoint serverPublicQ;
+    private final EcFixedPointMultiplier serverPublicQMultiplier;
+    private final BlindingFactorPool<ECPoint> blindingFactorPool;
     private final ECCurve ecCurve;
     private final EllipticCurve ellipticCurve;
 
-    PsiClientEcBs(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider) {
+    PsiClientEcBs(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider, WorkingStorage workingStorage) {
 
-        this.serverEncryptedDataset = ConcurrentHashMap.newKeySet();
-        this.clientClearDatasetMap = new ConcurrentHashMap<>();
-        this.clientRandomDatasetMap = new ConcurrentHashMap<>();
-        this.clientDoubleEncryptedDatasetMap = new ConcurrentHashMap<>();
-        this.clientReversedDatasetMap = new ConcurrentHashMap<>();
+        this.workingStorage = workingStorage;
+        this.serverEncryptedDataset = new EncodedValueSet(workingStorage);
         this.statisticList = new ConcurrentLinkedQueue<>();
         this.keyAtomicCounter = new AtomicLong(0);
+        this.fingerprintBits = psiClientSession.getPsiAlgorithmParameter().getFingerprintBits();
 
-        ECParameterSpec ecSpec = CustomTypeConverter.convertKeySizeToECParameterSpec(psiClientSession.getPsiAlgorithmParameter().getKeySize());
+        ECParameterSpec ecSpec = CustomTypeConverter.convertPsiAlgorithmParameterToECParameterSpec(psiClientSession.getPsiAlgorithmParameter());
         this.serverPublicQ = CustomTypeConverter.convertStringToECPoint(ecSpec.getCurve(), psiClientSession.getEcServerPublicQ());
-        this.ellipticCurve = new EllipticCurve(ecSpec);
+        this.serverPublicQMultiplier = new EcFixedPointMultiplier(this.serverPublicQ);
+        this.ellipticCurve = new EllipticCurve(ecSpec, psiClientSession.getPsiAlgorithmParameter().getHashToCurveMode());
+        this.blindingFactorPool = new BlindingFactorPool<>(() -> this.ellipticCurve.generateBlindingFactor(this.serverPublicQMultiplier));
         this.ecCurve = ecSpec.getCurve();
+        int fieldLength = (this.ecCurve.getFieldSize() + 7) / 8;
+        this.clientClearDataset = new ChunkedColumn.OfVariableBytes(workingStorage);
+        this.clientRandomDataset = new ChunkedColumn.OfBytes(workingStorage, 2 * fieldLength + 1);
+        this.clientDoubleEncryptedDataset = new ChunkedColumn.OfBytes(workingStorage, 2 * fieldLength + 1);
+        this.clientReversedDataset = new ChunkedColumn.OfBytes(workingStorage, fieldLength + 1);
 
         // If an external key description is provided, it should match with the values contained into psiClientSession
         if(psiClientKeyDescription != null) {
@@ -65,7 +77,7 @@ class PsiClientEcBs extends PsiClientAbstract {
         if(psiCacheProvider == null)
             this.cacheEnabled = false;
         else{
-            this.keyId = CacheUtils.getKeyId(getClientKeyDescription(), psiCacheProvider);
+            this.keyId = CacheUtils.getKeyId(getClientKeyDescription(), psiClientSession.getPsiAlgorithmParameter().getHashToCurveMode(), psiCacheProvider);
             this.cacheEnabled = true;
             this.psiCacheProvider = psiCacheProvider;
         }
@@ -76,42 +88,59 @@ class PsiClientEcBs extends PsiClientAbstract {
         log.debug("Called loadAndEncryptClientDataset");
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.ENCRYPTION);
 
-        List<Set<String>> clientDatasetPartitions = PartitionHelper.partitionSet(clearClientDataset, this.threads);
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(clearClientDataset, this.threads);
         Map<Long, String> clientEncryptedDatasetMapConvertedToString = new ConcurrentHashMap<>();
 
-        ExecutorService executorService = Executors.newFixedThreadPool(clientDatasetPartitions.size());
-        for(Set<String> partition : clientDatasetPartitions) {
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-
-                for(String value : partition){
-                    Long key = this.keyAtomicCounter.incrementAndGet();
-                    BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(value);
-                    ECPoint encryptedValue = null;
-                    ECPoint randomValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if(Boolean.TRUE.equals(this.cacheEnabled)) {
-                        Optional<CacheObjectEcRandomEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, CacheObjectEcRandomEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()) {
-                            encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue(this.ecCurve);
-                            randomValue = encryptedCacheObjectOptional.get().getRandomValue(this.ecCurve);
-                            statistics.incrementCacheHit();
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    // Points computed in this chunk, which are normalized together before being encoded
+                    List<BigInteger> computedValuesClear = new ArrayList<>();
+                    List<ECPoint> computedValues = new ArrayList<>();
+                    for(String value : partition){
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(value);
+                        ECPoint encryptedValue = null;
+                        ECPoint randomValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if(Boolean.TRUE.equals(this.cacheEnabled)) {
+                            Optional<CacheObjectEcRandomEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, CacheObjectEcRandomEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()) {
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue(this.ecCurve);
+                                randomValue = encryptedCacheObjectOptional.get().getRandomValue(this.ecCurve);
+                                statistics.incrementCacheHit();
+                            }
                         }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            EllipticCurve.EncryptedRandomValue encryptedRandomValue = this.ellipticCurve.generateEncryptedRandomValue(bigIntegerValue, this.blindingFactorPool.take());
+                            computedValuesClear.add(bigIntegerValue);
+                            computedValues.add(encryptedRandomValue.getEncrypted());
+                            computedValues.add(encryptedRandomValue.getRandom());
+                            statistics.incrementCacheMiss();
+                            continue;
+                        }
+                        Long key = this.keyAtomicCounter.incrementAndGet();
+                        this.clientClearDataset.put(key, bigIntegerValue.toByteArray());
+                        this.clientRandomDataset.put(key, randomValue.getEncoded(false));
+                        clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertECPointToString(encryptedValue));
                     }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        EllipticCurve.EncryptedRandomValue encryptedRandomValue = this.ellipticCurve.generateEncryptedRandomValue(bigIntegerValue, this.serverPublicQ);
-                        encryptedValue = encryptedRandomValue.getEncrypted();
-                        randomValue = encryptedRandomValue.getRandom();
-                        statistics.incrementCacheMiss();
+                    // Encrypted and random values are stored in consecutive positions
+                    ECPoint[] normalizedValues = CustomTypeConverter.normalizeECPoints(this.ecCurve, computedValues);
+                    for(int i = 0; i < computedValuesClear.size(); i++){
+                        Long key = this.keyAtomicCounter.incrementAndGet();
+                        ECPoint encryptedValue = normalizedValues[2 * i];
+                        ECPoint randomValue = normalizedValues[2 * i + 1];
                         // If the cache support is enabled, the result is stored in the cache
                         if(Boolean.TRUE.equals(this.cacheEnabled)) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, new CacheObjectEcRandomEncrypted(randomValue, encryptedValue),this.psiCacheProvider);
+                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, computedValuesClear.get(i), new CacheObjectEcRandomEncrypted(randomValue, encryptedValue),this.psiCacheProvider);
                         }
+                        this.clientClearDataset.put(key, computedValuesClear.get(i).toByteArray());
+                        this.clientRandomDataset.put(key, randomValue.getEncoded(false));
+                        clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertECPointToString(encryptedValue));
                     }
-                    this.clientClearDatasetMap.put(key, bigIntegerValue);
-                    this.clientRandomDatasetMap.put(key, randomValue);
-                    clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertECPointToString(encryptedValue));
-                 }
+                }
             });
         }
 
@@ -121,54 +150,106 @@ class PsiClientEcBs extends PsiClientAbstract {
         return clientEncryptedDatasetMapConvertedToString;
     }
 
+    @Override
+    public void precomputeBlindingFactors(int count) {
+        log.debug("Called precomputeBlindingFactors");
+        this.blindingFactorPool.precompute(count, this.threads, this.sharedExecutorService);
+    }
+
     @Override
     public void loadDoubleEncryptedClientDataset(Map<Long, String> doubleEncryptedClientDatasetMap){
         log.debug("Called loadDoubleEncryptedClientDataset");
         for(Map.Entry<Long, String> entry : doubleEncryptedClientDatasetMap.entrySet()) {
-            this.clientDoubleEncryptedDatasetMap.put(entry.getKey(), CustomTypeConverter.convertStringToECPoint(this.ecCurve,entry.getValue()));
+            putClientValue(this.clientDoubleEncryptedDataset, entry.getKey(), CustomTypeConverter.convertStringToECPoint(this.ecCurve,entry.getValue()).getEncoded(false));
         }
     }
 
     @Override
     public void loadAndProcessServerDataset(Set<String> serverEncryptedDataset) {
         log.debug("Called loadServerDataset");
-        this.serverEncryptedDataset.addAll(
-                serverEncryptedDataset.stream().map(x -> CustomTypeConverter.convertStringToECPoint(this.ecCurve, x)).collect(Collectors.toSet()));
+        processServerDataset(serverEncryptedDataset, this.serverEncryptedDataset::add);
+    }
+
+    @Override
+    public void loadAndProbeServerDataset(Set<String> serverEncryptedDataset, Consumer<String> psiResultConsumer) {
+        log.debug("Called loadAndProbeServerDataset");
+        IncrementalIntersection incrementalIntersection = getIncrementalIntersection(() -> {
+            computeReversedMap();
+            return this.clientReversedDataset;
+        }, this.clientClearDataset);
+        processServerDataset(serverEncryptedDataset, value -> incrementalIntersection.probe(value, psiResultConsumer));
+    }
+
+    // Processes the server values and passes the resulting values, which are compared with the client ones, to the consumer
+    private void processServerDataset(Set<String> serverEncryptedDataset, Consumer<String> serverValueConsumer) {
+        // If the session uses fingerprints, the server returns them in place of the encrypted values
+        if (this.fingerprintBits != null) {
+            validateServerFingerprints(serverEncryptedDataset);
+            serverEncryptedDataset.forEach(serverValueConsumer);
+            return;
+        }
+        // The points are decoded to validate them and stored with their compressed encoding, which is the one computed
+        // for the reversed values
+        for (String value : serverEncryptedDataset)
+            serverValueConsumer.accept(CustomTypeConverter.convertECPointToString(CustomTypeConverter.convertStringToECPoint(this.ecCurve, value)));
     }
 
-    // Loads the clientReversedDatasetMap which contains a decryption of the clientDoubleEncryptedDatasetMap entries
+    @Override
+    public void loadServerFilter(PsiServerFilter psiServerFilter) {
+        log.debug("Called loadServerFilter");
+        loadServerFilter(psiServerFilter, PsiAlgorithm.ECBS);
+    }
+
+    // Loads the clientReversedDataset which contains a decryption of the clientDoubleEncryptedDataset entries
     private void computeReversedMap(){
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.REVERSE_MAP);
 
         log.debug("Called computeReversedMap");
-        List<Map<Long, ECPoint>> doubleEncryptedMapPartition = PartitionHelper.partitionMap(this.clientDoubleEncryptedDatasetMap, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(doubleEncryptedMapPartition.size());
-        for(Map<Long, ECPoint> partition : doubleEncryptedMapPartition){
+        ChunkQueue.OfRange keyQueue = keyQueue();
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < keyQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-
-                for(Map.Entry<Long, ECPoint> entry : partition.entrySet()) {
-                    ECPoint randomValue = this.clientRandomDatasetMap.get(entry.getKey());
-                    ECPoint reversedValue = null;
-                    BigInteger cacheKeyValue = null; // Used as key value during caching operations
-                    // If the cache support is enabled, the result is searched in the cache
-                    if (Boolean.TRUE.equals(this.cacheEnabled)) {
-                        cacheKeyValue = concatEcPoints(entry.getValue(), randomValue);
-                        Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, cacheKeyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()) {
-                            reversedValue = encryptedCacheObjectOptional.get().getEncryptedValue(this.ecCurve);
-                            statistics.incrementCacheHit();
+                long[] partition;
+                while ((partition = keyQueue.nextRange()) != null) {
+                    // Points computed in this chunk, which are normalized together before being stored
+                    List<Long> computedKeys = new ArrayList<>();
+                    List<BigInteger> computedCacheKeys = new ArrayList<>();
+                    List<ECPoint> computedValues = new ArrayList<>();
+                    for(long key = partition[0]; key < partition[1]; key++) {
+                        byte[] doubleEncryptedEncoding = this.clientDoubleEncryptedDataset.get(key);
+                        if (doubleEncryptedEncoding == null)
+                            continue;
+                        ECPoint doubleEncryptedValue = this.ecCurve.decodePoint(doubleEncryptedEncoding);
+                        ECPoint randomValue = this.ecCurve.decodePoint(this.clientRandomDataset.get(key));
+                        ECPoint reversedValue = null;
+                        BigInteger cacheKeyValue = null; // Used as key value during caching operations
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (Boolean.TRUE.equals(this.cacheEnabled)) {
+                            cacheKeyValue = concatEcPoints(doubleEncryptedValue, randomValue);
+                            Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, cacheKeyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()) {
+                                reversedValue = encryptedCacheObjectOptional.get().getEncryptedValue(this.ecCurve);
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (reversedValue == null){
+                            computedKeys.add(key);
+                            computedCacheKeys.add(cacheKeyValue);
+                            computedValues.add(EllipticCurve.sub(doubleEncryptedValue, randomValue));
+                            statistics.incrementCacheMiss();
                         }
+                        else
+                            this.clientReversedDataset.put(key, reversedValue.getEncoded(true));
                     }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (reversedValue == null){
-                        reversedValue = EllipticCurve.sub(entry.getValue(), randomValue);
-                        statistics.incrementCacheMiss();
+                    ECPoint[] normalizedValues = CustomTypeConverter.normalizeECPoints(this.ecCurve, computedValues);
+                    for(int i = 0; i < normalizedValues.length; i++){
                         // If the cache support is enabled, the result is stored in the cache
                         if (Boolean.TRUE.equals(this.cacheEnabled)) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, cacheKeyValue, new CacheObjectEcEncrypted(reversedValue), this.psiCacheProvider);
+                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, computedCacheKeys.get(i), new CacheObjectEcEncrypted(normalizedValues[i]), this.psiCacheProvider);
                         }
+                        this.clientReversedDataset.put(computedKeys.get(i), normalizedValues[i].getEncoded(true));
                     }
-                    this.clientReversedDatasetMap.put(entry.getKey(), reversedValue);
                 }
             });
         }
@@ -183,21 +264,7 @@ class PsiClientEcBs extends PsiClientAbstract {
         log.debug("Called loadServerDataset");
 
         computeReversedMap();
-        Set<String> psi = ConcurrentHashMap.newKeySet();
-        List<Map<Long, ECPoint>> reversedMapPartition = PartitionHelper.partitionMap(this.clientReversedDatasetMap, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(reversedMapPartition.size());
-        for(Map<Long, ECPoint> partition : reversedMapPartition){
-            executorService.submit(() -> {
-                for(Map.Entry<Long, ECPoint> entry : partition.entrySet()){
-                    if(this.serverEncryptedDataset.contains(entry.getValue()))
-                        psi.add(CustomTypeConverter.convertBigIntegerToString(this.clientClearDatasetMap.get(entry.getKey())));
-                }
-            });
-        }
-
-        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
-
-        return psi;
+        return computePsi(this.clientReversedDataset, this.serverEncryptedDataset, this.clientClearDataset);
     }
 
     private static BigInteger concatEcPoints(ECPoint point1, ECPoint point2){
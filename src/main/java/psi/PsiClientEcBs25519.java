@@ -0,0 +1,237 @@
+package psi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import psi.cache.PsiCacheProvider;
+import psi.exception.PsiClientException;
+import psi.model.PsiAlgorithm;
+import psi.model.PsiClientSession;
+import psi.model.PsiPhaseStatistics;
+import psi.model.PsiServerFilter;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+class PsiClientEcBs25519 extends PsiClientAbstract {
+
+    private static final Logger log = LoggerFactory.getLogger(PsiClientEcBs25519.class);
+
+    // Columns used to store working element sets, addressed by the keys of the client entries. Since the encoding of
+    // the elements is canonical, the reversed values are compared with the server values through their String
+    // representation. The random values are stored with their coordinates, which are read back without decoding
+    private final ChunkedColumn.OfVariableBytes clientClearDataset;
+    private final ChunkedColumn.OfBytes clientRandomDataset;
+    private final ChunkedColumn.OfBytes clientDoubleEncryptedDataset;
+    private final ChunkedColumn.OfBytes clientReversedDataset;
+    private final EncodedValueSet serverEncryptedDataset;
+
+    // Variables used to perform encryption operations
+    private final String serverPublicQ;
+    private final Ristretto255.FixedPointMultiplier serverPublicQMultiplier;
+    private final BlindingFactorPool<Ristretto255.Point> blindingFactorPool;
+
+    PsiClientEcBs25519(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider, WorkingStorage workingStorage) {
+
+        this.workingStorage = workingStorage;
+        this.serverEncryptedDataset = new EncodedValueSet(workingStorage);
+        this.clientClearDataset = new ChunkedColumn.OfVariableBytes(workingStorage);
+        this.clientRandomDataset = new ChunkedColumn.OfBytes(workingStorage, Ristretto255.COORDINATES_LENGTH);
+        this.clientDoubleEncryptedDataset = new ChunkedColumn.OfBytes(workingStorage, Ristretto255.ENCODING_LENGTH);
+        this.clientReversedDataset = new ChunkedColumn.OfBytes(workingStorage, Ristretto255.ENCODING_LENGTH);
+        this.statisticList = new ConcurrentLinkedQueue<>();
+        this.keyAtomicCounter = new AtomicLong(0);
+        this.fingerprintBits = psiClientSession.getPsiAlgorithmParameter().getFingerprintBits();
+
+        if(psiClientSession.getEcServerPublicQ() == null)
+            throw new PsiClientException("The field ecServerPublicQ in the input psiClientSession cannot be null");
+        this.serverPublicQ = psiClientSession.getEcServerPublicQ();
+        this.serverPublicQMultiplier = new Ristretto255.FixedPointMultiplier(CustomTypeConverter.convertStringToRistretto255Point(this.serverPublicQ));
+        this.blindingFactorPool = new BlindingFactorPool<>(() -> Ristretto255.generateBlindingFactor(this.serverPublicQMultiplier));
+
+        // If an external key description is provided, it should match with the values contained into psiClientSession
+        if(psiClientKeyDescription != null) {
+            if(psiClientKeyDescription.getEcServerPublicQ() == null)
+                throw new PsiClientException("The field ecServerPublicQ in the input psiClientKeyDescription cannot be null");
+            if(!this.serverPublicQ.equals(psiClientKeyDescription.getEcServerPublicQ()))
+                throw new PsiClientException("The field ecServerPublicQ in the psiClientKeyDescription does not match the one in the psiClientSession");
+        }
+
+        // If psiCacheProvider != null, setup and validate the cache
+        if(psiCacheProvider == null)
+            this.cacheEnabled = false;
+        else{
+            this.keyId = CacheUtils.getRistretto255KeyId(getClientKeyDescription(), psiCacheProvider);
+            this.cacheEnabled = true;
+            this.psiCacheProvider = psiCacheProvider;
+        }
+    }
+
+    @Override
+    public Map<Long, String> loadAndEncryptClientDataset(Set<String> clearClientDataset) {
+        log.debug("Called loadAndEncryptClientDataset");
+        PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.ENCRYPTION);
+
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(clearClientDataset, this.threads);
+        Map<Long, String> clientEncryptedDatasetMapConvertedToString = new ConcurrentHashMap<>();
+
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for(String value : partition){
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(value);
+                        byte[] encryptedValue = null;
+                        Ristretto255.Point randomValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if(Boolean.TRUE.equals(this.cacheEnabled)) {
+                            Optional<CacheObjectEcRandomEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, CacheObjectEcRandomEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()) {
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
+                                randomValue = Ristretto255.decode(encryptedCacheObjectOptional.get().getRandomValue());
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            // The value is blinded as H(m) + y*Q, while y*G is kept to reverse the blinding
+                            BlindingFactorPool.BlindingFactor<Ristretto255.Point> blindingFactor = this.blindingFactorPool.take();
+                            encryptedValue = Ristretto255.hashToGroup(bigIntegerValue).add(blindingFactor.getBlindingValue()).encode();
+                            randomValue = blindingFactor.getRandomValue();
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if(Boolean.TRUE.equals(this.cacheEnabled)) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.BLIND_SIGNATURE_ENCRYPTION, bigIntegerValue, new CacheObjectEcRandomEncrypted(randomValue.encode(), encryptedValue), this.psiCacheProvider);
+                            }
+                        }
+                        Long key = this.keyAtomicCounter.incrementAndGet();
+                        this.clientClearDataset.put(key, bigIntegerValue.toByteArray());
+                        this.clientRandomDataset.put(key, randomValue.toCoordinates());
+                        clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertBytesToString(encryptedValue));
+                    }
+                }
+            });
+        }
+
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+
+        this.statisticList.add(statistics.close());
+        return clientEncryptedDatasetMapConvertedToString;
+    }
+
+    @Override
+    public void precomputeBlindingFactors(int count) {
+        log.debug("Called precomputeBlindingFactors");
+        this.blindingFactorPool.precompute(count, this.threads, this.sharedExecutorService);
+    }
+
+    @Override
+    public void loadDoubleEncryptedClientDataset(Map<Long, String> doubleEncryptedClientDatasetMap){
+        log.debug("Called loadDoubleEncryptedClientDataset");
+        // The values are decoded by computeReversedMap, which runs on multiple threads
+        for(Map.Entry<Long, String> entry : doubleEncryptedClientDatasetMap.entrySet()) {
+            putClientValue(this.clientDoubleEncryptedDataset, entry.getKey(), CustomTypeConverter.convertStringToBytes(entry.getValue()));
+        }
+    }
+
+    @Override
+    public void loadAndProcessServerDataset(Set<String> serverEncryptedDataset) {
+        log.debug("Called loadServerDataset");
+        processServerDataset(serverEncryptedDataset, this.serverEncryptedDataset::add);
+    }
+
+    @Override
+    public void loadAndProbeServerDataset(Set<String> serverEncryptedDataset, Consumer<String> psiResultConsumer) {
+        log.debug("Called loadAndProbeServerDataset");
+        IncrementalIntersection incrementalIntersection = getIncrementalIntersection(() -> {
+            computeReversedMap();
+            return this.clientReversedDataset;
+        }, this.clientClearDataset);
+        processServerDataset(serverEncryptedDataset, value -> incrementalIntersection.probe(value, psiResultConsumer));
+    }
+
+    // Processes the server values and passes the resulting values, which are compared with the client ones, to the consumer
+    private void processServerDataset(Set<String> serverEncryptedDataset, Consumer<String> serverValueConsumer) {
+        // The server values are only compared with the encodings of the reversed values, hence they are not decoded:
+        // a String that is not a valid encoding cannot match any of them. If the session uses fingerprints, the
+        // server returns them in place of the encodings
+        if (this.fingerprintBits != null)
+            validateServerFingerprints(serverEncryptedDataset);
+        serverEncryptedDataset.forEach(serverValueConsumer);
+    }
+
+    @Override
+    public void loadServerFilter(PsiServerFilter psiServerFilter) {
+        log.debug("Called loadServerFilter");
+        loadServerFilter(psiServerFilter, PsiAlgorithm.ECBS25519);
+    }
+
+    // Loads the clientReversedDataset which contains a decryption of the clientDoubleEncryptedDataset entries
+    private void computeReversedMap(){
+        PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.REVERSE_MAP);
+
+        log.debug("Called computeReversedMap");
+        ChunkQueue.OfRange keyQueue = keyQueue();
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < keyQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                long[] partition;
+                while ((partition = keyQueue.nextRange()) != null) {
+                    for(long key = partition[0]; key < partition[1]; key++) {
+                        byte[] doubleEncryptedValue = this.clientDoubleEncryptedDataset.get(key);
+                        if (doubleEncryptedValue == null)
+                            continue;
+                        Ristretto255.Point randomValue = Ristretto255.Point.fromCoordinates(this.clientRandomDataset.get(key));
+                        byte[] reversedValue = null;
+                        BigInteger cacheKeyValue = null; // Used as key value during caching operations
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (Boolean.TRUE.equals(this.cacheEnabled)) {
+                            cacheKeyValue = CustomTypeConverter.convertStringToBigInteger(CustomTypeConverter.convertBytesToString(doubleEncryptedValue) + CustomTypeConverter.convertRistretto255PointToString(randomValue));
+                            Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, cacheKeyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()) {
+                                reversedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (reversedValue == null){
+                            reversedValue = Ristretto255.decode(doubleEncryptedValue).subtract(randomValue).encode();
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if (Boolean.TRUE.equals(this.cacheEnabled)) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.REVERSE_VALUE, cacheKeyValue, new CacheObjectEcEncrypted(reversedValue), this.psiCacheProvider);
+                            }
+                        }
+                        this.clientReversedDataset.put(key, reversedValue);
+                    }
+                }
+            });
+        }
+
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+
+        this.statisticList.add(statistics.close());
+    }
+
+    @Override
+    public Set<String> computePsi(){
+        log.debug("Called computePsi");
+
+        computeReversedMap();
+        return computePsi(this.clientReversedDataset, this.serverEncryptedDataset, this.clientClearDataset);
+    }
+
+    @Override
+    public PsiClientKeyDescription getClientKeyDescription() {
+        return PsiClientKeyDescriptionFactory.createEcBsClientKeyDescription(this.serverPublicQ);
+    }
+
+}
@@ -11,6 +11,7 @@ import psi.model.PsiClientSession;
 import psi.model.PsiPhaseStatistics;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,36 +19,41 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 class PsiClientEcDh extends PsiClientAbstract {
 
     private static final Logger log = LoggerFactory.getLogger(PsiClientEcDh.class);
 
-    // Collections used to store working element sets
-    private final Map<Long, BigInteger> clientClearDatasetMap;
-    private final Map<Long, ECPoint> clientDoubleEncryptedDatasetMap;
-    private final Set<ECPoint> serverDoubleEncryptedDataset;
+    // Columns used to store working element sets, addressed by the keys of the client entries. The double encrypted
+    // values are stored with the compressed encoding compared with the server values
+    private final ChunkedColumn.OfVariableBytes clientClearDataset;
+    private final ChunkedColumn.OfBytes clientDoubleEncryptedDataset;
+    // String representations of the double encrypted server values, or their fingerprints if the session uses
+    // fingerprints
+    private final EncodedValueSet serverDoubleEncryptedDataset;
 
     // Variables used to perform encryption operations
     private final BigInteger clientPrivateD;
+    private final EcFixedScalarMultiplier clientPrivateDMultiplier;
     private final ECCurve ecCurve;
     private final EllipticCurve ellipticCurve;
 
-    PsiClientEcDh(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider) {
-
-        this.serverDoubleEncryptedDataset = ConcurrentHashMap.newKeySet();
-        this.clientClearDatasetMap = new ConcurrentHashMap<>();
-        this.clientDoubleEncryptedDatasetMap = new ConcurrentHashMap<>();
+    PsiClientEcDh(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider, WorkingStorage workingStorage) {
 
+        this.workingStorage = workingStorage;
+        this.serverDoubleEncryptedDataset = new EncodedValueSet(workingStorage);
         this.statisticList = new ConcurrentLinkedQueue<>();
         this.keyAtomicCounter = new AtomicLong(0);
+        this.fingerprintBits = psiClientSession.getPsiAlgorithmParameter().getFingerprintBits();
 
 
-        ECParameterSpec ecSpec = CustomTypeConverter.convertKeySizeToECParameterSpec(psiClientSession.getPsiAlgorithmParameter().getKeySize());
-        this.ellipticCurve = new EllipticCurve(ecSpec);
+        ECParameterSpec ecSpec = CustomTypeConverter.convertPsiAlgorithmParameterToECParameterSpec(psiClientSession.getPsiAlgorithmParameter());
+        this.ellipticCurve = new EllipticCurve(ecSpec, psiClientSession.getPsiAlgorithmParameter().getHashToCurveMode());
         this.ecCurve = ecSpec.getCurve();
+        this.clientClearDataset = new ChunkedColumn.OfVariableBytes(workingStorage);
+        this.clientDoubleEncryptedDataset = new ChunkedColumn.OfBytes(workingStorage, (this.ecCurve.getFieldSize() + 7) / 8 + 1);
 
         // keys are set from the psiClientSession
         if (psiClientKeyDescription == null) {
@@ -60,12 +66,13 @@ class PsiClientEcDh extends PsiClientAbstract {
                 throw new PsiClientException("The field ecClientPrivateD in the input psiClientKeyDescription cannot be null");
             this.clientPrivateD = CustomTypeConverter.convertStringToBigInteger(psiClientKeyDescription.getEcClientPrivateD());
         }
+        this.clientPrivateDMultiplier = this.ellipticCurve.getFixedScalarMultiplier(this.clientPrivateD);
 
         // If psiCacheProvider != null, setup and validate the cache
         if (psiCacheProvider == null)
             this.cacheEnabled = false;
         else {
-            this.keyId = CacheUtils.getKeyId(getClientKeyDescription(), psiCacheProvider);
+            this.keyId = CacheUtils.getKeyId(getClientKeyDescription(), psiClientSession.getPsiAlgorithmParameter().getHashToCurveMode(), psiCacheProvider);
             this.cacheEnabled = true;
             this.psiCacheProvider = psiCacheProvider;
         }
@@ -76,36 +83,49 @@ class PsiClientEcDh extends PsiClientAbstract {
         log.debug("Called loadAndEncryptClientDataset");
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.ENCRYPTION);
 
-        List<Set<String>> clientDatasetPartitions = PartitionHelper.partitionSet(clearClientDataset, this.threads);
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(clearClientDataset, this.threads);
         Map<Long, String> clientEncryptedDatasetMapConvertedToString = new ConcurrentHashMap<>();
 
-        ExecutorService executorService = Executors.newFixedThreadPool(clientDatasetPartitions.size());
-        for (Set<String> partition : clientDatasetPartitions) {
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-
-                for (String stringValue : partition) {
-                    BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
-                    ECPoint encryptedValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if (this.cacheEnabled) {
-                        Optional<CacheObjectEcEncrypted> encryptedEcCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
-                        if (encryptedEcCacheObjectOptional.isPresent()) {
-                            encryptedValue = encryptedEcCacheObjectOptional.get().getEncryptedValue(this.ecCurve);
-                            statistics.incrementCacheHit();
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    // Points computed in this chunk, which are normalized together before being encoded
+                    List<BigInteger> computedValuesClear = new ArrayList<>();
+                    List<ECPoint> computedValues = new ArrayList<>();
+                    for (String stringValue : partition) {
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
+                        ECPoint encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (this.cacheEnabled) {
+                            Optional<CacheObjectEcEncrypted> encryptedEcCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedEcCacheObjectOptional.isPresent()) {
+                                encryptedValue = encryptedEcCacheObjectOptional.get().getEncryptedValue(this.ecCurve);
+                                statistics.incrementCacheHit();
+                            }
                         }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            computedValuesClear.add(bigIntegerValue);
+                            computedValues.add(this.clientPrivateDMultiplier.multiply(this.ellipticCurve.mapMessage(bigIntegerValue)));
+                            statistics.incrementCacheMiss();
+                            continue;
+                        }
+                        Long key = this.keyAtomicCounter.incrementAndGet();
+                        this.clientClearDataset.put(key, bigIntegerValue.toByteArray());
+                        clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertECPointToString(encryptedValue));
                     }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        encryptedValue = EllipticCurve.multiply(this.ellipticCurve.mapMessage(bigIntegerValue), this.clientPrivateD);
-                        statistics.incrementCacheMiss();
+                    ECPoint[] normalizedValues = CustomTypeConverter.normalizeECPoints(this.ecCurve, computedValues);
+                    for (int i = 0; i < normalizedValues.length; i++) {
                         // If the cache support is enabled, the result is stored in the cache
                         if (this.cacheEnabled) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, new CacheObjectEcEncrypted(encryptedValue), this.psiCacheProvider);
+                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, computedValuesClear.get(i), new CacheObjectEcEncrypted(normalizedValues[i]), this.psiCacheProvider);
                         }
+                        Long key = this.keyAtomicCounter.incrementAndGet();
+                        this.clientClearDataset.put(key, computedValuesClear.get(i).toByteArray());
+                        clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertECPointToString(normalizedValues[i]));
                     }
-                    Long key = this.keyAtomicCounter.incrementAndGet();
-                    this.clientClearDatasetMap.put(key, bigIntegerValue);
-                    clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertECPointToString(encryptedValue));
                 }
             });
         }
@@ -120,43 +140,67 @@ class PsiClientEcDh extends PsiClientAbstract {
     public void loadDoubleEncryptedClientDataset(Map<Long, String> doubleEncryptedClientDatasetMap) {
         log.debug("Called loadDoubleEncryptedClientDataset");
         for (Map.Entry<Long, String> entry : doubleEncryptedClientDatasetMap.entrySet()) {
-            this.clientDoubleEncryptedDatasetMap.put(entry.getKey(), CustomTypeConverter.convertStringToECPoint(this.ecCurve,entry.getValue()));
+            putClientValue(this.clientDoubleEncryptedDataset, entry.getKey(), CustomTypeConverter.convertStringToECPoint(this.ecCurve,entry.getValue()).getEncoded(true));
         }
     }
 
     @Override
     public void loadAndProcessServerDataset(Set<String> serverEncryptedDataset) {
         log.debug("Called loadServerDataset");
+        processServerDataset(serverEncryptedDataset, this.serverDoubleEncryptedDataset::add);
+    }
+
+    @Override
+    public void loadAndProbeServerDataset(Set<String> serverEncryptedDataset, Consumer<String> psiResultConsumer) {
+        log.debug("Called loadAndProbeServerDataset");
+        IncrementalIntersection incrementalIntersection = getIncrementalIntersection(() -> this.clientDoubleEncryptedDataset, this.clientClearDataset);
+        processServerDataset(serverEncryptedDataset, value -> incrementalIntersection.probe(value, psiResultConsumer));
+    }
+
+    // Processes the server values and passes the resulting values, which are compared with the client ones, to the consumer
+    private void processServerDataset(Set<String> serverEncryptedDataset, Consumer<String> serverValueConsumer) {
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.DOUBLE_ENCRYPTION);
 
-        List<Set<String>> partitionList = PartitionHelper.partitionSet(serverEncryptedDataset, this.threads);
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(serverEncryptedDataset, this.threads);
 
-        ExecutorService executorService = Executors.newFixedThreadPool(partitionList.size());
-        for (Set<String> partition : partitionList) {
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-                for (String serverEncryptedEntry : partition) {
-                    BigInteger keyValue = CustomTypeConverter.convertStringToBigInteger(serverEncryptedEntry); //This value is used only to search in cache
-                    ECPoint ecPointValue = CustomTypeConverter.convertStringToECPoint(this.ecCurve, serverEncryptedEntry);
-                    ECPoint encryptedValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if (this.cacheEnabled) {
-                        Optional<CacheObjectEcEncrypted> encryptedEcCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
-                        if (encryptedEcCacheObjectOptional.isPresent()) {
-                            encryptedValue = encryptedEcCacheObjectOptional.get().getEncryptedValue(this.ecCurve);
-                            statistics.incrementCacheHit();
+                FingerprintFactory fingerprintFactory = createFingerprintFactory();
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    // Points computed in this chunk, which are normalized together before being stored
+                    List<BigInteger> computedCacheKeys = new ArrayList<>();
+                    List<ECPoint> computedValues = new ArrayList<>();
+                    for (String serverEncryptedEntry : partition) {
+                        BigInteger keyValue = CustomTypeConverter.convertStringToBigInteger(serverEncryptedEntry); //This value is used only to search in cache
+                        ECPoint ecPointValue = CustomTypeConverter.convertStringToECPoint(this.ecCurve, serverEncryptedEntry);
+                        ECPoint encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (this.cacheEnabled) {
+                            Optional<CacheObjectEcEncrypted> encryptedEcCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedEcCacheObjectOptional.isPresent()) {
+                                encryptedValue = encryptedEcCacheObjectOptional.get().getEncryptedValue(this.ecCurve);
+                                statistics.incrementCacheHit();
+                            }
                         }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            computedCacheKeys.add(keyValue);
+                            computedValues.add(this.clientPrivateDMultiplier.multiply(ecPointValue));
+                            statistics.incrementCacheMiss();
+                        }
+                        else
+                            addServerDoubleEncryptedValue(encryptedValue, fingerprintFactory, serverValueConsumer);
                     }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        encryptedValue = EllipticCurve.multiply(ecPointValue, this.clientPrivateD);
-                        statistics.incrementCacheMiss();
+                    ECPoint[] normalizedValues = CustomTypeConverter.normalizeECPoints(this.ecCurve, computedValues);
+                    for (int i = 0; i < normalizedValues.length; i++) {
                         // If the cache support is enabled, the result is stored in the cache
                         if (this.cacheEnabled) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, new CacheObjectEcEncrypted(encryptedValue), this.psiCacheProvider);
+                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, computedCacheKeys.get(i), new CacheObjectEcEncrypted(normalizedValues[i]), this.psiCacheProvider);
                         }
+                        addServerDoubleEncryptedValue(normalizedValues[i], fingerprintFactory, serverValueConsumer);
                     }
-                    this.serverDoubleEncryptedDataset.add(encryptedValue);
-
                 }
             });
         }
@@ -166,7 +210,12 @@ class PsiClientEcDh extends PsiClientAbstract {
         this.statisticList.add(statistics.close());
     }
 
-    // Loads the clientReversedDatasetMap which contains a decryption of the clientDoubleEncryptedDatasetMap entries
+    // Stores a double encrypted server value, or its fingerprint if the session uses fingerprints
+    private void addServerDoubleEncryptedValue(ECPoint value, FingerprintFactory fingerprintFactory, Consumer<String> serverValueConsumer) {
+        serverValueConsumer.accept(FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertECPointToString(value)));
+    }
+
+    // Loads the clientReversedDataset which contains a decryption of the clientDoubleEncryptedDataset entries
     private void computeReversedMap() {
         log.debug("Called computeReversedMap");
     }
@@ -177,19 +226,7 @@ class PsiClientEcDh extends PsiClientAbstract {
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.PSI);
 
         computeReversedMap();
-        Set<String> psi = ConcurrentHashMap.newKeySet();
-        List<Map<Long, ECPoint>> reversedMapPartition = PartitionHelper.partitionMap(this.clientDoubleEncryptedDatasetMap, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(reversedMapPartition.size());
-        for (Map<Long, ECPoint> partition : reversedMapPartition) {
-            executorService.submit(() -> {
-                for (Map.Entry<Long, ECPoint> entry : partition.entrySet()) {
-                    if (this.serverDoubleEncryptedDataset.contains(entry.getValue()))
-                        psi.add(CustomTypeConverter.convertBigIntegerToString(this.clientClearDatasetMap.get(entry.getKey())));
-                }
-            });
-        }
-
-        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+        Set<String> psi = computePsi(this.clientDoubleEncryptedDataset, this.serverDoubleEncryptedDataset, this.clientClearDataset);
 
         this.statisticList.add(statistics.close());
         return psi;
@@ -0,0 +1,196 @@
+package psi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import psi.cache.PsiCacheProvider;
+import psi.exception.PsiClientException;
+import psi.model.PsiClientSession;
+import psi.model.PsiPhaseStatistics;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+class PsiClientEcDh25519 extends PsiClientAbstract {
+
+    private static final Logger log = LoggerFactory.getLogger(PsiClientEcDh25519.class);
+
+    // Columns used to store working element sets, addressed by the keys of the client entries. Since the encoding of
+    // the elements is canonical, the double encrypted values are compared through their String representation
+    private final ChunkedColumn.OfVariableBytes clientClearDataset;
+    private final ChunkedColumn.OfBytes clientDoubleEncryptedDataset;
+    private final EncodedValueSet serverDoubleEncryptedDataset;
+
+    // Variables used to perform encryption operations
+    private final BigInteger clientPrivateD;
+    private final Ristretto255.FixedScalarMultiplier clientPrivateDMultiplier;
+
+    PsiClientEcDh25519(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider, WorkingStorage workingStorage) {
+
+        this.workingStorage = workingStorage;
+        this.serverDoubleEncryptedDataset = new EncodedValueSet(workingStorage);
+        this.clientClearDataset = new ChunkedColumn.OfVariableBytes(workingStorage);
+        this.clientDoubleEncryptedDataset = new ChunkedColumn.OfBytes(workingStorage, Ristretto255.ENCODING_LENGTH);
+
+        this.statisticList = new ConcurrentLinkedQueue<>();
+        this.keyAtomicCounter = new AtomicLong(0);
+        this.fingerprintBits = psiClientSession.getPsiAlgorithmParameter().getFingerprintBits();
+
+        // keys are generated from scratch
+        if (psiClientKeyDescription == null) {
+            this.clientPrivateD = Ristretto255.generateScalar();
+        }
+        // keys are loaded from psiClientKeyDescription
+        else {
+            if (psiClientKeyDescription.getEcClientPrivateD() == null)
+                throw new PsiClientException("The field ecClientPrivateD in the input psiClientKeyDescription cannot be null");
+            this.clientPrivateD = CustomTypeConverter.convertStringToBigInteger(psiClientKeyDescription.getEcClientPrivateD());
+        }
+        this.clientPrivateDMultiplier = new Ristretto255.FixedScalarMultiplier(this.clientPrivateD);
+
+        // If psiCacheProvider != null, setup and validate the cache
+        if (psiCacheProvider == null)
+            this.cacheEnabled = false;
+        else {
+            this.keyId = CacheUtils.getRistretto255KeyId(getClientKeyDescription(), psiCacheProvider);
+            this.cacheEnabled = true;
+            this.psiCacheProvider = psiCacheProvider;
+        }
+    }
+
+    @Override
+    public Map<Long, String> loadAndEncryptClientDataset(Set<String> clearClientDataset) {
+        log.debug("Called loadAndEncryptClientDataset");
+        PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.ENCRYPTION);
+
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(clearClientDataset, this.threads);
+        Map<Long, String> clientEncryptedDatasetMapConvertedToString = new ConcurrentHashMap<>();
+
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for (String stringValue : partition) {
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
+                        byte[] encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (this.cacheEnabled) {
+                            Optional<CacheObjectEcEncrypted> encryptedEcCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedEcCacheObjectOptional.isPresent()) {
+                                encryptedValue = encryptedEcCacheObjectOptional.get().getEncryptedValue();
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            encryptedValue = this.clientPrivateDMultiplier.multiply(Ristretto255.hashToGroup(bigIntegerValue)).encode();
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if (this.cacheEnabled) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, new CacheObjectEcEncrypted(encryptedValue), this.psiCacheProvider);
+                            }
+                        }
+                        Long key = this.keyAtomicCounter.incrementAndGet();
+                        this.clientClearDataset.put(key, bigIntegerValue.toByteArray());
+                        clientEncryptedDatasetMapConvertedToString.put(key, CustomTypeConverter.convertBytesToString(encryptedValue));
+                    }
+                }
+            });
+        }
+
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+
+        this.statisticList.add(statistics.close());
+        return clientEncryptedDatasetMapConvertedToString;
+    }
+
+    @Override
+    public void loadDoubleEncryptedClientDataset(Map<Long, String> doubleEncryptedClientDatasetMap) {
+        log.debug("Called loadDoubleEncryptedClientDataset");
+        for (Map.Entry<Long, String> entry : doubleEncryptedClientDatasetMap.entrySet())
+            putClientValue(this.clientDoubleEncryptedDataset, entry.getKey(), CustomTypeConverter.convertStringToBytes(entry.getValue()));
+    }
+
+    @Override
+    public void loadAndProcessServerDataset(Set<String> serverEncryptedDataset) {
+        log.debug("Called loadServerDataset");
+        processServerDataset(serverEncryptedDataset, this.serverDoubleEncryptedDataset::add);
+    }
+
+    @Override
+    public void loadAndProbeServerDataset(Set<String> serverEncryptedDataset, Consumer<String> psiResultConsumer) {
+        log.debug("Called loadAndProbeServerDataset");
+        IncrementalIntersection incrementalIntersection = getIncrementalIntersection(() -> this.clientDoubleEncryptedDataset, this.clientClearDataset);
+        processServerDataset(serverEncryptedDataset, value -> incrementalIntersection.probe(value, psiResultConsumer));
+    }
+
+    // Processes the server values and passes the resulting values, which are compared with the client ones, to the consumer
+    private void processServerDataset(Set<String> serverEncryptedDataset, Consumer<String> serverValueConsumer) {
+        PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.DOUBLE_ENCRYPTION);
+
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(serverEncryptedDataset, this.threads);
+
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                FingerprintFactory fingerprintFactory = createFingerprintFactory();
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for (String serverEncryptedEntry : partition) {
+                        BigInteger keyValue = CustomTypeConverter.convertStringToBigInteger(serverEncryptedEntry); //This value is used only to search in cache
+                        byte[] encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (this.cacheEnabled) {
+                            Optional<CacheObjectEcEncrypted> encryptedEcCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedEcCacheObjectOptional.isPresent()) {
+                                encryptedValue = encryptedEcCacheObjectOptional.get().getEncryptedValue();
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            Ristretto255.Point pointValue = CustomTypeConverter.convertStringToRistretto255Point(serverEncryptedEntry);
+                            encryptedValue = this.clientPrivateDMultiplier.multiply(pointValue).encode();
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if (this.cacheEnabled) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, new CacheObjectEcEncrypted(encryptedValue), this.psiCacheProvider);
+                            }
+                        }
+                        serverValueConsumer.accept(FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBytesToString(encryptedValue)));
+                    }
+                }
+            });
+        }
+
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+
+        this.statisticList.add(statistics.close());
+    }
+
+    @Override
+    public Set<String> computePsi() {
+        log.debug("Called computePsi");
+        PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.PSI);
+
+        Set<String> psi = computePsi(this.clientDoubleEncryptedDataset, this.serverDoubleEncryptedDataset, this.clientClearDataset);
+
+        this.statisticList.add(statistics.close());
+        return psi;
+    }
+
+    @Override
+    public PsiClientKeyDescription getClientKeyDescription() {
+        return PsiClientKeyDescriptionFactory.createEcDhClientKeyDescription(
+                CustomTypeConverter.convertBigIntegerToString(this.clientPrivateD));
+    }
+
+}
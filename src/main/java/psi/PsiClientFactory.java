@@ -5,8 +5,11 @@ import psi.client.PsiClient;
 import psi.exception.PsiClientException;
 import psi.exception.UnsupportedKeySizeException;
 import psi.model.PsiAlgorithm;
+import psi.model.PsiAlgorithmParameter;
 import psi.model.PsiClientSession;
+import psi.model.PsiStorageConfiguration;
 
+import java.io.File;
 import java.util.Arrays;
 
 /**
@@ -27,7 +30,7 @@ public class PsiClientFactory {
      * @throws UnsupportedKeySizeException if the specified key size is not supported by the selected algorithm
      */
     public static PsiClient loadSession(PsiClientSession psiClientSession) throws UnsupportedKeySizeException {
-        return loadSessionInner(psiClientSession, null, null);
+        return loadSessionInner(psiClientSession, null, null, WorkingStorage.HEAP);
     }
 
     /**
@@ -46,7 +49,7 @@ public class PsiClientFactory {
             throw new PsiClientException("Input clientKeyDescription is null");
         }
 
-        return loadSessionInner(psiClientSession, psiClientKeyDescription, null);
+        return loadSessionInner(psiClientSession, psiClientKeyDescription, null, WorkingStorage.HEAP);
     }
 
     /**
@@ -64,7 +67,7 @@ public class PsiClientFactory {
         if (psiCacheProvider == null)
             throw new PsiClientException("Input psiCacheProvider is null");
 
-        return loadSessionInner(psiClientSession, null, psiCacheProvider);
+        return loadSessionInner(psiClientSession, null, psiCacheProvider, WorkingStorage.HEAP);
     }
 
     /**
@@ -86,7 +89,96 @@ public class PsiClientFactory {
         if (psiCacheProvider == null)
             throw new PsiClientException("Input psiCacheProvider is null");
 
-        return loadSessionInner(psiClientSession, psiClientKeyDescription, psiCacheProvider);
+        return loadSessionInner(psiClientSession, psiClientKeyDescription, psiCacheProvider, WorkingStorage.HEAP);
+    }
+
+    /**
+     * Creates the specific client object based on the algorithm field defined in the input psiClientSession, which
+     * stores its working sets in memory-mapped files as described by the input psiStorageConfiguration.
+     * Any key, if needed, is generated automatically.
+     * Methods of the returned object do not use the cache.
+     *
+     * @param psiClientSession          contains the information sent from the server to correctly initialize the client
+     * @param psiStorageConfiguration   contains the directory where the memory-mapped files are created
+     * @return a PsiClient instance compliant with the input parameter
+     * @throws UnsupportedKeySizeException if the specified key size is not supported by the selected algorithm
+     */
+    public static PsiClient loadSession(PsiClientSession psiClientSession, PsiStorageConfiguration psiStorageConfiguration) throws UnsupportedKeySizeException {
+        return loadSessionInner(psiClientSession, null, null, createWorkingStorage(psiStorageConfiguration));
+    }
+
+    /**
+     * Creates the specific client object based on the algorithm field defined in the input psiClientSession and
+     * the provided psiClientKeyDescription, which stores its working sets in memory-mapped files as described by the
+     * input psiStorageConfiguration.
+     * The returned PsiClient uses the keys passed in the psiClientKeyDescription.
+     * Methods of the returned object do not use the cache.
+     *
+     * @param psiClientSession          contains the information sent from the server to correctly initialize the client
+     * @param psiClientKeyDescription   contains the key used to perform encryption operations (e.g. exponent of the private key)
+     * @param psiStorageConfiguration   contains the directory where the memory-mapped files are created
+     * @return a PsiClient instance compliant with the input parameter
+     * @throws UnsupportedKeySizeException if the specified key size is not supported by the selected algorithm
+     */
+    public static PsiClient loadSession(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiStorageConfiguration psiStorageConfiguration) throws UnsupportedKeySizeException {
+        if (psiClientKeyDescription == null)
+            throw new PsiClientException("Input clientKeyDescription is null");
+
+        return loadSessionInner(psiClientSession, psiClientKeyDescription, null, createWorkingStorage(psiStorageConfiguration));
+    }
+
+    /**
+     * Creates the specific client object based on the algorithm field defined in the input psiClientSession and the
+     * input PsiCacheProvider implementation, which stores its working sets in memory-mapped files as described by the
+     * input psiStorageConfiguration.
+     * Any key, if needed, is generated automatically.
+     * Methods of the returned object use the cache whenever possible.
+     *
+     * @param psiClientSession          contains the information sent from the server to correctly initialize the client
+     * @param psiCacheProvider          custom implementation of the PsiCacheProvider
+     * @param psiStorageConfiguration   contains the directory where the memory-mapped files are created
+     * @return a PsiClient instance compliant with the input parameter
+     * @throws UnsupportedKeySizeException if the specified key size is not supported by the selected algorithm
+     */
+    public static PsiClient loadSession(PsiClientSession psiClientSession, PsiCacheProvider psiCacheProvider, PsiStorageConfiguration psiStorageConfiguration) throws UnsupportedKeySizeException {
+        if (psiCacheProvider == null)
+            throw new PsiClientException("Input psiCacheProvider is null");
+
+        return loadSessionInner(psiClientSession, null, psiCacheProvider, createWorkingStorage(psiStorageConfiguration));
+    }
+
+    /**
+     * Creates the specific client object based on the algorithm field defined in the input psiClientSession,
+     * the provided psiClientKeyDescription and the input PsiCacheProvider implementation, which stores its working
+     * sets in memory-mapped files as described by the input psiStorageConfiguration.
+     * The returned PsiClient uses the keys passed in the psiClientKeyDescription.
+     * Methods of the returned object use the cache whenever possible.
+     *
+     * @param psiClientSession          contains the information sent from the server to correctly initialize the client
+     * @param psiClientKeyDescription   contains the key used to perform encryption operations (e.g. exponent of the private key)
+     * @param psiCacheProvider          custom implementation of the PsiCacheProvider
+     * @param psiStorageConfiguration   contains the directory where the memory-mapped files are created
+     * @return a PsiClient instance configured respect to the input parameters
+     * @throws UnsupportedKeySizeException if the specified key size is not supported by the selected algorithm
+     */
+    public static PsiClient loadSession(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider, PsiStorageConfiguration psiStorageConfiguration) throws UnsupportedKeySizeException {
+        if (psiClientKeyDescription == null)
+            throw new PsiClientException("Input clientKeyDescription is null");
+
+        if (psiCacheProvider == null)
+            throw new PsiClientException("Input psiCacheProvider is null");
+
+        return loadSessionInner(psiClientSession, psiClientKeyDescription, psiCacheProvider, createWorkingStorage(psiStorageConfiguration));
+    }
+
+    // Creates the memory-mapped storage described by the input configuration
+    private static WorkingStorage createWorkingStorage(PsiStorageConfiguration psiStorageConfiguration) {
+        if (psiStorageConfiguration == null)
+            throw new PsiClientException("Input psiStorageConfiguration is null");
+
+        String scratchDirectory = psiStorageConfiguration.getScratchDirectory() != null ?
+                psiStorageConfiguration.getScratchDirectory() : System.getProperty("java.io.tmpdir");
+        return WorkingStorage.memoryMapped(new File(scratchDirectory));
     }
 
     /**
@@ -96,10 +188,11 @@ public class PsiClientFactory {
      * @param psiClientSession          contains the information sent from the server to correctly initialize the client
      * @param psiClientKeyDescription   contains the key used to perform encryption operations (e.g. exponent of the private key)
      * @param psiCacheProvider          custom implementation of the PsiCacheProvider
+     * @param workingStorage            storage used to allocate the working sets of the client
      * @return a PsiClient instance configured respect to the input parameters
      * @throws UnsupportedKeySizeException if the specified key size is not supported by the selected algorithm
      */
-    private static PsiClient loadSessionInner(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider) throws UnsupportedKeySizeException {
+    private static PsiClient loadSessionInner(PsiClientSession psiClientSession, PsiClientKeyDescription psiClientKeyDescription, PsiCacheProvider psiCacheProvider, WorkingStorage workingStorage) throws UnsupportedKeySizeException {
         if (!Arrays.asList(PsiAlgorithm.values()).contains(psiClientSession.getPsiAlgorithmParameter().getAlgorithm()))
             throw new PsiClientException("The algorithm defined in the input psiClientSession is invalid or not supported");
 
@@ -107,15 +200,32 @@ public class PsiClientFactory {
         if (!psiAlgorithm.getSupportedKeySize().contains(psiClientSession.getPsiAlgorithmParameter().getKeySize()))
             throw new UnsupportedKeySizeException(psiAlgorithm, psiClientSession.getPsiAlgorithmParameter().getKeySize());
 
+        if (!PsiAlgorithmParameter.isValidCurve(psiAlgorithm, psiClientSession.getPsiAlgorithmParameter().getKeySize(), psiClientSession.getPsiAlgorithmParameter().getCurve()))
+            throw new PsiClientException("The curve defined in the input psiClientSession is not supported by the selected algorithm and key size");
+
+        if (psiClientSession.getPsiAlgorithmParameter().getHashToCurveMode() != null
+                && !psiClientSession.getPsiAlgorithmParameter().getHashToCurveMode().isSupported(psiAlgorithm,
+                psiClientSession.getPsiAlgorithmParameter().getKeySize(), psiClientSession.getPsiAlgorithmParameter().getCurve()))
+            throw new PsiClientException("The hashToCurveMode defined in the input psiClientSession is not supported by the selected algorithm, key size and curve");
+
+        if (psiClientSession.getPsiAlgorithmParameter().getFingerprintBits() != null
+                && !PsiAlgorithmParameter.isValidFingerprintBits(psiClientSession.getPsiAlgorithmParameter().getFingerprintBits()))
+            throw new PsiClientException("The fingerprintBits defined in the input psiClientSession should be a multiple of 8 between "
+                    + PsiAlgorithmParameter.MIN_FINGERPRINT_BITS + " and " + PsiAlgorithmParameter.MAX_FINGERPRINT_BITS);
+
         switch (psiAlgorithm) {
             case BS:
-                return new PsiClientBs(psiClientSession, psiClientKeyDescription, psiCacheProvider);
+                return new PsiClientBs(psiClientSession, psiClientKeyDescription, psiCacheProvider, workingStorage);
             case DH:
-                return new PsiClientDh(psiClientSession, psiClientKeyDescription, psiCacheProvider);
+                return new PsiClientDh(psiClientSession, psiClientKeyDescription, psiCacheProvider, workingStorage);
             case ECBS:
-                return new PsiClientEcBs(psiClientSession, psiClientKeyDescription, psiCacheProvider);
+                return new PsiClientEcBs(psiClientSession, psiClientKeyDescription, psiCacheProvider, workingStorage);
             case ECDH:
-                return new PsiClientEcDh(psiClientSession, psiClientKeyDescription, psiCacheProvider);
+                return new PsiClientEcDh(psiClientSession, psiClientKeyDescription, psiCacheProvider, workingStorage);
+            case ECBS25519:
+                return new PsiClientEcBs25519(psiClientSession, psiClientKeyDescription, psiCacheProvider, workingStorage);
+            case ECDH25519:
+                return new PsiClientEcDh25519(psiClientSession, psiClientKeyDescription, psiCacheProvider, workingStorage);
 
             default:
                 return null;
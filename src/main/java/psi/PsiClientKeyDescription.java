@@ -13,6 +13,7 @@ import java.util.Objects;
  *   <li>BS uses modulus and serverPublicExponent</li>
  *   <li>ECDH uses ecClientPrivateD</li>
  *   <li>ECBS uses ecServerPublicQ</li>
+ *   <li>ECDH25519 and ECBS25519 use the same fields as ECDH and ECBS</li>
  * </ul>
  */
 public class PsiClientKeyDescription implements PsiKeyDescription, Serializable {
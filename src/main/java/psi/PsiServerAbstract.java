@@ -1,12 +1,27 @@
 package psi;
 
 import psi.cache.PsiCacheProvider;
+import psi.exception.PsiServerException;
+import psi.flow.PsiFlow;
+import psi.model.PsiAlgorithm;
 import psi.model.PsiPhaseStatistics;
+import psi.model.PsiServerFilter;
 import psi.model.PsiServerSession;
 import psi.model.PsiThreadConfiguration;
 import psi.server.PsiServer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static psi.GlobalVariables.DEFAULT_THREADS;
 import static psi.GlobalVariables.DEFAULT_THREAD_TIMEOUT_SECONDS;
@@ -25,8 +40,13 @@ abstract class PsiServerAbstract implements PsiServer {
 
     protected int threads = DEFAULT_THREADS;
     protected int threadTimeoutSeconds = DEFAULT_THREAD_TIMEOUT_SECONDS;
+    // Executor that runs the threads of all the methods, which is never shut down
+    protected ExecutorService sharedExecutorService = MultithreadingHelper.getSharedExecutorService();
+    // Executor that runs the methods called through the asynchronous variants, which is never shut down
+    protected ExecutorService asyncExecutorService = MultithreadingHelper.getAsyncExecutorService();
 
-    protected List<PsiPhaseStatistics> statisticList;
+    // Concurrent, since the phases of different methods can run at the same time through the asynchronous variants
+    protected Queue<PsiPhaseStatistics> statisticList;
 
     public int getThreads() {
         return this.threads;
@@ -41,7 +61,62 @@ abstract class PsiServerAbstract implements PsiServer {
     }
 
     public List<PsiPhaseStatistics> getStatisticList() {
-        return this.statisticList;
+        return new ArrayList<>(this.statisticList);
+    }
+
+    // Each chunk is encrypted by encryptDataset, which adds its own statistics
+    public void encryptDataset(Iterator<String> inputIterator, int chunkSize, Consumer<Set<String>> encryptedChunkConsumer) {
+        Set<String> chunk;
+        while (!(chunk = PartitionHelper.nextChunk(inputIterator, chunkSize)).isEmpty())
+            encryptedChunkConsumer.accept(encryptDataset(chunk));
+    }
+
+    public void encryptDataset(Stream<String> inputStream, int chunkSize, Consumer<Set<String>> encryptedChunkConsumer) {
+        encryptDataset(inputStream.iterator(), chunkSize, encryptedChunkConsumer);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> encryptDatasetAsync(Set<String> inputSet) {
+        return MultithreadingHelper.supplyAsync(() -> encryptDataset(inputSet), this.asyncExecutorService);
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, String>> encryptDatasetMapAsync(Map<Long, String> encryptedDatasetMap) {
+        return MultithreadingHelper.supplyAsync(() -> encryptDatasetMap(encryptedDatasetMap), this.asyncExecutorService);
+    }
+
+    @Override
+    public PsiFlow.Processor<String, String> encryptDatasetProcessor(int batchSize) {
+        return new PsiBatchProcessor<>(batchSize, batch -> encryptDatasetAsync(new HashSet<>(batch)));
+    }
+
+    @Override
+    public PsiFlow.Processor<Map.Entry<Long, String>, Map.Entry<Long, String>> encryptDatasetMapProcessor(int batchSize) {
+        return new PsiBatchProcessor<>(batchSize, batch -> {
+            Map<Long, String> batchMap = new HashMap<>();
+            for (Map.Entry<Long, String> entry : batch)
+                batchMap.put(entry.getKey(), entry.getValue());
+            return encryptDatasetMapAsync(batchMap).thenApply(Map::entrySet);
+        });
+    }
+
+    public PsiServerFilter encryptDatasetFilter(Set<String> inputSet, double falsePositiveProbability) {
+        PsiAlgorithm psiAlgorithm = this.psiServerSession.getPsiAlgorithmParameter().getAlgorithm();
+        if (psiAlgorithm != PsiAlgorithm.BS && psiAlgorithm != PsiAlgorithm.ECBS && psiAlgorithm != PsiAlgorithm.ECBS25519)
+            throw new PsiServerException("The encryptDatasetFilter method is not supported by the " + psiAlgorithm + " algorithm");
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1))
+            throw new IllegalArgumentException("'falsePositiveProbability' must be between 0 and 1");
+
+        Set<String> encryptedSet = encryptDataset(inputSet);
+        return BloomFilter.build(encryptedSet, falsePositiveProbability, this.sharedExecutorService, this.threads, this.threadTimeoutSeconds)
+                .toPsiServerFilter(this.psiServerSession.getPsiAlgorithmParameter());
+    }
+
+    // Returns the object used by a single thread to compute the fingerprints of the values returned by encryptDataset,
+    // or null if the session does not use fingerprints
+    FingerprintFactory createFingerprintFactory() {
+        Integer fingerprintBits = this.psiServerSession.getPsiAlgorithmParameter().getFingerprintBits();
+        return fingerprintBits != null ? new FingerprintFactory(fingerprintBits) : null;
     }
 
     public void setConfiguration(PsiThreadConfiguration configuration) {
@@ -49,5 +124,9 @@ abstract class PsiServerAbstract implements PsiServer {
                 configuration.getThreads() : DEFAULT_THREADS;
         this.threadTimeoutSeconds = configuration.getThreadTimeoutSeconds() != null ?
                 configuration.getThreadTimeoutSeconds() : DEFAULT_THREAD_TIMEOUT_SECONDS;
+        if (Boolean.TRUE.equals(configuration.getVirtualThreads()) && !VirtualThreads.isSupported())
+            throw new PsiServerException("Virtual threads require Java 21 or later");
+        this.sharedExecutorService = MultithreadingHelper.getExecutorService(configuration);
+        this.asyncExecutorService = MultithreadingHelper.getAsyncExecutorService(configuration);
     }
 }
@@ -14,8 +14,8 @@ import psi.model.PsiServerSession;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 class PsiServerBs extends PsiServerAbstract {
 
@@ -26,7 +26,7 @@ class PsiServerBs extends PsiServerAbstract {
             throw new UnsupportedKeySizeRuntimeException(PsiAlgorithm.BS, psiServerSession.getPsiAlgorithmParameter().getKeySize());
 
         this.psiServerSession = psiServerSession;
-        this.statisticList = new LinkedList<>();
+        this.statisticList = new ConcurrentLinkedQueue<>();
 
         if (psiCacheProvider != null) {
             this.psiCacheProvider = psiCacheProvider;
@@ -41,12 +41,13 @@ class PsiServerBs extends PsiServerAbstract {
 
         // keys are created from scratch
         if (psiServerKeyDescription == null) {
-            psiServerKeyDescription = AsymmetricKeyFactory.generateServerKeyDescription(psiAlgorithmParameter.getAlgorithm(), psiAlgorithmParameter.getKeySize());
+            psiServerKeyDescription = AsymmetricKeyFactory.generateServerKeyDescription(psiAlgorithmParameter);
         }
         // keys are loaded from serverKeyDescription
         else {
             if (psiServerKeyDescription.getModulus() == null || psiServerKeyDescription.getPrivateExponent() == null || psiServerKeyDescription.getPublicExponent() == null)
                 throw new PsiServerInitException("The exponents and/or modulus passed in the input psiServerKeyDescription are either null or empty");
+            RsaPrivateExponentiation.validateCrtParameters(psiServerKeyDescription);
         }
         psiServerSession.setPsiServerKeyDescription(psiServerKeyDescription);
 
@@ -63,39 +64,42 @@ class PsiServerBs extends PsiServerAbstract {
         validatePsiServerKeyDescription();
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.ENCRYPTION);
 
-        BigInteger serverPrivateExponent = CustomTypeConverter.convertStringToBigInteger(this.psiServerSession.getPsiServerKeyDescription().getPrivateExponent());
+        RsaPrivateExponentiation rsaPrivateExponentiation = RsaPrivateExponentiation.fromServerKeyDescription(this.psiServerSession.getPsiServerKeyDescription());
         BigInteger modulus = CustomTypeConverter.convertStringToBigInteger(this.psiServerSession.getPsiServerKeyDescription().getModulus());
 
         Set<String> encryptedSet = ConcurrentHashMap.newKeySet();
-        List<Set<String>> partitionList = PartitionHelper.partitionSet(inputSet, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(partitionList.size());
-        for(Set<String> partition : partitionList) {
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(inputSet, this.threads);
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
                 HashFactory hashFactory = new HashFactory(modulus);
-
-                for(String stringValue : partition){
-                    BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
-                    BigInteger encryptedValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if(Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
-                        Optional<CacheObjectEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_HASH_ENCRYPTION, bigIntegerValue, CacheObjectEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()){
-                            encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
-                            statistics.incrementCacheHit();
+                FingerprintFactory fingerprintFactory = createFingerprintFactory();
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for(String stringValue : partition){
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
+                        BigInteger encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if(Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                            Optional<CacheObjectEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_HASH_ENCRYPTION, bigIntegerValue, CacheObjectEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()){
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
+                                statistics.incrementCacheHit();
+                            }
                         }
-                    }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        encryptedValue = hashFactory.hashFullDomain(bigIntegerValue);
-                        encryptedValue = encryptedValue.modPow(serverPrivateExponent, modulus);
-                        encryptedValue = hashFactory.hash(encryptedValue);
-                        statistics.incrementCacheMiss();
-                        // If the cache support is enabled, the result is stored in the cache
-                        if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_HASH_ENCRYPTION, bigIntegerValue, new CacheObjectEncrypted(encryptedValue), this.psiCacheProvider);
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            encryptedValue = hashFactory.hashFullDomain(bigIntegerValue);
+                            encryptedValue = rsaPrivateExponentiation.modPow(encryptedValue);
+                            encryptedValue = hashFactory.hash(encryptedValue);
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_HASH_ENCRYPTION, bigIntegerValue, new CacheObjectEncrypted(encryptedValue), this.psiCacheProvider);
+                            }
                         }
+                        encryptedSet.add(FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBigIntegerToString(encryptedValue)));
                     }
-                    encryptedSet.add(CustomTypeConverter.convertBigIntegerToString(encryptedValue));
                 }
             });
         }
@@ -111,35 +115,38 @@ class PsiServerBs extends PsiServerAbstract {
         validatePsiServerKeyDescription();
         PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.DOUBLE_ENCRYPTION);
 
-        BigInteger serverPrivateExponent = CustomTypeConverter.convertStringToBigInteger(this.psiServerSession.getPsiServerKeyDescription().getPrivateExponent());
+        RsaPrivateExponentiation rsaPrivateExponentiation = RsaPrivateExponentiation.fromServerKeyDescription(this.psiServerSession.getPsiServerKeyDescription());
         BigInteger modulus = CustomTypeConverter.convertStringToBigInteger(this.psiServerSession.getPsiServerKeyDescription().getModulus());
 
         Map<Long, String> encryptedMap = new ConcurrentHashMap<>();
-        List<Map<Long, String>> partitionList = PartitionHelper.partitionMap(inputMap, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(partitionList.size());
-        for(Map<Long, String> partition : partitionList) {
+        ChunkQueue<Map.Entry<Long, String>> chunkQueue = new ChunkQueue<>(inputMap.entrySet(), this.threads);
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-                for(Map.Entry<Long, String> entry : partition.entrySet()){
-                    BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(entry.getValue());
-                    BigInteger encryptedValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
-                        Optional<CacheObjectEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()){
-                            encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
-                            statistics.incrementCacheHit();
-                        }
-                    }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        encryptedValue = bigIntegerValue.modPow(serverPrivateExponent, modulus);
-                        statistics.incrementCacheMiss();
-                        // If the cache support is enabled, the result is stored in the cache
+                List<Map.Entry<Long, String>> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for(Map.Entry<Long, String> entry : partition){
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(entry.getValue());
+                        BigInteger encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
                         if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, new CacheObjectEncrypted(encryptedValue), this.psiCacheProvider);
+                            Optional<CacheObjectEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()){
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            encryptedValue = rsaPrivateExponentiation.modPow(bigIntegerValue);
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, new CacheObjectEncrypted(encryptedValue), this.psiCacheProvider);
+                            }
                         }
+                        encryptedMap.put(entry.getKey(), CustomTypeConverter.convertBigIntegerToString(encryptedValue));
                     }
-                    encryptedMap.put(entry.getKey(), CustomTypeConverter.convertBigIntegerToString(encryptedValue));
                 }
             });
         }
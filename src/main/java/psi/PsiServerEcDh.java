@@ -16,8 +16,8 @@ import psi.model.PsiServerSession;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 class PsiServerEcDh extends PsiServerAbstract {
 
@@ -28,11 +28,11 @@ class PsiServerEcDh extends PsiServerAbstract {
             throw new UnsupportedKeySizeRuntimeException(PsiAlgorithm.ECDH, psiServerSession.getPsiAlgorithmParameter().getKeySize());
 
         this.psiServerSession = psiServerSession;
-        this.statisticList = new LinkedList<>();
+        this.statisticList = new ConcurrentLinkedQueue<>();
 
         if (psiCacheProvider != null) {
             this.psiCacheProvider = psiCacheProvider;
-            this.keyId = CacheUtils.getKeyId(this.psiServerSession.getPsiServerKeyDescription(), psiCacheProvider);
+            this.keyId = CacheUtils.getKeyId(this.psiServerSession.getPsiServerKeyDescription(), this.psiServerSession.getPsiAlgorithmParameter().getHashToCurveMode(), psiCacheProvider);
         }
     }
 
@@ -43,7 +43,7 @@ class PsiServerEcDh extends PsiServerAbstract {
 
         // keys are created from scratch
         if (psiServerKeyDescription == null) {
-            psiServerKeyDescription = AsymmetricKeyFactory.generateServerKeyDescription(psiAlgorithmParameter.getAlgorithm(), psiAlgorithmParameter.getKeySize());
+            psiServerKeyDescription = AsymmetricKeyFactory.generateServerKeyDescription(psiAlgorithmParameter);
         }
         // keys are loaded from serverKeyDescription
         else {
@@ -68,35 +68,49 @@ class PsiServerEcDh extends PsiServerAbstract {
         BigInteger ecPrivateD = CustomTypeConverter.convertStringToBigInteger(
                 this.psiServerSession.getPsiServerKeyDescription().getEcPrivateD());
         EllipticCurve ellipticCurve = new EllipticCurve(CustomTypeConverter
-                .convertKeySizeToECParameterSpec(this.psiServerSession.getPsiAlgorithmParameter().getKeySize()));
+                .convertPsiAlgorithmParameterToECParameterSpec(this.psiServerSession.getPsiAlgorithmParameter()),
+                this.psiServerSession.getPsiAlgorithmParameter().getHashToCurveMode());
         ECCurve ecCurve = ellipticCurve.getEcCurve();
+        EcFixedScalarMultiplier privateKeyMultiplier = ellipticCurve.getFixedScalarMultiplier(ecPrivateD);
 
         Set<String> encryptedSet = ConcurrentHashMap.newKeySet();
-        List<Set<String>> partitionList = PartitionHelper.partitionSet(inputSet, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(partitionList.size());
-        for(Set<String> partition : partitionList) {
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(inputSet, this.threads);
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-                for(String stringValue : partition){
-                    BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
-                    ECPoint encryptedValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if(Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
-                        Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()){
-                            encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue(ecCurve);
-                            statistics.incrementCacheHit();
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    // Points computed in this chunk, which are normalized together before being encoded
+                    List<BigInteger> computedCacheKeys = new ArrayList<>();
+                    List<ECPoint> computedValues = new ArrayList<>();
+                    for(String stringValue : partition){
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
+                        ECPoint encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if(Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                            Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()){
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue(ecCurve);
+                                statistics.incrementCacheHit();
+                            }
                         }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            computedCacheKeys.add(bigIntegerValue);
+                            computedValues.add(privateKeyMultiplier.multiply(ellipticCurve.mapMessage(bigIntegerValue)));
+                            statistics.incrementCacheMiss();
+                        }
+                        else
+                            encryptedSet.add(CustomTypeConverter.convertECPointToString(encryptedValue));
                     }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        encryptedValue = EllipticCurve.multiply(ellipticCurve.mapMessage(bigIntegerValue), ecPrivateD);
-                        statistics.incrementCacheMiss();
+                    ECPoint[] normalizedValues = CustomTypeConverter.normalizeECPoints(ecCurve, computedValues);
+                    for(int i = 0; i < normalizedValues.length; i++){
                         // If the cache support is enabled, the result is stored in the cache
                         if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, new CacheObjectEcEncrypted(encryptedValue), this.psiCacheProvider);
+                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, computedCacheKeys.get(i), new CacheObjectEcEncrypted(normalizedValues[i]), this.psiCacheProvider);
                         }
+                        encryptedSet.add(CustomTypeConverter.convertECPointToString(normalizedValues[i]));
                     }
-                    encryptedSet.add(CustomTypeConverter.convertECPointToString(encryptedValue));
                 }
             });
         }
@@ -117,36 +131,52 @@ class PsiServerEcDh extends PsiServerAbstract {
         BigInteger ecPrivateD = CustomTypeConverter.convertStringToBigInteger(
                 this.psiServerSession.getPsiServerKeyDescription().getEcPrivateD());
         EllipticCurve ellipticCurve = new EllipticCurve(CustomTypeConverter
-                .convertKeySizeToECParameterSpec(this.psiServerSession.getPsiAlgorithmParameter().getKeySize()));
+                .convertPsiAlgorithmParameterToECParameterSpec(this.psiServerSession.getPsiAlgorithmParameter()),
+                this.psiServerSession.getPsiAlgorithmParameter().getHashToCurveMode());
         ECCurve ecCurve = ellipticCurve.getEcCurve();
+        EcFixedScalarMultiplier privateKeyMultiplier = ellipticCurve.getFixedScalarMultiplier(ecPrivateD);
 
         Map<Long, String> encryptedMap = new ConcurrentHashMap<>();
-        List<Map<Long, String>> partitionList = PartitionHelper.partitionMap(inputMap, this.threads);
-        ExecutorService executorService = Executors.newFixedThreadPool(partitionList.size());
-        for(Map<Long, String> partition : partitionList) {
+        ChunkQueue<Map.Entry<Long, String>> chunkQueue = new ChunkQueue<>(inputMap.entrySet(), this.threads);
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
             executorService.submit(() -> {
-                for(Map.Entry<Long, String> entry : partition.entrySet()){
-                    BigInteger keyValue = CustomTypeConverter.convertStringToBigInteger(entry.getValue()); //This value is used only to search in cache
-                    ECPoint ecPointValue = CustomTypeConverter.convertStringToECPoint(ecCurve, entry.getValue());
-                    ECPoint encryptedValue = null;
-                    // If the cache support is enabled, the result is searched in the cache
-                    if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
-                        Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
-                        if (encryptedCacheObjectOptional.isPresent()){
-                            encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue(ecCurve);
-                            statistics.incrementCacheHit();
+                List<Map.Entry<Long, String>> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    // Points computed in this chunk, which are normalized together before being encoded
+                    List<Long> computedKeys = new ArrayList<>();
+                    List<BigInteger> computedCacheKeys = new ArrayList<>();
+                    List<ECPoint> computedValues = new ArrayList<>();
+                    for(Map.Entry<Long, String> entry : partition){
+                        BigInteger keyValue = CustomTypeConverter.convertStringToBigInteger(entry.getValue()); //This value is used only to search in cache
+                        ECPoint ecPointValue = CustomTypeConverter.convertStringToECPoint(ecCurve, entry.getValue());
+                        ECPoint encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                            Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()){
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue(ecCurve);
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            computedKeys.add(entry.getKey());
+                            computedCacheKeys.add(keyValue);
+                            computedValues.add(privateKeyMultiplier.multiply(ecPointValue));
+                            statistics.incrementCacheMiss();
                         }
+                        else
+                            encryptedMap.put(entry.getKey(), CustomTypeConverter.convertECPointToString(encryptedValue));
                     }
-                    // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
-                    if (encryptedValue == null) {
-                        encryptedValue = EllipticCurve.multiply(ecPointValue, ecPrivateD);
-                        statistics.incrementCacheMiss();
+                    ECPoint[] normalizedValues = CustomTypeConverter.normalizeECPoints(ecCurve, computedValues);
+                    for(int i = 0; i < normalizedValues.length; i++){
                         // If the cache support is enabled, the result is stored in the cache
                         if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
-                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, new CacheObjectEcEncrypted(encryptedValue), this.psiCacheProvider);
+                            CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, computedCacheKeys.get(i), new CacheObjectEcEncrypted(normalizedValues[i]), this.psiCacheProvider);
                         }
+                        encryptedMap.put(computedKeys.get(i), CustomTypeConverter.convertECPointToString(normalizedValues[i]));
                     }
-                    encryptedMap.put(entry.getKey(), CustomTypeConverter.convertECPointToString(encryptedValue));
                 }
             });
         }
@@ -0,0 +1,166 @@
+package psi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import psi.cache.PsiCacheProvider;
+import psi.exception.PsiServerException;
+import psi.exception.PsiServerInitException;
+import psi.exception.UnsupportedKeySizeRuntimeException;
+import psi.model.PsiAlgorithm;
+import psi.model.PsiAlgorithmParameter;
+import psi.model.PsiPhaseStatistics;
+import psi.model.PsiServerSession;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+
+class PsiServerEcDh25519 extends PsiServerAbstract {
+
+    private static final Logger log = LoggerFactory.getLogger(PsiServerEcDh25519.class);
+
+    PsiServerEcDh25519(PsiServerSession psiServerSession, PsiCacheProvider psiCacheProvider) {
+        if (!PsiAlgorithm.ECDH25519.getSupportedKeySize().contains(psiServerSession.getPsiAlgorithmParameter().getKeySize()))
+            throw new UnsupportedKeySizeRuntimeException(PsiAlgorithm.ECDH25519, psiServerSession.getPsiAlgorithmParameter().getKeySize());
+
+        this.psiServerSession = psiServerSession;
+        this.statisticList = new ConcurrentLinkedQueue<>();
+
+        if (psiCacheProvider != null) {
+            this.psiCacheProvider = psiCacheProvider;
+            this.keyId = CacheUtils.getRistretto255KeyId(this.psiServerSession.getPsiServerKeyDescription(), psiCacheProvider);
+        }
+    }
+
+    static PsiServerSession initSession(PsiAlgorithmParameter psiAlgorithmParameter, PsiServerKeyDescription psiServerKeyDescription, PsiCacheProvider psiCacheProvider) {
+        log.debug("Called initSession()");
+
+        PsiServerSession psiServerSession = new PsiServerSession(psiAlgorithmParameter);
+
+        // keys are created from scratch
+        if (psiServerKeyDescription == null) {
+            psiServerKeyDescription = AsymmetricKeyFactory.generateServerKeyDescription(psiAlgorithmParameter);
+        }
+        // keys are loaded from serverKeyDescription
+        else {
+            if (psiServerKeyDescription.getEcPrivateD() == null)
+                throw new PsiServerInitException("The field ecPrivateD in the input psiServerKeyDescription is empty");
+        }
+        psiServerSession.setPsiServerKeyDescription(psiServerKeyDescription);
+
+        // if psiCacheProvider != null, enable and validate the cache
+        psiServerSession.setCacheEnabled(psiCacheProvider != null);
+
+        return psiServerSession;
+    }
+
+    @Override
+    public Set<String> encryptDataset(Set<String> inputSet) {
+        log.debug("Called encryptDataset()");
+
+        validatePsiServerKeyDescription();
+        PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.ENCRYPTION);
+
+        Ristretto255.FixedScalarMultiplier privateKeyMultiplier = new Ristretto255.FixedScalarMultiplier(
+                CustomTypeConverter.convertStringToBigInteger(this.psiServerSession.getPsiServerKeyDescription().getEcPrivateD()));
+
+        Set<String> encryptedSet = ConcurrentHashMap.newKeySet();
+        ChunkQueue<String> chunkQueue = new ChunkQueue<>(inputSet, this.threads);
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                List<String> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for(String stringValue : partition){
+                        BigInteger bigIntegerValue = CustomTypeConverter.convertStringToBigInteger(stringValue);
+                        byte[] encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if(Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                            Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()){
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            encryptedValue = privateKeyMultiplier.multiply(Ristretto255.hashToGroup(bigIntegerValue)).encode();
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, bigIntegerValue, new CacheObjectEcEncrypted(encryptedValue), this.psiCacheProvider);
+                            }
+                        }
+                        encryptedSet.add(CustomTypeConverter.convertBytesToString(encryptedValue));
+                    }
+                }
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+
+        this.statisticList.add(statistics.close());
+        return encryptedSet;
+    }
+
+    @Override
+    public Map<Long, String> encryptDatasetMap(Map<Long, String> inputMap) {
+        log.debug("Called encryptDatasetMap()");
+        validatePsiServerKeyDescription();
+        PsiPhaseStatistics statistics = PsiPhaseStatistics.startStatistic(PsiPhaseStatistics.PsiPhase.DOUBLE_ENCRYPTION);
+
+        Ristretto255.FixedScalarMultiplier privateKeyMultiplier = new Ristretto255.FixedScalarMultiplier(
+                CustomTypeConverter.convertStringToBigInteger(this.psiServerSession.getPsiServerKeyDescription().getEcPrivateD()));
+
+        Map<Long, String> encryptedMap = new ConcurrentHashMap<>();
+        ChunkQueue<Map.Entry<Long, String>> chunkQueue = new ChunkQueue<>(inputMap.entrySet(), this.threads);
+        ExecutorService executorService = new PhaseExecutor(this.sharedExecutorService);
+        for (int worker = 0; worker < chunkQueue.getWorkers(); worker++) {
+            executorService.submit(() -> {
+                List<Map.Entry<Long, String>> partition;
+                while (!(partition = chunkQueue.nextChunk()).isEmpty()) {
+                    for(Map.Entry<Long, String> entry : partition){
+                        BigInteger keyValue = CustomTypeConverter.convertStringToBigInteger(entry.getValue()); //This value is used only to search in cache
+                        byte[] encryptedValue = null;
+                        // If the cache support is enabled, the result is searched in the cache
+                        if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                            Optional<CacheObjectEcEncrypted> encryptedCacheObjectOptional = CacheUtils.getCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, CacheObjectEcEncrypted.class, this.psiCacheProvider);
+                            if (encryptedCacheObjectOptional.isPresent()){
+                                encryptedValue = encryptedCacheObjectOptional.get().getEncryptedValue();
+                                statistics.incrementCacheHit();
+                            }
+                        }
+                        // If the cache support is not enabled or if the corresponding value is not available, it has to be computed
+                        if (encryptedValue == null) {
+                            Ristretto255.Point pointValue = CustomTypeConverter.convertStringToRistretto255Point(entry.getValue());
+                            encryptedValue = privateKeyMultiplier.multiply(pointValue).encode();
+                            statistics.incrementCacheMiss();
+                            // If the cache support is enabled, the result is stored in the cache
+                            if (Boolean.TRUE.equals(this.psiServerSession.getCacheEnabled())) {
+                                CacheUtils.putCachedObject(this.keyId, CacheOperationType.PRIVATE_KEY_ENCRYPTION, keyValue, new CacheObjectEcEncrypted(encryptedValue), this.psiCacheProvider);
+                            }
+                        }
+                        encryptedMap.put(entry.getKey(), CustomTypeConverter.convertBytesToString(encryptedValue));
+                    }
+                }
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, this.threadTimeoutSeconds, log);
+
+        this.statisticList.add(statistics.close());
+        return encryptedMap;
+    }
+
+    @Override
+    public PsiServerKeyDescription getServerKeyDescription() {
+        return this.psiServerSession.getPsiServerKeyDescription();
+    }
+
+    // Helper method used to validate the required fields of the psiServerKeyDescription for this algorithm
+    private void validatePsiServerKeyDescription(){
+        if(this.psiServerSession.getPsiServerKeyDescription() == null
+                || this.psiServerSession.getPsiServerKeyDescription().getEcPrivateD() == null
+        ) throw new PsiServerException("The fields ecPrivateD of the PsiServerKeyDescription for ECDH25519 should not be null");
+    }
+}
@@ -109,6 +109,17 @@ public class PsiServerFactory {
         if (!psiAlgorithmParameter.getAlgorithm().getSupportedKeySize().contains(psiAlgorithmParameter.getKeySize()))
             throw new UnsupportedKeySizeException(psiAlgorithmParameter.getAlgorithm(), psiAlgorithmParameter.getKeySize());
 
+        if (!PsiAlgorithmParameter.isValidCurve(psiAlgorithmParameter.getAlgorithm(), psiAlgorithmParameter.getKeySize(), psiAlgorithmParameter.getCurve()))
+            throw new PsiServerInitException("The curve defined in the input psiAlgorithmParameter is not supported by the selected algorithm and key size");
+
+        if (psiAlgorithmParameter.getHashToCurveMode() != null
+                && !psiAlgorithmParameter.getHashToCurveMode().isSupported(psiAlgorithmParameter.getAlgorithm(), psiAlgorithmParameter.getKeySize(), psiAlgorithmParameter.getCurve()))
+            throw new PsiServerInitException("The hashToCurveMode defined in the input psiAlgorithmParameter is not supported by the selected algorithm, key size and curve");
+
+        if (psiAlgorithmParameter.getFingerprintBits() != null && !PsiAlgorithmParameter.isValidFingerprintBits(psiAlgorithmParameter.getFingerprintBits()))
+            throw new PsiServerInitException("The fingerprintBits defined in the input psiAlgorithmParameter should be a multiple of 8 between "
+                    + PsiAlgorithmParameter.MIN_FINGERPRINT_BITS + " and " + PsiAlgorithmParameter.MAX_FINGERPRINT_BITS);
+
         switch (psiAlgorithmParameter.getAlgorithm()) {
             case BS:
                 return PsiServerBs.initSession(psiAlgorithmParameter, psiServerKeyDescription, psiCacheProvider);
@@ -118,6 +129,10 @@ public class PsiServerFactory {
                 return PsiServerEcBs.initSession(psiAlgorithmParameter, psiServerKeyDescription, psiCacheProvider);
             case ECDH:
                 return PsiServerEcDh.initSession(psiAlgorithmParameter, psiServerKeyDescription, psiCacheProvider);
+            case ECBS25519:
+                return PsiServerEcBs25519.initSession(psiAlgorithmParameter, psiServerKeyDescription, psiCacheProvider);
+            case ECDH25519:
+                return PsiServerEcDh25519.initSession(psiAlgorithmParameter, psiServerKeyDescription, psiCacheProvider);
 
             default:
                 return null;
@@ -159,6 +174,10 @@ public class PsiServerFactory {
         if (!psiServerSession.getPsiAlgorithmParameter().getAlgorithm().getSupportedKeySize().contains(psiServerSession.getPsiAlgorithmParameter().getKeySize()))
             throw new UnsupportedKeySizeRuntimeException(psiServerSession.getPsiAlgorithmParameter().getAlgorithm(), psiServerSession.getPsiAlgorithmParameter().getKeySize());
 
+        if (!PsiAlgorithmParameter.isValidCurve(psiServerSession.getPsiAlgorithmParameter().getAlgorithm(),
+                psiServerSession.getPsiAlgorithmParameter().getKeySize(), psiServerSession.getPsiAlgorithmParameter().getCurve()))
+            throw new PsiServerException("The curve of the input psiServerSession is not supported by the selected algorithm and key size");
+
         switch (psiServerSession.getPsiAlgorithmParameter().getAlgorithm()) {
             case BS:
                 return new PsiServerBs(psiServerSession, psiCacheProvider);
@@ -172,6 +191,12 @@ public class PsiServerFactory {
             case ECDH:
                 return new PsiServerEcDh(psiServerSession, psiCacheProvider);
 
+            case ECBS25519:
+                return new PsiServerEcBs25519(psiServerSession, psiCacheProvider);
+
+            case ECDH25519:
+                return new PsiServerEcDh25519(psiServerSession, psiCacheProvider);
+
             default:
                 return null;
         }
@@ -1,5 +1,6 @@
 package psi;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import psi.model.PsiKeyDescription;
 
 import java.io.Serializable;
@@ -10,9 +11,13 @@ import java.util.Objects;
  * The set of variables is a superset of the ones required by each psi implementation. In particular:
  * <ul>
  *   <li>DH uses modulus, generator and privateExponent (the modulus and the generator are sent to the client)</li>
- *   <li>BS uses modulus, privateExponent and publicExponent (the modulus and the publicExponent are sent to the client)</li>
+ *   <li>BS uses modulus, privateExponent and publicExponent (the modulus and the publicExponent are sent to the client).
+ *   If available, the CRT parameters primeP, primeQ, primeExponentP, primeExponentQ and crtCoefficient are used to
+ *   speed up the private key operations</li>
  *   <li>ECDH uses ecPrivateD</li>
  *   <li>ECBS uses ecPrivateD and ecPublicQ (the ecPublicQ is sent to the client)</li>
+ *   <li>ECDH25519 and ECBS25519 use the same fields as ECDH and ECBS, where ecPublicQ is the encoding of an element
+ *   of the ristretto255 group</li>
  * </ul>
  */
 public class PsiServerKeyDescription implements PsiKeyDescription, Serializable {
@@ -24,6 +29,19 @@ public class PsiServerKeyDescription implements PsiKeyDescription, Serializable
     private String modulus;
     private String generator;
 
+    // Optional CRT parameters of the BS private key. They are excluded from the serialization when null, so that
+    // the keyId associated to keys without CRT parameters does not change
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String primeP;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String primeQ;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String primeExponentP;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String primeExponentQ;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String crtCoefficient;
+
     private String ecPrivateD;
     private String ecPublicQ;
 
@@ -78,17 +96,57 @@ public class PsiServerKeyDescription implements PsiKeyDescription, Serializable
         this.generator = generator;
     }
 
+    public String getPrimeP() {
+        return primeP;
+    }
+
+    void setPrimeP(String primeP) {
+        this.primeP = primeP;
+    }
+
+    public String getPrimeQ() {
+        return primeQ;
+    }
+
+    void setPrimeQ(String primeQ) {
+        this.primeQ = primeQ;
+    }
+
+    public String getPrimeExponentP() {
+        return primeExponentP;
+    }
+
+    void setPrimeExponentP(String primeExponentP) {
+        this.primeExponentP = primeExponentP;
+    }
+
+    public String getPrimeExponentQ() {
+        return primeExponentQ;
+    }
+
+    void setPrimeExponentQ(String primeExponentQ) {
+        this.primeExponentQ = primeExponentQ;
+    }
+
+    public String getCrtCoefficient() {
+        return crtCoefficient;
+    }
+
+    void setCrtCoefficient(String crtCoefficient) {
+        this.crtCoefficient = crtCoefficient;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         PsiServerKeyDescription that = (PsiServerKeyDescription) o;
-        return Objects.equals(privateExponent, that.privateExponent) && Objects.equals(publicExponent, that.publicExponent) && Objects.equals(modulus, that.modulus) && Objects.equals(generator, that.generator) && Objects.equals(ecPrivateD, that.ecPrivateD) && Objects.equals(ecPublicQ, that.ecPublicQ);
+        return Objects.equals(privateExponent, that.privateExponent) && Objects.equals(publicExponent, that.publicExponent) && Objects.equals(modulus, that.modulus) && Objects.equals(generator, that.generator) && Objects.equals(primeP, that.primeP) && Objects.equals(primeQ, that.primeQ) && Objects.equals(primeExponentP, that.primeExponentP) && Objects.equals(primeExponentQ, that.primeExponentQ) && Objects.equals(crtCoefficient, that.crtCoefficient) && Objects.equals(ecPrivateD, that.ecPrivateD) && Objects.equals(ecPublicQ, that.ecPublicQ);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(privateExponent, publicExponent, modulus, generator, ecPrivateD, ecPublicQ);
+        return Objects.hash(privateExponent, publicExponent, modulus, generator, primeP, primeQ, primeExponentP, primeExponentQ, crtCoefficient, ecPrivateD, ecPublicQ);
     }
 
     @Override
@@ -98,6 +156,11 @@ public class PsiServerKeyDescription implements PsiKeyDescription, Serializable
                 ", publicExponent='" + publicExponent + '\'' +
                 ", modulus='" + modulus + '\'' +
                 ", generator='" + generator + '\'' +
+                ", primeP='" + primeP + '\'' +
+                ", primeQ='" + primeQ + '\'' +
+                ", primeExponentP='" + primeExponentP + '\'' +
+                ", primeExponentQ='" + primeExponentQ + '\'' +
+                ", crtCoefficient='" + crtCoefficient + '\'' +
                 ", ecPrivateD='" + ecPrivateD + '\'' +
                 ", ecPublicQ='" + ecPublicQ + '\'' +
                 '}';
@@ -5,6 +5,7 @@ import org.bouncycastle.jce.interfaces.ECPublicKey;
 import psi.exception.PsiServerException;
 
 import javax.crypto.spec.DHPrivateKeySpec;
+import java.security.spec.RSAPrivateCrtKeySpec;
 import java.security.spec.RSAPrivateKeySpec;
 import java.security.spec.RSAPublicKeySpec;
 
@@ -34,7 +35,38 @@ public class PsiServerKeyDescriptionFactory {
 
     /**
      * Builds a PsiServerKeyDescription that can be used to load or initialize a PsiServer for the
-     * BS algorithm.
+     * BS algorithm, including the CRT parameters of the private key, which are used by the server to speed up the
+     * private key operations.
+     *
+     * @param privateExponent   String representing the exponent of the server private key
+     * @param publicExponent    String representing the exponent of the server public key
+     * @param modulus           String representing the modulus of the private and public keys
+     * @param primeP            String representing the prime factor p of the modulus
+     * @param primeQ            String representing the prime factor q of the modulus
+     * @param primeExponentP    String representing the private exponent modulo (p-1)
+     * @param primeExponentQ    String representing the private exponent modulo (q-1)
+     * @param crtCoefficient    String representing the CRT coefficient (inverse of q modulo p)
+     * @return the PsiServerKeyDescription built based on the input parameters
+     */
+    public static PsiServerKeyDescription createBsServerKeyDescription(String privateExponent, String publicExponent, String modulus,
+                                                                       String primeP, String primeQ, String primeExponentP,
+                                                                       String primeExponentQ, String crtCoefficient) {
+        if (primeP == null || primeQ == null || primeExponentP == null || primeExponentQ == null || crtCoefficient == null) {
+            throw new PsiServerException("PrimeP, primeQ, primeExponentP, primeExponentQ and crtCoefficient should not be null when creating a PsiServerKeyDescription with CRT parameters for the BS algorithm");
+        }
+        PsiServerKeyDescription psiServerKeyDescription = createBsServerKeyDescription(privateExponent, publicExponent, modulus);
+        psiServerKeyDescription.setPrimeP(primeP);
+        psiServerKeyDescription.setPrimeQ(primeQ);
+        psiServerKeyDescription.setPrimeExponentP(primeExponentP);
+        psiServerKeyDescription.setPrimeExponentQ(primeExponentQ);
+        psiServerKeyDescription.setCrtCoefficient(crtCoefficient);
+        return psiServerKeyDescription;
+    }
+
+    /**
+     * Builds a PsiServerKeyDescription that can be used to load or initialize a PsiServer for the
+     * BS algorithm. If the rsaPrivateKeySpec is an instance of RSAPrivateCrtKeySpec, its CRT parameters are also
+     * stored in the PsiServerKeyDescription.
      *
      * @param rsaPrivateKeySpec the server private key
      * @param rsaPublicKeySpec  the server public key
@@ -47,6 +79,18 @@ public class PsiServerKeyDescriptionFactory {
         if (!rsaPrivateKeySpec.getModulus().equals(rsaPublicKeySpec.getModulus())){
             throw new PsiServerException("RsaPrivateKeySpec and rsaPublicKeySpec should not have different modulus");
         }
+        if (rsaPrivateKeySpec instanceof RSAPrivateCrtKeySpec) {
+            RSAPrivateCrtKeySpec rsaPrivateCrtKeySpec = (RSAPrivateCrtKeySpec) rsaPrivateKeySpec;
+            return createBsServerKeyDescription(
+                    CustomTypeConverter.convertBigIntegerToString(rsaPrivateCrtKeySpec.getPrivateExponent()),
+                    CustomTypeConverter.convertBigIntegerToString(rsaPublicKeySpec.getPublicExponent()),
+                    CustomTypeConverter.convertBigIntegerToString(rsaPrivateCrtKeySpec.getModulus()),
+                    CustomTypeConverter.convertBigIntegerToString(rsaPrivateCrtKeySpec.getPrimeP()),
+                    CustomTypeConverter.convertBigIntegerToString(rsaPrivateCrtKeySpec.getPrimeQ()),
+                    CustomTypeConverter.convertBigIntegerToString(rsaPrivateCrtKeySpec.getPrimeExponentP()),
+                    CustomTypeConverter.convertBigIntegerToString(rsaPrivateCrtKeySpec.getPrimeExponentQ()),
+                    CustomTypeConverter.convertBigIntegerToString(rsaPrivateCrtKeySpec.getCrtCoefficient()));
+        }
         return createServerKeyDescription(
                 CustomTypeConverter.convertBigIntegerToString(rsaPrivateKeySpec.getPrivateExponent()),
                 CustomTypeConverter.convertBigIntegerToString(rsaPublicKeySpec.getPublicExponent()),
@@ -0,0 +1,743 @@
+package psi;
+
+import org.bouncycastle.math.ec.rfc7748.X25519Field;
+import psi.exception.CustomRuntimeException;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Implements the ristretto255 prime-order group defined by RFC 9496 on top of the Curve25519 field arithmetic offered
+ * by Bouncy Castle (X25519Field). Group elements are represented by points of edwards25519 in extended coordinates and
+ * are encoded in exactly 32 bytes. Input values are mapped to the group with the hash_to_ristretto255 function of
+ * RFC 9380 (expand_message_xmd with SHA-512 followed by the Elligator-based one-way map), whose cost is constant.
+ * Differently from the short Weierstrass curves used by EllipticCurve, the group has prime order, hence any valid
+ * encoding corresponds to an element of the group and no cofactor has to be cleared.
+ */
+class Ristretto255 {
+
+    // Size in bytes of the encoding of a group element
+    static final int ENCODING_LENGTH = 32;
+    // Size in bytes of the extended coordinates returned by Point.toCoordinates
+    static final int COORDINATES_LENGTH = 4 * X25519Field.SIZE * 4;
+
+    // Order of the group: 2^252 + 27742317777372353535851937790883648493
+    static final BigInteger ORDER = BigInteger.ONE.shiftLeft(252).add(new BigInteger("27742317777372353535851937790883648493"));
+
+    private static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+
+    // Number of signed radix-16 digits of a scalar smaller than ORDER
+    private static final int SCALAR_DIGITS = 64;
+    // Number of odd and even multiples stored for each window: digits are in the range [-8, 8]
+    private static final int TABLE_SIZE = 8;
+
+    private static final byte[] HASH_DST = (EcHashToCurve.DST_PREFIX + "ristretto255_XMD:SHA-512_R255MAP_RO_").getBytes(StandardCharsets.US_ASCII);
+
+    // Constants of edwards25519 and ristretto255
+    private static final BigInteger D_VALUE = new BigInteger("37095705934669439343138083508754565189542113879843219016388785533085940283555");
+    private static final int[] ONE = fieldElement(BigInteger.ONE);
+    private static final int[] D = fieldElement(D_VALUE);
+    private static final int[] D2 = fieldElement(D_VALUE.shiftLeft(1));
+    private static final int[] SQRT_M1 = fieldElement(new BigInteger("19681161376707505956807079304988542015446066515923890162744021073123829784752"));
+    private static final int[] SQRT_AD_MINUS_ONE = fieldElement(new BigInteger("25063068953384623474111414158702152701244531502492656460079210482610430750235"));
+    private static final int[] INVSQRT_A_MINUS_D = fieldElement(new BigInteger("54469307008909316920995813868745141605393597292927456921205312896311721017578"));
+    private static final int[] ONE_MINUS_D_SQ = fieldElement(new BigInteger("1159843021668779879193775521855586647937357759715417654439879720876111806838"));
+    private static final int[] D_MINUS_ONE_SQ = fieldElement(new BigInteger("40440834346308536858101042469323190826248399146238708352240133220865137265952"));
+
+    // Base point of edwards25519, which is also the generator of ristretto255
+    private static final Point GENERATOR = Point.fromAffine(
+            new BigInteger("15112221349535400772501151409588531511454012693041857206046113283949847762202"),
+            new BigInteger("46316835694926478169428394003475163141307993866256225615783033603165251855960"));
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    // Fixed-base table of the generator, computed on first use
+    private static volatile FixedPointMultiplier generatorMultiplier;
+
+    private Ristretto255() {}
+
+    static Point getGenerator() {
+        return GENERATOR;
+    }
+
+    static Point getIdentity() {
+        return new Point(X25519Field.create(), copyOf(ONE), copyOf(ONE), X25519Field.create());
+    }
+
+    /**
+     * Returns the fixed-base multiplier of the generator, which is shared by all the sessions.
+     *
+     * @return the FixedPointMultiplier of the generator
+     */
+    static FixedPointMultiplier getGeneratorMultiplier() {
+        FixedPointMultiplier multiplier = generatorMultiplier;
+        if (multiplier == null) {
+            synchronized (Ristretto255.class) {
+                multiplier = generatorMultiplier;
+                if (multiplier == null) {
+                    multiplier = new FixedPointMultiplier(GENERATOR);
+                    generatorMultiplier = multiplier;
+                }
+            }
+        }
+        return multiplier;
+    }
+
+    /**
+     * Generates a random scalar in the range [1, ORDER), which can be used as private key or blinding value.
+     *
+     * @return a uniformly distributed non-zero scalar
+     */
+    static BigInteger generateScalar() {
+        BigInteger scalar;
+        do {
+            // The additional 64 bits make the bias of the modular reduction negligible
+            scalar = new BigInteger(ORDER.bitLength() + 64, SECURE_RANDOM).mod(ORDER);
+        } while (scalar.signum() == 0);
+        return scalar;
+    }
+
+    /**
+     * Generates a blinding factor composed by y*G and y*Q, where y is a random scalar and Q is the public key of the
+     * server. It does not depend on the value to be encrypted, hence it can be computed in advance.
+     *
+     * @param publicKeyMultiplier fixed-base multiplier of the public key Q of the server
+     * @return the BlindingFactor containing y*G as random value and y*Q as blinding value
+     */
+    static BlindingFactorPool.BlindingFactor<Point> generateBlindingFactor(FixedPointMultiplier publicKeyMultiplier) {
+        BigInteger y = generateScalar();
+        return new BlindingFactorPool.BlindingFactor<>(getGeneratorMultiplier().multiply(y), publicKeyMultiplier.multiply(y));
+    }
+
+    /**
+     * Maps the input value to an element of the group (hash_to_ristretto255 of RFC 9380). The value is hashed through
+     * its two's-complement representation, thus there is no upper bound on its size.
+     *
+     * @param value value to be mapped
+     * @return the element associated to the value
+     */
+    static Point hashToGroup(BigInteger value) {
+        return fromUniformBytes(EcHashToCurve.expandMessageXmd("SHA-512", 128, HASH_DST, value.toByteArray(), 2 * ENCODING_LENGTH));
+    }
+
+    /**
+     * Implements the element derivation function of RFC 9496, which maps 64 uniform bytes to an element of the group.
+     *
+     * @param uniformBytes array of 64 bytes
+     * @return the element derived from the input bytes
+     */
+    static Point fromUniformBytes(byte[] uniformBytes) {
+        if (uniformBytes.length != 2 * ENCODING_LENGTH)
+            throw new CustomRuntimeException("Unexpected: the element derivation requires " + 2 * ENCODING_LENGTH + " bytes");
+        return elligatorMap(decodeFieldElement(uniformBytes, 0)).add(elligatorMap(decodeFieldElement(uniformBytes, ENCODING_LENGTH)));
+    }
+
+    /**
+     * Decodes an element of the group, rejecting non-canonical encodings and byte strings that do not correspond to
+     * any element.
+     *
+     * @param encoded 32-byte encoding of the element
+     * @return the decoded element
+     */
+    static Point decode(byte[] encoded) {
+        if (encoded == null || encoded.length != ENCODING_LENGTH)
+            throw new CustomRuntimeException("A ristretto255 element should be encoded in " + ENCODING_LENGTH + " bytes");
+
+        int[] s = X25519Field.create();
+        X25519Field.decode(encoded, 0, s);
+        if (!Arrays.equals(encodeFieldElement(s), encoded) || isNegative(s))
+            throw new CustomRuntimeException("Invalid ristretto255 encoding");
+
+        int[] ss = X25519Field.create();
+        X25519Field.sqr(s, ss);
+        int[] u1 = copyOf(ONE);
+        X25519Field.sub(u1, ss, u1);
+        int[] u2 = copyOf(ONE);
+        X25519Field.add(u2, ss, u2);
+        int[] u2Sqr = X25519Field.create();
+        X25519Field.sqr(u2, u2Sqr);
+
+        // v = -(D * u1^2) - u2^2
+        int[] v = X25519Field.create();
+        X25519Field.sqr(u1, v);
+        X25519Field.mul(v, D, v);
+        X25519Field.add(v, u2Sqr, v);
+        X25519Field.negate(v, v);
+
+        int[] invSqrt = X25519Field.create();
+        int[] vu2Sqr = X25519Field.create();
+        X25519Field.mul(v, u2Sqr, vu2Sqr);
+        boolean wasSquare = sqrtRatioM1(ONE, vu2Sqr, invSqrt);
+
+        int[] denX = X25519Field.create();
+        X25519Field.mul(invSqrt, u2, denX);
+        int[] denY = X25519Field.create();
+        X25519Field.mul(invSqrt, denX, denY);
+        X25519Field.mul(denY, v, denY);
+
+        int[] x = X25519Field.create();
+        X25519Field.add(s, s, x);
+        X25519Field.mul(x, denX, x);
+        if (isNegative(x))
+            X25519Field.negate(x, x);
+        int[] y = X25519Field.create();
+        X25519Field.mul(u1, denY, y);
+        int[] t = X25519Field.create();
+        X25519Field.mul(x, y, t);
+
+        if (!wasSquare || isNegative(t) || isZero(y))
+            throw new CustomRuntimeException("Invalid ristretto255 encoding");
+        return new Point(x, y, copyOf(ONE), t);
+    }
+
+    /**
+     * Recodes a scalar in 64 signed radix-16 digits in the range [-8, 8], starting from the least significant digit.
+     * The scalar is reduced modulo the order of the group.
+     *
+     * @param scalar scalar to be recoded
+     * @return the signed digits of the scalar
+     */
+    static byte[] recodeScalar(BigInteger scalar) {
+        byte[] bytes = toLittleEndian(scalar.mod(ORDER));
+        byte[] digits = new byte[SCALAR_DIGITS];
+        for (int i = 0; i < ENCODING_LENGTH; i++) {
+            digits[2 * i] = (byte) (bytes[i] & 0x0F);
+            digits[2 * i + 1] = (byte) ((bytes[i] >>> 4) & 0x0F);
+        }
+        // Since the scalar is smaller than 2^253, the last digit never exceeds 8 after the carry propagation
+        int carry = 0;
+        for (int i = 0; i < SCALAR_DIGITS - 1; i++) {
+            int digit = digits[i] + carry;
+            carry = (digit + 8) >> 4;
+            digits[i] = (byte) (digit - (carry << 4));
+        }
+        digits[SCALAR_DIGITS - 1] += carry;
+        return digits;
+    }
+
+    // Elligator-based map of RFC 9496 (MAP), which returns an element of the group for any field element
+    private static Point elligatorMap(int[] t) {
+        int[] r = X25519Field.create();
+        X25519Field.sqr(t, r);
+        X25519Field.mul(r, SQRT_M1, r);
+
+        // u = (r + 1) * ONE_MINUS_D_SQ
+        int[] u = copyOf(r);
+        X25519Field.addOne(u);
+        X25519Field.mul(u, ONE_MINUS_D_SQ, u);
+
+        // v = (-1 - r * D) * (r + D)
+        int[] v = X25519Field.create();
+        X25519Field.mul(r, D, v);
+        X25519Field.negate(v, v);
+        X25519Field.subOne(v);
+        int[] rPlusD = X25519Field.create();
+        X25519Field.add(r, D, rPlusD);
+        X25519Field.mul(v, rPlusD, v);
+
+        int[] s = X25519Field.create();
+        boolean wasSquare = sqrtRatioM1(u, v, s);
+        int[] c = X25519Field.create();
+        if (wasSquare) {
+            X25519Field.one(c);
+            X25519Field.negate(c, c);
+        } else {
+            // s = -|s * t| and c = r
+            X25519Field.mul(s, t, s);
+            if (!isNegative(s))
+                X25519Field.negate(s, s);
+            X25519Field.copy(r, 0, c, 0);
+        }
+
+        // N = c * (r - 1) * D_MINUS_ONE_SQ - v
+        int[] n = copyOf(r);
+        X25519Field.subOne(n);
+        X25519Field.mul(n, c, n);
+        X25519Field.mul(n, D_MINUS_ONE_SQ, n);
+        X25519Field.sub(n, v, n);
+
+        int[] sSqr = X25519Field.create();
+        X25519Field.sqr(s, sSqr);
+        int[] w0 = X25519Field.create();
+        X25519Field.add(s, s, w0);
+        X25519Field.mul(w0, v, w0);
+        int[] w1 = X25519Field.create();
+        X25519Field.mul(n, SQRT_AD_MINUS_ONE, w1);
+        int[] w2 = copyOf(ONE);
+        X25519Field.sub(w2, sSqr, w2);
+        int[] w3 = copyOf(sSqr);
+        X25519Field.addOne(w3);
+
+        int[] x = X25519Field.create();
+        X25519Field.mul(w0, w3, x);
+        int[] y = X25519Field.create();
+        X25519Field.mul(w2, w1, y);
+        int[] z = X25519Field.create();
+        X25519Field.mul(w1, w3, z);
+        int[] tOut = X25519Field.create();
+        X25519Field.mul(w0, w2, tOut);
+        return new Point(x, y, z, tOut);
+    }
+
+    // SQRT_RATIO_M1 of RFC 9496: sets r to the non-negative square root of u/v if it exists, otherwise to the
+    // non-negative square root of SQRT_M1*u/v, and returns whether u/v is a square
+    private static boolean sqrtRatioM1(int[] u, int[] v, int[] r) {
+        int[] v3 = X25519Field.create();
+        X25519Field.sqr(v, v3);
+        X25519Field.mul(v3, v, v3);
+        int[] v7 = X25519Field.create();
+        X25519Field.sqr(v3, v7);
+        X25519Field.mul(v7, v, v7);
+
+        // r = (u * v^3) * (u * v^7)^((p - 5) / 8)
+        int[] uv3 = X25519Field.create();
+        X25519Field.mul(u, v3, uv3);
+        int[] uv7 = X25519Field.create();
+        X25519Field.mul(u, v7, uv7);
+        powPMinus5Over8(uv7, r);
+        X25519Field.mul(r, uv3, r);
+
+        int[] check = X25519Field.create();
+        X25519Field.sqr(r, check);
+        X25519Field.mul(check, v, check);
+
+        // The comparisons with -u and -u*SQRT_M1 are computed as sums, which do not introduce negative limbs
+        int[] sum = X25519Field.create();
+        boolean correctSignSqrt = areEqual(check, u);
+        X25519Field.add(check, u, sum);
+        boolean flippedSignSqrt = isZero(sum);
+        X25519Field.mul(u, SQRT_M1, sum);
+        X25519Field.add(check, sum, sum);
+        boolean flippedSignSqrtI = isZero(sum);
+
+        if (flippedSignSqrt || flippedSignSqrtI)
+            X25519Field.mul(r, SQRT_M1, r);
+        if (isNegative(r))
+            X25519Field.negate(r, r);
+        return correctSignSqrt || flippedSignSqrt;
+    }
+
+    // Computes x^((p - 5) / 8) = x^(2^252 - 3)
+    private static void powPMinus5Over8(int[] x, int[] z) {
+        int[] t0 = X25519Field.create();
+        int[] t1 = X25519Field.create();
+        int[] t2 = X25519Field.create();
+        X25519Field.sqr(x, t0);             // x^2
+        X25519Field.sqr(t0, 2, t1);         // x^8
+        X25519Field.mul(x, t1, t1);         // x^9
+        X25519Field.mul(t0, t1, t0);        // x^11
+        X25519Field.sqr(t0, t0);            // x^22
+        X25519Field.mul(t1, t0, t0);        // x^(2^5 - 1)
+        X25519Field.sqr(t0, 5, t1);
+        X25519Field.mul(t1, t0, t0);        // x^(2^10 - 1)
+        X25519Field.sqr(t0, 10, t1);
+        X25519Field.mul(t1, t0, t1);        // x^(2^20 - 1)
+        X25519Field.sqr(t1, 20, t2);
+        X25519Field.mul(t2, t1, t1);        // x^(2^40 - 1)
+        X25519Field.sqr(t1, 10, t1);
+        X25519Field.mul(t1, t0, t0);        // x^(2^50 - 1)
+        X25519Field.sqr(t0, 50, t1);
+        X25519Field.mul(t1, t0, t1);        // x^(2^100 - 1)
+        X25519Field.sqr(t1, 100, t2);
+        X25519Field.mul(t2, t1, t1);        // x^(2^200 - 1)
+        X25519Field.sqr(t1, 50, t1);
+        X25519Field.mul(t1, t0, t0);        // x^(2^250 - 1)
+        X25519Field.sqr(t0, 2, t0);         // x^(2^252 - 4)
+        X25519Field.mul(t0, x, z);          // x^(2^252 - 3)
+    }
+
+    // Decodes 32 bytes, ignoring the most significant bit, into a field element
+    private static int[] decodeFieldElement(byte[] bytes, int offset) {
+        byte[] masked = Arrays.copyOfRange(bytes, offset, offset + ENCODING_LENGTH);
+        masked[ENCODING_LENGTH - 1] &= 0x7F;
+        int[] z = X25519Field.create();
+        X25519Field.decode(masked, 0, z);
+        return z;
+    }
+
+    // Returns the canonical little-endian encoding of the field element, without modifying it
+    private static byte[] encodeFieldElement(int[] x) {
+        int[] normalized = copyOf(x);
+        X25519Field.carry(normalized);
+        X25519Field.normalize(normalized);
+        byte[] encoded = new byte[ENCODING_LENGTH];
+        X25519Field.encode(normalized, encoded, 0);
+        return encoded;
+    }
+
+    // A field element is negative if the least significant bit of its canonical encoding is set
+    private static boolean isNegative(int[] x) {
+        return (encodeFieldElement(x)[0] & 1) != 0;
+    }
+
+    private static boolean isZero(int[] x) {
+        for (byte b : encodeFieldElement(x))
+            if (b != 0)
+                return false;
+        return true;
+    }
+
+    private static boolean areEqual(int[] x, int[] y) {
+        return Arrays.equals(encodeFieldElement(x), encodeFieldElement(y));
+    }
+
+    private static int[] copyOf(int[] x) {
+        int[] z = X25519Field.create();
+        X25519Field.copy(x, 0, z, 0);
+        return z;
+    }
+
+    private static int[] fieldElement(BigInteger value) {
+        int[] z = X25519Field.create();
+        X25519Field.decode(toLittleEndian(value.mod(P)), 0, z);
+        return z;
+    }
+
+    // Converts a non-negative value smaller than 2^256 into 32 little-endian bytes
+    private static byte[] toLittleEndian(BigInteger value) {
+        byte[] bigEndian = value.toByteArray();
+        byte[] littleEndian = new byte[ENCODING_LENGTH];
+        for (int i = 0; i < Math.min(bigEndian.length, ENCODING_LENGTH); i++)
+            littleEndian[i] = bigEndian[bigEndian.length - 1 - i];
+        return littleEndian;
+    }
+
+    /**
+     * Element of the group, represented by a point of edwards25519 in extended coordinates (X:Y:Z:T), where
+     * x = X/Z, y = Y/Z and x*y = T/Z. Instances are immutable, hence they can be shared among threads.
+     */
+    static final class Point {
+        private final int[] x;
+        private final int[] y;
+        private final int[] z;
+        private final int[] t;
+
+        private Point(int[] x, int[] y, int[] z, int[] t) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.t = t;
+        }
+
+        private static Point fromAffine(BigInteger x, BigInteger y) {
+            return new Point(fieldElement(x), fieldElement(y), copyOf(ONE), fieldElement(x.multiply(y)));
+        }
+
+        Point add(Point point) {
+            return addCached(point.toCached(), false);
+        }
+
+        Point subtract(Point point) {
+            return addCached(point.toCached(), true);
+        }
+
+        /**
+         * Computes scalar*this with a signed 4-bit window.
+         *
+         * @param scalar scalar of the multiplication, which is reduced modulo the order of the group
+         * @return the element resulting from the multiplication
+         */
+        Point multiply(BigInteger scalar) {
+            return multiply(recodeScalar(scalar));
+        }
+
+        // Multiplies this element by a scalar already recoded by recodeScalar
+        Point multiply(byte[] digits) {
+            CachedPoint[] table = new CachedPoint[TABLE_SIZE];
+            Point multiple = this;
+            table[0] = multiple.toCached();
+            for (int i = 1; i < TABLE_SIZE; i++) {
+                multiple = (i == 1) ? twice() : multiple.addCached(table[0], false);
+                table[i] = multiple.toCached();
+            }
+
+            Point result = getIdentity();
+            for (int i = SCALAR_DIGITS - 1; i >= 0; i--) {
+                if (i != SCALAR_DIGITS - 1)
+                    result = result.twice().twice().twice().twice();
+                int digit = digits[i];
+                if (digit != 0)
+                    result = result.addCached(table[Math.abs(digit) - 1], digit < 0);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the internal extended coordinates of the element, which can be read back by fromCoordinates without
+         * the inverse square root computed by decode. The result is not canonical and is not validated when read
+         * back, thus it should only be used to store the elements computed by this process.
+         *
+         * @return the COORDINATES_LENGTH bytes containing the limbs of the coordinates
+         */
+        byte[] toCoordinates() {
+            ByteBuffer coordinates = ByteBuffer.allocate(COORDINATES_LENGTH);
+            for (int[] coordinate : new int[][]{this.x, this.y, this.z, this.t})
+                for (int limb : coordinate)
+                    coordinates.putInt(limb);
+            return coordinates.array();
+        }
+
+        static Point fromCoordinates(byte[] coordinates) {
+            ByteBuffer buffer = ByteBuffer.wrap(coordinates);
+            int[][] point = new int[4][];
+            for (int i = 0; i < point.length; i++) {
+                point[i] = X25519Field.create();
+                for (int j = 0; j < X25519Field.SIZE; j++)
+                    point[i][j] = buffer.getInt();
+            }
+            return new Point(point[0], point[1], point[2], point[3]);
+        }
+
+        /**
+         * Returns the canonical 32-byte encoding of the element (ENCODE of RFC 9496). Equal elements always have the
+         * same encoding, even if their internal representations differ.
+         *
+         * @return the encoding of the element
+         */
+        byte[] encode() {
+            int[] u1 = X25519Field.create();
+            int[] zMinusY = X25519Field.create();
+            X25519Field.apm(this.z, this.y, u1, zMinusY);
+            X25519Field.mul(u1, zMinusY, u1);
+            int[] u2 = X25519Field.create();
+            X25519Field.mul(this.x, this.y, u2);
+
+            int[] invSqrt = X25519Field.create();
+            int[] v = X25519Field.create();
+            X25519Field.sqr(u2, v);
+            X25519Field.mul(v, u1, v);
+            sqrtRatioM1(ONE, v, invSqrt);
+
+            int[] den1 = X25519Field.create();
+            X25519Field.mul(invSqrt, u1, den1);
+            int[] den2 = X25519Field.create();
+            X25519Field.mul(invSqrt, u2, den2);
+            int[] zInv = X25519Field.create();
+            X25519Field.mul(den1, den2, zInv);
+            X25519Field.mul(zInv, this.t, zInv);
+
+            int[] check = X25519Field.create();
+            X25519Field.mul(this.t, zInv, check);
+            int[] xOut;
+            int[] yOut;
+            int[] denInv = X25519Field.create();
+            if (isNegative(check)) {
+                xOut = X25519Field.create();
+                X25519Field.mul(this.y, SQRT_M1, xOut);
+                yOut = X25519Field.create();
+                X25519Field.mul(this.x, SQRT_M1, yOut);
+                X25519Field.mul(den1, INVSQRT_A_MINUS_D, denInv);
+            } else {
+                xOut = this.x;
+                yOut = copyOf(this.y);
+                X25519Field.copy(den2, 0, denInv, 0);
+            }
+            X25519Field.mul(xOut, zInv, check);
+            if (isNegative(check))
+                X25519Field.negate(yOut, yOut);
+
+            // s = |denInv * (z - y)|, computed as denInv * (y - z) when negative
+            int[] s = X25519Field.create();
+            int[] difference = X25519Field.create();
+            X25519Field.sub(this.z, yOut, difference);
+            X25519Field.mul(denInv, difference, s);
+            if (isNegative(s)) {
+                X25519Field.sub(yOut, this.z, difference);
+                X25519Field.mul(denInv, difference, s);
+            }
+            return encodeFieldElement(s);
+        }
+
+        boolean isIdentity() {
+            return isZero(this.x) || isZero(this.y);
+        }
+
+        // Unified addition of an element in cached form (add-2008-hwcd-3), or of its opposite if negate is set
+        private Point addCached(CachedPoint point, boolean negate) {
+            int[] a = X25519Field.create();
+            int[] b = X25519Field.create();
+            int[] c = X25519Field.create();
+            int[] d = X25519Field.create();
+            int[] e = X25519Field.create();
+            int[] f = X25519Field.create();
+            int[] g = X25519Field.create();
+            int[] h = X25519Field.create();
+
+            // The opposite of (Y+X, Y-X, 2dT, 2Z) is (Y-X, Y+X, -2dT, 2Z)
+            X25519Field.apm(this.y, this.x, b, a);
+            X25519Field.mul(a, negate ? point.yPlusX : point.yMinusX, a);
+            X25519Field.mul(b, negate ? point.yMinusX : point.yPlusX, b);
+            X25519Field.mul(this.t, point.t2d, c);
+            X25519Field.mul(this.z, point.z2, d);
+            X25519Field.apm(b, a, h, e);
+            if (negate)
+                X25519Field.apm(d, c, f, g);
+            else
+                X25519Field.apm(d, c, g, f);
+            X25519Field.carry(g);
+
+            int[] x3 = X25519Field.create();
+            int[] y3 = X25519Field.create();
+            int[] z3 = X25519Field.create();
+            int[] t3 = X25519Field.create();
+            X25519Field.mul(e, f, x3);
+            X25519Field.mul(g, h, y3);
+            X25519Field.mul(f, g, z3);
+            X25519Field.mul(e, h, t3);
+            return new Point(x3, y3, z3, t3);
+        }
+
+        // Doubling in extended coordinates for a = -1 (dbl-2008-hwcd), with all the intermediate values negated
+        private Point twice() {
+            int[] a = X25519Field.create();
+            int[] b = X25519Field.create();
+            int[] c = X25519Field.create();
+            int[] e = X25519Field.create();
+            int[] f = X25519Field.create();
+            int[] g = X25519Field.create();
+            int[] h = X25519Field.create();
+
+            X25519Field.add(this.x, this.y, e);
+            X25519Field.sqr(this.x, a);
+            X25519Field.sqr(this.y, b);
+            X25519Field.sqr(this.z, c);
+            X25519Field.add(c, c, c);
+            X25519Field.apm(a, b, h, g);
+            X25519Field.sqr(e, e);
+            X25519Field.sub(h, e, e);
+            X25519Field.add(c, g, f);
+            X25519Field.carry(f);
+
+            int[] x3 = X25519Field.create();
+            int[] y3 = X25519Field.create();
+            int[] z3 = X25519Field.create();
+            int[] t3 = X25519Field.create();
+            X25519Field.mul(e, f, x3);
+            X25519Field.mul(g, h, y3);
+            X25519Field.mul(f, g, z3);
+            X25519Field.mul(e, h, t3);
+            return new Point(x3, y3, z3, t3);
+        }
+
+        private CachedPoint toCached() {
+            int[] yPlusX = X25519Field.create();
+            int[] yMinusX = X25519Field.create();
+            X25519Field.apm(this.y, this.x, yPlusX, yMinusX);
+            int[] t2d = X25519Field.create();
+            X25519Field.mul(this.t, D2, t2d);
+            int[] z2 = X25519Field.create();
+            X25519Field.add(this.z, this.z, z2);
+            return new CachedPoint(yPlusX, yMinusX, t2d, z2);
+        }
+
+        // Two representations refer to the same element if X1*Y2 = Y1*X2 or Y1*Y2 = X1*X2
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Point that = (Point) o;
+            int[] left = X25519Field.create();
+            int[] right = X25519Field.create();
+            X25519Field.mul(this.x, that.y, left);
+            X25519Field.mul(this.y, that.x, right);
+            if (areEqual(left, right))
+                return true;
+            X25519Field.mul(this.y, that.y, left);
+            X25519Field.mul(this.x, that.x, right);
+            return areEqual(left, right);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(encode());
+        }
+    }
+
+    // Representation (Y+X, Y-X, 2dT, 2Z) of an element, used as second operand of additions
+    private static final class CachedPoint {
+        private final int[] yPlusX;
+        private final int[] yMinusX;
+        private final int[] t2d;
+        private final int[] z2;
+
+        private CachedPoint(int[] yPlusX, int[] yMinusX, int[] t2d, int[] z2) {
+            this.yPlusX = yPlusX;
+            this.yMinusX = yMinusX;
+            this.t2d = t2d;
+            this.z2 = z2;
+        }
+    }
+
+    /**
+     * Multiplies a base element that does not change for the whole session (e.g., the generator or the public key of
+     * the server) by arbitrary scalars. The multiples j*16^i*base, for j in [1, 8] and i in [0, 64), are computed once
+     * at construction time, so that each multiplication only requires up to 64 additions and no doublings.
+     */
+    static final class FixedPointMultiplier {
+        private final Point base;
+        private final CachedPoint[][] table;
+
+        FixedPointMultiplier(Point base) {
+            this.base = base;
+            this.table = new CachedPoint[SCALAR_DIGITS][TABLE_SIZE];
+            Point windowBase = base;
+            for (int i = 0; i < SCALAR_DIGITS; i++) {
+                CachedPoint windowBaseCached = windowBase.toCached();
+                Point multiple = windowBase;
+                this.table[i][0] = windowBaseCached;
+                for (int j = 1; j < TABLE_SIZE; j++) {
+                    multiple = multiple.addCached(windowBaseCached, false);
+                    this.table[i][j] = multiple.toCached();
+                }
+                // 16 * windowBase = 2 * (8 * windowBase)
+                windowBase = multiple.twice();
+            }
+        }
+
+        Point getBase() {
+            return this.base;
+        }
+
+        /**
+         * Computes scalar*base using the precomputed table.
+         *
+         * @param scalar scalar of the multiplication, which is reduced modulo the order of the group
+         * @return the element resulting from the multiplication
+         */
+        Point multiply(BigInteger scalar) {
+            byte[] digits = recodeScalar(scalar);
+            Point result = getIdentity();
+            for (int i = 0; i < SCALAR_DIGITS; i++) {
+                int digit = digits[i];
+                if (digit != 0)
+                    result = result.addCached(this.table[i][Math.abs(digit) - 1], digit < 0);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Multiplies arbitrary elements by a scalar that does not change for the whole session (e.g., the private key).
+     * The scalar is recoded once at construction time and then shared by all the threads.
+     */
+    static final class FixedScalarMultiplier {
+        private final BigInteger scalar;
+        private final byte[] digits;
+
+        FixedScalarMultiplier(BigInteger scalar) {
+            this.scalar = scalar;
+            this.digits = recodeScalar(scalar);
+        }
+
+        BigInteger getScalar() {
+            return this.scalar;
+        }
+
+        Point multiply(Point point) {
+            return point.multiply(this.digits);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package psi;
+
+import psi.exception.PsiServerInitException;
+
+import java.math.BigInteger;
+
+/**
+ * Computes the RSA private operation (x^d mod N) used by the BS server. When the RSA CRT parameters are available in
+ * the PsiServerKeyDescription, the exponentiation is split in two half-size exponentiations modulo p and q and the
+ * results are recombined with Garner's formula, otherwise the plain modPow on the full modulus is used.
+ */
+class RsaPrivateExponentiation {
+
+    private final BigInteger privateExponent;
+    private final BigInteger publicExponent;
+    private final BigInteger modulus;
+
+    private final BigInteger primeP;
+    private final BigInteger primeQ;
+    private final BigInteger primeExponentP;
+    private final BigInteger primeExponentQ;
+    private final BigInteger crtCoefficient;
+
+    private RsaPrivateExponentiation(BigInteger privateExponent, BigInteger publicExponent, BigInteger modulus,
+                                     BigInteger primeP, BigInteger primeQ, BigInteger primeExponentP,
+                                     BigInteger primeExponentQ, BigInteger crtCoefficient) {
+        this.privateExponent = privateExponent;
+        this.publicExponent = publicExponent;
+        this.modulus = modulus;
+        this.primeP = primeP;
+        this.primeQ = primeQ;
+        this.primeExponentP = primeExponentP;
+        this.primeExponentQ = primeExponentQ;
+        this.crtCoefficient = crtCoefficient;
+    }
+
+    /**
+     * Builds the exponentiation helper from the fields of a BS PsiServerKeyDescription.
+     * @param psiServerKeyDescription key description containing at least privateExponent, publicExponent and modulus
+     * @return an instance using the CRT path if all the CRT parameters are set, the plain path otherwise
+     */
+    static RsaPrivateExponentiation fromServerKeyDescription(PsiServerKeyDescription psiServerKeyDescription) {
+        BigInteger privateExponent = CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getPrivateExponent());
+        BigInteger publicExponent = CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getPublicExponent());
+        BigInteger modulus = CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getModulus());
+        if (!hasCrtParameters(psiServerKeyDescription))
+            return new RsaPrivateExponentiation(privateExponent, publicExponent, modulus, null, null, null, null, null);
+
+        return new RsaPrivateExponentiation(privateExponent, publicExponent, modulus,
+                CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getPrimeP()),
+                CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getPrimeQ()),
+                CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getPrimeExponentP()),
+                CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getPrimeExponentQ()),
+                CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getCrtCoefficient()));
+    }
+
+    /**
+     * Checks the consistency of the CRT parameters of a BS PsiServerKeyDescription. Either all or none of them
+     * should be set and, if set, the product of the primes should match the modulus.
+     * @param psiServerKeyDescription key description to be validated
+     * @throws PsiServerInitException if the CRT parameters are only partially set or do not match the modulus
+     */
+    static void validateCrtParameters(PsiServerKeyDescription psiServerKeyDescription) {
+        if (!hasCrtParameters(psiServerKeyDescription)) {
+            if (psiServerKeyDescription.getPrimeP() != null || psiServerKeyDescription.getPrimeQ() != null
+                    || psiServerKeyDescription.getPrimeExponentP() != null || psiServerKeyDescription.getPrimeExponentQ() != null
+                    || psiServerKeyDescription.getCrtCoefficient() != null)
+                throw new PsiServerInitException("The CRT parameters of the PsiServerKeyDescription for BS should be either all set or all null");
+            return;
+        }
+        BigInteger modulus = CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getModulus());
+        BigInteger primeP = CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getPrimeP());
+        BigInteger primeQ = CustomTypeConverter.convertStringToBigInteger(psiServerKeyDescription.getPrimeQ());
+        if (!primeP.multiply(primeQ).equals(modulus))
+            throw new PsiServerInitException("The primes of the PsiServerKeyDescription for BS do not match its modulus");
+    }
+
+    private static boolean hasCrtParameters(PsiServerKeyDescription psiServerKeyDescription) {
+        return psiServerKeyDescription.getPrimeP() != null && psiServerKeyDescription.getPrimeQ() != null
+                && psiServerKeyDescription.getPrimeExponentP() != null && psiServerKeyDescription.getPrimeExponentQ() != null
+                && psiServerKeyDescription.getCrtCoefficient() != null;
+    }
+
+    boolean isCrtEnabled() {
+        return this.primeP != null;
+    }
+
+    /**
+     * Computes input^privateExponent mod modulus. The result of the CRT path is checked by re-encrypting it with the
+     * public exponent; if the check fails (e.g., inconsistent CRT parameters), the plain path is used instead.
+     * @param input base of the exponentiation, possibly negative
+     * @return the non-negative result of the private operation
+     */
+    BigInteger modPow(BigInteger input) {
+        if (!isCrtEnabled())
+            return input.modPow(this.privateExponent, this.modulus);
+
+        BigInteger m1 = input.mod(this.primeP).modPow(this.primeExponentP, this.primeP);
+        BigInteger m2 = input.mod(this.primeQ).modPow(this.primeExponentQ, this.primeQ);
+        BigInteger h = this.crtCoefficient.multiply(m1.subtract(m2)).mod(this.primeP);
+        BigInteger result = m2.add(h.multiply(this.primeQ));
+
+        if (!result.modPow(this.publicExponent, this.modulus).equals(input.mod(this.modulus)))
+            return input.modPow(this.privateExponent, this.modulus);
+        return result;
+    }
+}
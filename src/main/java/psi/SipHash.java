@@ -0,0 +1,78 @@
+package psi;
+
+/**
+ * Computes the SipHash-2-4 keyed hash of the String representations of encrypted values, which are used by the
+ * EncodedValueSet to select the slots of its table and to sort its values. Differently from an unkeyed hash, whose
+ * collisions can be computed in advance, the values that collide under a random key cannot be chosen by the party
+ * that sends them, thus a malicious server cannot send values that degrade the probes and the merges to a quadratic
+ * number of comparisons.
+ * Since the String representations returned by CustomTypeConverter only contain characters in the range 0-255, each
+ * character is hashed as a single byte.
+ */
+class SipHash {
+
+    private long v0;
+    private long v1;
+    private long v2;
+    private long v3;
+
+    private SipHash(long key0, long key1) {
+        this.v0 = 0x736f6d6570736575L ^ key0;
+        this.v1 = 0x646f72616e646f6dL ^ key1;
+        this.v2 = 0x6c7967656e657261L ^ key0;
+        this.v3 = 0x7465646279746573L ^ key1;
+    }
+
+    /**
+     * Computes the hash of a value.
+     *
+     * @param key0  first 64 bits of the key
+     * @param key1  last 64 bits of the key
+     * @param value String representation of the value
+     * @return the 64-bit hash of the value
+     */
+    static long hash(long key0, long key1, String value) {
+        SipHash sipHash = new SipHash(key0, key1);
+        int length = value.length();
+        int end = length & ~7;
+        for (int i = 0; i < end; i += 8) {
+            long word = 0;
+            for (int j = 0; j < 8; j++)
+                word |= (value.charAt(i + j) & 0xFFL) << (8 * j);
+            sipHash.compress(word);
+        }
+        // The last word contains the remaining bytes and the length of the value in its most significant byte
+        long word = (long) length << 56;
+        for (int j = 0; j < length - end; j++)
+            word |= (value.charAt(end + j) & 0xFFL) << (8 * j);
+        sipHash.compress(word);
+        sipHash.v2 ^= 0xFF;
+        for (int i = 0; i < 4; i++)
+            sipHash.round();
+        return sipHash.v0 ^ sipHash.v1 ^ sipHash.v2 ^ sipHash.v3;
+    }
+
+    private void compress(long word) {
+        this.v3 ^= word;
+        round();
+        round();
+        this.v0 ^= word;
+    }
+
+    private void round() {
+        this.v0 += this.v1;
+        this.v1 = Long.rotateLeft(this.v1, 13);
+        this.v1 ^= this.v0;
+        this.v0 = Long.rotateLeft(this.v0, 32);
+        this.v2 += this.v3;
+        this.v3 = Long.rotateLeft(this.v3, 16);
+        this.v3 ^= this.v2;
+        this.v0 += this.v3;
+        this.v3 = Long.rotateLeft(this.v3, 21);
+        this.v3 ^= this.v0;
+        this.v2 += this.v1;
+        this.v1 = Long.rotateLeft(this.v1, 17);
+        this.v1 ^= this.v2;
+        this.v2 = Long.rotateLeft(this.v2, 32);
+    }
+}
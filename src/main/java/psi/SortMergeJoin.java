@@ -0,0 +1,149 @@
+package psi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the intersection between the client values and the server values contained in an EncodedValueSet by sorting
+ * the sort keys of both sides, which contain the upper 32 bits of the hash of each value under the key of the server
+ * set, and merging the two sorted arrays. The sorted client keys are split in contiguous ranges, each merged by a
+ * different thread with the corresponding range of the server keys. The values are only compared when their hashes are
+ * equal, hence the result is exact. Only the sort keys are held in memory, while the client values whose hash equals
+ * the hash of a server value are read again from the client column.
+ */
+class SortMergeJoin {
+
+    private static final Logger log = LoggerFactory.getLogger(SortMergeJoin.class);
+
+    private SortMergeJoin() {}
+
+    /**
+     * Computes the keys of the client entries whose value is contained in the server set.
+     *
+     * @param clientColumn         column containing the String representations of the client values
+     * @param maxKey               last key assigned to the entries of the client dataset
+     * @param fingerprintBits      number of bits of the fingerprints contained in the server set, or null if it
+     *                             contains the full values
+     * @param serverSet            set containing the server values
+     * @param sharedExecutorService executor that runs the threads
+     * @param threads              number of threads used to encode and merge the values
+     * @param threadTimeoutSeconds maximum time waited for the threads
+     * @return the keys of the client entries contained in the intersection
+     */
+    static Set<Long> intersect(ChunkedColumn.OfBytes clientColumn, long maxKey, Integer fingerprintBits,
+                               EncodedValueSet serverSet, ExecutorService sharedExecutorService,
+                               int threads, int threadTimeoutSeconds) {
+        log.debug("Called intersect() with {} client keys and {} server values", maxKey, serverSet.size());
+
+        // The client values are read in parallel, the sort key of the value with key k being stored at the position
+        // k - 1 of the array. Keys without value are given the greatest sort key, which is not a valid one since its index is
+        // greater than any position, so that they are moved at the end of the sorted array
+        int positions = Math.toIntExact(maxKey);
+        long[] clientSortKeys = new long[positions];
+        AtomicInteger size = new AtomicInteger(0);
+        List<long[]> partitionList = PartitionHelper.partitionRange(1, maxKey + 1, threads);
+        ExecutorService executorService = new PhaseExecutor(sharedExecutorService);
+        for (long[] partition : partitionList) {
+            executorService.submit(() -> {
+                FingerprintFactory fingerprintFactory = fingerprintBits != null ? new FingerprintFactory(fingerprintBits) : null;
+                int partitionSize = 0;
+                for (long key = partition[0]; key < partition[1]; key++) {
+                    int position = (int) (key - 1);
+                    byte[] clientValue = clientColumn.get(key);
+                    if (clientValue == null) {
+                        clientSortKeys[position] = Long.MAX_VALUE;
+                        continue;
+                    }
+                    String value = FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBytesToString(clientValue));
+                    clientSortKeys[position] = EncodedValueSet.sortKey(serverSet.hash(value), position);
+                    partitionSize++;
+                }
+                size.addAndGet(partitionSize);
+            });
+        }
+        MultithreadingHelper.awaitTermination(executorService, threadTimeoutSeconds, log);
+        return merge(clientSortKeys, size.get(), clientColumn, fingerprintBits, serverSet, sharedExecutorService, threads, threadTimeoutSeconds);
+    }
+
+    // Sorts the client keys, the first size of which are valid once sorted, and merges them with the server keys
+    private static Set<Long> merge(long[] clientSortKeys, int size, ChunkedColumn.OfBytes clientColumn, Integer fingerprintBits,
+                                   EncodedValueSet serverSet, ExecutorService sharedExecutorService, int threads,
+                                   int threadTimeoutSeconds) {
+        Arrays.parallelSort(clientSortKeys);
+        long[] serverSortKeys = serverSet.getSortKeys();
+
+        // Each range of the client keys starts from a new hash, so that the keys with the same hash are merged together
+        Set<Long> result = ConcurrentHashMap.newKeySet();
+        int ranges = Math.max(1, Math.min(threads, size));
+        ExecutorService executorService = new PhaseExecutor(sharedExecutorService);
+        int start = 0;
+        for (int i = 1; i <= ranges && start < size; i++) {
+            int end = (int) ((long) size * i / ranges);
+            while (end < size && EncodedValueSet.hashPrefix(clientSortKeys[end]) == EncodedValueSet.hashPrefix(clientSortKeys[end - 1]))
+                end++;
+            if (end <= start)
+                continue;
+            int rangeStart = start;
+            int rangeEnd = end;
+            executorService.submit(() -> mergeRange(clientSortKeys, rangeStart, rangeEnd, clientColumn, fingerprintBits, serverSortKeys, serverSet, result));
+            start = end;
+        }
+        MultithreadingHelper.awaitTermination(executorService, threadTimeoutSeconds, log);
+
+        return result;
+    }
+
+    // Merges the range [start, end) of the client keys with the server keys, adding the matching client keys to result
+    private static void mergeRange(long[] clientSortKeys, int start, int end, ChunkedColumn.OfBytes clientColumn,
+                                   Integer fingerprintBits, long[] serverSortKeys, EncodedValueSet serverSet, Set<Long> result) {
+        FingerprintFactory fingerprintFactory = fingerprintBits != null ? new FingerprintFactory(fingerprintBits) : null;
+        int i = start;
+        int j = lowerBound(serverSortKeys, EncodedValueSet.hashPrefix(clientSortKeys[start]));
+        while (i < end && j < serverSortKeys.length) {
+            long clientHash = EncodedValueSet.hashPrefix(clientSortKeys[i]);
+            long serverHash = EncodedValueSet.hashPrefix(serverSortKeys[j]);
+            if (clientHash < serverHash)
+                i++;
+            else if (clientHash > serverHash)
+                j++;
+            else {
+                // All the client values with this hash are compared with all the server values with the same hash
+                int serverEnd = j;
+                while (serverEnd < serverSortKeys.length && EncodedValueSet.hashPrefix(serverSortKeys[serverEnd]) == clientHash)
+                    serverEnd++;
+                for (; i < end && EncodedValueSet.hashPrefix(clientSortKeys[i]) == clientHash; i++) {
+                    long key = EncodedValueSet.index(clientSortKeys[i]) + 1L;
+                    String value = FingerprintFactory.fingerprintOrValue(fingerprintFactory, CustomTypeConverter.convertBytesToString(clientColumn.get(key)));
+                    for (int k = j; k < serverEnd; k++) {
+                        if (serverSet.valueEquals(EncodedValueSet.index(serverSortKeys[k]), value)) {
+                            result.add(key);
+                            break;
+                        }
+                    }
+                }
+                j = serverEnd;
+            }
+        }
+    }
+
+    // Returns the position of the first key whose hash is greater than or equal to the input hash
+    private static int lowerBound(long[] sortKeys, long hash) {
+        int low = 0;
+        int high = sortKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortKeys[middle] < hash)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,26 @@
+package psi;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Gives access to the virtual threads of Java 21, used when virtualThreads is set in the PsiThreadConfiguration.
+ * This version is loaded by the JVMs older than Java 21, which do not support them, while the jar built with a JDK 21
+ * or later also contains, under META-INF/versions/21, the version loaded by the JVMs that support them.
+ */
+class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    static boolean isSupported() {
+        return false;
+    }
+
+    // Returns the executor that runs each task in a new virtual thread
+    static ExecutorService getExecutorService() {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+    }
+
+    static boolean isVirtual(Thread thread) {
+        return false;
+    }
+}
@@ -0,0 +1,316 @@
+package psi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import psi.exception.PsiClientException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Allocates the memory used by the PsiClient to store its working sets, i.e., the chunks of the ChunkedColumns and the
+ * pages and tables of the EncodedValueSet. The memory is allocated as slabs of bytes or longs, which are zeroed when
+ * allocated and accessed by index. Two implementations are available:
+ * <ul>
+ *     <li>HEAP, which allocates the slabs as Java arrays;</li>
+ *     <li>the one returned by memoryMapped, which carves the slabs out of a few large segments, each a file in a
+ *     scratch directory mapped in memory, so that the working sets are not limited by the size of the heap and are
+ *     paged in and out by the operating system, while the number of mappings of the process stays small.</li>
+ * </ul>
+ * The files are deleted as soon as they are mapped whenever the operating system allows it, otherwise when the JVM
+ * exits. The memory of the slabs is not reused, and the segments are unmapped when they are garbage collected. They are
+ * never unmapped explicitly, since a slab accessed after its segment has been unmapped crashes the JVM, and the threads
+ * of a cancelled phase can still access the slabs after the method that started it has returned.
+ */
+abstract class WorkingStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkingStorage.class);
+
+    static final WorkingStorage HEAP = new HeapStorage();
+
+    abstract ByteSlab allocateBytes(int length);
+
+    abstract LongSlab allocateLongs(int length);
+
+    // Directory where the temporary files of the client are created, or null to use the default temporary directory
+    abstract File getScratchDirectory();
+
+    // Rejects the following allocations and releases the segment the slabs are carved out of, so that the memory of
+    // the slabs is released as soon as they are no longer referenced
+    abstract void close();
+
+    /**
+     * Creates a storage that allocates the slabs as memory-mapped files in the input directory.
+     *
+     * @param scratchDirectory existing directory where the files are created
+     * @return the storage
+     */
+    static WorkingStorage memoryMapped(File scratchDirectory) {
+        if (!scratchDirectory.isDirectory() || !scratchDirectory.canWrite())
+            throw new PsiClientException("The scratch directory " + scratchDirectory + " is not a writable directory");
+        return new MappedStorage(scratchDirectory);
+    }
+
+    abstract static class ByteSlab {
+
+        abstract byte get(int index);
+
+        abstract void put(int index, byte value);
+
+        abstract void get(int index, byte[] destination, int offset, int length);
+
+        abstract void put(int index, byte[] source, int offset, int length);
+    }
+
+    abstract static class LongSlab {
+
+        abstract long get(int index);
+
+        abstract void put(int index, long value);
+
+        abstract int length();
+
+        // Copies the first count longs of this slab to the destination slab
+        void copyTo(LongSlab destination, int count) {
+            for (int i = 0; i < count; i++)
+                destination.put(i, get(i));
+        }
+    }
+
+    private static class HeapStorage extends WorkingStorage {
+
+        @Override
+        ByteSlab allocateBytes(int length) {
+            return new HeapByteSlab(new byte[length]);
+        }
+
+        @Override
+        LongSlab allocateLongs(int length) {
+            return new HeapLongSlab(new long[length]);
+        }
+
+        @Override
+        File getScratchDirectory() {
+            return null;
+        }
+
+        // The arrays are released when they are garbage collected
+        @Override
+        void close() {
+        }
+    }
+
+    private static final class HeapByteSlab extends ByteSlab {
+        private final byte[] array;
+
+        private HeapByteSlab(byte[] array) {
+            this.array = array;
+        }
+
+        @Override
+        byte get(int index) {
+            return this.array[index];
+        }
+
+        @Override
+        void put(int index, byte value) {
+            this.array[index] = value;
+        }
+
+        @Override
+        void get(int index, byte[] destination, int offset, int length) {
+            System.arraycopy(this.array, index, destination, offset, length);
+        }
+
+        @Override
+        void put(int index, byte[] source, int offset, int length) {
+            System.arraycopy(source, offset, this.array, index, length);
+        }
+    }
+
+    private static final class HeapLongSlab extends LongSlab {
+        private final long[] array;
+
+        private HeapLongSlab(long[] array) {
+            this.array = array;
+        }
+
+        @Override
+        long get(int index) {
+            return this.array[index];
+        }
+
+        @Override
+        void put(int index, long value) {
+            this.array[index] = value;
+        }
+
+        @Override
+        int length() {
+            return this.array.length;
+        }
+
+        @Override
+        void copyTo(LongSlab destination, int count) {
+            if (destination instanceof HeapLongSlab)
+                System.arraycopy(this.array, 0, ((HeapLongSlab) destination).array, 0, count);
+            else
+                super.copyTo(destination, count);
+        }
+    }
+
+    private static class MappedStorage extends WorkingStorage {
+
+        // A single mapping cannot exceed 2 GiB, thus the slabs of longs are split in segments of 1 GiB
+        private static final int SEGMENT_LONGS_BITS = 27;
+        // Size of the mappings the slabs are carved out of. The slabs larger than a mapping are mapped on their own.
+        // The files are sparse, thus the unused part of a mapping does not take any memory or disk space
+        private static final int MAPPING_BYTES = 1 << 28;
+
+        private final File scratchDirectory;
+        // Mapping the following slabs are carved out of, and the offset of its first free byte
+        private MappedByteBuffer currentMapping;
+        private int currentOffset;
+        private boolean closed;
+
+        private MappedStorage(File scratchDirectory) {
+            this.scratchDirectory = scratchDirectory;
+        }
+
+        @Override
+        ByteSlab allocateBytes(int length) {
+            return new MappedByteSlab(carve(length));
+        }
+
+        @Override
+        LongSlab allocateLongs(int length) {
+            long bytes = 8L * length;
+            int segmentBytes = 8 << SEGMENT_LONGS_BITS;
+            ByteBuffer[] segments = new ByteBuffer[(int) Math.max(1, (bytes + segmentBytes - 1) / segmentBytes)];
+            for (int i = 0; i < segments.length; i++)
+                segments[i] = carve((int) Math.min(segmentBytes, bytes - (long) i * segmentBytes));
+            return new MappedLongSlab(segments, length);
+        }
+
+        @Override
+        File getScratchDirectory() {
+            return this.scratchDirectory;
+        }
+
+        @Override
+        synchronized void close() {
+            if (this.closed)
+                return;
+            this.closed = true;
+            this.currentMapping = null;
+        }
+
+        // Returns a buffer of the input length, filled with zeros, carved out of the current mapping or of a new one.
+        // The buffers start at multiples of 8 bytes, so that the longs are aligned
+        private synchronized ByteBuffer carve(int length) {
+            if (this.closed)
+                throw new PsiClientException("The working storage in " + this.scratchDirectory + " has been closed");
+            if (length > MAPPING_BYTES)
+                return map(length);
+            if (this.currentMapping == null || MAPPING_BYTES - this.currentOffset < length) {
+                this.currentMapping = map(MAPPING_BYTES);
+                this.currentOffset = 0;
+            }
+            ByteBuffer buffer = this.currentMapping.duplicate();
+            ((Buffer) buffer).limit(this.currentOffset + length).position(this.currentOffset);
+            this.currentOffset = Math.min(MAPPING_BYTES, (this.currentOffset + length + 7) & ~7);
+            return buffer.slice();
+        }
+
+        // Creates a file of the input length, filled with zeros, and maps it
+        private MappedByteBuffer map(int length) {
+            MappedByteBuffer mapping;
+            File file = null;
+            try {
+                file = File.createTempFile("psi-", ".slab", this.scratchDirectory);
+                try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                    randomAccessFile.setLength(length);
+                    mapping = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+                }
+            } catch (IOException e) {
+                log.error("Error while mapping a file of the working storage: ", e);
+                throw new PsiClientException("Unable to allocate the working storage in " + this.scratchDirectory + ": " + e.getMessage());
+            } finally {
+                // The mappings remain valid after the file is deleted, except on the systems that do not allow it
+                if (file != null && !file.delete())
+                    file.deleteOnExit();
+            }
+            return mapping;
+        }
+    }
+
+    private static final class MappedByteSlab extends ByteSlab {
+        private final ByteBuffer buffer;
+
+        private MappedByteSlab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        byte get(int index) {
+            return this.buffer.get(index);
+        }
+
+        @Override
+        void put(int index, byte value) {
+            this.buffer.put(index, value);
+        }
+
+        // The position of a duplicate is used for bulk transfers, since the buffer is shared by multiple threads. It is
+        // set through Buffer, since the covariant ByteBuffer.position of Java 9 does not exist on Java 8
+        @Override
+        void get(int index, byte[] destination, int offset, int length) {
+            ByteBuffer duplicate = this.buffer.duplicate();
+            ((Buffer) duplicate).position(index);
+            duplicate.get(destination, offset, length);
+        }
+
+        @Override
+        void put(int index, byte[] source, int offset, int length) {
+            ByteBuffer duplicate = this.buffer.duplicate();
+            ((Buffer) duplicate).position(index);
+            duplicate.put(source, offset, length);
+        }
+    }
+
+    private static final class MappedLongSlab extends LongSlab {
+        private static final int SEGMENT_MASK = (1 << MappedStorage.SEGMENT_LONGS_BITS) - 1;
+
+        private final ByteBuffer[] segments;
+        private final int length;
+
+        private MappedLongSlab(ByteBuffer[] segments, int length) {
+            // The files are only read by this JVM, thus the native order is used
+            for (ByteBuffer segment : segments)
+                segment.order(ByteOrder.nativeOrder());
+            this.segments = segments;
+            this.length = length;
+        }
+
+        @Override
+        long get(int index) {
+            return this.segments[index >>> MappedStorage.SEGMENT_LONGS_BITS].getLong((index & SEGMENT_MASK) << 3);
+        }
+
+        @Override
+        void put(int index, long value) {
+            this.segments[index >>> MappedStorage.SEGMENT_LONGS_BITS].putLong((index & SEGMENT_MASK) << 3, value);
+        }
+
+        @Override
+        int length() {
+            return this.length;
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package psi.client;
 
 import psi.PsiClientKeyDescription;
+import psi.flow.PsiFlow;
 import psi.model.PsiPhaseStatistics;
+import psi.model.PsiServerFilter;
 import psi.model.PsiThreadConfiguration;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Interface that provides the methods that perform the client-side computation of the PSI for all the supported algorithms.
@@ -15,7 +21,21 @@ import java.util.Set;
  * between the parties and/or from external data sources.
  * Thus, the conversion of the datasets to String is required and outside the scope of this SDK.
  */
-public interface PsiClient {
+public interface PsiClient extends AutoCloseable {
+
+    /**
+     * Starts the background precomputation of the blinding factors used by the <code>loadAndEncryptClientDataset</code>
+     * method, which do not depend on the client dataset. It is meant to be called as soon as the client session is
+     * available, before the client dataset is ready, to move most of the encryption cost to an offline phase.
+     * This method returns immediately and can be called multiple times; each call adds count blinding factors to the
+     * pool, which are computed on the executor of the client using the number of threads configured at the time of the
+     * call. The pool holds at most 65536 blinding factors, and the requests exceeding this size are ignored.
+     * If the pool is empty when the dataset is encrypted, the missing blinding factors are computed inline.
+     * This method has effect only for the BS, ECBS and ECBS25519 algorithms.
+     *
+     * @param count number of blinding factors to be precomputed, should be greater than 0
+     */
+    void precomputeBlindingFactors(int count);
 
     /**
      * Loads and encrypts the client dataset passed as input and returns a map of encrypted elements.
@@ -32,6 +52,53 @@ public interface PsiClient {
      * */
     Map<Long, String> loadAndEncryptClientDataset(Set<String> clearClientDataset);
 
+    /**
+     * Asynchronous variant of <code>loadAndEncryptClientDataset</code>, which returns immediately without waiting for
+     * the threads of the method. The returned CompletableFuture is completed exceptionally if any of the threads fails
+     * or times out. If it is cancelled, the encryption is stopped, and the client should not be used any further.
+     *
+     * @param clearClientDataset set of elements to be encrypted by the client
+     * @return a CompletableFuture completed with the Map returned by <code>loadAndEncryptClientDataset</code>
+     */
+    CompletableFuture<Map<Long, String>> loadAndEncryptClientDatasetAsync(Set<String> clearClientDataset);
+
+    /**
+     * Returns a processor that loads and encrypts the elements received from the Publisher it is subscribed to, as
+     * done by <code>loadAndEncryptClientDataset</code>, and passes the resulting entries to its Subscriber as soon as
+     * they are ready. The elements are requested in batches of batchSize elements, each of which is encrypted by the
+     * threads of this object while the following one is received, and no further batch is encrypted while the
+     * Subscriber has not requested the entries of the previous ones. Duplicated elements are only removed within the
+     * same batch.
+     *
+     * @param batchSize number of elements encrypted together, should be greater than 0
+     * @return a new processor, which can be subscribed to a single Publisher and by a single Subscriber
+     */
+    PsiFlow.Processor<String, Map.Entry<Long, String>> loadAndEncryptClientDatasetProcessor(int batchSize);
+
+    /**
+     * Loads and encrypts the elements returned by the input iterator in chunks of at most chunkSize elements, each of
+     * which is passed to the consumer as soon as it has been encrypted, as returned by
+     * <code>loadAndEncryptClientDataset</code>. Each chunk can thus be sent to the server, and the result loaded by
+     * <code>loadDoubleEncryptedClientDataset</code>, while the following chunks are read. Only one chunk of the input
+     * is kept in memory at any time, besides the clear values stored by the client for the result of the PSI.
+     * Duplicated elements are only removed within the same chunk.
+     *
+     * @param clearClientIterator    iterator over the elements to be encrypted by the client
+     * @param chunkSize              maximum number of elements of each chunk, should be greater than 0
+     * @param encryptedChunkConsumer consumer called with each encrypted chunk, in the calling thread
+     */
+    void loadAndEncryptClientDataset(Iterator<String> clearClientIterator, int chunkSize, Consumer<Map<Long, String>> encryptedChunkConsumer);
+
+    /**
+     * Loads and encrypts the elements of the input stream in chunks, as done by the
+     * <code>loadAndEncryptClientDataset</code> method that takes an iterator. The stream is consumed but not closed.
+     *
+     * @param clearClientStream      stream of the elements to be encrypted by the client
+     * @param chunkSize              maximum number of elements of each chunk, should be greater than 0
+     * @param encryptedChunkConsumer consumer called with each encrypted chunk, in the calling thread
+     */
+    void loadAndEncryptClientDataset(Stream<String> clearClientStream, int chunkSize, Consumer<Map<Long, String>> encryptedChunkConsumer);
+
     /**
      * Loads the input map, which should be the server-side encryption of the client dataset.
      * The input of this method should be passed by the server. It is referred as double encrypted client dataset because it
@@ -50,7 +117,8 @@ public interface PsiClient {
      * Loads the input set, which should be associated to entries of the server-side encryption of the server dataset.
      * This method can be called multiple times to load different portions of the server dataset, even concurrently.
      * Depending on the specific PSI algorithm, this method might perform additional computations in addition to
-     * simply loading the input set.
+     * simply loading the input set. If the fingerprintBits of the PsiAlgorithmParameter is set, only the
+     * fingerprints of the server elements are kept in memory.
      *
      * This method should be called before calling the <code>computePsi</code> method,
      * else the result of the PSI will be an empty set.
@@ -59,6 +127,55 @@ public interface PsiClient {
      */
     void loadAndProcessServerDataset(Set<String> serverEncryptedDataset);
 
+    /**
+     * Asynchronous variant of <code>loadAndProcessServerDataset</code>, as done by
+     * <code>loadAndEncryptClientDatasetAsync</code>.
+     *
+     * @param serverEncryptedDataset a set containing the elements to be loaded, which are associated to a portion
+     * @return a CompletableFuture completed when the input set has been loaded
+     */
+    CompletableFuture<Void> loadAndProcessServerDatasetAsync(Set<String> serverEncryptedDataset);
+
+    /**
+     * Returns a processor that probes the elements of the server dataset received from the Publisher it is subscribed
+     * to, as done by <code>loadAndProbeServerDataset</code>, and passes the clear values found in the intersection to
+     * its Subscriber. The elements are requested and processed in batches, as done by
+     * <code>loadAndEncryptClientDatasetProcessor</code>, thus neither the server dataset nor the result of the PSI
+     * are kept in memory. The result is complete when the processor completes.
+     *
+     * @param batchSize number of elements probed together, should be greater than 0
+     * @return a new processor, which can be subscribed to a single Publisher and by a single Subscriber
+     */
+    PsiFlow.Processor<String, String> loadAndProbeServerDatasetProcessor(int batchSize);
+
+    /**
+     * Processes the input set as done by <code>loadAndProcessServerDataset</code>, but instead of storing the
+     * resulting values for the <code>computePsi</code> method, it immediately compares them with the client values and
+     * passes the clear values found in the intersection to the consumer. Thus, the server dataset is not kept in memory,
+     * and the result of the PSI is complete as soon as the last portion of the server dataset has been probed.
+     * Each clear value is passed to the consumer only once across all the calls, even if it is matched by multiple
+     * portions, and the calls to the consumer are never concurrent.
+     * This method can be called multiple times with different portions of the server dataset, even concurrently. The
+     * client values are indexed when it is called for the first time, thus the double encrypted client dataset should
+     * have been completely loaded before the first call. The server filter is only used by <code>computePsi</code>.
+     *
+     * @param serverEncryptedDataset a set containing the elements to be probed, which are associated to a portion
+     * @param psiResultConsumer consumer of the elements present both in the server and client datasets
+     */
+    void loadAndProbeServerDataset(Set<String> serverEncryptedDataset, Consumer<String> psiResultConsumer);
+
+    /**
+     * Loads the filter returned by PsiServer.encryptDatasetFilter, which is probed by the <code>computePsi</code>
+     * method together with the values loaded by <code>loadAndProcessServerDataset</code>. Loading a new filter
+     * replaces the previous one. The filter is not copied, thus it should not be modified after being loaded.
+     * This method is only supported by the BS, ECBS and ECBS25519 algorithms.
+     *
+     * This method should be called before calling the <code>computePsi</code> method.
+     *
+     * @param psiServerFilter the filter built by the server with the same algorithm parameter of this client
+     */
+    void loadServerFilter(PsiServerFilter psiServerFilter);
+
     /**
      * Computes the actual PSI calculation by comparing the entries of the double encrypted client dataset with the
      * processed entries loaded from the server dataset.
@@ -66,6 +183,26 @@ public interface PsiClient {
      */
     Set<String> computePsi();
 
+    /**
+     * Asynchronous variant of <code>computePsi</code>, as done by <code>loadAndEncryptClientDatasetAsync</code>.
+     *
+     * @return a CompletableFuture completed with the result of the private set intersection
+     */
+    CompletableFuture<Set<String>> computePsiAsync();
+
+    /**
+     * Shards the intersection computed by the <code>computePsi</code> method. The compared client and server values
+     * are partitioned by their hash into the input number of shards, which are passed concurrently to the input
+     * worker, and the keys returned by the worker for each shard are merged into the result. The result does not
+     * depend on the number of shards.
+     * If a server filter has been loaded, the client values it contains are added to the result without being
+     * sharded, since the filter cannot be partitioned.
+     *
+     * @param shards number of shards, or null to compute the intersection without sharding
+     * @param psiShardWorker worker that computes the intersection of each shard, such as PsiShardWorker.LOCAL
+     */
+    void setShardConfiguration(Integer shards, PsiShardWorker psiShardWorker);
+
     PsiClientKeyDescription getClientKeyDescription();
 
     /**
@@ -80,4 +217,13 @@ public interface PsiClient {
      * @param configuration containing the runtime configuration parameters
      */
     void setConfiguration(PsiThreadConfiguration configuration);
+
+    /**
+     * Releases the working storage of the PsiClient. If the PsiClient has been created with a PsiStorageConfiguration,
+     * the methods that store new values throw a PsiClientException afterwards, and the memory-mapped files of its
+     * working sets are unmapped when they are garbage collected, i.e., once neither the PsiClient nor a thread of one of
+     * its cancelled methods refers to them. It should be called when the PsiClient is no longer needed.
+     */
+    @Override
+    void close();
 }
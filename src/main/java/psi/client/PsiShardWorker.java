@@ -0,0 +1,37 @@
+package psi.client;
+
+import psi.model.PsiShard;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An interface representing the worker that computes the intersection of a single PsiShard, which allows the
+ * sharded intersection of a PsiClient to be distributed. An implementation can either compute the intersection in the
+ * calling thread, as done by LOCAL, or send the shard to a different process (e.g., a local JVM or a remote node)
+ * that computes it with LOCAL and returns the result.
+ * The PsiClient calls the worker concurrently for different shards, thus the implementations should be thread safe.
+ */
+public interface PsiShardWorker {
+
+    /**
+     * Worker that computes the intersection of the shard in the calling thread.
+     */
+    PsiShardWorker LOCAL = psiShard -> {
+        Set<Long> keys = new HashSet<>();
+        for (Map.Entry<Long, String> entry : psiShard.getClientValues().entrySet()) {
+            if (psiShard.getServerValues().contains(entry.getValue()))
+                keys.add(entry.getKey());
+        }
+        return keys;
+    };
+
+    /**
+     * Computes the intersection between the client values and the server values of the shard.
+     *
+     * @param psiShard the shard whose intersection is computed
+     * @return the keys of the client values contained in the server values of the shard
+     */
+    Set<Long> intersect(PsiShard psiShard);
+}
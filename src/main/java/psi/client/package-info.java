@@ -1,5 +1,5 @@
 /**
  * Contains the interface of the PSI client, which provides all the functionalities needed for the client-side
- * PSI computation for all the supported algorithm.
+ * PSI computation for all the supported algorithm, and the interface of the workers of its sharded intersection.
  */
 package psi.client;
\ No newline at end of file
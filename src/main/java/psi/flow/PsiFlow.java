@@ -0,0 +1,71 @@
+package psi.flow;
+
+/**
+ * Interfaces of the Reactive Streams, with the same methods and contract as the ones nested in
+ * java.util.concurrent.Flow and in org.reactivestreams, which are not available on Java 8 without further dependencies.
+ * A Publisher produces elements for a single Subscriber, which receives at most as many elements as it has requested
+ * through its Subscription, thus the elements are never produced faster than they are consumed.
+ * Since the methods are the same, each interface can be adapted to the corresponding one of any Reactive Streams
+ * library by delegating every method.
+ */
+public final class PsiFlow {
+
+    private PsiFlow() {}
+
+    /**
+     * A producer of elements, which are received by the Subscribers according to their demand.
+     *
+     * @param <T> type of the elements
+     */
+    public interface Publisher<T> {
+
+        /**
+         * Adds the subscriber, which is passed its Subscription through onSubscribe.
+         *
+         * @param subscriber the subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of elements. Its methods are called serially, and onNext is called at most as many times as the
+     * number of elements requested through the Subscription.
+     *
+     * @param <T> type of the elements
+     */
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * The link between a Publisher and a Subscriber, which the Subscriber uses to request elements or to cancel the
+     * subscription.
+     */
+    public interface Subscription {
+
+        /**
+         * Requests n further elements, which should be greater than 0.
+         *
+         * @param n number of elements requested
+         */
+        void request(long n);
+
+        void cancel();
+    }
+
+    /**
+     * A stage that is both a Subscriber and a Publisher, which transforms the elements it receives.
+     *
+     * @param <T> type of the elements received
+     * @param <R> type of the elements produced
+     */
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+}
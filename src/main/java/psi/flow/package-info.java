@@ -0,0 +1,5 @@
+/**
+ * Contains the interfaces of the Reactive Streams, which the processors returned by the PsiServer and PsiClient use to
+ * encrypt the datasets as they are received, without buffering them entirely.
+ */
+package psi.flow;
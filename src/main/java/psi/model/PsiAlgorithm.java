@@ -13,8 +13,12 @@ public enum PsiAlgorithm {
 
     DH(2048, 3072, 4096, 8192),
     BS(2048, 3072, 4096, 8192),
+    // The key sizes of ECDH and ECBS select their default curve, unless a PsiEllipticCurve of the same size is set
     ECDH(224, 256, 384, 512),
-    ECBS(224, 256, 384, 512);
+    ECBS(224, 256, 384, 512),
+    // Variants of ECDH and ECBS based on the ristretto255 group, built over Curve25519
+    ECDH25519(256),
+    ECBS25519(256);
 
     private final List<Integer> supportedKeySize;
 
@@ -28,9 +32,19 @@ public enum PsiAlgorithm {
 
     public static List<PsiAlgorithmParameter> getSupportedPsiAlgorithmParameter(){
         List<PsiAlgorithmParameter> psiAlgorithmParameterList = new LinkedList<>();
-        for(PsiAlgorithm psiAlgorithm : PsiAlgorithm.values())
-            for (Integer keySize : psiAlgorithm.getSupportedKeySize())
-                psiAlgorithmParameterList.add(new PsiAlgorithmParameter(psiAlgorithm, keySize));
+        for(PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            // The EC algorithms are listed once for each curve, since a key size can select more than one curve
+            if (psiAlgorithm.equals(ECDH) || psiAlgorithm.equals(ECBS)) {
+                for (PsiEllipticCurve curve : PsiEllipticCurve.values()) {
+                    PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, curve.getKeySize());
+                    psiAlgorithmParameter.setCurve(curve);
+                    psiAlgorithmParameterList.add(psiAlgorithmParameter);
+                }
+            } else {
+                for (Integer keySize : psiAlgorithm.getSupportedKeySize())
+                    psiAlgorithmParameterList.add(new PsiAlgorithmParameter(psiAlgorithm, keySize));
+            }
+        }
         return psiAlgorithmParameterList;
     }
 }
@@ -12,10 +12,27 @@ public class PsiAlgorithmParameter implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Minimum and maximum number of bits of the fingerprints compared during the intersection. The number of bits
+     * should also be a multiple of 8.
+     */
+    public static final int MIN_FINGERPRINT_BITS = 32;
+    public static final int MAX_FINGERPRINT_BITS = 256;
+
     private PsiAlgorithm algorithm;
 
     private Integer keySize;
 
+    // Optional, only used by ECDH and ECBS, whose keySize must match the size of the curve. If null, the default
+    // curve of the keySize is used
+    private PsiEllipticCurve curve;
+
+    // Optional, only used by EC algorithms. If null, PsiHashToCurveMode.TRY_AND_INCREMENT is used
+    private PsiHashToCurveMode hashToCurveMode;
+
+    // Optional. If not null, the values compared during the intersection are replaced by fingerprints of this size
+    private Integer fingerprintBits;
+
     public PsiAlgorithmParameter() {
     }
 
@@ -24,6 +41,12 @@ public class PsiAlgorithmParameter implements Serializable {
         this.keySize = keySize;
     }
 
+    public PsiAlgorithmParameter(PsiAlgorithm algorithm, Integer keySize, PsiHashToCurveMode hashToCurveMode) {
+        this.algorithm = algorithm;
+        this.keySize = keySize;
+        this.hashToCurveMode = hashToCurveMode;
+    }
+
     public PsiAlgorithm getAlgorithm() {
         return algorithm;
     }
@@ -40,18 +63,92 @@ public class PsiAlgorithmParameter implements Serializable {
         this.keySize = keySize;
     }
 
+    public PsiEllipticCurve getCurve() {
+        return curve;
+    }
+
+    public void setCurve(PsiEllipticCurve curve) {
+        this.curve = curve;
+    }
+
+    public PsiHashToCurveMode getHashToCurveMode() {
+        return hashToCurveMode;
+    }
+
+    public void setHashToCurveMode(PsiHashToCurveMode hashToCurveMode) {
+        this.hashToCurveMode = hashToCurveMode;
+    }
+
+    public Integer getFingerprintBits() {
+        return fingerprintBits;
+    }
+
+    public void setFingerprintBits(Integer fingerprintBits) {
+        this.fingerprintBits = fingerprintBits;
+    }
+
+    /**
+     * Checks whether the input value can be used as fingerprintBits.
+     *
+     * @param fingerprintBits number of bits of the fingerprints
+     * @return true if the value is a multiple of 8 between MIN_FINGERPRINT_BITS and MAX_FINGERPRINT_BITS
+     */
+    public static boolean isValidFingerprintBits(Integer fingerprintBits) {
+        return fingerprintBits != null && fingerprintBits % 8 == 0
+                && fingerprintBits >= MIN_FINGERPRINT_BITS && fingerprintBits <= MAX_FINGERPRINT_BITS;
+    }
+
+    /**
+     * Checks whether the input curve can be used with the input algorithm and key size.
+     *
+     * @param algorithm algorithm of the psi session
+     * @param keySize   key size of the psi session
+     * @param curve     curve of the psi session
+     * @return true if the curve is null, or if the algorithm is ECDH or ECBS and the size of the curve is keySize
+     */
+    public static boolean isValidCurve(PsiAlgorithm algorithm, Integer keySize, PsiEllipticCurve curve) {
+        return curve == null || ((algorithm == PsiAlgorithm.ECDH || algorithm == PsiAlgorithm.ECBS)
+                && Integer.valueOf(curve.getKeySize()).equals(keySize));
+    }
+
+    /**
+     * Computes the smallest number of bits of the fingerprints such that the probability of adding to the
+     * intersection at least one client value that is not in the server dataset does not exceed the input
+     * probability. Since each of the client values can collide with each of the server values with probability
+     * 2^-fingerprintBits, this probability is bounded by serverDatasetSize * clientDatasetSize * 2^-fingerprintBits.
+     *
+     * @param serverDatasetSize        expected number of values of the server dataset
+     * @param clientDatasetSize        expected number of values of the client dataset
+     * @param falsePositiveProbability target probability of a false positive, between 0 and 1 (excluded)
+     * @return the number of bits of the fingerprints, rounded up to a multiple of 8 and at least MIN_FINGERPRINT_BITS
+     */
+    public static int computeFingerprintBits(long serverDatasetSize, long clientDatasetSize, double falsePositiveProbability) {
+        if (serverDatasetSize <= 0 || clientDatasetSize <= 0)
+            throw new IllegalArgumentException("'serverDatasetSize' and 'clientDatasetSize' must be greater than 0");
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1))
+            throw new IllegalArgumentException("'falsePositiveProbability' must be between 0 and 1");
+
+        double log2Pairs = (Math.log(serverDatasetSize) + Math.log(clientDatasetSize)) / Math.log(2);
+        int bits = (int) Math.ceil(log2Pairs - Math.log(falsePositiveProbability) / Math.log(2));
+        bits = ((bits + 7) / 8) * 8;
+        return Math.min(MAX_FINGERPRINT_BITS, Math.max(MIN_FINGERPRINT_BITS, bits));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         PsiAlgorithmParameter that = (PsiAlgorithmParameter) o;
         return algorithm == that.algorithm &&
-                Objects.equals(keySize, that.keySize);
+                Objects.equals(keySize, that.keySize) &&
+                curve == that.curve &&
+                hashToCurveMode == that.hashToCurveMode &&
+                Objects.equals(fingerprintBits, that.fingerprintBits);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(algorithm, keySize);
+        return Objects.hash(algorithm, keySize, curve, hashToCurveMode, fingerprintBits);
     }
 
     @Override
@@ -59,6 +156,9 @@ public class PsiAlgorithmParameter implements Serializable {
         return "PsiAlgorithmParameter{" +
                 "algorithm=" + algorithm +
                 ", keySize=" + keySize +
+                (curve != null ? ", curve=" + curve : "") +
+                (hashToCurveMode != null ? ", hashToCurveMode=" + hashToCurveMode : "") +
+                (fingerprintBits != null ? ", fingerprintBits=" + fingerprintBits : "") +
                 '}';
     }
 }
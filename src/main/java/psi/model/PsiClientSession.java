@@ -44,6 +44,9 @@ public class PsiClientSession implements Serializable {
         psiClientSession.psiAlgorithmParameter = new PsiAlgorithmParameter();
         psiClientSession.psiAlgorithmParameter.setAlgorithm((psiServerSession.getPsiAlgorithmParameter().getAlgorithm()));
         psiClientSession.psiAlgorithmParameter.setKeySize(psiServerSession.getPsiAlgorithmParameter().getKeySize());
+        psiClientSession.psiAlgorithmParameter.setCurve(psiServerSession.getPsiAlgorithmParameter().getCurve());
+        psiClientSession.psiAlgorithmParameter.setHashToCurveMode(psiServerSession.getPsiAlgorithmParameter().getHashToCurveMode());
+        psiClientSession.psiAlgorithmParameter.setFingerprintBits(psiServerSession.getPsiAlgorithmParameter().getFingerprintBits());
 
         PsiServerKeyDescription psiServerKeyDesc = psiServerSession.getPsiServerKeyDescription();
         switch(psiServerSession.getPsiAlgorithmParameter().getAlgorithm()) {
@@ -60,11 +63,13 @@ public class PsiClientSession implements Serializable {
                 psiClientSession.generator = psiServerKeyDesc.getGenerator();
                 break;
             case ECBS:
+            case ECBS25519:
                 if (psiServerKeyDesc.getEcPublicQ() == null)
-                    throw new PsiServerException("The field ecPublicQ of psiServerKeyDescription cannot be null for the ECBS algorithm");
+                    throw new PsiServerException("The field ecPublicQ of psiServerKeyDescription cannot be null for the " + psiServerSession.getPsiAlgorithmParameter().getAlgorithm() + " algorithm");
                 psiClientSession.ecServerPublicQ = psiServerKeyDesc.getEcPublicQ();
                 break;
             case ECDH:
+            case ECDH25519:
                 break;
             default:
                 throw new PsiServerException("The algorithm in psiServerSession is unsupported or invalid");
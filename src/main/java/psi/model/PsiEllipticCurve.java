@@ -0,0 +1,45 @@
+package psi.model;
+
+/**
+ * Lists the elliptic curves supported by the ECDH and ECBS algorithms. The curve is selected through the optional
+ * curve field of the PsiAlgorithmParameter, whose keySize must match the size of the curve. If the curve is not set,
+ * the default curve of the keySize is used.
+ */
+public enum PsiEllipticCurve {
+
+    SECP224K1("secp224k1", 224),
+    PRIME256V1("prime256v1", 256),
+    SECP256K1("secp256k1", 256),
+    SECP384R1("secp384r1", 384),
+    // The keySize of secp521r1 is 512, as for the sessions created before the curve could be selected
+    SECP521R1("secp521r1", 512);
+
+    private final String curveName;
+    private final int keySize;
+
+    PsiEllipticCurve(String curveName, int keySize) {
+        this.curveName = curveName;
+        this.keySize = keySize;
+    }
+
+    public String getCurveName() {
+        return curveName;
+    }
+
+    public int getKeySize() {
+        return keySize;
+    }
+
+    /**
+     * Returns the curve used when the PsiAlgorithmParameter selects the input key size without a curve.
+     *
+     * @param keySize key size of the ECDH or ECBS session
+     * @return the first curve of this enum with the input key size, or null if no curve has this size
+     */
+    public static PsiEllipticCurve getDefault(Integer keySize) {
+        for (PsiEllipticCurve curve : values())
+            if (keySize != null && curve.keySize == keySize)
+                return curve;
+        return null;
+    }
+}
@@ -0,0 +1,66 @@
+package psi.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lists the supported methods used by the ECDH and ECBS algorithms to map the input values to points of the elliptic
+ * curve. Both parties should use the same method, thus it is part of the PsiAlgorithmParameter.
+ * The ECDH25519 and ECBS25519 algorithms always use the hash to group function of ristretto255, thus they do not
+ * accept any mode.
+ */
+public enum PsiHashToCurveMode {
+
+    /**
+     * Default method, which searches a valid x coordinate starting from the input value. Its cost depends on the
+     * input value and it only accepts input values smaller than the prime of the curve.
+     */
+    TRY_AND_INCREMENT(Arrays.asList(PsiAlgorithm.ECDH, PsiAlgorithm.ECBS), Collections.emptyList()),
+
+    /**
+     * Hash to curve based on the simplified SWU map, as defined by RFC 9380 for the P256, P384 and P521 suites
+     * (hash_to_curve with expand_message_xmd). Its cost is constant and it accepts input values of any size.
+     * It is supported by the ECDH and ECBS algorithms on the curves prime256v1, secp384r1 and secp521r1.
+     */
+    SSWU(Arrays.asList(PsiAlgorithm.ECDH, PsiAlgorithm.ECBS),
+            Arrays.asList(PsiEllipticCurve.PRIME256V1, PsiEllipticCurve.SECP384R1, PsiEllipticCurve.SECP521R1));
+
+    private final List<PsiAlgorithm> supportedAlgorithms;
+
+    // An empty list means that all the curves of the supported algorithms are supported
+    private final List<PsiEllipticCurve> supportedCurves;
+
+    PsiHashToCurveMode(List<PsiAlgorithm> supportedAlgorithms, List<PsiEllipticCurve> supportedCurves) {
+        this.supportedAlgorithms = supportedAlgorithms;
+        this.supportedCurves = supportedCurves;
+    }
+
+    /**
+     * Checks whether this mode can be used with the input algorithm and the default curve of the input key size.
+     *
+     * @param psiAlgorithm algorithm of the psi session
+     * @param keySize      key size of the psi session
+     * @return true if the mode is supported, false otherwise
+     */
+    public boolean isSupported(PsiAlgorithm psiAlgorithm, Integer keySize) {
+        return isSupported(psiAlgorithm, keySize, null);
+    }
+
+    /**
+     * Checks whether this mode can be used with the input algorithm, key size and curve.
+     *
+     * @param psiAlgorithm algorithm of the psi session
+     * @param keySize      key size of the psi session
+     * @param curve        curve of the psi session. If null, the default curve of the key size is used
+     * @return true if the mode is supported, false otherwise
+     */
+    public boolean isSupported(PsiAlgorithm psiAlgorithm, Integer keySize, PsiEllipticCurve curve) {
+        if (!this.supportedAlgorithms.contains(psiAlgorithm))
+            return false;
+        if (curve == null)
+            curve = PsiEllipticCurve.getDefault(keySize);
+        return curve != null && Integer.valueOf(curve.getKeySize()).equals(keySize)
+                && (this.supportedCurves.isEmpty() || this.supportedCurves.contains(curve));
+    }
+}
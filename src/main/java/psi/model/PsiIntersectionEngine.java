@@ -0,0 +1,26 @@
+package psi.model;
+
+/**
+ * Lists the methods that can be used by the PsiClient to compare the client values with the server values during the
+ * computePsi method. Both methods return the same result, thus the choice only affects the performance. The method is
+ * configured through the PsiThreadConfiguration.
+ */
+public enum PsiIntersectionEngine {
+
+    /**
+     * Default method, which inserts the server values in a hash table and probes it with each client value.
+     * It is the fastest method when the server dataset is small or much smaller than the client dataset.
+     */
+    HASH_PROBE,
+
+    /**
+     * Sorts the hashes of the client values and those of the server values and merges the two sorted arrays on
+     * multiple threads. It does not build any hash table and accesses the memory sequentially, which makes it faster
+     * when both datasets are large and of similar size.
+     * If the memoryBudgetBytes of the PsiThreadConfiguration is set, the hashes are sorted in runs that fit in the
+     * budget, which are written to temporary files and merged from disk, so that the datasets can exceed the memory.
+     * The filters loaded through PsiClient.loadServerFilter are always probed, thus this method is ignored when a
+     * filter is loaded.
+     */
+    SORT_MERGE
+}
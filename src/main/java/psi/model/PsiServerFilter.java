@@ -0,0 +1,78 @@
+package psi.model;
+
+import java.io.Serializable;
+
+/**
+ * Compact representation of the encrypted server dataset, returned by PsiServer.encryptDatasetFilter in place of the
+ * set of encrypted values. It is a Bloom filter that contains all the encrypted values: the client can check whether
+ * a value belongs to the server dataset, with a configurable probability of false positives, while only storing a
+ * few bits for each server value.
+ * Since it only depends on the server dataset and on the key of the server, it can be stored and sent to all the
+ * clients of sessions that use the same key.
+ */
+public class PsiServerFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Algorithm parameter of the session that produced the filter, which should match the one of the client
+    private PsiAlgorithmParameter psiAlgorithmParameter;
+
+    private Long numBits;
+
+    private Integer numHashFunctions;
+
+    // Bits of the filter, with bit i stored in position i % 64 of the element i / 64
+    private long[] bitArray;
+
+    public PsiServerFilter() {
+    }
+
+    public PsiServerFilter(PsiAlgorithmParameter psiAlgorithmParameter, Long numBits, Integer numHashFunctions, long[] bitArray) {
+        this.psiAlgorithmParameter = psiAlgorithmParameter;
+        this.numBits = numBits;
+        this.numHashFunctions = numHashFunctions;
+        this.bitArray = bitArray;
+    }
+
+    public PsiAlgorithmParameter getPsiAlgorithmParameter() {
+        return psiAlgorithmParameter;
+    }
+
+    public void setPsiAlgorithmParameter(PsiAlgorithmParameter psiAlgorithmParameter) {
+        this.psiAlgorithmParameter = psiAlgorithmParameter;
+    }
+
+    public Long getNumBits() {
+        return numBits;
+    }
+
+    public void setNumBits(Long numBits) {
+        this.numBits = numBits;
+    }
+
+    public Integer getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    public void setNumHashFunctions(Integer numHashFunctions) {
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    // The array is not copied, since it can be very large
+    public long[] getBitArray() {
+        return bitArray;
+    }
+
+    public void setBitArray(long[] bitArray) {
+        this.bitArray = bitArray;
+    }
+
+    @Override
+    public String toString() {
+        return "PsiServerFilter{" +
+                "psiAlgorithmParameter=" + psiAlgorithmParameter +
+                ", numBits=" + numBits +
+                ", numHashFunctions=" + numHashFunctions +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package psi.model;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Portion of the intersection computed by a PsiClient whose intersection is sharded (see
+ * PsiClient.setShardConfiguration). The values compared by the client, i.e., its double encrypted (or reversed) values
+ * and the server values, are partitioned into the shards by the hash of their String representation, thus equal values
+ * always belong to the same shard and each shard can be intersected independently from the others.
+ * The shard only contains encrypted values (or their fingerprints) and the keys assigned by the client to its entries,
+ * thus it can be sent to a different process that computes its intersection.
+ */
+public class PsiShard implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Index of the shard, between 0 and shards - 1
+    private Integer shardIndex;
+
+    private Integer shards;
+
+    // Values of the client entries belonging to the shard, identified by the key assigned by the client
+    private Map<Long, String> clientValues;
+
+    // Values of the server dataset belonging to the shard
+    private Set<String> serverValues;
+
+    public PsiShard() {
+    }
+
+    public PsiShard(Integer shardIndex, Integer shards, Map<Long, String> clientValues, Set<String> serverValues) {
+        this.shardIndex = shardIndex;
+        this.shards = shards;
+        this.clientValues = clientValues;
+        this.serverValues = serverValues;
+    }
+
+    public Integer getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(Integer shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public Integer getShards() {
+        return shards;
+    }
+
+    public void setShards(Integer shards) {
+        this.shards = shards;
+    }
+
+    public Map<Long, String> getClientValues() {
+        return clientValues;
+    }
+
+    public void setClientValues(Map<Long, String> clientValues) {
+        this.clientValues = clientValues;
+    }
+
+    public Set<String> getServerValues() {
+        return serverValues;
+    }
+
+    public void setServerValues(Set<String> serverValues) {
+        this.serverValues = serverValues;
+    }
+
+    @Override
+    public String toString() {
+        return "PsiShard{" +
+                "shardIndex=" + shardIndex +
+                ", shards=" + shards +
+                ", clientValues=" + (clientValues != null ? clientValues.size() : null) +
+                ", serverValues=" + (serverValues != null ? serverValues.size() : null) +
+                '}';
+    }
+}
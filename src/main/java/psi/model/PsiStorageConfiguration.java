@@ -0,0 +1,40 @@
+package psi.model;
+
+import java.io.Serializable;
+
+/**
+ * Configuration object that can be passed to PsiClientFactory.loadSession to store the working sets of the PsiClient
+ * (i.e., the client values of the different phases and the server values loaded for the intersection) in
+ * memory-mapped files instead of the heap. The files are created in the scratch directory and are paged in and out by
+ * the operating system, thus the size of the datasets is not limited by the size of the heap.
+ * The sorted arrays used by the PsiIntersectionEngine.SORT_MERGE engine are still allocated on the heap.
+ */
+public class PsiStorageConfiguration implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Existing directory where the files are created. If null, the default temporary directory is used
+    private String scratchDirectory;
+
+    public PsiStorageConfiguration() {
+    }
+
+    public PsiStorageConfiguration(String scratchDirectory) {
+        this.scratchDirectory = scratchDirectory;
+    }
+
+    public String getScratchDirectory() {
+        return scratchDirectory;
+    }
+
+    public void setScratchDirectory(String scratchDirectory) {
+        this.scratchDirectory = scratchDirectory;
+    }
+
+    @Override
+    public String toString() {
+        return "PsiStorageConfiguration{" +
+                "scratchDirectory='" + scratchDirectory + '\'' +
+                '}';
+    }
+}
@@ -1,10 +1,16 @@
 package psi.model;
 
 import java.io.Serializable;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Configuration object that can be used to configure the number of threads and max thread lifetime for PSI
- * calculations.
+ * calculations, as well as the method used by the PsiClient to compute the intersection and the memory it can use.
+ * The threads of each method are run by a long-lived executor, which can be shared by multiple PsiServer and PsiClient
+ * objects: the number of threads configured here is the number of portions in which each method splits the data.
+ * On Java 21 or later, the threads can be virtual threads: in this case the number of threads can be much higher than
+ * the available processors, so that many calls to a remote PsiCacheProvider are waited at once, while the encryptions
+ * are still computed by at most as many threads as the available processors.
  */
 public class PsiThreadConfiguration implements Serializable {
 
@@ -14,6 +20,27 @@ public class PsiThreadConfiguration implements Serializable {
 
     private Integer threadTimeoutSeconds = null;
 
+    // Only used by the PsiClient. If null, PsiIntersectionEngine.HASH_PROBE is used
+    private PsiIntersectionEngine intersectionEngine = null;
+
+    // Only used by the PsiClient with PsiIntersectionEngine.SORT_MERGE. If not null, the values are sorted in runs
+    // written to temporary files, so that the sorted values held in memory do not exceed this number of bytes
+    private Long memoryBudgetBytes = null;
+
+    // Long-lived executor that runs the threads of each method, which is not shut down by the PsiServer or PsiClient.
+    // If null, an executor shared by all the objects of this SDK is used. It is not serialized
+    private transient ExecutorService executorService = null;
+
+    // Executor that runs the methods called through the asynchronous variants (e.g., computePsiAsync), whose threads
+    // wait for the phases run by the executorService, thus it should not be the same executor. If null, a bounded
+    // executor shared by all the objects of this SDK is used. It is not serialized
+    private transient ExecutorService asyncExecutorService = null;
+
+    // If true, the threads of each method, and those of the asynchronous variants, are virtual threads, unless the
+    // corresponding executor is set. Requires Java 21 or later, otherwise the PsiServer and PsiClient reject the
+    // configuration
+    private Boolean virtualThreads = null;
+
     public PsiThreadConfiguration(Integer threads) {
         this.threads = threads;
     }
@@ -23,6 +50,12 @@ public class PsiThreadConfiguration implements Serializable {
         this.threadTimeoutSeconds = threadTimeoutSeconds;
     }
 
+    public PsiThreadConfiguration(Integer threads, Integer threadTimeoutSeconds, PsiIntersectionEngine intersectionEngine) {
+        this.threads = threads;
+        this.threadTimeoutSeconds = threadTimeoutSeconds;
+        this.intersectionEngine = intersectionEngine;
+    }
+
     public Integer getThreads() {
         return threads;
     }
@@ -38,4 +71,44 @@ public class PsiThreadConfiguration implements Serializable {
     public void setThreadTimeoutSeconds(Integer threadTimeoutSeconds) {
         this.threadTimeoutSeconds = threadTimeoutSeconds;
     }
+
+    public PsiIntersectionEngine getIntersectionEngine() {
+        return intersectionEngine;
+    }
+
+    public void setIntersectionEngine(PsiIntersectionEngine intersectionEngine) {
+        this.intersectionEngine = intersectionEngine;
+    }
+
+    public Long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    public void setMemoryBudgetBytes(Long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    public ExecutorService getAsyncExecutorService() {
+        return asyncExecutorService;
+    }
+
+    public void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
+    }
+
+    public Boolean getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(Boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
 }
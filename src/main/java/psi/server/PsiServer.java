@@ -2,13 +2,19 @@ package psi.server;
 
 import psi.PsiServerKeyDescription;
 import psi.cache.PsiCacheProvider;
+import psi.flow.PsiFlow;
 import psi.model.PsiPhaseStatistics;
+import psi.model.PsiServerFilter;
 import psi.model.PsiServerSession;
 import psi.model.PsiThreadConfiguration;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Interface that provides the methods that perform the server-side computation of the PSI for all the supported algorithms.
@@ -21,12 +27,50 @@ public interface PsiServer {
 
     /**
      * Encrypts and returns the input element set. This should be called to encrypt the clear server dataset.
+     * If the fingerprintBits of the PsiAlgorithmParameter is set, the BS, ECBS and ECBS25519 algorithms return
+     * fingerprints of fingerprintBits / 8 characters in place of the encrypted elements.
      *
      * @param inputSet set of elements to be encrypted by the server
      * @return a Set containing the encrypted input dataset
      */
     Set<String> encryptDataset(Set<String> inputSet);
 
+    /**
+     * Encrypts the elements returned by the input iterator in chunks of at most chunkSize elements, each of which is
+     * passed to the consumer as soon as it has been encrypted, as returned by <code>encryptDataset</code>. Only one
+     * chunk is kept in memory at any time, thus the memory used does not depend on the size of the input.
+     * Duplicated elements are only removed within the same chunk.
+     *
+     * @param inputIterator          iterator over the elements to be encrypted by the server
+     * @param chunkSize              maximum number of elements of each chunk, should be greater than 0
+     * @param encryptedChunkConsumer consumer called with each encrypted chunk, in the calling thread
+     */
+    void encryptDataset(Iterator<String> inputIterator, int chunkSize, Consumer<Set<String>> encryptedChunkConsumer);
+
+    /**
+     * Encrypts the elements of the input stream in chunks, as done by the <code>encryptDataset</code> method that
+     * takes an iterator. The stream is consumed but not closed.
+     *
+     * @param inputStream            stream of the elements to be encrypted by the server
+     * @param chunkSize              maximum number of elements of each chunk, should be greater than 0
+     * @param encryptedChunkConsumer consumer called with each encrypted chunk, in the calling thread
+     */
+    void encryptDataset(Stream<String> inputStream, int chunkSize, Consumer<Set<String>> encryptedChunkConsumer);
+
+    /**
+     * Encrypts the input element set and returns it as a filter, which is much smaller than the set returned by
+     * <code>encryptDataset</code> but reports values that are not in the set as contained with probability
+     * falsePositiveProbability. This is useful when the server dataset is much larger than the client one.
+     * The filter only depends on the input set and on the key of the server, thus it can be reused by all the
+     * sessions with the same key. It is only supported by the BS, ECBS and ECBS25519 algorithms, since the
+     * encrypted server dataset of the other algorithms has to be encrypted again by the client.
+     *
+     * @param inputSet                 set of elements to be encrypted by the server
+     * @param falsePositiveProbability probability of false positives of the filter, between 0 and 1 (excluded)
+     * @return a PsiServerFilter containing the encrypted input dataset, to be loaded by PsiClient.loadServerFilter
+     */
+    PsiServerFilter encryptDatasetFilter(Set<String> inputSet, double falsePositiveProbability);
+
     /**
      * Encrypts and returns the set of values contained into the input map. It is used to encrypt the client dataset,
      * previously encrypted by the client itself. The keys of the map are identifiers that link together
@@ -38,6 +82,46 @@ public interface PsiServer {
      */
     Map<Long, String> encryptDatasetMap(Map<Long, String> encryptedDatasetMap);
 
+    /**
+     * Asynchronous variant of <code>encryptDataset</code>, which returns immediately without waiting for the threads
+     * of the method. The returned CompletableFuture is completed exceptionally if any of the threads fails or times
+     * out. If it is cancelled, the encryption is stopped.
+     *
+     * @param inputSet set of elements to be encrypted by the server
+     * @return a CompletableFuture completed with the Set containing the encrypted input dataset
+     */
+    CompletableFuture<Set<String>> encryptDatasetAsync(Set<String> inputSet);
+
+    /**
+     * Asynchronous variant of <code>encryptDatasetMap</code>, as done by <code>encryptDatasetAsync</code>.
+     *
+     * @param encryptedDatasetMap a map which values must be encrypted by the server
+     * @return a CompletableFuture completed with the Map returned by <code>encryptDatasetMap</code>
+     */
+    CompletableFuture<Map<Long, String>> encryptDatasetMapAsync(Map<Long, String> encryptedDatasetMap);
+
+    /**
+     * Returns a processor that encrypts the elements received from the Publisher it is subscribed to, as done by
+     * <code>encryptDataset</code>, and passes the encrypted elements to its Subscriber as soon as they are ready.
+     * The elements are requested in batches of batchSize elements, each of which is encrypted by the threads of this
+     * object while the following one is received, and no further batch is encrypted while the Subscriber has not
+     * requested the encrypted elements of the previous ones, thus the memory used does not depend on the size of the
+     * dataset. Duplicated elements are only removed within the same batch.
+     *
+     * @param batchSize number of elements encrypted together, should be greater than 0
+     * @return a new processor, which can be subscribed to a single Publisher and by a single Subscriber
+     */
+    PsiFlow.Processor<String, String> encryptDatasetProcessor(int batchSize);
+
+    /**
+     * Returns a processor that encrypts the entries received from the Publisher it is subscribed to, as done by
+     * <code>encryptDatasetMap</code>, in batches, as done by <code>encryptDatasetProcessor</code>.
+     *
+     * @param batchSize number of entries encrypted together, should be greater than 0
+     * @return a new processor, which can be subscribed to a single Publisher and by a single Subscriber
+     */
+    PsiFlow.Processor<Map.Entry<Long, String>, Map.Entry<Long, String>> encryptDatasetMapProcessor(int batchSize);
+
     int getThreads();
 
     PsiServerSession getServerSession();
@@ -49,7 +133,7 @@ public interface PsiServer {
 
     /**
      * Retrieves the statistics associated to the different phases of the PSI calculation performed by this object.
-     * @return a list containing a different PsiPhaseStatistics for each encryption phase
+     * @return a copy of the list containing a different PsiPhaseStatistics for each encryption phase
      */
     List<PsiPhaseStatistics> getStatisticList();
 
@@ -0,0 +1,33 @@
+package psi;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Gives access to the virtual threads of Java 21, used when virtualThreads is set in the PsiThreadConfiguration.
+ * This version is loaded from META-INF/versions/21 by the JVMs that support them, in place of the one compiled for
+ * Java 8.
+ */
+class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    // The executor does not own any thread, thus a single one is shared by all the objects and never shut down
+    private static class ExecutorHolder {
+        private static final ExecutorService VIRTUAL_THREAD_EXECUTOR_SERVICE = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("psi-virtual-thread").factory());
+    }
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    // Returns the executor that runs each task in a new virtual thread
+    static ExecutorService getExecutorService() {
+        return ExecutorHolder.VIRTUAL_THREAD_EXECUTOR_SERVICE;
+    }
+
+    static boolean isVirtual(Thread thread) {
+        return thread.isVirtual();
+    }
+}
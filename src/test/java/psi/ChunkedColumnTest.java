@@ -0,0 +1,91 @@
+package psi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class that verifies that the ChunkedColumn behaves as a Map addressed by the keys of the client entries, with
+ * both the heap and the memory-mapped WorkingStorage.
+ */
+class ChunkedColumnTest {
+
+    // Value of up to 4 bytes derived from the key, which is empty for the multiples of 5
+    private static byte[] keyBytes(long key) {
+        byte[] value = new byte[(int) (key % 5)];
+        Arrays.fill(value, (byte) key);
+        return value;
+    }
+
+    // Value derived from the key, which spans multiple pages of the OfVariableBytes column for some keys
+    private static byte[] variableKeyBytes(long key) {
+        byte[] value = new byte[key % 10000 == 1 ? 1500000 : (int) (key % 97)];
+        Arrays.fill(value, (byte) key);
+        return value;
+    }
+
+    @Test
+    void putAndGetTest(@TempDir File scratchDirectory) throws InterruptedException {
+        // The keys around the boundaries of the growing chunks and of the first fixed-size chunks
+        for (long key = 1; key <= 300000; key++) {
+            int chunkIndex = ChunkedColumn.chunkIndex(key);
+            int chunkOffset = ChunkedColumn.chunkOffset(key);
+            assertTrue(chunkOffset >= 0 && chunkOffset < ChunkedColumn.chunkSize(chunkIndex));
+            if (key > 1 && chunkOffset > 0) {
+                assertEquals(ChunkedColumn.chunkIndex(key - 1), chunkIndex);
+                assertEquals(ChunkedColumn.chunkOffset(key - 1) + 1, chunkOffset);
+            }
+            else if (key > 1) {
+                assertEquals(ChunkedColumn.chunkIndex(key - 1) + 1, chunkIndex);
+                assertEquals(ChunkedColumn.chunkSize(chunkIndex - 1) - 1, ChunkedColumn.chunkOffset(key - 1));
+            }
+        }
+        assertEquals(0, ChunkedColumn.chunkIndex(1));
+        assertEquals(256, ChunkedColumn.chunkSize(0));
+        assertEquals(65536, ChunkedColumn.chunkSize(ChunkedColumn.chunkIndex(ChunkedColumn.MAX_KEY)));
+
+        putAndGet(WorkingStorage.HEAP);
+        WorkingStorage workingStorage = WorkingStorage.memoryMapped(scratchDirectory);
+        putAndGet(workingStorage);
+        workingStorage.close();
+    }
+
+    private void putAndGet(WorkingStorage workingStorage) throws InterruptedException {
+        ChunkedColumn.OfBytes bytesColumn = new ChunkedColumn.OfBytes(workingStorage, 4);
+        ChunkedColumn.OfVariableBytes variableBytesColumn = new ChunkedColumn.OfVariableBytes(workingStorage);
+        // Values with different keys are written concurrently, so that the chunks are allocated by multiple threads
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (long key = 1 + offset; key <= 200000; key += threads.length) {
+                    if (key % 7 != 0)
+                        bytesColumn.put(key, keyBytes(key));
+                    if (key % 11 != 0)
+                        variableBytesColumn.put(key, variableKeyBytes(key));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        for (long key = 1; key <= 200000; key++) {
+            if (key % 7 == 0)
+                assertNull(bytesColumn.get(key));
+            else
+                assertArrayEquals(keyBytes(key), bytesColumn.get(key));
+            if (key % 11 == 0)
+                assertNull(variableBytesColumn.get(key));
+            else
+                assertArrayEquals(variableKeyBytes(key), variableBytesColumn.get(key));
+        }
+        assertNull(bytesColumn.get(ChunkedColumn.MAX_KEY));
+        assertNull(variableBytesColumn.get(ChunkedColumn.MAX_KEY));
+        assertThrows(IllegalArgumentException.class, () -> bytesColumn.put(1, new byte[5]));
+        assertThrows(IllegalArgumentException.class, () -> bytesColumn.get(0));
+    }
+}
@@ -1,18 +1,49 @@
 package psi;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import psi.cache.PsiCacheProvider;
 import psi.client.PsiClient;
+import psi.client.PsiShardWorker;
+import psi.exception.CustomRuntimeException;
+import psi.exception.PsiClientException;
+import psi.exception.PsiServerException;
+import psi.exception.PsiServerInitException;
 import psi.exception.UnsupportedKeySizeException;
 import psi.exception.UnsupportedKeySizeRuntimeException;
+import psi.flow.PsiFlow;
 import psi.model.PsiAlgorithm;
 import psi.model.PsiAlgorithmParameter;
 import psi.model.PsiClientSession;
+import psi.model.PsiEllipticCurve;
+import psi.model.PsiHashToCurveMode;
+import psi.model.PsiIntersectionEngine;
+import psi.model.PsiServerFilter;
 import psi.model.PsiServerSession;
+import psi.model.PsiShard;
+import psi.model.PsiStorageConfiguration;
+import psi.model.PsiThreadConfiguration;
 import psi.server.PsiServer;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -65,7 +96,7 @@ class ClientServerBasicTest {
         initDatasets(serverSize, clientSize, intersectionSize);
 
         List<PsiAlgorithmParameter> supportedPsiAlgorithmParameter = PsiAlgorithm.getSupportedPsiAlgorithmParameter();
-        assertEquals(16, supportedPsiAlgorithmParameter.size());
+        assertEquals(20, supportedPsiAlgorithmParameter.size());
 
         for (PsiAlgorithmParameter psiAlgorithmParameter : supportedPsiAlgorithmParameter) {
             log.info("Running client-server basic test with {}", psiAlgorithmParameter);
@@ -90,6 +121,707 @@ class ClientServerBasicTest {
         }
     }
 
+    @Test
+    void computePsiWithPrecomputedBlindingFactors() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        List<PsiAlgorithmParameter> psiAlgorithmParameters = new LinkedList<>();
+        psiAlgorithmParameters.add(new PsiAlgorithmParameter(PsiAlgorithm.BS, 2048));
+        psiAlgorithmParameters.add(new PsiAlgorithmParameter(PsiAlgorithm.DH, 2048));
+        psiAlgorithmParameters.add(new PsiAlgorithmParameter(PsiAlgorithm.ECBS, 256));
+        psiAlgorithmParameters.add(new PsiAlgorithmParameter(PsiAlgorithm.ECDH, 256));
+        psiAlgorithmParameters.add(new PsiAlgorithmParameter(PsiAlgorithm.ECBS25519, 256));
+
+        for (PsiAlgorithmParameter psiAlgorithmParameter : psiAlgorithmParameters) {
+            log.info("Running client-server precomputed blinding factors test with {}", psiAlgorithmParameter);
+            initServerAndClient(psiAlgorithmParameter);
+            assertThrows(IllegalArgumentException.class, () -> this.psiClient.precomputeBlindingFactors(0));
+            // Only part of the blinding factors is precomputed, the remaining ones are computed inline
+            this.psiClient.precomputeBlindingFactors((int) clientSize / 2);
+
+            PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+            Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+            this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+            this.psiClient.loadAndProcessServerDataset(psiServer.encryptDataset(this.serverDataset));
+
+            Set<String> psiResult = this.psiClient.computePsi();
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+        }
+    }
+
+    @Test
+    void computePsiWithHashToCurveMode() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        for (PsiAlgorithmParameter psiAlgorithmParameter : PsiAlgorithm.getSupportedPsiAlgorithmParameter()) {
+            psiAlgorithmParameter.setHashToCurveMode(PsiHashToCurveMode.SSWU);
+            if (!PsiHashToCurveMode.SSWU.isSupported(psiAlgorithmParameter.getAlgorithm(), psiAlgorithmParameter.getKeySize(), psiAlgorithmParameter.getCurve())) {
+                assertThrows(PsiServerInitException.class, () -> PsiServerFactory.initSession(psiAlgorithmParameter));
+                continue;
+            }
+            log.info("Running client-server hash to curve test with {}", psiAlgorithmParameter);
+            initServerAndClient(psiAlgorithmParameter);
+            assertEquals(PsiHashToCurveMode.SSWU, PsiClientSession.getFromServerSession(this.psiServerSession).getPsiAlgorithmParameter().getHashToCurveMode());
+            assertEquals(psiAlgorithmParameter.getCurve(), PsiClientSession.getFromServerSession(this.psiServerSession).getPsiAlgorithmParameter().getCurve());
+
+            PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+            Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+            this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+            this.psiClient.loadAndProcessServerDataset(psiServer.encryptDataset(this.serverDataset));
+
+            Set<String> psiResult = this.psiClient.computePsi();
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+        }
+
+        PsiAlgorithmParameter koblitzPsiAlgorithmParameter = new PsiAlgorithmParameter(PsiAlgorithm.ECBS, 256, PsiHashToCurveMode.SSWU);
+        koblitzPsiAlgorithmParameter.setCurve(PsiEllipticCurve.SECP256K1);
+        assertThrows(PsiServerInitException.class, () -> PsiServerFactory.initSession(koblitzPsiAlgorithmParameter));
+        PsiAlgorithmParameter mismatchedPsiAlgorithmParameter = new PsiAlgorithmParameter(PsiAlgorithm.ECDH, 384);
+        mismatchedPsiAlgorithmParameter.setCurve(PsiEllipticCurve.SECP256K1);
+        assertThrows(PsiServerInitException.class, () -> PsiServerFactory.initSession(mismatchedPsiAlgorithmParameter));
+        PsiAlgorithmParameter dhPsiAlgorithmParameter = new PsiAlgorithmParameter(PsiAlgorithm.DH, 2048);
+        dhPsiAlgorithmParameter.setCurve(PsiEllipticCurve.PRIME256V1);
+        assertThrows(PsiServerInitException.class, () -> PsiServerFactory.initSession(dhPsiAlgorithmParameter));
+    }
+
+    @Test
+    void computePsiWithFingerprints() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        for (PsiAlgorithmParameter psiAlgorithmParameter : PsiAlgorithm.getSupportedPsiAlgorithmParameter()) {
+            psiAlgorithmParameter.setFingerprintBits(64);
+            log.info("Running client-server fingerprint test with {}", psiAlgorithmParameter);
+            initServerAndClient(psiAlgorithmParameter);
+
+            PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+            Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+            this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+            Set<String> serverEncryptedDataset = psiServer.encryptDataset(this.serverDataset);
+            assertEquals(serverSize, serverEncryptedDataset.size());
+            // The algorithms based on blind signatures only return the fingerprints of the server dataset
+            PsiAlgorithm psiAlgorithm = psiAlgorithmParameter.getAlgorithm();
+            if (psiAlgorithm == PsiAlgorithm.BS || psiAlgorithm == PsiAlgorithm.ECBS || psiAlgorithm == PsiAlgorithm.ECBS25519)
+                serverEncryptedDataset.forEach(fingerprint -> assertEquals(8, fingerprint.length()));
+            this.psiClient.loadAndProcessServerDataset(serverEncryptedDataset);
+
+            Set<String> psiResult = this.psiClient.computePsi();
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+        }
+
+        PsiAlgorithmParameter invalidPsiAlgorithmParameter = new PsiAlgorithmParameter(PsiAlgorithm.ECDH, 256);
+        invalidPsiAlgorithmParameter.setFingerprintBits(60);
+        assertThrows(PsiServerInitException.class, () -> PsiServerFactory.initSession(invalidPsiAlgorithmParameter));
+
+        assertEquals(72, PsiAlgorithmParameter.computeFingerprintBits(100_000_000, 1_000_000, 1e-6));
+        assertEquals(PsiAlgorithmParameter.MIN_FINGERPRINT_BITS, PsiAlgorithmParameter.computeFingerprintBits(10, 10, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> PsiAlgorithmParameter.computeFingerprintBits(10, 10, 1));
+    }
+
+    @Test
+    void computePsiWithServerFilter() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        List<PsiAlgorithmParameter> psiAlgorithmParameters = new LinkedList<>();
+        psiAlgorithmParameters.add(new PsiAlgorithmParameter(PsiAlgorithm.BS, 2048));
+        psiAlgorithmParameters.add(new PsiAlgorithmParameter(PsiAlgorithm.ECBS, 256));
+        psiAlgorithmParameters.add(new PsiAlgorithmParameter(PsiAlgorithm.ECBS25519, 256));
+        PsiAlgorithmParameter fingerprintPsiAlgorithmParameter = new PsiAlgorithmParameter(PsiAlgorithm.ECBS, 384);
+        fingerprintPsiAlgorithmParameter.setFingerprintBits(64);
+        psiAlgorithmParameters.add(fingerprintPsiAlgorithmParameter);
+
+        for (PsiAlgorithmParameter psiAlgorithmParameter : psiAlgorithmParameters) {
+            log.info("Running client-server filter test with {}", psiAlgorithmParameter);
+            initServerAndClient(psiAlgorithmParameter);
+
+            PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+            Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+            this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+            PsiServerFilter psiServerFilter = psiServer.encryptDatasetFilter(this.serverDataset, 1e-6);
+            assertEquals(psiAlgorithmParameter, psiServerFilter.getPsiAlgorithmParameter());
+            this.psiClient.loadServerFilter(psiServerFilter);
+
+            Set<String> psiResult = this.psiClient.computePsi();
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+        }
+
+        // The filter cannot be used by algorithms that encrypt again the server dataset on the client side
+        initServerAndClient(new PsiAlgorithmParameter(PsiAlgorithm.ECDH, 256));
+        PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+        assertThrows(PsiServerException.class, () -> psiServer.encryptDatasetFilter(this.serverDataset, 1e-6));
+        assertThrows(PsiClientException.class, () -> this.psiClient.loadServerFilter(new PsiServerFilter()));
+    }
+
+    @Test
+    void computePsiWithSortMergeEngine() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        List<PsiAlgorithmParameter> psiAlgorithmParameters = new LinkedList<>();
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            psiAlgorithmParameters.add(new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0)));
+            PsiAlgorithmParameter fingerprintPsiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+            fingerprintPsiAlgorithmParameter.setFingerprintBits(32);
+            psiAlgorithmParameters.add(fingerprintPsiAlgorithmParameter);
+        }
+
+        for (PsiAlgorithmParameter psiAlgorithmParameter : psiAlgorithmParameters) {
+            // Without a memory budget the values are sorted in memory, otherwise they are sorted in runs on disk
+            for (Long memoryBudgetBytes : new Long[]{null, 1L}) {
+                log.info("Running client-server sort-merge test with {} and memoryBudgetBytes {}", psiAlgorithmParameter, memoryBudgetBytes);
+                initServerAndClient(psiAlgorithmParameter);
+                PsiThreadConfiguration psiThreadConfiguration = new PsiThreadConfiguration(3, null, PsiIntersectionEngine.SORT_MERGE);
+                psiThreadConfiguration.setMemoryBudgetBytes(memoryBudgetBytes);
+                this.psiClient.setConfiguration(psiThreadConfiguration);
+
+                PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+                Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+                this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+                // The server dataset is loaded twice, so that each server value is contained twice in the merged array
+                Set<String> serverEncryptedDataset = psiServer.encryptDataset(this.serverDataset);
+                this.psiClient.loadAndProcessServerDataset(serverEncryptedDataset);
+                this.psiClient.loadAndProcessServerDataset(serverEncryptedDataset);
+
+                Set<String> psiResult = this.psiClient.computePsi();
+                assertEquals(intersectionSize, psiResult.size());
+                assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+            }
+        }
+    }
+
+    @Test
+    void computePsiWithMemoryMappedStorage(@TempDir File scratchDirectory) throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        PsiStorageConfiguration psiStorageConfiguration = new PsiStorageConfiguration(scratchDirectory.getPath());
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            for (PsiIntersectionEngine psiIntersectionEngine : PsiIntersectionEngine.values()) {
+                PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+                log.info("Running client-server memory-mapped storage test with {} and {}", psiAlgorithmParameter, psiIntersectionEngine);
+                this.psiServerSession = PsiServerFactory.initSession(psiAlgorithmParameter);
+                this.psiClient = PsiClientFactory.loadSession(PsiClientSession.getFromServerSession(this.psiServerSession), psiStorageConfiguration);
+                this.psiClient.setConfiguration(new PsiThreadConfiguration(3, null, psiIntersectionEngine));
+
+                PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+                Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+                this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+                this.psiClient.loadAndProcessServerDataset(psiServer.encryptDataset(this.serverDataset));
+
+                Set<String> psiResult = this.psiClient.computePsi();
+                assertEquals(intersectionSize, psiResult.size());
+                assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+                this.psiClient.close();
+            }
+        }
+
+        PsiClientSession psiClientSession = PsiClientSession.getFromServerSession(this.psiServerSession);
+        PsiStorageConfiguration missingDirectoryConfiguration = new PsiStorageConfiguration(new File(scratchDirectory, "missing").getPath());
+        assertThrows(PsiClientException.class, () -> PsiClientFactory.loadSession(psiClientSession, missingDirectoryConfiguration));
+        assertThrows(PsiClientException.class, () -> PsiClientFactory.loadSession(psiClientSession, (PsiStorageConfiguration) null));
+    }
+
+    @Test
+    void computePsiWithStreamedDatasets() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+            log.info("Running client-server streamed test with {}", psiAlgorithmParameter);
+            initServerAndClient(psiAlgorithmParameter);
+            PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+
+            // Each encrypted chunk is sent to the server and loaded before the following chunk is read
+            List<Integer> chunkSizes = new ArrayList<>();
+            this.psiClient.loadAndEncryptClientDataset(this.clientDataset.iterator(), 7, chunk -> {
+                chunkSizes.add(chunk.size());
+                this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(chunk));
+            });
+            assertEquals(Arrays.asList(7, 7, 6), chunkSizes);
+            psiServer.encryptDataset(this.serverDataset.stream(), 7, chunk -> {
+                assertTrue(chunk.size() <= 7);
+                this.psiClient.loadAndProcessServerDataset(chunk);
+            });
+
+            Set<String> psiResult = this.psiClient.computePsi();
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+        }
+
+        PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+        assertThrows(IllegalArgumentException.class, () -> psiServer.encryptDataset(this.serverDataset.iterator(), 0, chunk -> {}));
+        assertThrows(IllegalArgumentException.class, () -> this.psiClient.loadAndEncryptClientDataset(this.clientDataset.stream(), 0, chunk -> {}));
+    }
+
+    @Test
+    void computePsiIncrementally() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        List<PsiAlgorithmParameter> psiAlgorithmParameters = new LinkedList<>();
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            psiAlgorithmParameters.add(new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0)));
+            PsiAlgorithmParameter fingerprintPsiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+            fingerprintPsiAlgorithmParameter.setFingerprintBits(32);
+            psiAlgorithmParameters.add(fingerprintPsiAlgorithmParameter);
+        }
+
+        for (PsiAlgorithmParameter psiAlgorithmParameter : psiAlgorithmParameters) {
+            log.info("Running client-server incremental test with {}", psiAlgorithmParameter);
+            initServerAndClient(psiAlgorithmParameter);
+            PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+            Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+            this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+
+            // The server dataset is probed twice, so that each matching value is found twice but only delivered once
+            List<String> psiResult = new ArrayList<>();
+            for (int i = 0; i < 2; i++)
+                psiServer.encryptDataset(this.serverDataset.iterator(), 7, chunk -> this.psiClient.loadAndProbeServerDataset(chunk, psiResult::add));
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, new HashSet<>(psiResult)));
+
+            // The probed server values are not stored, thus they are not compared by computePsi
+            assertTrue(this.psiClient.computePsi().isEmpty());
+        }
+    }
+
+    @Test
+    void computePsiWithSharedExecutor() throws UnsupportedKeySizeException, InterruptedException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        // A single executor with fewer threads than the partitions of each method is shared by concurrent sessions
+        AtomicInteger createdThreads = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(2, runnable -> {
+            createdThreads.incrementAndGet();
+            return new Thread(runnable);
+        });
+        PsiThreadConfiguration psiThreadConfiguration = new PsiThreadConfiguration(8);
+        psiThreadConfiguration.setExecutorService(executorService);
+        List<Set<String>> psiResults = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> sessionThreads = new ArrayList<>();
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+            PsiServerSession psiServerSession = PsiServerFactory.initSession(psiAlgorithmParameter);
+            PsiClient psiClient = PsiClientFactory.loadSession(PsiClientSession.getFromServerSession(psiServerSession));
+            PsiServer psiServer = PsiServerFactory.loadSession(psiServerSession);
+            psiClient.setConfiguration(psiThreadConfiguration);
+            psiServer.setConfiguration(psiThreadConfiguration);
+            Thread sessionThread = new Thread(() -> {
+                Map<Long, String> clientEncryptedDatasetMap = psiClient.loadAndEncryptClientDataset(this.clientDataset);
+                psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+                psiClient.loadAndProcessServerDataset(psiServer.encryptDataset(this.serverDataset));
+                psiResults.add(psiClient.computePsi());
+            });
+            sessionThread.start();
+            sessionThreads.add(sessionThread);
+        }
+        for (Thread sessionThread : sessionThreads)
+            sessionThread.join();
+
+        assertEquals(PsiAlgorithm.values().length, psiResults.size());
+        for (Set<String> psiResult : psiResults) {
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+        }
+        // The executor is not shut down by the sessions, and no other thread has been created for it
+        assertFalse(executorService.isShutdown());
+        assertEquals(2, createdThreads.get());
+        executorService.shutdown();
+    }
+
+    @Test
+    void computePsiAsync() throws UnsupportedKeySizeException, InterruptedException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        // A single asynchronous thread runs all the methods, which only wait for the phases run by the shared executor
+        AtomicInteger asyncThreads = new AtomicInteger();
+        ExecutorService asyncExecutorService = Executors.newFixedThreadPool(1, runnable -> {
+            asyncThreads.incrementAndGet();
+            return new Thread(runnable, "test-async");
+        });
+        PsiThreadConfiguration psiThreadConfiguration = new PsiThreadConfiguration(null);
+        psiThreadConfiguration.setAsyncExecutorService(asyncExecutorService);
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+            PsiServerSession psiServerSession = PsiServerFactory.initSession(psiAlgorithmParameter);
+            PsiClient psiClient = PsiClientFactory.loadSession(PsiClientSession.getFromServerSession(psiServerSession));
+            PsiServer psiServer = PsiServerFactory.loadSession(psiServerSession);
+            psiClient.setConfiguration(psiThreadConfiguration);
+            psiServer.setConfiguration(psiThreadConfiguration);
+
+            Set<String> psiResult = psiServer.encryptDatasetAsync(this.serverDataset)
+                    .thenCombine(psiClient.loadAndEncryptClientDatasetAsync(this.clientDataset)
+                            .thenCompose(psiServer::encryptDatasetMapAsync), (serverEncryptedDataset, doubleEncryptedClientDatasetMap) -> {
+                        psiClient.loadDoubleEncryptedClientDataset(doubleEncryptedClientDatasetMap);
+                        return serverEncryptedDataset;
+                    })
+                    .thenCompose(psiClient::loadAndProcessServerDatasetAsync)
+                    .thenCompose(v -> psiClient.computePsiAsync())
+                    .join();
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+        }
+        assertEquals(1, asyncThreads.get());
+        asyncExecutorService.shutdown();
+
+        // The failure of a thread is reported, instead of returning a partial result
+        PsiCacheProvider failingCache = new PsiCacheProvider() {
+            @Override
+            public Optional<String> get(String key) {
+                if (key.contains(CacheOperationType.PRIVATE_KEY_HASH_ENCRYPTION.toString()))
+                    throw new IllegalStateException("Cache unavailable");
+                return Optional.empty();
+            }
+
+            @Override
+            public void put(String key, String value) {
+            }
+        };
+        PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(PsiAlgorithm.DH, PsiAlgorithm.DH.getSupportedKeySize().get(0));
+        PsiServerSession psiServerSession = PsiServerFactory.initSession(psiAlgorithmParameter, failingCache);
+        PsiServer failingPsiServer = PsiServerFactory.loadSession(psiServerSession, failingCache);
+        assertThrows(CustomRuntimeException.class, () -> failingPsiServer.encryptDataset(this.serverDataset));
+        CompletionException completionException = assertThrows(CompletionException.class, () -> failingPsiServer.encryptDatasetAsync(this.serverDataset).join());
+        assertTrue(completionException.getCause() instanceof CustomRuntimeException);
+
+        // Once the future is cancelled, the threads stop taking new values
+        CountDownLatch cacheCalled = new CountDownLatch(1);
+        CountDownLatch cacheReleased = new CountDownLatch(1);
+        AtomicInteger cacheCalls = new AtomicInteger();
+        PsiCacheProvider blockingCache = new PsiCacheProvider() {
+            @Override
+            public Optional<String> get(String key) {
+                if (key.contains(CacheOperationType.PRIVATE_KEY_HASH_ENCRYPTION.toString())) {
+                    cacheCalls.incrementAndGet();
+                    cacheCalled.countDown();
+                    try {
+                        cacheReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return Optional.empty();
+            }
+
+            @Override
+            public void put(String key, String value) {
+            }
+        };
+        // Dedicated executors, whose termination shows that the method and the threads of its phase have returned
+        ExecutorService blockedAsyncExecutorService = Executors.newSingleThreadExecutor();
+        ExecutorService blockedExecutorService = Executors.newFixedThreadPool(2);
+        PsiThreadConfiguration blockedPsiThreadConfiguration = new PsiThreadConfiguration(2);
+        blockedPsiThreadConfiguration.setExecutorService(blockedExecutorService);
+        blockedPsiThreadConfiguration.setAsyncExecutorService(blockedAsyncExecutorService);
+        psiServerSession = PsiServerFactory.initSession(psiAlgorithmParameter, blockingCache);
+        PsiServer blockedPsiServer = PsiServerFactory.loadSession(psiServerSession, blockingCache);
+        blockedPsiServer.setConfiguration(blockedPsiThreadConfiguration);
+        CompletableFuture<Set<String>> future = blockedPsiServer.encryptDatasetAsync(this.serverDataset);
+        assertTrue(cacheCalled.await(60, TimeUnit.SECONDS));
+        assertTrue(future.cancel(true));
+        assertThrows(CancellationException.class, future::join);
+        // The method returns as soon as the phase is cancelled, while its threads are still waiting for the cache
+        blockedAsyncExecutorService.shutdown();
+        assertTrue(blockedAsyncExecutorService.awaitTermination(60, TimeUnit.SECONDS));
+        cacheReleased.countDown();
+        blockedExecutorService.shutdown();
+        assertTrue(blockedExecutorService.awaitTermination(60, TimeUnit.SECONDS));
+        assertTrue(cacheCalls.get() < serverSize);
+    }
+
+    // Publisher of the elements of a collection, which records the largest number of elements requested at once
+    private static class CollectionPublisher<T> implements PsiFlow.Publisher<T> {
+        private final Iterator<T> iterator;
+        private final AtomicLong maxRequested = new AtomicLong();
+        private long demand;
+        private boolean emitting;
+        private boolean cancelled;
+
+        CollectionPublisher(Collection<T> collection) {
+            this.iterator = collection.iterator();
+        }
+
+        @Override
+        public void subscribe(PsiFlow.Subscriber<? super T> subscriber) {
+            subscriber.onSubscribe(new PsiFlow.Subscription() {
+                @Override
+                public void request(long n) {
+                    synchronized (CollectionPublisher.this) {
+                        maxRequested.accumulateAndGet(n, Math::max);
+                        demand += n;
+                        if (emitting)
+                            return;
+                        emitting = true;
+                    }
+                    while (true) {
+                        T next;
+                        synchronized (CollectionPublisher.this) {
+                            if (cancelled || demand == 0 || !iterator.hasNext()) {
+                                emitting = false;
+                                if (!cancelled && !iterator.hasNext()) {
+                                    cancelled = true;
+                                    break;
+                                }
+                                return;
+                            }
+                            demand--;
+                            next = iterator.next();
+                        }
+                        subscriber.onNext(next);
+                    }
+                    subscriber.onComplete();
+                }
+
+                @Override
+                public void cancel() {
+                    synchronized (CollectionPublisher.this) {
+                        cancelled = true;
+                    }
+                }
+            });
+        }
+    }
+
+    // Subscriber that requests one element at a time and collects them
+    private static class CollectingSubscriber<T> implements PsiFlow.Subscriber<T> {
+        private final List<T> items = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private PsiFlow.Subscription subscription;
+        private volatile Throwable failure;
+
+        @Override
+        public void onSubscribe(PsiFlow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(T item) {
+            this.items.add(item);
+            this.subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.failure = throwable;
+            this.terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.terminated.countDown();
+        }
+
+        List<T> await() throws InterruptedException {
+            assertTrue(this.terminated.await(60, TimeUnit.SECONDS));
+            assertNull(this.failure);
+            return this.items;
+        }
+    }
+
+    @Test
+    void computePsiWithProcessors() throws UnsupportedKeySizeException, InterruptedException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+            PsiServerSession psiServerSession = PsiServerFactory.initSession(psiAlgorithmParameter);
+            PsiClient psiClient = PsiClientFactory.loadSession(PsiClientSession.getFromServerSession(psiServerSession));
+            PsiServer psiServer = PsiServerFactory.loadSession(psiServerSession);
+
+            // The client dataset flows through the client and server encryptions, which request at most a batch at once
+            CollectionPublisher<String> clientPublisher = new CollectionPublisher<>(this.clientDataset);
+            PsiFlow.Processor<String, Map.Entry<Long, String>> clientProcessor = psiClient.loadAndEncryptClientDatasetProcessor(7);
+            PsiFlow.Processor<Map.Entry<Long, String>, Map.Entry<Long, String>> serverMapProcessor = psiServer.encryptDatasetMapProcessor(5);
+            CollectingSubscriber<Map.Entry<Long, String>> doubleEncryptedSubscriber = new CollectingSubscriber<>();
+            clientProcessor.subscribe(serverMapProcessor);
+            serverMapProcessor.subscribe(doubleEncryptedSubscriber);
+            clientPublisher.subscribe(clientProcessor);
+            Map<Long, String> doubleEncryptedClientDatasetMap = new HashMap<>();
+            for (Map.Entry<Long, String> entry : doubleEncryptedSubscriber.await())
+                doubleEncryptedClientDatasetMap.put(entry.getKey(), entry.getValue());
+            assertEquals(clientSize, doubleEncryptedClientDatasetMap.size());
+            assertEquals(7, clientPublisher.maxRequested.get());
+            psiClient.loadDoubleEncryptedClientDataset(doubleEncryptedClientDatasetMap);
+
+            // The server dataset flows through the server encryption and the client probe
+            CollectionPublisher<String> serverPublisher = new CollectionPublisher<>(this.serverDataset);
+            PsiFlow.Processor<String, String> serverProcessor = psiServer.encryptDatasetProcessor(6);
+            PsiFlow.Processor<String, String> probeProcessor = psiClient.loadAndProbeServerDatasetProcessor(4);
+            CollectingSubscriber<String> psiSubscriber = new CollectingSubscriber<>();
+            serverProcessor.subscribe(probeProcessor);
+            probeProcessor.subscribe(psiSubscriber);
+            serverPublisher.subscribe(serverProcessor);
+            Set<String> psiResult = new HashSet<>(psiSubscriber.await());
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+            assertEquals(6, serverPublisher.maxRequested.get());
+        }
+
+        PsiServer psiServer = PsiServerFactory.loadSession(PsiServerFactory.initSession(new PsiAlgorithmParameter(PsiAlgorithm.DH, PsiAlgorithm.DH.getSupportedKeySize().get(0))));
+        assertThrows(IllegalArgumentException.class, () -> psiServer.encryptDatasetProcessor(0));
+    }
+
+    @Test
+    void computePsiWithVirtualThreads() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        // Many more threads than the available processors, which mostly wait for the cache
+        PsiThreadConfiguration psiThreadConfiguration = new PsiThreadConfiguration(64);
+        psiThreadConfiguration.setVirtualThreads(true);
+        Set<String> cacheThreadNames = ConcurrentHashMap.newKeySet();
+        PsiCacheProviderImplementation cache = new PsiCacheProviderImplementation();
+        PsiCacheProvider slowCache = new PsiCacheProvider() {
+            @Override
+            public Optional<String> get(String key) {
+                cacheThreadNames.add(Thread.currentThread().getName());
+                sleep();
+                return cache.get(key);
+            }
+
+            @Override
+            public void put(String key, String value) {
+                sleep();
+                cache.put(key, value);
+            }
+
+            private void sleep() {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+            PsiServerSession psiServerSession = PsiServerFactory.initSession(psiAlgorithmParameter, slowCache);
+            PsiClient psiClient = PsiClientFactory.loadSession(PsiClientSession.getFromServerSession(psiServerSession), slowCache);
+            PsiServer psiServer = PsiServerFactory.loadSession(psiServerSession, slowCache);
+            if (!VirtualThreads.isSupported()) {
+                // Before Java 21 the configuration is rejected
+                assertThrows(PsiClientException.class, () -> psiClient.setConfiguration(psiThreadConfiguration));
+                assertThrows(PsiServerException.class, () -> psiServer.setConfiguration(psiThreadConfiguration));
+                continue;
+            }
+            psiClient.setConfiguration(psiThreadConfiguration);
+            psiServer.setConfiguration(psiThreadConfiguration);
+
+            Map<Long, String> clientEncryptedDatasetMap = psiClient.loadAndEncryptClientDataset(this.clientDataset);
+            psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+            psiClient.loadAndProcessServerDataset(psiServer.encryptDataset(this.serverDataset));
+            Set<String> psiResult = psiClient.computePsi();
+            assertEquals(intersectionSize, psiResult.size());
+            assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+            assertTrue(cacheThreadNames.contains("psi-virtual-thread"));
+        }
+    }
+
+    // Worker that serializes and deserializes each shard, as happens when it is sent to a different process
+    private static Set<Long> intersectSerializedShard(PsiShard psiShard) {
+        try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+                objectOutputStream.writeObject(psiShard);
+            }
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+                return PsiShardWorker.LOCAL.intersect((PsiShard) objectInputStream.readObject());
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void computePsiWithShards() throws UnsupportedKeySizeException {
+        long serverSize = 30;
+        long clientSize = 20;
+        long intersectionSize = 10;
+        initDatasets(serverSize, clientSize, intersectionSize);
+
+        Set<Integer> shardIndexes = ConcurrentHashMap.newKeySet();
+        PsiShardWorker countingWorker = psiShard -> {
+            assertEquals(7, psiShard.getShards());
+            shardIndexes.add(psiShard.getShardIndex());
+            return PsiShardWorker.LOCAL.intersect(psiShard);
+        };
+        for (PsiAlgorithm psiAlgorithm : PsiAlgorithm.values()) {
+            PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(psiAlgorithm, psiAlgorithm.getSupportedKeySize().get(0));
+            for (PsiShardWorker psiShardWorker : new PsiShardWorker[]{countingWorker, ClientServerBasicTest::intersectSerializedShard}) {
+                log.info("Running client-server sharded test with {}", psiAlgorithmParameter);
+                initServerAndClient(psiAlgorithmParameter);
+                this.psiClient.setConfiguration(new PsiThreadConfiguration(3));
+                this.psiClient.setShardConfiguration(7, psiShardWorker);
+
+                PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+                Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+                this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+                this.psiClient.loadAndProcessServerDataset(psiServer.encryptDataset(this.serverDataset));
+
+                Set<String> psiResult = this.psiClient.computePsi();
+                assertEquals(intersectionSize, psiResult.size());
+                assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+            }
+        }
+        // Every shard is passed to the worker, even if it is empty
+        assertEquals(7, shardIndexes.size());
+
+        // The client values contained in the filter are matched without being sharded
+        initServerAndClient(new PsiAlgorithmParameter(PsiAlgorithm.ECBS, 256));
+        this.psiClient.setShardConfiguration(1, PsiShardWorker.LOCAL);
+        PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
+        Map<Long, String> clientEncryptedDatasetMap = this.psiClient.loadAndEncryptClientDataset(this.clientDataset);
+        this.psiClient.loadDoubleEncryptedClientDataset(psiServer.encryptDatasetMap(clientEncryptedDatasetMap));
+        this.psiClient.loadServerFilter(psiServer.encryptDatasetFilter(this.serverDataset, 1e-6));
+        Set<String> psiResult = this.psiClient.computePsi();
+        assertEquals(intersectionSize, psiResult.size());
+        assertTrue(PsiValidationHelper.validateResult(this.serverDataset, this.clientDataset, psiResult));
+
+        // The failures of the worker are reported by computePsi
+        this.psiClient.setShardConfiguration(2, psiShard -> {
+            throw new IllegalStateException("Worker not available");
+        });
+        assertThrows(PsiClientException.class, () -> this.psiClient.computePsi());
+        assertThrows(PsiClientException.class, () -> this.psiClient.setShardConfiguration(0, PsiShardWorker.LOCAL));
+        assertThrows(PsiClientException.class, () -> this.psiClient.setShardConfiguration(2, null));
+    }
+
     @Test
     void computePsiUnsupportedKeySizeTest() throws UnsupportedKeySizeException {
         List<PsiAlgorithmParameter> psiAlgorithmParameters = new LinkedList<>();
@@ -72,7 +72,7 @@ class ClientServerCacheTest {
         initDatasets(serverSize, clientSize, intersectionSize);
 
         List<PsiAlgorithmParameter> supportedPsiAlgorithmParameter = PsiAlgorithm.getSupportedPsiAlgorithmParameter();
-        assertEquals(16, supportedPsiAlgorithmParameter.size());
+        assertEquals(20, supportedPsiAlgorithmParameter.size());
 
         for (PsiAlgorithmParameter psiAlgorithmParameter : supportedPsiAlgorithmParameter) {
             log.info("Running client-server cache test with {}", psiAlgorithmParameter);
@@ -119,7 +119,8 @@ class ClientServerCacheTest {
             }
 
             // The number of element stored into the cache depends on the algorithm involved
-            if(psiAlgorithmParameter.getAlgorithm().equals(PsiAlgorithm.DH) || psiAlgorithmParameter.getAlgorithm().equals(PsiAlgorithm.ECDH))
+            if(psiAlgorithmParameter.getAlgorithm().equals(PsiAlgorithm.DH) || psiAlgorithmParameter.getAlgorithm().equals(PsiAlgorithm.ECDH)
+                    || psiAlgorithmParameter.getAlgorithm().equals(PsiAlgorithm.ECDH25519))
                 assertEquals(1 + clientSize + serverSize, this.clientCache.size());
             else
                 assertEquals(1 + clientSize * 2, this.clientCache.size());
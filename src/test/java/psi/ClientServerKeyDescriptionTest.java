@@ -76,7 +76,7 @@ class ClientServerKeyDescriptionTest {
         initDatasets(serverSize, clientSize, intersectionSize);
 
         List<PsiAlgorithmParameter> supportedPsiAlgorithmParameter = PsiAlgorithm.getSupportedPsiAlgorithmParameter();
-        assertEquals(16, supportedPsiAlgorithmParameter.size());
+        assertEquals(20, supportedPsiAlgorithmParameter.size());
 
         for (PsiAlgorithmParameter psiAlgorithmParameter : supportedPsiAlgorithmParameter) {
             log.info("Running client-server external key test with {}", psiAlgorithmParameter);
@@ -90,6 +90,9 @@ class ClientServerKeyDescriptionTest {
             assertEquals(this.psiServerSession.getPsiServerKeyDescription().getGenerator(), this.psiServerKeyDescription.getGenerator());
             assertEquals(this.psiServerSession.getPsiServerKeyDescription().getEcPrivateD(), this.psiServerKeyDescription.getEcPrivateD());
             assertEquals(this.psiServerSession.getPsiServerKeyDescription().getEcPublicQ(), this.psiServerKeyDescription.getEcPublicQ());
+            assertEquals(this.psiServerSession.getPsiServerKeyDescription().getPrimeP(), this.psiServerKeyDescription.getPrimeP());
+            assertEquals(this.psiServerSession.getPsiServerKeyDescription().getPrimeQ(), this.psiServerKeyDescription.getPrimeQ());
+            assertEquals(this.psiServerSession.getPsiServerKeyDescription().getCrtCoefficient(), this.psiServerKeyDescription.getCrtCoefficient());
 
             // Get server instance
             PsiServer psiServer = PsiServerFactory.loadSession(this.psiServerSession);
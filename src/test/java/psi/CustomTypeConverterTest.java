@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import psi.model.PsiAlgorithm;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -67,7 +69,7 @@ class CustomTypeConverterTest {
 
     @Test
     void ecPointConversionTest(){
-        AsymmetricKeyFactory.AsymmetricEcKey asymmetricEcKey = AsymmetricKeyFactory.generateEcKey(PsiAlgorithm.ECBS, 512);
+        AsymmetricKeyFactory.AsymmetricEcKey asymmetricEcKey = AsymmetricKeyFactory.generateEcKey(PsiAlgorithm.ECBS, EllipticCurve.getNameCurve(512));
         EllipticCurve ellipticCurve = new EllipticCurve(CustomTypeConverter.convertKeySizeToECParameterSpec(512));
 
         ECPoint ecPoint = EllipticCurve.multiply(ellipticCurve.mapMessage(BigInteger.TEN), asymmetricEcKey.privateD);
@@ -78,6 +80,23 @@ class CustomTypeConverterTest {
         assertEquals(ecPoint, convertedECPoint);
     }
 
+    @Test
+    void ecPointBatchNormalizationTest(){
+        EllipticCurve ellipticCurve = new EllipticCurve(CustomTypeConverter.convertKeySizeToECParameterSpec(384));
+        AsymmetricKeyFactory.AsymmetricEcKey asymmetricEcKey = AsymmetricKeyFactory.generateEcKey(PsiAlgorithm.ECDH, EllipticCurve.getNameCurve(384));
+
+        List<ECPoint> ecPoints = new ArrayList<>();
+        for(int i = 0; i < 10; i++)
+            ecPoints.add(EllipticCurve.multiply(ellipticCurve.mapMessage(BigInteger.valueOf(i)), asymmetricEcKey.privateD));
+
+        ECPoint[] normalizedPoints = CustomTypeConverter.normalizeECPoints(ellipticCurve.getEcCurve(), ecPoints);
+        assertEquals(ecPoints.size(), normalizedPoints.length);
+        for(int i = 0; i < normalizedPoints.length; i++) {
+            assertTrue(normalizedPoints[i].isNormalized());
+            assertEquals(CustomTypeConverter.convertECPointToString(ecPoints.get(i)), CustomTypeConverter.convertECPointToString(normalizedPoints[i]));
+        }
+    }
+
     @Test
     void encodeDecodeTest(){
         // Testing on simple Object, as a String
@@ -0,0 +1,109 @@
+package psi;
+
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.Test;
+import psi.exception.CustomRuntimeException;
+import psi.model.PsiAlgorithm;
+import psi.model.PsiAlgorithmParameter;
+import psi.model.PsiEllipticCurve;
+import psi.model.PsiHashToCurveMode;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class that verifies the optimized operations of the EllipticCurve against the generic ones.
+ */
+class EllipticCurveTest {
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Test
+    void fixedPointMultiplierTest() {
+        for (PsiEllipticCurve curve : PsiEllipticCurve.values()) {
+            ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec(curve.getCurveName());
+            EllipticCurve ellipticCurve = new EllipticCurve(ecSpec);
+            ECPoint publicQ = ecSpec.getG().multiply(new BigInteger(ecSpec.getN().bitLength() - 1, this.secureRandom));
+            EcFixedPointMultiplier publicQMultiplier = new EcFixedPointMultiplier(publicQ);
+
+            for (int i = 0; i < 20; i++) {
+                BigInteger k = new BigInteger(ecSpec.getN().bitLength(), this.secureRandom).mod(ecSpec.getN());
+                assertEquals(ecSpec.getG().multiply(k).normalize(), ellipticCurve.getGeneratorMultiplier().multiply(k).normalize());
+                assertEquals(publicQ.multiply(k).normalize(), publicQMultiplier.multiply(k).normalize());
+            }
+        }
+    }
+
+    @Test
+    void fixedScalarMultiplierTest() {
+        for (PsiEllipticCurve curve : PsiEllipticCurve.values()) {
+            ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec(curve.getCurveName());
+            EllipticCurve ellipticCurve = new EllipticCurve(ecSpec);
+            BigInteger scalar = new BigInteger(ecSpec.getN().bitLength(), this.secureRandom).mod(ecSpec.getN());
+            EcFixedScalarMultiplier scalarMultiplier = ellipticCurve.getFixedScalarMultiplier(scalar);
+
+            for (int i = 0; i < 20; i++) {
+                ECPoint point = ellipticCurve.mapMessage(BigInteger.valueOf(i));
+                assertEquals(EllipticCurve.multiply(point, scalar).normalize(), scalarMultiplier.multiply(point).normalize());
+            }
+            assertTrue(ellipticCurve.getFixedScalarMultiplier(BigInteger.ZERO).multiply(ecSpec.getG()).isInfinity());
+            assertEquals(ecSpec.getG().normalize(), ellipticCurve.getFixedScalarMultiplier(BigInteger.ONE).multiply(ecSpec.getG()).normalize());
+        }
+    }
+
+    @Test
+    void curveNameTest() {
+        assertEquals("prime256v1", new EllipticCurve(CustomTypeConverter.convertKeySizeToECParameterSpec(256)).getName());
+        PsiAlgorithmParameter psiAlgorithmParameter = new PsiAlgorithmParameter(PsiAlgorithm.ECDH, 256);
+        assertEquals("prime256v1", new EllipticCurve(CustomTypeConverter.convertPsiAlgorithmParameterToECParameterSpec(psiAlgorithmParameter)).getName());
+        psiAlgorithmParameter.setCurve(PsiEllipticCurve.SECP256K1);
+        assertEquals("secp256k1", new EllipticCurve(CustomTypeConverter.convertPsiAlgorithmParameterToECParameterSpec(psiAlgorithmParameter)).getName());
+        assertEquals("secp224k1", new EllipticCurve(CustomTypeConverter.convertKeySizeToECParameterSpec(224)).getName());
+        assertThrows(CustomRuntimeException.class, () -> EllipticCurve.getNameCurve(255));
+        assertThrows(CustomRuntimeException.class, () -> EllipticCurve.getNameCurve(257));
+    }
+
+    @Test
+    void mapMessageMatchesGenericMappingTest() {
+        for (PsiEllipticCurve curve : PsiEllipticCurve.values()) {
+            ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec(curve.getCurveName());
+            EllipticCurve ellipticCurve = new EllipticCurve(ecSpec);
+            for (int i = 0; i < 200; i++) {
+                BigInteger value = new BigInteger(ecSpec.getCurve().getFieldSize() - 8, this.secureRandom);
+                assertArrayEquals(ellipticCurve.mapMessageGeneric(value).getEncoded(true), ellipticCurve.mapMessage(value).getEncoded(true));
+            }
+            assertArrayEquals(ellipticCurve.mapMessageGeneric(BigInteger.ZERO).getEncoded(true), ellipticCurve.mapMessage(BigInteger.ZERO).getEncoded(true));
+        }
+    }
+
+    @Test
+    void hashToCurveTestVectorTest() {
+        // Test vector of RFC 9380 (appendix J.1.1), suite P256_XMD:SHA-256_SSWU_RO_, msg = ""
+        ECParameterSpec ecSpec = CustomTypeConverter.convertKeySizeToECParameterSpec(256);
+        EcHashToCurve ecHashToCurve = new EcHashToCurve(ecSpec.getCurve(), "prime256v1", "QUUX-V01-CS02-with-P256_XMD:SHA-256_SSWU_RO_");
+        ECPoint point = ecHashToCurve.hashToCurve(new byte[0]);
+        assertEquals(new BigInteger("2c15230b26dbc6fc9a37051158c95b79656e17a1a920b11394ca91c44247d3e4", 16), point.getAffineXCoord().toBigInteger());
+        assertEquals(new BigInteger("8a7a74985cc5c776cdfe4b1f19884970453912e9d31528c060be9ab5c43e8415", 16), point.getAffineYCoord().toBigInteger());
+    }
+
+    @Test
+    void hashToCurveModeTest() {
+        for (Integer keySize : new int[]{256, 384, 512}) {
+            ECParameterSpec ecSpec = CustomTypeConverter.convertKeySizeToECParameterSpec(keySize);
+            EllipticCurve ellipticCurve = new EllipticCurve(ecSpec, PsiHashToCurveMode.SSWU);
+            // Values larger than the prime of the curve are accepted
+            BigInteger largeValue = BigInteger.ONE.shiftLeft(1024).add(BigInteger.TEN);
+            ECPoint point = ellipticCurve.mapMessage(largeValue);
+            assertTrue(point.isValid());
+            assertEquals(point, ellipticCurve.mapMessage(largeValue));
+            assertNotEquals(point, ellipticCurve.mapMessage(BigInteger.TEN));
+            assertNotEquals(point, new EllipticCurve(ecSpec).mapMessage(BigInteger.TEN));
+        }
+        ECParameterSpec ecSpec224 = CustomTypeConverter.convertKeySizeToECParameterSpec(224);
+        assertThrows(CustomRuntimeException.class, () -> new EllipticCurve(ecSpec224, PsiHashToCurveMode.SSWU));
+    }
+}
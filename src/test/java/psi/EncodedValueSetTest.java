@@ -0,0 +1,70 @@
+package psi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import psi.exception.PsiClientException;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class that verifies that the EncodedValueSet behaves as a Set of the String representations of the values, with
+ * both the heap and the memory-mapped WorkingStorage.
+ */
+class EncodedValueSetTest {
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    // Values of at least 128 bits, so that two random values, or a value and the extension of another one, never collide
+    private String randomValue() {
+        return CustomTypeConverter.convertBigIntegerToString(new BigInteger(128 + this.secureRandom.nextInt(1920), this.secureRandom));
+    }
+
+    @Test
+    void addAndContainsTest(@TempDir File scratchDirectory) {
+        // The hash is SipHash-2-4, as in its reference vectors, keyed by a random key chosen for each set
+        assertEquals(0x726fdb47dd0e0e31L, SipHash.hash(0x0706050403020100L, 0x0f0e0d0c0b0a0908L, ""));
+        assertEquals(0x74f839c593dc67fdL, SipHash.hash(0x0706050403020100L, 0x0f0e0d0c0b0a0908L, "\u0000"));
+        assertEquals(0x93f5f5799a932462L, SipHash.hash(0x0706050403020100L, 0x0f0e0d0c0b0a0908L, "\u0000\u0001\u0002\u0003\u0004\u0005\u0006\u0007"));
+        assertNotEquals(new EncodedValueSet().hash("value"), new EncodedValueSet().hash("value"));
+
+        addAndContains(WorkingStorage.HEAP);
+        WorkingStorage workingStorage = WorkingStorage.memoryMapped(scratchDirectory);
+        addAndContains(workingStorage);
+        // Once closed, the storage rejects new slabs, while the existing ones remain valid until garbage collected
+        workingStorage.close();
+        assertThrows(PsiClientException.class, () -> workingStorage.allocateBytes(1));
+    }
+
+    private void addAndContains(WorkingStorage workingStorage) {
+        EncodedValueSet encodedValueSet = new EncodedValueSet(workingStorage);
+        Set<String> values = new HashSet<>();
+        // Enough values of different lengths to fill several pages and resize the table multiple times
+        for (int i = 0; i < 20000; i++) {
+            String value = randomValue();
+            values.add(value);
+            encodedValueSet.add(value);
+            // The index is also built while the values are being added, to verify that it is extended correctly
+            if (i % 7000 == 0)
+                encodedValueSet.buildIndex();
+        }
+        values.forEach(encodedValueSet::add);
+        encodedValueSet.buildIndex();
+        assertEquals(20000 + values.size(), encodedValueSet.size());
+        for (String value : values) {
+            assertTrue(encodedValueSet.contains(value));
+            // A value extending a contained one is not contained
+            assertFalse(encodedValueSet.contains(value + "\u0000"));
+        }
+        assertFalse(encodedValueSet.contains(""));
+        encodedValueSet.add("");
+        encodedValueSet.buildIndex();
+        assertTrue(encodedValueSet.contains(""));
+    }
+
+}
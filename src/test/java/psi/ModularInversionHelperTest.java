@@ -0,0 +1,41 @@
+package psi;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test class that verifies that the batch modular inversion matches the inversion of each single value.
+ */
+class ModularInversionHelperTest {
+
+    @Test
+    void batchModInverseTest() {
+        SecureRandom secureRandom = new SecureRandom();
+        BigInteger modulus = BigInteger.probablePrime(1024, secureRandom).multiply(BigInteger.probablePrime(1024, secureRandom));
+
+        List<BigInteger> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            values.add(new BigInteger(2048, secureRandom));
+
+        List<BigInteger> inverses = ModularInversionHelper.batchModInverse(values, modulus);
+        assertEquals(values.size(), inverses.size());
+        for (int i = 0; i < values.size(); i++)
+            assertEquals(values.get(i).modInverse(modulus), inverses.get(i));
+
+        assertEquals(Collections.singletonList(values.get(0).modInverse(modulus)),
+                ModularInversionHelper.batchModInverse(values.subList(0, 1), modulus));
+        assertEquals(0, ModularInversionHelper.batchModInverse(Collections.emptyList(), modulus).size());
+
+        // A value that is not invertible should raise the same exception of modInverse
+        values.set(50, modulus.multiply(BigInteger.valueOf(3)));
+        assertThrows(ArithmeticException.class, () -> ModularInversionHelper.batchModInverse(values, modulus));
+    }
+}
@@ -0,0 +1,87 @@
+package psi;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+import psi.exception.CustomRuntimeException;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class that verifies the ristretto255 group against the test vectors of RFC 9496 and the optimized
+ * multiplications against the generic one.
+ */
+class Ristretto255Test {
+
+    // Encodings of the multiples B, 2B, 3B and 4B of the generator (RFC 9496, Appendix A.1)
+    private static final String[] GENERATOR_MULTIPLES = {
+            "e2f2ae0a6abc4e71a884a961c500515f58e30b6aa582dd8db6a65945e08d2d76",
+            "6a493210f7499cd17fecb510ae0cea23a110e8d5b901f8acadd3095c73a3b919",
+            "94741f5d5d52755ece4f23f044ee27d5d1ea1e2bd196b462166b16152a9d0259",
+            "da80862773358b466ffadfe0b3293ab3d9fd53c5ea6c955358f568322daf6a57"
+    };
+
+    @Test
+    void encodingTest() {
+        assertArrayEquals(new byte[Ristretto255.ENCODING_LENGTH], Ristretto255.getIdentity().encode());
+
+        Ristretto255.Point multiple = Ristretto255.getGenerator();
+        for (int i = 0; i < GENERATOR_MULTIPLES.length; i++) {
+            BigInteger scalar = BigInteger.valueOf(i + 1L);
+            assertEquals(GENERATOR_MULTIPLES[i], Hex.toHexString(multiple.encode()));
+            assertEquals(GENERATOR_MULTIPLES[i], Hex.toHexString(Ristretto255.getGenerator().multiply(scalar).encode()));
+            assertEquals(GENERATOR_MULTIPLES[i], Hex.toHexString(Ristretto255.getGeneratorMultiplier().multiply(scalar).encode()));
+            assertEquals(multiple, Ristretto255.decode(multiple.encode()));
+            assertEquals(GENERATOR_MULTIPLES[i], Hex.toHexString(Ristretto255.Point.fromCoordinates(multiple.toCoordinates()).encode()));
+            multiple = multiple.add(Ristretto255.getGenerator());
+        }
+
+        assertTrue(Ristretto255.getGenerator().multiply(Ristretto255.ORDER).isIdentity());
+        assertTrue(Ristretto255.getGenerator().subtract(Ristretto255.getGenerator()).isIdentity());
+    }
+
+    @Test
+    void invalidEncodingTest() {
+        // Field element equal to p, most significant bit set, negative field element and non-square x^2
+        String[] invalidEncodings = {
+                "edffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f",
+                "0000000000000000000000000000000000000000000000000000000000000080",
+                "0100000000000000000000000000000000000000000000000000000000000000",
+                "26948d35ca62e643e26a83177332e6b6afeb9d08e4268b650f1f5bbd8d81d371"
+        };
+        for (String invalidEncoding : invalidEncodings)
+            assertThrows(CustomRuntimeException.class, () -> Ristretto255.decode(Hex.decode(invalidEncoding)));
+        assertThrows(CustomRuntimeException.class, () -> Ristretto255.decode(new byte[Ristretto255.ENCODING_LENGTH - 1]));
+    }
+
+    @Test
+    void fromUniformBytesTest() throws NoSuchAlgorithmException {
+        // First element derivation vector of RFC 9496, Appendix A.3
+        byte[] uniformBytes = MessageDigest.getInstance("SHA-512")
+                .digest("Ristretto is traditionally a short shot of espresso coffee".getBytes(StandardCharsets.UTF_8));
+        assertEquals("3066f82a1a747d45120d1740f14358531a8f04bbffe6a819f86dfe50f44a0a46",
+                Hex.toHexString(Ristretto255.fromUniformBytes(uniformBytes).encode()));
+    }
+
+    @Test
+    void multiplierTest() {
+        Ristretto255.Point publicQ = Ristretto255.getGeneratorMultiplier().multiply(Ristretto255.generateScalar());
+        Ristretto255.FixedPointMultiplier publicQMultiplier = new Ristretto255.FixedPointMultiplier(publicQ);
+        Ristretto255.FixedScalarMultiplier scalarMultiplier = new Ristretto255.FixedScalarMultiplier(Ristretto255.generateScalar());
+
+        for (int i = 0; i < 20; i++) {
+            BigInteger k = Ristretto255.generateScalar();
+            Ristretto255.Point point = Ristretto255.hashToGroup(BigInteger.valueOf(i));
+            assertArrayEquals(publicQ.multiply(k).encode(), publicQMultiplier.multiply(k).encode());
+            assertArrayEquals(point.multiply(scalarMultiplier.getScalar()).encode(), scalarMultiplier.multiply(point).encode());
+            // Multiplications by a scalar and by its inverse cancel out
+            assertArrayEquals(point.encode(), point.multiply(k).multiply(k.modInverse(Ristretto255.ORDER)).encode());
+        }
+        assertTrue(publicQMultiplier.multiply(BigInteger.ZERO).isIdentity());
+        assertArrayEquals(Ristretto255.hashToGroup(BigInteger.TEN).encode(), Ristretto255.hashToGroup(BigInteger.TEN).encode());
+    }
+}
@@ -0,0 +1,55 @@
+package psi;
+
+import org.junit.jupiter.api.Test;
+import psi.exception.PsiServerInitException;
+import psi.model.PsiAlgorithm;
+import psi.model.PsiAlgorithmParameter;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class that verifies that the CRT path of the RSA private operation matches the plain one.
+ */
+class RsaPrivateExponentiationTest {
+
+    @Test
+    void crtMatchesPlainExponentiation() {
+        PsiServerKeyDescription keyDescription = AsymmetricKeyFactory.generateServerKeyDescription(new PsiAlgorithmParameter(PsiAlgorithm.BS, 2048));
+        assertNotNull(keyDescription.getPrimeP());
+        assertNotNull(keyDescription.getCrtCoefficient());
+
+        RsaPrivateExponentiation crtExponentiation = RsaPrivateExponentiation.fromServerKeyDescription(keyDescription);
+        RsaPrivateExponentiation plainExponentiation = RsaPrivateExponentiation.fromServerKeyDescription(
+                PsiServerKeyDescriptionFactory.createBsServerKeyDescription(keyDescription.getPrivateExponent(),
+                        keyDescription.getPublicExponent(), keyDescription.getModulus()));
+        assertTrue(crtExponentiation.isCrtEnabled());
+        assertFalse(plainExponentiation.isCrtEnabled());
+
+        BigInteger modulus = CustomTypeConverter.convertStringToBigInteger(keyDescription.getModulus());
+        HashFactory hashFactory = new HashFactory(modulus);
+        SecureRandom secureRandom = new SecureRandom();
+        for (int i = 0; i < 50; i++) {
+            BigInteger value = new BigInteger(modulus.bitLength() - 1, secureRandom);
+            assertEquals(plainExponentiation.modPow(value), crtExponentiation.modPow(value));
+            // The full domain hash returns negative values, which should be handled in the same way
+            BigInteger hashedValue = hashFactory.hashFullDomain(value);
+            assertEquals(plainExponentiation.modPow(hashedValue), crtExponentiation.modPow(hashedValue));
+        }
+    }
+
+    @Test
+    void inconsistentCrtParametersAreRejected() {
+        PsiServerKeyDescription keyDescription = AsymmetricKeyFactory.generateServerKeyDescription(new PsiAlgorithmParameter(PsiAlgorithm.BS, 2048));
+        RsaPrivateExponentiation.validateCrtParameters(keyDescription);
+
+        keyDescription.setCrtCoefficient(null);
+        assertThrows(PsiServerInitException.class, () -> RsaPrivateExponentiation.validateCrtParameters(keyDescription));
+
+        keyDescription.setCrtCoefficient(keyDescription.getPrimeP());
+        keyDescription.setPrimeQ(keyDescription.getPrimeP());
+        assertThrows(PsiServerInitException.class, () -> RsaPrivateExponentiation.validateCrtParameters(keyDescription));
+    }
+}
@@ -0,0 +1,63 @@
+package psi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class that verifies that the SortMergeJoin and the ExternalSortMergeJoin return the keys of the client entries
+ * whose values are contained in the EncodedValueSet.
+ */
+class SortMergeJoinTest {
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    // Values of at least 128 bits, so that two random values, or a value and the extension of another one, never collide
+    private String randomValue() {
+        return CustomTypeConverter.convertBigIntegerToString(new BigInteger(128 + this.secureRandom.nextInt(1920), this.secureRandom));
+    }
+
+    @Test
+    void intersectTest(@TempDir File scratchDirectory) {
+        ExecutorService executorService = MultithreadingHelper.getSharedExecutorService();
+        EncodedValueSet encodedValueSet = new EncodedValueSet();
+        ChunkedColumn.OfBytes clientColumn = new ChunkedColumn.OfBytes(WorkingStorage.HEAP, 2048 / 8 + 1);
+        Set<Long> matchingKeys = new HashSet<>();
+        for (long key = 1; key <= 5000; key++) {
+            // Some keys are left without value, as happens for the entries not returned by the server
+            if (key % 5 == 0)
+                continue;
+            String value = randomValue();
+            clientColumn.put(key, CustomTypeConverter.convertStringToBytes(value));
+            if (key % 3 == 0) {
+                encodedValueSet.add(value);
+                matchingKeys.add(key);
+            }
+            else
+                encodedValueSet.add(randomValue());
+        }
+
+        for (int threads : new int[]{1, 4, 64}) {
+            assertEquals(matchingKeys, SortMergeJoin.intersect(clientColumn, 5000, null, encodedValueSet, executorService, threads, 60));
+            // The smallest budget splits the values of each thread in runs of 4096 keys, hence there are multiple runs
+            // when a single thread is used
+            assertEquals(matchingKeys, ExternalSortMergeJoin.intersect(clientColumn, 5000, null, encodedValueSet, WorkingStorage.HEAP, 1, executorService, threads, 60));
+            WorkingStorage workingStorage = WorkingStorage.memoryMapped(scratchDirectory);
+            assertEquals(matchingKeys, ExternalSortMergeJoin.intersect(clientColumn, 5000, null, encodedValueSet, workingStorage, 1 << 20, executorService, threads, 60));
+            workingStorage.close();
+        }
+        // The run files are deleted once the intersection has been computed
+        assertArrayEquals(new File[0], scratchDirectory.listFiles());
+        assertTrue(ExternalSortMergeJoin.intersect(clientColumn, 5000, null, new EncodedValueSet(), WorkingStorage.HEAP, 1, executorService, 4, 60).isEmpty());
+        assertTrue(SortMergeJoin.intersect(new ChunkedColumn.OfBytes(WorkingStorage.HEAP, 1), 0, null, encodedValueSet, executorService, 4, 60).isEmpty());
+        assertTrue(SortMergeJoin.intersect(clientColumn, 5000, null, new EncodedValueSet(), executorService, 4, 60).isEmpty());
+    }
+}